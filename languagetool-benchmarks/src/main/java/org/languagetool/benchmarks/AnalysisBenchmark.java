@@ -0,0 +1,73 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.AnalyzedTokenReadings;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the analysis stages that run before any rule is applied:
+ * sentence splitting, word tokenization, POS tagging and XML-based disambiguation.
+ * Each benchmark processes the whole corpus of the language.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalysisBenchmark {
+
+  @Benchmark
+  public List<String> sentenceTokenize(PipelineState state) {
+    return state.sentenceTokenizer.tokenize(state.text);
+  }
+
+  @Benchmark
+  public void wordTokenize(PipelineState state, Blackhole bh) {
+    for (String sentence : state.sentences) {
+      bh.consume(state.wordTokenizer.tokenize(sentence));
+    }
+  }
+
+  @Benchmark
+  public void tag(PipelineState state, Blackhole bh) throws IOException {
+    for (List<String> tokens : state.tokenizedSentences) {
+      List<AnalyzedTokenReadings> readings = state.language.getTagger().tag(tokens);
+      bh.consume(readings);
+    }
+  }
+
+  /**
+   * Disambiguation modifies the token readings, so every sentence is copied first.
+   * The copy is cheap compared to applying the disambiguation rules.
+   */
+  @Benchmark
+  public void disambiguate(PipelineState state, Blackhole bh) throws IOException {
+    for (AnalyzedSentence raw : state.rawSentences) {
+      bh.consume(state.disambiguator.disambiguate(raw.copy(raw)));
+    }
+  }
+
+}
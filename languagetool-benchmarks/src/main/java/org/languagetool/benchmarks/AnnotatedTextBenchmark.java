@@ -0,0 +1,107 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import org.languagetool.markup.AnnotatedText;
+import org.languagetool.markup.AnnotatedTextBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AnnotatedText#getOriginalTextPositionFor(int, boolean)} on a markup-heavy
+ * document, like an HTML mail with thousands of tags. {@code linearScan} is the lookup
+ * as implemented before the position index (a scan over a map of all mapping points),
+ * kept here as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnnotatedTextBenchmark {
+
+  private static final int LOOKUPS = 1000;
+
+  @Param({"100", "10000"})
+  public int markupParts;
+
+  private AnnotatedText text;
+  private Map<Integer, Integer> baselineMapping;
+  private int[] positions;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    AnnotatedTextBuilder builder = new AnnotatedTextBuilder();
+    baselineMapping = new HashMap<>();
+    int plainPos = 0;
+    int totalPos = 0;
+    for (int i = 0; i < markupParts; i++) {
+      String word = "Word" + i + " ";
+      builder.addText(word);
+      builder.addMarkup("<span class='x'>");
+      plainPos += word.length();
+      totalPos += word.length();
+      baselineMapping.put(plainPos, totalPos);
+      totalPos += "<span class='x'>".length();
+    }
+    text = builder.build();
+    positions = new int[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      positions[i] = (int) ((long) i * (plainPos - 1) / LOOKUPS);
+    }
+  }
+
+  @Benchmark
+  public int positionIndex() {
+    int sum = 0;
+    for (int pos : positions) {
+      sum += text.getOriginalTextPositionFor(pos, false);
+      sum += text.getOriginalTextPositionFor(pos + 1, true);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int linearScan() {
+    int sum = 0;
+    for (int pos : positions) {
+      sum += linearScanLookup(pos);
+      sum += linearScanLookup(pos + 1);
+    }
+    return sum;
+  }
+
+  private int linearScanLookup(int plainTextPosition) {
+    int minDiff = Integer.MAX_VALUE;
+    Integer bestMatch = null;
+    for (Map.Entry<Integer, Integer> entry : baselineMapping.entrySet()) {
+      int diff = entry.getKey() - plainTextPosition;
+      if (diff > 0 && diff < minDiff) {
+        bestMatch = entry.getValue();
+        minDiff = diff;
+      }
+    }
+    return bestMatch - minDiff;
+  }
+
+}
@@ -0,0 +1,51 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import org.languagetool.Language;
+import org.languagetool.tools.StringTools;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+
+/**
+ * Access to the fixed text corpora shipped with this module. The corpora must not be
+ * changed once benchmark results have been published, as results are only comparable
+ * when they have been measured on the same text.
+ */
+final class BenchmarkCorpus {
+
+  private static final String CORPUS_DIR = "/org/languagetool/benchmarks/corpus/";
+
+  private BenchmarkCorpus() {
+  }
+
+  /**
+   * @return the corpus text for the language, e.g. the content of {@code corpus/de.txt} for any German variant
+   */
+  static String load(Language lang) throws IOException {
+    String path = CORPUS_DIR + lang.getShortCode() + ".txt";
+    try (InputStream stream = BenchmarkCorpus.class.getResourceAsStream(path)) {
+      Objects.requireNonNull(stream, "No benchmark corpus found in classpath at " + path);
+      return StringTools.readStream(stream, "utf-8");
+    }
+  }
+
+}
@@ -0,0 +1,108 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.language.AmericanEnglish;
+import org.languagetool.tagging.Tagger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the analysis of sentences ({@link JLanguageTool#getRawAnalyzedSentence}) scales
+ * when all threads share one {@link Language}, as they do in the server. The analysis gets the
+ * tokenizer, tagger, chunker and disambiguator from the language for every sentence.
+ * The {@code synchronizedGetTagger*} benchmarks lock the language on every access,
+ * like its getters did before they became lock-free, and serve as a baseline.
+ * Run with at least 32 cores to see the difference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LanguageComponentsBenchmark {
+
+  private Language language;
+  private JLanguageTool lt;
+  private List<String> sentences;
+
+  @State(Scope.Thread)
+  public static class Position {
+    int next;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    language = new AmericanEnglish();
+    lt = new JLanguageTool(language);
+    sentences = lt.sentenceTokenize(BenchmarkCorpus.load(language));
+  }
+
+  private String nextSentence(Position position) {
+    String sentence = sentences.get(position.next);
+    position.next = (position.next + 1) % sentences.size();
+    return sentence;
+  }
+
+  @Benchmark
+  @Threads(1)
+  public AnalyzedSentence analyze1Thread(Position position) throws IOException {
+    return lt.getRawAnalyzedSentence(nextSentence(position));
+  }
+
+  @Benchmark
+  @Threads(8)
+  public AnalyzedSentence analyze8Threads(Position position) throws IOException {
+    return lt.getRawAnalyzedSentence(nextSentence(position));
+  }
+
+  @Benchmark
+  @Threads(32)
+  public AnalyzedSentence analyze32Threads(Position position) throws IOException {
+    return lt.getRawAnalyzedSentence(nextSentence(position));
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Tagger getTagger1Thread() {
+    return language.getTagger();
+  }
+
+  @Benchmark
+  @Threads(32)
+  public Tagger getTagger32Threads() {
+    return language.getTagger();
+  }
+
+  @Benchmark
+  @Threads(32)
+  public Tagger synchronizedGetTagger32Threads() {
+    synchronized (language) {
+      return language.getTagger();
+    }
+  }
+
+}
@@ -0,0 +1,116 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import org.languagetool.*;
+import org.languagetool.markup.AnnotatedText;
+import org.languagetool.markup.AnnotatedTextBuilder;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.TextLevelRule;
+import org.languagetool.rules.patterns.AbstractPatternRule;
+import org.languagetool.rules.patterns.RuleSet;
+import org.languagetool.rules.spelling.SpellingCheckRule;
+import org.languagetool.tagging.disambiguation.rules.XmlRuleDisambiguator;
+import org.languagetool.tokenizers.SentenceTokenizer;
+import org.languagetool.tokenizers.Tokenizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Shared benchmark state: one {@link JLanguageTool} per language plus the intermediate
+ * results of every pipeline stage, so that each stage can be measured in isolation
+ * on the output of the previous one.
+ */
+@State(Scope.Benchmark)
+public class PipelineState {
+
+  @Param({"en-US", "de-DE", "fr", "uk"})
+  public String lang;
+
+  Language language;
+  JLanguageTool lt;
+  AnnotatedText annotatedText;
+  String text;
+
+  SentenceTokenizer sentenceTokenizer;
+  Tokenizer wordTokenizer;
+  XmlRuleDisambiguator disambiguator;
+  RuleSet ruleSet;
+  List<AbstractPatternRule> patternRules;
+  List<SpellingCheckRule> spellingRules;
+
+  List<String> sentences;
+  List<List<String>> tokenizedSentences;
+  List<AnalyzedSentence> rawSentences;
+  List<AnalyzedSentence> analyzedSentences;
+  List<RuleMatch> unfilteredMatches;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    language = Languages.getLanguageForShortCode(lang);
+    lt = new JLanguageTool(language);
+    text = BenchmarkCorpus.load(language);
+    annotatedText = new AnnotatedTextBuilder().addText(text).build();
+    sentenceTokenizer = language.getSentenceTokenizer();
+    wordTokenizer = language.getWordTokenizer();
+    disambiguator = new XmlRuleDisambiguator(language);
+    List<Rule> activeRules = lt.getAllActiveRules();
+    ruleSet = RuleSet.textLemmaHinted(activeRules);
+    patternRules = activeRules.stream()
+      .filter(rule -> rule instanceof AbstractPatternRule)
+      .map(rule -> (AbstractPatternRule) rule)
+      .collect(Collectors.toList());
+    spellingRules = activeRules.stream()
+      .filter(rule -> rule instanceof SpellingCheckRule)
+      .map(rule -> (SpellingCheckRule) rule)
+      .collect(Collectors.toList());
+
+    sentences = lt.sentenceTokenize(text);
+    tokenizedSentences = new ArrayList<>();
+    rawSentences = new ArrayList<>();
+    analyzedSentences = new ArrayList<>();
+    for (String sentence : sentences) {
+      tokenizedSentences.add(wordTokenizer.tokenize(sentence));
+      rawSentences.add(lt.getRawAnalyzedSentence(sentence));
+      analyzedSentences.add(lt.getAnalyzedSentence(sentence));
+    }
+    // matches are shifted to text positions like in JLanguageTool, so the filters
+    // only see overlaps that exist in the text:
+    unfilteredMatches = new ArrayList<>();
+    int charCount = 0;
+    for (int i = 0; i < analyzedSentences.size(); i++) {
+      AnalyzedSentence sentence = analyzedSentences.get(i);
+      for (Rule rule : ruleSet.rulesForSentence(sentence)) {
+        if (rule instanceof TextLevelRule) {
+          continue;
+        }
+        for (RuleMatch match : rule.match(sentence)) {
+          unfilteredMatches.add(lt.adjustRuleMatchPos(match, charCount, 0, 0, sentences.get(i), annotatedText));
+        }
+      }
+      charCount += sentences.get(i).length();
+    }
+  }
+
+}
@@ -0,0 +1,85 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.rules.CleanOverlappingFilter;
+import org.languagetool.rules.LanguageDependentFilter;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.SameRuleGroupFilter;
+import org.languagetool.rules.patterns.AbstractPatternRule;
+import org.languagetool.rules.spelling.SpellingCheckRule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the rule stages of the pipeline: selecting the rules for a sentence,
+ * matching pattern rules (via {@code PatternRuleMatcher}), spell checking and filtering
+ * the resulting matches. All benchmarks work on the already analyzed corpus.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleBenchmark {
+
+  @Benchmark
+  public void rulesForSentence(PipelineState state, Blackhole bh) {
+    for (AnalyzedSentence sentence : state.analyzedSentences) {
+      bh.consume(state.ruleSet.rulesForSentence(sentence));
+    }
+  }
+
+  @Benchmark
+  public void patternRules(PipelineState state, Blackhole bh) throws IOException {
+    for (AnalyzedSentence sentence : state.analyzedSentences) {
+      for (AbstractPatternRule rule : state.patternRules) {
+        bh.consume(rule.match(sentence));
+      }
+    }
+  }
+
+  @Benchmark
+  public void spellingRules(PipelineState state, Blackhole bh) throws IOException {
+    for (AnalyzedSentence sentence : state.analyzedSentences) {
+      for (SpellingCheckRule rule : state.spellingRules) {
+        bh.consume(rule.match(sentence));
+      }
+    }
+  }
+
+  /**
+   * Runs the same filter chain as {@code JLanguageTool.filterMatches()} on the
+   * unfiltered sentence-level matches of the corpus, at their positions in the text.
+   */
+  @Benchmark
+  public List<RuleMatch> filterMatches(PipelineState state) {
+    List<RuleMatch> matches = new ArrayList<>(state.unfilteredMatches);
+    matches = new SameRuleGroupFilter().filter(matches);
+    matches = new CleanOverlappingFilter(state.language, false).filter(matches);
+    return new LanguageDependentFilter(state.language, state.ruleSet).filter(matches);
+  }
+
+}
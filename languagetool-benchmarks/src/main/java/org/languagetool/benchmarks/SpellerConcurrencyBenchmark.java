@@ -0,0 +1,112 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.benchmarks;
+
+import org.languagetool.language.AmericanEnglish;
+import org.languagetool.rules.spelling.morfologik.MorfologikSpeller;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how {@link MorfologikSpeller} scales when one instance is shared by several
+ * threads, as it is by the pipelines of the server. The {@code synchronized*} benchmarks
+ * serialize all calls on the speller, like the speller did before it kept its state per thread,
+ * and serve as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpellerConcurrencyBenchmark {
+
+  private static final String DICT = "/en/hunspell/en_US.dict";
+
+  private MorfologikSpeller speller;
+  private String[] words;
+
+  @State(Scope.Thread)
+  public static class Position {
+    int next;
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    speller = new MorfologikSpeller(DICT);
+    words = BenchmarkCorpus.load(new AmericanEnglish()).split("[\\s.,;:!?()\"]+");
+  }
+
+  private String nextWord(Position position) {
+    String word = words[position.next];
+    position.next = (position.next + 1) % words.length;
+    return word;
+  }
+
+  @Benchmark
+  @Threads(1)
+  public boolean isMisspelled1Thread(Position position) {
+    return speller.isMisspelled(nextWord(position));
+  }
+
+  @Benchmark
+  @Threads(4)
+  public boolean isMisspelled4Threads(Position position) {
+    return speller.isMisspelled(nextWord(position));
+  }
+
+  @Benchmark
+  @Threads(8)
+  public boolean isMisspelled8Threads(Position position) {
+    return speller.isMisspelled(nextWord(position));
+  }
+
+  @Benchmark
+  @Threads(4)
+  public boolean synchronizedIsMisspelled4Threads(Position position) {
+    String word = nextWord(position);
+    synchronized (speller) {
+      return speller.isMisspelled(word);
+    }
+  }
+
+  @Benchmark
+  @Threads(8)
+  public boolean synchronizedIsMisspelled8Threads(Position position) {
+    String word = nextWord(position);
+    synchronized (speller) {
+      return speller.isMisspelled(word);
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public int findReplacements1Thread(Position position) {
+    return speller.findReplacements(nextWord(position)).size();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public int findReplacements8Threads(Position position) {
+    return speller.findReplacements(nextWord(position)).size();
+  }
+
+}
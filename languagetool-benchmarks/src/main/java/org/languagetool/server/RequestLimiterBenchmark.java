@@ -0,0 +1,92 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link RequestLimiter#checkAccess} when called by several request threads at once,
+ * for requests spread over many IPs and for requests that all come from the same IP. This is in
+ * the {@code org.languagetool.server} package as the limiter isn't public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestLimiterBenchmark {
+
+  private static final int IPS = 10_000;
+
+  private final HTTPServerConfig config = new HTTPServerConfig();
+  private final Map<String, List<String>> header = Collections.singletonMap("User-Agent", Collections.singletonList("benchmark"));
+  private final Map<String, String> params = new HashMap<>();
+
+  private RequestLimiter limiter;
+  private UserLimits userLimits;
+  private String[] ips;
+
+  @State(Scope.Thread)
+  public static class Position {
+    int next = (int) (Thread.currentThread().getId() * 7919);
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    // limits high enough to never be reached, so only the counting is measured:
+    limiter = new RequestLimiter(Integer.MAX_VALUE, Integer.MAX_VALUE, 60, 1);
+    userLimits = UserLimits.getDefaultLimits(config);
+    params.put("text", "This is a short text to be checked.");
+    ips = new String[IPS];
+    for (int i = 0; i < IPS; i++) {
+      ips[i] = "10." + (i >> 16 & 255) + "." + (i >> 8 & 255) + "." + (i & 255);
+    }
+  }
+
+  private String nextIp(Position position) {
+    position.next = (position.next + 1) % IPS;
+    return ips[position.next];
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void manyIps1Thread(Position position) {
+    limiter.checkAccess(nextIp(position), params, header, userLimits);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void manyIps8Threads(Position position) {
+    limiter.checkAccess(nextIp(position), params, header, userLimits);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void sameIp8Threads() {
+    limiter.checkAccess(ips[0], params, header, userLimits);
+  }
+
+}
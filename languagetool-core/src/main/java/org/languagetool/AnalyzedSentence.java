@@ -75,14 +75,15 @@ public final class AnalyzedSentence {
     return l;
   }
 
-  private AnalyzedSentence(AnalyzedTokenReadings[] tokens, int[] mapping, AnalyzedTokenReadings[] nonBlankTokens, AnalyzedTokenReadings[] nonBlankPreDisambigTokens) {
+  private AnalyzedSentence(AnalyzedTokenReadings[] tokens, int[] mapping, AnalyzedTokenReadings[] nonBlankTokens, AnalyzedTokenReadings[] nonBlankPreDisambigTokens,
+                           Map<String, List<Integer>> tokenOffsets, Map<String, List<Integer>> lemmaOffsets) {
     this.tokens = tokens;
     this.preDisambigTokens = tokens;
     this.whPositions = mapping;
     this.nonBlankTokens = nonBlankTokens;
     this.nonBlankPreDisambigTokens = nonBlankPreDisambigTokens;
-    tokenOffsets = indexTokens(nonBlankTokens);
-    lemmaOffsets = indexLemmas(nonBlankTokens);
+    this.tokenOffsets = tokenOffsets;
+    this.lemmaOffsets = lemmaOffsets;
   }
 
   private static Map<String, List<Integer>> indexTokens(AnalyzedTokenReadings[] tokens) {
@@ -132,7 +133,14 @@ public final class AnalyzedSentence {
       AnalyzedTokenReadings analyzedTokens = sentence.getTokens()[i];
       copyTokens[i] = new AnalyzedTokenReadings(analyzedTokens, analyzedTokens.getReadings(), "");
     }
-    return new AnalyzedSentence(copyTokens, sentence.whPositions, sentence.getTokensWithoutWhitespace(), sentence.getPreDisambigTokensWithoutWhitespace());
+    // the non-blank tokens need to be the copies, too, so changes to them (e.g. immunization) are visible in both:
+    AnalyzedTokenReadings[] copyNonBlankTokens = new AnalyzedTokenReadings[sentence.nonBlankTokens.length];
+    for (int i = 0; i < copyNonBlankTokens.length; i++) {
+      copyNonBlankTokens[i] = copyTokens[sentence.whPositions[i]];
+    }
+    // the copied tokens have the same texts and readings, so the (unmodifiable) indexes can be shared:
+    return new AnalyzedSentence(copyTokens, sentence.whPositions, copyNonBlankTokens, sentence.getPreDisambigTokensWithoutWhitespace(),
+      sentence.tokenOffsets, sentence.lemmaOffsets);
   }
 
   /**
@@ -0,0 +1,103 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.rules.CategoryId;
+
+import java.util.*;
+
+/**
+ * For internal use only. Calculates a 128 bit hash of everything besides the text that affects
+ * the result of checking a sentence, so {@link InputSentence} doesn't need to compare (and keep
+ * references to) the rule sets and the {@link UserConfig}.
+ * @since 5.6
+ */
+final class ConfigFingerprint {
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private ConfigFingerprint() {
+  }
+
+  static HashCode of(Language lang, @Nullable Language motherTongue,
+                     Set<String> disabledRules, Set<CategoryId> disabledRuleCategories,
+                     Set<String> enabledRules, Set<CategoryId> enabledRuleCategories,
+                     @Nullable UserConfig userConfig, List<Language> altLanguages) {
+    long startTime = System.nanoTime();
+    Hasher hasher = newHasher();
+    putLanguage(hasher, lang);
+    putLanguage(hasher, motherTongue);
+    putSorted(hasher, disabledRules);
+    putSorted(hasher, disabledRuleCategories);
+    putSorted(hasher, enabledRules);
+    putSorted(hasher, enabledRuleCategories);
+    if (userConfig != null) {
+      hasher.putBoolean(true);
+      hasher.putBytes(userConfig.getFingerprint().asBytes());
+    } else {
+      hasher.putBoolean(false);
+    }
+    hasher.putInt(altLanguages.size());
+    for (Language altLanguage : altLanguages) {
+      putLanguage(hasher, altLanguage);
+    }
+    HashCode result = hasher.hash();
+    ResultCache.observeFingerprintTime(System.nanoTime() - startTime);
+    return result;
+  }
+
+  static Hasher newHasher() {
+    return HASH_FUNCTION.newHasher();
+  }
+
+  /**
+   * Add a string so that e.g. {@code ["ab", "c"]} and {@code ["a", "bc"]} don't result in the same hash.
+   */
+  static void putString(Hasher hasher, @Nullable String s) {
+    if (s == null) {
+      hasher.putInt(-1);
+    } else {
+      hasher.putInt(s.length());
+      hasher.putUnencodedChars(s);
+    }
+  }
+
+  private static void putLanguage(Hasher hasher, @Nullable Language lang) {
+    // consistent with Language.equals():
+    putString(hasher, lang != null ? lang.getShortCodeWithCountryAndVariant() : null);
+  }
+
+  private static void putSorted(Hasher hasher, Set<?> items) {
+    List<String> sorted = new ArrayList<>(items.size());
+    for (Object item : items) {
+      sorted.add(item.toString());
+    }
+    Collections.sort(sorted);
+    hasher.putInt(sorted.size());
+    for (String s : sorted) {
+      putString(hasher, s);
+    }
+  }
+
+}
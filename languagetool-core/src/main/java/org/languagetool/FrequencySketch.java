@@ -0,0 +1,86 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+/**
+ * For internal use only. A count-min sketch with small counters that are halved periodically,
+ * so it estimates how often a key has been accessed recently (TinyLFU). Used for the
+ * admission policy of {@link OffHeapMatchesCache}. Not thread-safe.
+ * @since 5.6
+ */
+final class FrequencySketch {
+
+  private static final int MAX_COUNT = 15;
+  private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+  private final byte[] table;
+  private final int mask;
+  private final int sampleSize;
+  private int additions;
+
+  /**
+   * @param expectedEntries the number of entries the cache is expected to hold
+   */
+  FrequencySketch(long expectedEntries) {
+    int size = (int) Math.max(1024, Math.min(1 << 24, expectedEntries));
+    size = Integer.highestOneBit(size - 1) << 1;
+    table = new byte[size];
+    mask = size - 1;
+    sampleSize = 10 * size;
+  }
+
+  int frequency(int hash) {
+    int result = MAX_COUNT;
+    for (int i = 0; i < SEEDS.length; i++) {
+      result = Math.min(result, table[indexOf(hash, i)]);
+    }
+    return result;
+  }
+
+  void increment(int hash) {
+    boolean added = false;
+    for (int i = 0; i < SEEDS.length; i++) {
+      int index = indexOf(hash, i);
+      if (table[index] < MAX_COUNT) {
+        table[index]++;
+        added = true;
+      }
+    }
+    if (added && ++additions >= sampleSize) {
+      reset();
+    }
+  }
+
+  /**
+   * Halve all counters so that keys that were popular a long time ago don't stay in the cache forever.
+   */
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (byte) (table[i] >> 1);
+    }
+    additions /= 2;
+  }
+
+  private int indexOf(int hash, int i) {
+    long h = (hash + SEEDS[i]) * SEEDS[i];
+    h += h >>> 32;
+    return (int) h & mask;
+  }
+
+}
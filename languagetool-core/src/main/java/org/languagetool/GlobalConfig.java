@@ -33,6 +33,7 @@ public class GlobalConfig {
   private String grammalectePassword;
   private File beolingusFile;
   private String nerUrl;
+  private long taggerCacheSize;
 
   public void setGrammalecteServer(String serverUrl) {
     grammalecteServer = serverUrl;
@@ -55,6 +56,18 @@ public class GlobalConfig {
     this.nerUrl = nerUrl;
   }
 
+  /**
+   * Number of words whose readings are cached by the tagger of each language, 0 (the default)
+   * to not cache readings.
+   * @since 5.6
+   */
+  public void setTaggerCacheSize(long taggerCacheSize) {
+    if (taggerCacheSize < 0) {
+      throw new IllegalArgumentException("taggerCacheSize must be >= 0: " + taggerCacheSize);
+    }
+    this.taggerCacheSize = taggerCacheSize;
+  }
+
   @Nullable
   public String getGrammalecteServer() {
     return grammalecteServer;
@@ -79,6 +92,13 @@ public class GlobalConfig {
     return nerUrl;
   }
 
+  /**
+   * @since 5.6
+   */
+  public long getTaggerCacheSize() {
+    return taggerCacheSize;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -87,11 +107,12 @@ public class GlobalConfig {
     return Objects.equals(grammalecteServer, that.grammalecteServer) &&
       Objects.equals(grammalecteUser, that.grammalecteUser) &&
       Objects.equals(grammalectePassword, that.grammalectePassword) &&
-      Objects.equals(beolingusFile, that.beolingusFile) && Objects.equals(nerUrl, that.nerUrl);
+      Objects.equals(beolingusFile, that.beolingusFile) && Objects.equals(nerUrl, that.nerUrl) &&
+      taggerCacheSize == that.taggerCacheSize;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(grammalecteServer, beolingusFile, nerUrl);
+    return Objects.hash(grammalecteServer, beolingusFile, nerUrl, taggerCacheSize);
   }
 }
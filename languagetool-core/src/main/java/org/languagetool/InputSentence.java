@@ -18,6 +18,8 @@
  */
 package org.languagetool;
 
+import com.google.common.hash.HashCode;
+import org.jetbrains.annotations.Nullable;
 import org.languagetool.rules.CategoryId;
 
 import java.util.List;
@@ -26,39 +28,39 @@ import java.util.Set;
 
 /**
  * For internal use only. Used as a key for caching check results.
+ * Everything besides the text that affects the check result is represented by a
+ * fingerprint (see {@link ConfigFingerprint}), so comparing keys is cheap and cache
+ * entries don't keep references to the rule sets or the {@link UserConfig}.
  * @since 3.7
  */
 class InputSentence {
 
   private final String text;
-  private final Language lang;
-  private final Language motherTongue;
-  private final Set<String> disabledRules;
-  private final Set<CategoryId> disabledRuleCategories;
-  private final Set<String> enabledRules;
-  private final Set<CategoryId> enabledRuleCategories;
-  private final UserConfig userConfig;
-  private final List<Language> altLanguages;
+  private final HashCode configFingerprint;
   private final JLanguageTool.Mode mode;
   private final JLanguageTool.Level level;
   private final Long textSessionID;
+  private final int hashCode;
+
+  /**
+   * @param configFingerprint the result of {@link ConfigFingerprint#of}
+   * @since 5.6
+   */
+  InputSentence(String text, HashCode configFingerprint, JLanguageTool.Mode mode, JLanguageTool.Level level, Long textSessionID) {
+    this.text = Objects.requireNonNull(text);
+    this.configFingerprint = Objects.requireNonNull(configFingerprint);
+    this.mode = Objects.requireNonNull(mode);
+    this.level = Objects.requireNonNull(level);
+    this.textSessionID = textSessionID;
+    this.hashCode = Objects.hash(text, configFingerprint, textSessionID, mode, level);
+  }
 
   InputSentence(String text, Language lang, Language motherTongue,
                 Set<String> disabledRules, Set<CategoryId> disabledRuleCategories,
                 Set<String> enabledRules, Set<CategoryId> enabledRuleCategories, UserConfig userConfig,
                 List<Language> altLanguages, JLanguageTool.Mode mode, JLanguageTool.Level level, Long textSessionID) {
-    this.text = Objects.requireNonNull(text);
-    this.lang = Objects.requireNonNull(lang);
-    this.motherTongue = motherTongue;
-    this.disabledRules = disabledRules;
-    this.disabledRuleCategories = disabledRuleCategories;
-    this.enabledRules = enabledRules;
-    this.enabledRuleCategories = enabledRuleCategories;
-    this.userConfig = userConfig;
-    this.textSessionID = textSessionID;
-    this.altLanguages = altLanguages;
-    this.mode = Objects.requireNonNull(mode);
-    this.level = Objects.requireNonNull(level);
+    this(text, ConfigFingerprint.of(Objects.requireNonNull(lang), motherTongue, disabledRules, disabledRuleCategories,
+      enabledRules, enabledRuleCategories, userConfig, altLanguages), mode, level, textSessionID);
   }
 
   InputSentence(String text, Language lang, Language motherTongue,
@@ -75,30 +77,40 @@ class InputSentence {
     return text;
   }
   
+  HashCode getConfigFingerprint() {
+    return configFingerprint;
+  }
+
+  JLanguageTool.Mode getMode() {
+    return mode;
+  }
+
+  JLanguageTool.Level getLevel() {
+    return level;
+  }
+
+  @Nullable
+  Long getTextSessionID() {
+    return textSessionID;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (o == null) return false;
     if (o == this) return true;
     if (o.getClass() != getClass()) return false;
     InputSentence other = (InputSentence) o;
-    return Objects.equals(text, other.text) && 
-           Objects.equals(lang, other.lang) &&
-           Objects.equals(motherTongue, other.motherTongue) &&
-           Objects.equals(disabledRules, other.disabledRules) &&
-           Objects.equals(disabledRuleCategories, other.disabledRuleCategories) &&
-           Objects.equals(enabledRules, other.enabledRules) &&
-           Objects.equals(enabledRuleCategories, other.enabledRuleCategories) &&
-           Objects.equals(userConfig, other.userConfig) &&
+    return hashCode == other.hashCode &&
+           Objects.equals(text, other.text) &&
+           Objects.equals(configFingerprint, other.configFingerprint) &&
            Objects.equals(textSessionID, other.textSessionID) &&
-           Objects.equals(altLanguages, other.altLanguages) &&
            Objects.equals(mode, other.mode) &&
            Objects.equals(level, other.level);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(text, lang, motherTongue, disabledRules, disabledRuleCategories,
-            enabledRules, enabledRuleCategories, userConfig, textSessionID, altLanguages, mode, level);
+    return hashCode;
   }
 
   @Override
@@ -18,6 +18,9 @@
  */
 package org.languagetool;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import org.apache.commons.lang3.StringUtils;
@@ -36,6 +39,7 @@ import org.languagetool.rules.*;
 import org.languagetool.rules.neuralnetwork.Word2VecModel;
 import org.languagetool.rules.patterns.*;
 import org.languagetool.rules.spelling.SpellingCheckRule;
+import org.languagetool.tagging.BaseTagger;
 import org.languagetool.tools.LoggingTools;
 import org.languagetool.tools.LtThreadPoolFactory;
 import org.slf4j.Logger;
@@ -52,6 +56,7 @@ import java.net.URL;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.jar.Manifest;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -76,6 +81,8 @@ import java.util.stream.IntStream;
  */
 public class JLanguageTool {
   private static final Logger logger = LoggerFactory.getLogger(JLanguageTool.class);
+  // number of different RuleSelections per level whose selected rules are kept:
+  private static final int MAX_CACHED_RULE_SELECTIONS = 100;
 
   /** LanguageTool version as a string like {@code 2.3} or {@code 2.4-SNAPSHOT}. */
   public static final String VERSION = "5.6-SNAPSHOT";
@@ -124,6 +131,9 @@ public class JLanguageTool {
   private final ShortDescriptionProvider descProvider;
 
   private float maxErrorsPerWordRate;
+  @Nullable
+  private ExecutorService sentenceCheckExecutor;
+  private int sentencesPerChunk;
 
   /**
    * Returns the build date or {@code null} if not run from JAR.
@@ -174,12 +184,15 @@ public class JLanguageTool {
 
   private final List<Rule> builtinRules;
   private final List<Rule> userRules = new ArrayList<>(); // rules added via addRule() method
+  private final SharedRules sharedRules;
   // rules fetched via getRelevantLanguageModelCapableRules()
   private final Set<String> optionalLanguageModelRules = new HashSet<>();
   private final Set<String> disabledRules = new HashSet<>();
   private final Set<CategoryId> disabledRuleCategories = new HashSet<>();
   private final Set<String> enabledRules = new HashSet<>();
   private final Set<CategoryId> enabledRuleCategories = new HashSet<>();
+  // see getConfigFingerprint(), reset when rules or categories are enabled or disabled
+  private volatile HashCode configFingerprint;
   private final Language language;
   private final List<Language> altLanguages;
   private final Language motherTongue;
@@ -320,15 +333,17 @@ public class JLanguageTool {
       this.userConfig = userConfig;
     }
     this.globalConfig = globalConfig;
+    if (globalConfig != null && globalConfig.getTaggerCacheSize() > 0 && language.getTagger() instanceof BaseTagger) {
+      ((BaseTagger) language.getTagger()).setReadingsCacheSize(globalConfig.getTaggerCacheSize());
+    }
     ResourceBundle messages = ResourceBundleTools.getMessageBundle(language);
     builtinRules = getAllBuiltinRules(language, messages, userConfig, globalConfig);
     this.cleanOverlappingMatches = true;
     try {
-      activateDefaultPatternRules();
-      if (!language.hasNGramFalseFriendRule(motherTongue)) {
-        // use the old false friends, which always match, not depending on context
-        activateDefaultFalseFriendRules();
-      }
+      // the pattern rules from grammar.xml etc. and the false friend rules, shared with other instances:
+      sharedRules = SharedRules.get(language, motherTongue);
+      userRules.addAll(sharedRules.getPatternRules());
+      userRules.addAll(sharedRules.getFalseFriendRules());
       updateOptionalLanguageModelRules(null); // start out with rules without language model
     } catch (Exception e) {
       throw new RuntimeException("Could not activate rules", e);
@@ -464,6 +479,25 @@ public class JLanguageTool {
     this.maxErrorsPerWordRate = maxErrorsPerWordRate;
   }
 
+  /**
+   * Check the sentences of longer texts in parallel: the sentences get split into chunks of
+   * {@code sentencesPerChunk} sentences, which are checked by the threads of {@code executor}
+   * and the calling thread. Text-level rules still run in the calling thread. The error rate
+   * limit ({@link #setMaxErrorsPerWordRate(float)}) and {@link CheckCancelledCallback} work
+   * as for sequential checking, but note that they're called from several threads.
+   * Rules must have a stateless {@code match()} method for this to work, see {@link Rule}.
+   * @param executor an executor that can be shared by several {@code JLanguageTool} instances,
+   *                 or {@code null} to check sentences sequentially (the default)
+   * @since 5.6
+   */
+  public void setSentenceCheckExecutor(@Nullable ExecutorService executor, int sentencesPerChunk) {
+    if (sentencesPerChunk < 1) {
+      throw new IllegalArgumentException("sentencesPerChunk must be >= 1: " + sentencesPerChunk);
+    }
+    this.sentenceCheckExecutor = executor;
+    this.sentencesPerChunk = sentencesPerChunk;
+  }
+
   /**
    * Callback to determine if result of executing {@link #check(String)} is still needed.
    */
@@ -548,7 +582,7 @@ public class JLanguageTool {
       if (is == null) {
         return ruleLoader.getRules(new File(filename), language, motherTongue);
       } else {
-        return ruleLoader.getRules(is, language, motherTongue);
+        return ruleLoader.getRules(is, filename, language, motherTongue);
       }
     }
   }
@@ -570,6 +604,8 @@ public class JLanguageTool {
       throw new RuntimeException("Could not load language model capable rules.", e);
     }
     ruleSetCache.clear();
+    selectableRuleSetCache.clear();
+    selectedRuleSetCache.clear();
   }
 
   /**
@@ -583,6 +619,8 @@ public class JLanguageTool {
     List<Rule> rules = language.getRelevantNeuralNetworkModels(messages, modelDir);
     userRules.addAll(rules);
     ruleSetCache.clear();
+    selectableRuleSetCache.clear();
+    selectedRuleSetCache.clear();
   }
 
   /**
@@ -593,7 +631,17 @@ public class JLanguageTool {
    * @since 2.7
    */
   public void activateLanguageModelRules(File indexDir) throws IOException {
-    LanguageModel languageModel = language.getLanguageModel(indexDir);
+    activateLanguageModelRules(language.getLanguageModel(indexDir));
+  }
+
+  /**
+   * Activate rules that depend on a language model, using the given model instead of
+   * the one loaded by {@link Language#getLanguageModel(File)}, e.g. a model with a cache.
+   *
+   * @param languageModel the model, or {@code null} to do nothing
+   * @since 5.6
+   */
+  public void activateLanguageModelRules(@Nullable LanguageModel languageModel) throws IOException {
     if (languageModel != null) {
       ResourceBundle messages = getMessageBundle(language);
       List<Rule> rules = language.getRelevantLanguageModelRules(messages, languageModel, userConfig);
@@ -637,6 +685,8 @@ public class JLanguageTool {
     transformRules(enhanced, builtinRules);
     transformRules(enhanced, userRules);
     ruleSetCache.clear();
+    selectableRuleSetCache.clear();
+    selectedRuleSetCache.clear();
   }
 
   /**
@@ -651,56 +701,12 @@ public class JLanguageTool {
       ResourceBundle messages = getMessageBundle(language);
       List<Rule> rules = language.getRelevantWord2VecModelRules(messages, word2vecModel);
       userRules.addAll(rules);
+      ruleSetCache.clear();
+      selectableRuleSetCache.clear();
+    selectedRuleSetCache.clear();
     }
   }
 
-  /**
-   * Loads and activates the pattern rules from
-   * {@code org/languagetool/rules/<languageCode>/grammar.xml}.
-   */
-  private void activateDefaultPatternRules() throws IOException {
-    List<AbstractPatternRule> patternRules = language.getPatternRules();
-    List<String> enabledRules = language.getDefaultEnabledRulesForVariant();
-    List<String> disabledRules = language.getDefaultDisabledRulesForVariant();
-    if (!enabledRules.isEmpty() || !disabledRules.isEmpty()) {
-      for (AbstractPatternRule patternRule : patternRules) {
-        if (enabledRules.contains(patternRule.getId())) {
-          patternRule.setDefaultOn();
-        }
-        if (disabledRules.contains(patternRule.getId())) {
-          patternRule.setDefaultOff();
-        }
-      }
-    }
-    List<Rule> transformed = transformPatternRules(patternRules, language);
-    userRules.addAll(transformed);
-  }
-
-  private List<Rule> transformPatternRules(List<AbstractPatternRule> patternRules, Language lang) {
-    List<AbstractPatternRule> rules = new ArrayList<>(patternRules);
-    List<PatternRuleTransformer> transforms = Arrays.asList(new RepeatedPatternRuleTransformer(lang));
-
-    List<Rule> transformed = new ArrayList<>();
-    for (PatternRuleTransformer op : transforms) {
-      PatternRuleTransformer.TransformedRules result = op.apply(rules);
-      rules = result.getRemainingRules();
-      transformed.addAll(result.getTransformedRules());
-    }
-    transformed.addAll(rules);
-    return transformed;
-  }
-
-  /**
-   * Loads and activates the false friend rules from
-   * <code>rules/false-friends.xml</code>.
-   */
-  private void activateDefaultFalseFriendRules()
-    throws ParserConfigurationException, SAXException, IOException {
-    String falseFriendRulesFilename = JLanguageTool.getDataBroker().getRulesDir() + "/" + FALSE_FRIEND_FILE;
-    userRules.addAll(loadFalseFriendRules(falseFriendRulesFilename));
-    ruleSetCache.clear();
-  }
-
   /**
    * Add a {@link RuleMatchFilter} for post-processing of rule matches
    * Filters are called sequentially in the same order as added
@@ -718,6 +724,8 @@ public class JLanguageTool {
   public void addRule(Rule rule) {
     userRules.add(rule);
     ruleSetCache.clear();
+    selectableRuleSetCache.clear();
+    selectedRuleSetCache.clear();
   }
 
   /**
@@ -730,6 +738,8 @@ public class JLanguageTool {
     disabledRules.add(ruleId);
     enabledRules.remove(ruleId);
     ruleSetCache.clear();
+    selectedRuleSetCache.clear();
+    configFingerprint = null;
   }
 
   /**
@@ -742,6 +752,8 @@ public class JLanguageTool {
     disabledRules.addAll(ruleIds);
     enabledRules.removeAll(ruleIds);
     ruleSetCache.clear();
+    selectedRuleSetCache.clear();
+    configFingerprint = null;
   }
 
   /**
@@ -755,6 +767,8 @@ public class JLanguageTool {
     disabledRuleCategories.add(id);
     enabledRuleCategories.remove(id);
     ruleSetCache.clear();
+    selectedRuleSetCache.clear();
+    configFingerprint = null;
   }
 
   /**
@@ -783,6 +797,28 @@ public class JLanguageTool {
     return disabledRules;
   }
 
+  /**
+   * The part of the {@link ResultCache} keys that describes this object's configuration,
+   * i.e. everything that affects check results besides the sentence, mode and level.
+   * Calculated only once unless rules or categories get enabled or disabled.
+   */
+  private HashCode getConfigFingerprint() {
+    HashCode result = configFingerprint;
+    if (result == null) {
+      configFingerprint = result = ConfigFingerprint.of(language, motherTongue, disabledRules, disabledRuleCategories,
+        enabledRules, enabledRuleCategories, userConfig, altLanguages);
+    }
+    return result;
+  }
+
+  /**
+   * Like {@link #getConfigFingerprint()}, but for the configuration resulting from the {@link RuleSelection}
+   * that {@code rules} were selected with, if any.
+   */
+  private HashCode getConfigFingerprint(RuleSet rules) {
+    return rules instanceof SelectedRuleSet ? ((SelectedRuleSet) rules).configFingerprint : getConfigFingerprint();
+  }
+
   /**
    * Enable a given rule so the check methods like {@link #check(String)} will use it.
    * This will <em>not</em> throw an exception if the given rule id doesn't exist.
@@ -794,6 +830,8 @@ public class JLanguageTool {
     disabledRules.remove(ruleId);
     enabledRules.add(ruleId);
     ruleSetCache.clear();
+    selectedRuleSetCache.clear();
+    configFingerprint = null;
   }
 
   /**
@@ -807,6 +845,8 @@ public class JLanguageTool {
     disabledRuleCategories.remove(id);
     enabledRuleCategories.add(id);
     ruleSetCache.clear();
+    selectedRuleSetCache.clear();
+    configFingerprint = null;
   }
 
   /**
@@ -926,15 +966,28 @@ public class JLanguageTool {
     annotatedText = cleanText(annotatedText);
     List<String> sentences = getSentences(annotatedText, tokenizeText);
     List<AnalyzedSentence> analyzedSentences = analyzeSentences(sentences);
-    return checkInternal(annotatedText, paraMode, listener, mode, level, textSessionID, sentences, analyzedSentences).getRuleMatches();
+    return checkInternal(annotatedText, paraMode, listener, mode, level, textSessionID, null, sentences, analyzedSentences).getRuleMatches();
   }
 
   public CheckResults check2(AnnotatedText annotatedText, boolean tokenizeText, ParagraphHandling paraMode, RuleMatchListener listener,
                              Mode mode, Level level, @Nullable Long textSessionID) throws IOException {
+    return check2(annotatedText, tokenizeText, paraMode, listener, mode, level, textSessionID, null);
+  }
+
+  /**
+   * Like {@link #check2(AnnotatedText, boolean, ParagraphHandling, RuleMatchListener, Mode, Level, Long)}, but
+   * enables or disables rules for this call only, without modifying this object. This is cheaper than
+   * setting up another {@code JLanguageTool} object for each rule configuration.
+   *
+   * @param ruleSelection rules and categories to enable or disable on top of this object's configuration, or {@code null}
+   * @since 5.6
+   */
+  public CheckResults check2(AnnotatedText annotatedText, boolean tokenizeText, ParagraphHandling paraMode, RuleMatchListener listener,
+                             Mode mode, Level level, @Nullable Long textSessionID, @Nullable RuleSelection ruleSelection) throws IOException {
     annotatedText = cleanText(annotatedText);
     List<String> sentences = getSentences(annotatedText, tokenizeText);
     List<AnalyzedSentence> analyzedSentences = analyzeSentences(sentences);
-    return checkInternal(annotatedText, paraMode, listener, mode, level, textSessionID, sentences, analyzedSentences);
+    return checkInternal(annotatedText, paraMode, listener, mode, level, textSessionID, ruleSelection, sentences, analyzedSentences);
   }
 
   private List<String> getSentences(AnnotatedText annotatedText, boolean tokenizeText) {
@@ -974,8 +1027,9 @@ public class JLanguageTool {
   
   private CheckResults checkInternal(AnnotatedText annotatedText, ParagraphHandling paraMode, RuleMatchListener listener,
                                      Mode mode, Level level,
-                                     @Nullable Long textSessionID, List<String> sentences, List<AnalyzedSentence> analyzedSentences) throws IOException {
-    RuleSet rules = getActiveRulesForLevel(level);
+                                     @Nullable Long textSessionID, @Nullable RuleSelection ruleSelection,
+                                     List<String> sentences, List<AnalyzedSentence> analyzedSentences) throws IOException {
+    RuleSet rules = ruleSelection == null ? getActiveRulesForLevel(level) : getSelectedRulesForLevel(level, ruleSelection);
     if (printStream != null) {
       printIfVerbose(rules.allRules().size() + " rules activated for language " + language);
     }
@@ -995,7 +1049,7 @@ public class JLanguageTool {
       // trigger remote rules to run on whole text at once, at the start, then we wait for the results
       remoteRuleTasks = new ArrayList<>();
       checkRemoteRules(rules.allRules(), analyzedSentences, mode, level,
-        remoteRuleTasks, remoteRules, requestSize, cachedResults, matchOffset, textSessionID);
+        remoteRuleTasks, remoteRules, requestSize, cachedResults, matchOffset, textSessionID, getConfigFingerprint(rules));
     }
 
     long textCheckStart = System.currentTimeMillis();
@@ -1004,7 +1058,7 @@ public class JLanguageTool {
     long textCheckEnd = System.currentTimeMillis();
 
     fetchRemoteRuleResults(textCheckStart, mode, level, analyzedSentences, remoteMatches, remoteRuleTasks, remoteRules, requestSize,
-      cachedResults, matchOffset, annotatedText, textSessionID);
+      cachedResults, matchOffset, annotatedText, textSessionID, getConfigFingerprint(rules));
     long remoteRuleCheckEnd = System.currentTimeMillis();
     if (remoteRules.size() > 0) {
       long wait = remoteRuleCheckEnd - textCheckEnd;
@@ -1025,7 +1079,7 @@ public class JLanguageTool {
     // rules can create matches with rule IDs different from the original rule (see e.g. RemoteRules)
     // so while we can't avoid execution of these rules, we still want disabling them to work
     // so do another pass with ignoreRule here
-    ruleMatches = ruleMatches.stream().filter(match -> !ignoreRule(match.getRule())).collect(Collectors.toList());
+    ruleMatches = ruleMatches.stream().filter(match -> !ignoreRule(rules, match.getRule())).collect(Collectors.toList());
 
     ruleMatches = new SameRuleGroupFilter().filter(ruleMatches);
     // no sorting: SameRuleGroupFilter sorts rule matches already
@@ -1042,16 +1096,76 @@ public class JLanguageTool {
   private RuleSet getActiveRulesForLevel(Level level) {
     return ruleSetCache.computeIfAbsent(level, l -> {
       List<Rule> allRules = getAllActiveRules();
-      return RuleSet.textLemmaHinted(l == Level.DEFAULT ? allRules.stream().filter(rule -> !rule.hasTag(Tag.picky)).collect(Collectors.toList()) : allRules);
+      // only the rules that aren't shared with other instances need to be indexed:
+      return sharedRules.getIndex().activate(l == Level.DEFAULT ? allRules.stream().filter(rule -> !rule.hasTag(Tag.picky)).collect(Collectors.toList()) : allRules, true);
     });
   }
 
+  // like ruleSetCache, but with all rules, no matter if enabled or not, so it's only reset when rules get added:
+  private final Map<Level, RuleSet> selectableRuleSetCache = new ConcurrentHashMap<>();
+
+  // the results of applying a RuleSelection, reset when the configuration or the rules change:
+  private final Map<Level, Cache<RuleSelection, SelectedRuleSet>> selectedRuleSetCache = new ConcurrentHashMap<>();
+
+  private RuleSet getSelectedRulesForLevel(Level level, RuleSelection ruleSelection) {
+    Cache<RuleSelection, SelectedRuleSet> cache = selectedRuleSetCache.computeIfAbsent(level, l ->
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_RULE_SELECTIONS).build());
+    try {
+      return cache.get(ruleSelection, () -> selectRulesForLevel(level, ruleSelection));
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  private SelectedRuleSet selectRulesForLevel(Level level, RuleSelection ruleSelection) {
+    List<Rule> allRules = getAllRules();
+    RuleSet selectable = selectableRuleSetCache.computeIfAbsent(level, l ->
+      sharedRules.getIndex().activate(l == Level.DEFAULT ? allRules.stream().filter(rule -> !rule.hasTag(Tag.picky)).collect(Collectors.toList()) : allRules, true));
+    RuleSelection.Applied selection = ruleSelection.apply(disabledRules, disabledRuleCategories, enabledRules, enabledRuleCategories, allRules);
+    List<Rule> selectableRules = selectable.allRules();
+    BitSet active = new BitSet(selectableRules.size());
+    for (int i = 0; i < selectableRules.size(); i++) {
+      if (!ignoreRule(selectableRules.get(i), selection.disabledRules, selection.disabledCategories, selection.enabledRules, selection.enabledCategories)) {
+        active.set(i);
+      }
+    }
+    HashCode fingerprint = ConfigFingerprint.of(language, motherTongue, selection.disabledRules, selection.disabledCategories,
+      selection.enabledRules, selection.enabledCategories, userConfig, altLanguages);
+    return new SelectedRuleSet(selectable.subset(active), selection, fingerprint);
+  }
+
+  /**
+   * The rules to use for a check with a {@link RuleSelection}, with the resulting configuration
+   * that replaces this object's one in {@link #ignoreRule(RuleSet, Rule)} and the cache keys.
+   */
+  private static class SelectedRuleSet extends RuleSet {
+    private final RuleSet rules;
+    private final RuleSelection.Applied selection;
+    private final HashCode configFingerprint;
+
+    SelectedRuleSet(RuleSet rules, RuleSelection.Applied selection, HashCode configFingerprint) {
+      this.rules = rules;
+      this.selection = selection;
+      this.configFingerprint = configFingerprint;
+    }
+
+    @Override
+    public List<Rule> allRules() {
+      return rules.allRules();
+    }
+
+    @Override
+    public List<Rule> rulesForSentence(AnalyzedSentence sentence) {
+      return rules.rulesForSentence(sentence);
+    }
+  }
+
   protected void fetchRemoteRuleResults(long textCheckStart, Mode mode, Level level, List<AnalyzedSentence> analyzedSentences, List<RuleMatch> remoteMatches,
                                         List<FutureTask<RemoteRuleResult>> remoteRuleTasks, List<RemoteRule> remoteRules,
                                         List<Integer> requestSize,
                                         Map<Integer, List<RuleMatch>> cachedResults,
                                         Map<Integer, Integer> matchOffset,
-                                        AnnotatedText annotatedText, Long textSessionID) {
+                                        AnnotatedText annotatedText, Long textSessionID, HashCode configFingerprint) {
     if (remoteRuleTasks != null && !remoteRuleTasks.isEmpty()) {
       int timeout = IntStream.range(0, requestSize.size()).map(i ->
         (int) remoteRules.get(i).getTimeout(requestSize.get(i))
@@ -1078,7 +1192,7 @@ public class JLanguageTool {
             continue;
           }
           //logger.info("Fetching results for remote rule for {} chars", chars);
-          rule.circuitBreaker().executeCallable(() -> fetchResults(textCheckStart, mode, level, analyzedSentences, remoteMatches, matchOffset, annotatedText, textSessionID, chars, deadline, task, rule, ruleKey));
+          rule.circuitBreaker().executeCallable(() -> fetchResults(textCheckStart, mode, level, analyzedSentences, remoteMatches, matchOffset, annotatedText, textSessionID, configFingerprint, chars, deadline, task, rule, ruleKey));
         } catch (InterruptedException e) {
           logger.info("Failed to fetch result from remote rule '{}' - interrupted.", ruleKey);
           RemoteRuleMetrics.request(ruleKey, textCheckStart, chars, RemoteRuleMetrics.RequestResult.INTERRUPTED);
@@ -1123,7 +1237,7 @@ public class JLanguageTool {
     }
   }
 
-  private RemoteRuleResult fetchResults(long textCheckStart, Mode mode, Level level, List<AnalyzedSentence> analyzedSentences, List<RuleMatch> remoteMatches, Map<Integer, Integer> matchOffset, AnnotatedText annotatedText, Long textSessionID, long chars, long deadline, FutureTask<RemoteRuleResult> task, RemoteRule rule, String ruleKey) throws InterruptedException, ExecutionException, TimeoutException {
+  private RemoteRuleResult fetchResults(long textCheckStart, Mode mode, Level level, List<AnalyzedSentence> analyzedSentences, List<RuleMatch> remoteMatches, Map<Integer, Integer> matchOffset, AnnotatedText annotatedText, Long textSessionID, HashCode configFingerprint, long chars, long deadline, FutureTask<RemoteRuleResult> task, RemoteRule rule, String ruleKey) throws InterruptedException, ExecutionException, TimeoutException {
     RemoteRuleResult result;
     if (rule.getTimeout(chars) <= 0) {
       result = task.get();
@@ -1142,9 +1256,7 @@ public class JLanguageTool {
       }
       if (cache != null && result.isSuccess()) {
         // store in cache
-        InputSentence cacheKey = new InputSentence(
-          sentence.getText(), language, motherTongue, disabledRules, disabledRuleCategories,
-          enabledRules, enabledRuleCategories, userConfig, altLanguages, mode, level, textSessionID);
+        InputSentence cacheKey = new InputSentence(sentence.getText(), configFingerprint, mode, level, textSessionID);
         Map<String, List<RuleMatch>> cacheEntry = cache.getRemoteMatchesCache().get(cacheKey, HashMap::new);
         cacheEntry.put(ruleKey, matches);
       }
@@ -1178,7 +1290,8 @@ public class JLanguageTool {
   protected void checkRemoteRules(List<Rule> allRules, List<AnalyzedSentence> analyzedSentences, Mode mode, Level level,
                                   List<FutureTask<RemoteRuleResult>> remoteRuleTasks, List<RemoteRule> remoteRules,
                                   List<Integer> requestSize,
-                                  Map<Integer, List<RuleMatch>> cachedResults, Map<Integer, Integer> matchOffset, Long textSessionID) {
+                                  Map<Integer, List<RuleMatch>> cachedResults, Map<Integer, Integer> matchOffset, Long textSessionID,
+                                  HashCode configFingerprint) {
     List<InputSentence> cacheKeys = new LinkedList<>();
     int offset = 0;
     // prepare keys for caching, offsets for adjusting match positions
@@ -1186,9 +1299,7 @@ public class JLanguageTool {
       AnalyzedSentence s = analyzedSentences.get(i);
       matchOffset.put(i, offset);
       offset += s.getText().length();
-      InputSentence cacheKey = new InputSentence(s.getText(), language, motherTongue,
-        disabledRules, disabledRuleCategories, enabledRules, enabledRuleCategories,
-        userConfig, altLanguages, mode, level, textSessionID);
+      InputSentence cacheKey = new InputSentence(s.getText(), configFingerprint, mode, level, textSessionID);
       cacheKeys.add(cacheKey);
     }
     ExecutorService jLanguageToolPool = LtThreadPoolFactory.getFixedThreadPoolExecutor(
@@ -1388,10 +1499,11 @@ public class JLanguageTool {
    */
   public List<RuleMatch> checkAnalyzedSentence(ParagraphHandling paraMode,
                                                List<Rule> rules, AnalyzedSentence analyzedSentence, boolean checkRemoteRules) throws IOException {
-    return checkAnalyzedSentence(paraMode, rules, analyzedSentence, checkRemoteRules, -1);
+    return checkAnalyzedSentence(paraMode, rules, analyzedSentence, checkRemoteRules, -1, this::ignoreRule);
   }
 
-  private List<RuleMatch> checkAnalyzedSentence(ParagraphHandling paraMode, List<Rule> rules, AnalyzedSentence analyzedSentence, boolean checkRemoteRules, int wordCounter) throws IOException {
+  private List<RuleMatch> checkAnalyzedSentence(ParagraphHandling paraMode, List<Rule> rules, AnalyzedSentence analyzedSentence, boolean checkRemoteRules, int wordCounter,
+                                                Predicate<Rule> ignoreRule) throws IOException {
     if (paraMode == ParagraphHandling.ONLYPARA) {
       return Collections.emptyList();
     }
@@ -1406,7 +1518,9 @@ public class JLanguageTool {
       if (checkCancelledCallback != null && checkCancelledCallback.checkCancelled()) {
         break;
       }
-      RuleMatch[] thisMatches = rule.match(analyzedSentence);
+      long startTime = RuleProfiler.start();
+      RuleMatch[] thisMatches = RuleTimeBudget.isEnabled() ? RuleTimeBudget.match(language, rule, analyzedSentence) : rule.match(analyzedSentence);
+      RuleProfiler.stop(startTime, language, rule, RuleProfiler.Phase.SENTENCE, thisMatches.length);
       Collections.addAll(sentenceMatches, thisMatches);
       if (wordCounter > 0) {
         //check if the maxErrorsPerWordRate is already reached for the full text with this sentence and rule  
@@ -1435,11 +1549,27 @@ public class JLanguageTool {
     // so while we can't avoid execution of these rules, we still want disabling them to work
     // so do another pass with ignoreRule here
     sentenceMatches = sentenceMatches.stream()
-      .filter(match -> !ignoreRule(match.getRule())).collect(Collectors.toList());
+      .filter(match -> !ignoreRule.test(match.getRule())).collect(Collectors.toList());
     return applyCustomFilters(new SameRuleGroupFilter().filter(sentenceMatches), text);
   }
 
   private boolean ignoreRule(Rule rule) {
+    return ignoreRule(rule, disabledRules, disabledRuleCategories, enabledRules, enabledRuleCategories);
+  }
+
+  /**
+   * Like {@link #ignoreRule(Rule)}, but considers the {@link RuleSelection} of the current check, if any.
+   */
+  private boolean ignoreRule(RuleSet rules, Rule rule) {
+    if (rules instanceof SelectedRuleSet) {
+      RuleSelection.Applied selection = ((SelectedRuleSet) rules).selection;
+      return ignoreRule(rule, selection.disabledRules, selection.disabledCategories, selection.enabledRules, selection.enabledCategories);
+    }
+    return ignoreRule(rule);
+  }
+
+  private static boolean ignoreRule(Rule rule, Set<String> disabledRules, Set<CategoryId> disabledRuleCategories,
+                                    Set<String> enabledRules, Set<CategoryId> enabledRuleCategories) {
     Category ruleCategory = rule.getCategory();
     boolean isCategoryDisabled = (disabledRuleCategories.contains(ruleCategory.getId()) || rule.getCategory().isDefaultOff())
       && !enabledRuleCategories.contains(ruleCategory.getId());
@@ -1926,7 +2056,9 @@ public class JLanguageTool {
           if (analyzedSentences == null) {
             analyzedSentences = sentences.stream().map(s -> s.analyzed).collect(Collectors.toList());
           }
+          long startTime = RuleProfiler.start();
           RuleMatch[] matches = ((TextLevelRule) rule).match(analyzedSentences, annotatedText);
+          RuleProfiler.stop(startTime, language, rule, RuleProfiler.Phase.TEXT_LEVEL, matches.length);
           List<RuleMatch> adaptedMatches = new ArrayList<>();
           for (RuleMatch match : matches) {
             LineColumnPosition from = findLineColumn(match.getFromPos());
@@ -1966,69 +2098,196 @@ public class JLanguageTool {
       int wordCounter = 0;
       float tmpErrorsPerWord = 0.0f;
       List<String> errorRateLog = new ArrayList<>();
-      for (int i = 0, sentencesSize = sentences.size(); i < sentencesSize; i++) {
-        SentenceData sentence = sentences.get(i);
-        wordCounter += sentence.wordCount;
-        try {
-          //comment in to trigger an exception via input text:
-          //if (analyzedSentence.getText().contains("fakecrash")) {
-          //  throw new RuntimeException("fake crash");
-          //}
-          List<RuleMatch> sentenceMatches = null;
-          InputSentence cacheKey = null;
-          if (cache != null) {
-            cacheKey = new InputSentence(sentence.text, language, motherTongue,
-                    disabledRules, disabledRuleCategories,
-                    enabledRules, enabledRuleCategories, userConfig, altLanguages, mode, level);
-            sentenceMatches = cache.getIfPresent(cacheKey);
-          }
-          if (sentenceMatches == null) {
-            sentenceMatches = checkAnalyzedSentence(paraMode, rules.rulesForSentence(sentence.analyzed), sentence.analyzed, checkRemoteRules, textWordCounter);
-          }
-          if (cache != null) {
-            cache.put(cacheKey, sentenceMatches);
-          }
-          if (!sentenceMatches.isEmpty()) {
-            if (checkCancelledCallback != null && checkCancelledCallback.checkCancelled()) {
-              break;
+      ParallelSentenceChecks parallelChecks = startParallelChecks(textWordCounter);
+      try {
+        for (int i = 0, sentencesSize = sentences.size(); i < sentencesSize; i++) {
+          SentenceData sentence = sentences.get(i);
+          wordCounter += sentence.wordCount;
+          try {
+            //comment in to trigger an exception via input text:
+            //if (analyzedSentence.getText().contains("fakecrash")) {
+            //  throw new RuntimeException("fake crash");
+            //}
+            List<RuleMatch> sentenceMatches;
+            if (parallelChecks != null) {
+              sentenceMatches = parallelChecks.getMatches(i);
+              if (sentenceMatches == null) {
+                break;  // check was cancelled
+              }
+            } else {
+              sentenceMatches = checkSentence(sentence, textWordCounter);
             }
-            for (RuleMatch elem : sentenceMatches) {
-              RuleMatch thisMatch = adjustRuleMatchPos(elem, sentence.startOffset, sentence.startColumn, sentence.startLine, sentence.text, annotatedText);
-              if (elem.getErrorLimitLang() != null) {
-                ignoreRanges.add(new Range(sentence.startOffset, sentence.startOffset + sentence.text.length(), elem.getErrorLimitLang()));
+            if (!sentenceMatches.isEmpty()) {
+              if (checkCancelledCallback != null && checkCancelledCallback.checkCancelled()) {
+                break;
               }
-              ruleMatches.add(thisMatch);
-              if (listener != null) {
-                listener.matchFound(thisMatch);
+              for (RuleMatch elem : sentenceMatches) {
+                RuleMatch thisMatch = adjustRuleMatchPos(elem, sentence.startOffset, sentence.startColumn, sentence.startLine, sentence.text, annotatedText);
+                if (elem.getErrorLimitLang() != null) {
+                  ignoreRanges.add(new Range(sentence.startOffset, sentence.startOffset + sentence.text.length(), elem.getErrorLimitLang()));
+                }
+                ruleMatches.add(thisMatch);
+                if (listener != null) {
+                  listener.matchFound(thisMatch);
+                }
               }
             }
+            float errorsPerWord = ruleMatches.size() / (float) wordCounter;
+            if (tmpErrorsPerWord < errorsPerWord) {
+              errorRateLog.add("With sentence: " + (i + 1) + " (of " + sentencesSize + ") the text error rate increased by: " + (errorsPerWord - tmpErrorsPerWord) + " from: " + tmpErrorsPerWord  + " to total: " + errorsPerWord);
+              tmpErrorsPerWord = errorsPerWord;
+            }
+            if (maxErrorsPerWordRate > 0 && errorsPerWord > maxErrorsPerWordRate && wordCounter > 25) {
+              errorRateLog.forEach(e -> logger.info(LoggingTools.BAD_REQUEST, e));
+              throw new ErrorRateTooHighException("Text checking was stopped due to too many errors (more than " + String.format("%.0f", maxErrorsPerWordRate * 100) +
+                "% of words seem to have an error). Are you sure you have set the correct text language? Language set: " + JLanguageTool.this.language.getName() +
+                ", text length: " + annotatedText.getPlainText().length());
+              //        ", text length: " + annotatedText.getPlainText().length() + ", common word count: " + commonWords.getKnownWordsPerLanguage(annotatedText.getPlainText()));
+            }
+          } catch (ErrorRateTooHighException e) {
+            throw e;
+          } catch (InterruptedException e) {
+            // only happens while waiting for sentences checked in parallel, handled like a cancelled check:
+            Thread.currentThread().interrupt();
+            break;
+          } catch (StackOverflowError e) {
+            System.out.println("Could not check sentence due to StackOverflowError (language: " + language + "): <sentcontent>"
+                    + StringUtils.abbreviate(sentence.analyzed.toTextString(), 10_000) + "</sentcontent>");
+            throw e;
+          } catch (Exception e) {
+            throw new RuntimeException("Could not check sentence (language: " + language + "): <sentcontent>"
+                    + StringUtils.abbreviate(sentence.analyzed.toTextString(), 500) + "</sentcontent>", e);
           }
-          float errorsPerWord = ruleMatches.size() / (float) wordCounter;
-          if (tmpErrorsPerWord < errorsPerWord) {
-            errorRateLog.add("With sentence: " + (i + 1) + " (of " + sentencesSize + ") the text error rate increased by: " + (errorsPerWord - tmpErrorsPerWord) + " from: " + tmpErrorsPerWord  + " to total: " + errorsPerWord);
-            tmpErrorsPerWord = errorsPerWord;
-          }
-          if (maxErrorsPerWordRate > 0 && errorsPerWord > maxErrorsPerWordRate && wordCounter > 25) {
-            errorRateLog.forEach(e -> logger.info(LoggingTools.BAD_REQUEST, e));
-            throw new ErrorRateTooHighException("Text checking was stopped due to too many errors (more than " + String.format("%.0f", maxErrorsPerWordRate * 100) +
-              "% of words seem to have an error). Are you sure you have set the correct text language? Language set: " + JLanguageTool.this.language.getName() +
-              ", text length: " + annotatedText.getPlainText().length());
-            //        ", text length: " + annotatedText.getPlainText().length() + ", common word count: " + commonWords.getKnownWordsPerLanguage(annotatedText.getPlainText()));
-          }
-        } catch (ErrorRateTooHighException e) {
-          throw e;
-        } catch (StackOverflowError e) {
-          System.out.println("Could not check sentence due to StackOverflowError (language: " + language + "): <sentcontent>"
-                  + StringUtils.abbreviate(sentence.analyzed.toTextString(), 10_000) + "</sentcontent>");
-          throw e;
-        } catch (Exception e) {
-          throw new RuntimeException("Could not check sentence (language: " + language + "): <sentcontent>"
-                  + StringUtils.abbreviate(sentence.analyzed.toTextString(), 500) + "</sentcontent>", e);
+        }
+      } finally {
+        if (parallelChecks != null) {
+          parallelChecks.cancel();
         }
       }
       return new CheckResults(ruleMatches, ignoreRanges);
     }
 
+    private List<RuleMatch> checkSentence(SentenceData sentence, int textWordCounter) throws IOException {
+      List<RuleMatch> sentenceMatches = null;
+      InputSentence cacheKey = null;
+      if (cache != null) {
+        cacheKey = new InputSentence(sentence.text, getConfigFingerprint(rules), mode, level, userConfig.getTextSessionId());
+        sentenceMatches = cache.getIfPresent(cacheKey, sentence.analyzed, rules);
+      }
+      long fallbacks = RuleTimeBudget.getFallbackCount();
+      if (sentenceMatches == null) {
+        sentenceMatches = checkAnalyzedSentence(paraMode, rules.rulesForSentence(sentence.analyzed), sentence.analyzed, checkRemoteRules, textWordCounter,
+          rule -> ignoreRule(rules, rule));
+      }
+      // matches are incomplete if a rule exceeded its time budget, the next check might be faster:
+      if (cache != null && RuleTimeBudget.getFallbackCount() == fallbacks) {
+        cache.put(cacheKey, sentenceMatches);
+      }
+      return sentenceMatches;
+    }
+
+    /**
+     * Start checking chunks of sentences in parallel, or return {@code null} if the text
+     * should be checked sequentially.
+     */
+    @Nullable
+    private ParallelSentenceChecks startParallelChecks(int textWordCounter) {
+      ExecutorService executor = sentenceCheckExecutor;
+      if (executor == null || sentences.size() <= sentencesPerChunk || paraMode == ParagraphHandling.ONLYPARA) {
+        return null;
+      }
+      List<FutureTask<List<SentenceCheckResult>>> chunks = new ArrayList<>();
+      for (int start = 0; start < sentences.size(); start += sentencesPerChunk) {
+        List<SentenceData> chunk = sentences.subList(start, Math.min(start + sentencesPerChunk, sentences.size()));
+        chunks.add(new FutureTask<>(() -> checkSentenceChunk(chunk, textWordCounter)));
+      }
+      // the first chunk is checked by the calling thread, see ParallelSentenceChecks.getMatches():
+      for (int i = 1; i < chunks.size(); i++) {
+        try {
+          executor.execute(chunks.get(i));
+        } catch (RejectedExecutionException e) {
+          break;  // the calling thread will check the remaining chunks
+        }
+      }
+      return new ParallelSentenceChecks(chunks);
+    }
+
+    private List<SentenceCheckResult> checkSentenceChunk(List<SentenceData> chunk, int textWordCounter) {
+      List<SentenceCheckResult> result = new ArrayList<>(chunk.size());
+      for (SentenceData sentence : chunk) {
+        if (checkCancelledCallback != null && checkCancelledCallback.checkCancelled() || Thread.currentThread().isInterrupted()) {
+          break;
+        }
+        try {
+          result.add(new SentenceCheckResult(checkSentence(sentence, textWordCounter), null));
+        } catch (Exception | StackOverflowError e) {
+          // reported when the results get collected, so it's reported for the same sentence as when checking sequentially:
+          result.add(new SentenceCheckResult(null, e));
+          break;
+        }
+      }
+      return result;
+    }
+
+    /**
+     * The results of the sentence chunks that get checked in parallel, in the order of the sentences.
+     */
+    private class ParallelSentenceChecks {
+      private final List<FutureTask<List<SentenceCheckResult>>> chunks;
+
+      ParallelSentenceChecks(List<FutureTask<List<SentenceCheckResult>>> chunks) {
+        this.chunks = chunks;
+      }
+
+      /**
+       * Get the matches of the given sentence, or rethrow the exception that its check threw.
+       * @return the matches, or {@code null} if the check was cancelled before the sentence was checked
+       */
+      @Nullable
+      List<RuleMatch> getMatches(int sentenceIndex) throws Exception {
+        int chunkIndex = sentenceIndex / sentencesPerChunk;
+        FutureTask<List<SentenceCheckResult>> chunk = chunks.get(chunkIndex);
+        // instead of waiting for the executor, the calling thread checks all chunks that no
+        // other thread has started yet (run() does nothing for chunks that are running or done):
+        for (int i = chunkIndex; i < chunks.size() && !chunk.isDone(); i++) {
+          chunks.get(i).run();
+        }
+        List<SentenceCheckResult> chunkResult;
+        try {
+          chunkResult = chunk.get();
+        } catch (ExecutionException e) {
+          throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+        int indexInChunk = sentenceIndex % sentencesPerChunk;
+        if (indexInChunk >= chunkResult.size()) {
+          return null;
+        }
+        SentenceCheckResult result = chunkResult.get(indexInChunk);
+        if (result.error instanceof Error) {
+          throw (Error) result.error;
+        } else if (result.error != null) {
+          throw (Exception) result.error;
+        }
+        return result.matches;
+      }
+
+      void cancel() {
+        for (FutureTask<?> chunk : chunks) {
+          chunk.cancel(true);
+        }
+      }
+    }
+
+    private class SentenceCheckResult {
+      private final List<RuleMatch> matches;
+      private final Throwable error;
+
+      SentenceCheckResult(List<RuleMatch> matches, Throwable error) {
+        this.matches = matches;
+        this.error = error;
+      }
+    }
+
     private LineColumnPosition findLineColumn(int offset) {
       if (sentences.isEmpty()) return new LineColumnPosition(0, 0);
 
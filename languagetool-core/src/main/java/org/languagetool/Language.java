@@ -25,6 +25,7 @@ import org.languagetool.chunking.Chunker;
 import org.languagetool.language.Contributor;
 import org.languagetool.languagemodel.LanguageModel;
 import org.languagetool.languagemodel.LuceneLanguageModel;
+import org.languagetool.languagemodel.MappedNgramLanguageModel;
 import org.languagetool.rules.RemoteRuleConfig;
 import org.languagetool.rules.Rule;
 import org.languagetool.rules.RuleMatch;
@@ -46,6 +47,7 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -71,6 +73,7 @@ public abstract class Language {
   private static final Pattern INSIDE_SUGGESTION = Pattern.compile("<suggestion>(.+?)</suggestion>");
   private static final Pattern APOSTROPHE = Pattern.compile("([\\p{L}\\d-])'([\\p{L}«])",
     Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+  private static final Object NO_COMPONENT = new Object();
 
   private final UnifierConfiguration unifierConfig = new UnifierConfiguration();
   private final UnifierConfiguration disambiguationUnifierConfig = new UnifierConfiguration();
@@ -80,13 +83,14 @@ public abstract class Language {
   private List<AbstractPatternRule> patternRules;
   private final AtomicBoolean noLmWarningPrinted = new AtomicBoolean();
 
-  private Disambiguator disambiguator;
-  private Tagger tagger;
-  private SentenceTokenizer sentenceTokenizer;
-  private Tokenizer wordTokenizer;
-  private Chunker chunker;
-  private Chunker postDisambiguationChunker;
-  private Synthesizer synthesizer;
+  // the components are used for every sentence by all threads, so reading them must not lock:
+  private final Component<Disambiguator> disambiguator = new Component<>();
+  private final Component<Tagger> tagger = new Component<>();
+  private final Component<SentenceTokenizer> sentenceTokenizer = new Component<>();
+  private final Component<Tokenizer> wordTokenizer = new Component<>();
+  private final Component<Chunker> chunker = new Component<>();
+  private final Component<Chunker> postDisambiguationChunker = new Component<>();
+  private final Component<Synthesizer> synthesizer = new Component<>();
 
   /**
    * Get this language's character code, e.g. <code>en</code> for English.
@@ -179,7 +183,14 @@ public abstract class Language {
   protected LanguageModel initLanguageModel(File indexDir, LanguageModel languageModel) {
     if (languageModel == null) {
       File topIndexDir = new File(indexDir, getShortCode());
-      if (topIndexDir.exists()) {
+      File mappedIndex = new File(topIndexDir, MappedNgramLanguageModel.FILE_NAME);
+      if (mappedIndex.exists()) {
+        try {
+          languageModel = new MappedNgramLanguageModel(mappedIndex);
+        } catch (IOException e) {
+          throw new RuntimeException("Could not load ngram index " + mappedIndex, e);
+        }
+      } else if (topIndexDir.exists()) {
         languageModel = new LuceneLanguageModel(topIndexDir);
       } else if (noLmWarningPrinted.compareAndSet(false, true)) {
         System.err.println("WARN: ngram index dir " + topIndexDir + " not found for " + getName());
@@ -369,19 +380,15 @@ public abstract class Language {
   /**
    * Get this language's part-of-speech disambiguator implementation.
    */
-  public synchronized Disambiguator getDisambiguator() {
-    if (disambiguator == null) {
-      disambiguator = createDefaultDisambiguator();
-    }
-
-    return disambiguator;
+  public Disambiguator getDisambiguator() {
+    return disambiguator.get(this::createDefaultDisambiguator);
   }
 
   /**
    * Set this language's part-of-speech disambiguator implementation.
    */
   public void setDisambiguator(Disambiguator disambiguator) {
-    this.disambiguator = disambiguator;
+    this.disambiguator.set(disambiguator);
   }
 
   /**
@@ -398,18 +405,15 @@ public abstract class Language {
    * Get this language's part-of-speech tagger implementation.
    */
   @NotNull
-  public synchronized Tagger getTagger() {
-    if (tagger == null) {
-      tagger = createDefaultTagger();
-    }
-    return tagger;
+  public Tagger getTagger() {
+    return tagger.get(this::createDefaultTagger);
   }
 
   /**
    * Set this language's part-of-speech tagger implementation.
    */
   public void setTagger(Tagger tagger) {
-    this.tagger = tagger;
+    this.tagger.set(tagger);
   }
 
   /**
@@ -423,18 +427,15 @@ public abstract class Language {
   /**
    * Get this language's sentence tokenizer implementation.
    */
-  public synchronized SentenceTokenizer getSentenceTokenizer() {
-    if (sentenceTokenizer == null) {
-      sentenceTokenizer = createDefaultSentenceTokenizer();
-    }
-    return sentenceTokenizer;
+  public SentenceTokenizer getSentenceTokenizer() {
+    return sentenceTokenizer.get(this::createDefaultSentenceTokenizer);
   }
 
   /**
    * Set this language's sentence tokenizer implementation.
    */
   public void setSentenceTokenizer(SentenceTokenizer tokenizer) {
-    sentenceTokenizer = tokenizer;
+    this.sentenceTokenizer.set(tokenizer);
   }
 
   /**
@@ -448,19 +449,15 @@ public abstract class Language {
   /**
    * Get this language's word tokenizer implementation.
    */
-  public synchronized Tokenizer getWordTokenizer() {
-    if (wordTokenizer == null) {
-      wordTokenizer = createDefaultWordTokenizer();
-    }
-
-    return wordTokenizer;
+  public Tokenizer getWordTokenizer() {
+    return wordTokenizer.get(this::createDefaultWordTokenizer);
   }
 
   /**
    * Set this language's word tokenizer implementation.
    */
   public void setWordTokenizer(Tokenizer tokenizer) {
-    wordTokenizer = tokenizer;
+    this.wordTokenizer.set(tokenizer);
   }
 
   /**
@@ -477,18 +474,15 @@ public abstract class Language {
    * @since 2.3
    */
   @Nullable
-  public synchronized Chunker getChunker() {
-    if (chunker == null) {
-      chunker = createDefaultChunker();
-    }
-    return chunker;
+  public Chunker getChunker() {
+    return chunker.get(this::createDefaultChunker);
   }
 
   /**
    * Set this language's chunker implementation or {@code null}.
    */
   public void setChunker(Chunker chunker) {
-    this.chunker = chunker;
+    this.chunker.set(chunker);
   }
 
   /**
@@ -505,18 +499,15 @@ public abstract class Language {
    * @since 2.9
    */
   @Nullable
-  public synchronized Chunker getPostDisambiguationChunker() {
-    if (postDisambiguationChunker == null) {
-      postDisambiguationChunker = createDefaultPostDisambiguationChunker();
-    }
-    return postDisambiguationChunker;
+  public Chunker getPostDisambiguationChunker() {
+    return postDisambiguationChunker.get(this::createDefaultPostDisambiguationChunker);
   }
 
   /**
    * Set this language's post disambiguation chunker implementation or {@code null}.
    */
   public void setPostDisambiguationChunker(Chunker chunker) {
-    postDisambiguationChunker = chunker;
+    this.postDisambiguationChunker.set(chunker);
   }
 
   /**
@@ -532,18 +523,15 @@ public abstract class Language {
    * Get this language's part-of-speech synthesizer implementation or {@code null}.
    */
   @Nullable
-  public synchronized Synthesizer getSynthesizer() {
-    if (synthesizer == null) {
-      synthesizer = createDefaultSynthesizer();
-    }
-    return synthesizer;
+  public Synthesizer getSynthesizer() {
+    return synthesizer.get(this::createDefaultSynthesizer);
   }
 
   /**
    * Set this language's part-of-speech synthesizer implementation or {@code null}.
    */
   public void setSynthesizer(Synthesizer synthesizer) {
-    this.synthesizer = synthesizer;
+    this.synthesizer.set(synthesizer);
   }
 
   /**
@@ -911,4 +899,34 @@ public abstract class Language {
 	  return ruleMatches;
   }
   
+  /**
+   * A component that is created on first use. Only its creation locks this language,
+   * afterwards getting it is a volatile read. A {@code null} component is remembered, too.
+   */
+  private final class Component<T> {
+    private volatile Object value;
+
+    @SuppressWarnings("unchecked")
+    T get(Supplier<T> factory) {
+      Object result = value;
+      if (result == null) {
+        synchronized (Language.this) {
+          result = value;
+          if (result == null) {
+            T created = factory.get();
+            value = result = created == null ? NO_COMPONENT : created;
+          }
+        }
+      }
+      return result == NO_COMPONENT ? null : (T) result;
+    }
+
+    /**
+     * @param component the component, or {@code null} to create the default one on the next access
+     */
+    void set(T component) {
+      value = component;
+    }
+  }
+
 }
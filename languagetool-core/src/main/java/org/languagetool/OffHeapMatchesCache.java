@@ -0,0 +1,542 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import com.google.common.cache.AbstractCache;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.MapMaker;
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.RuleTimeBudget;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * For internal use only. A cache for the matches of sentences that keeps the matches serialized in
+ * direct (off-heap) memory and deserializes them only on a cache hit. The size limit is in bytes of
+ * the serialized data plus a rough estimate of the on-heap size of each key.
+ * Eviction uses a W-TinyLFU policy: new entries go into a small LRU window, entries evicted from
+ * the window only replace entries of the main LRU area if they have been accessed more often recently,
+ * so one-off sentences don't push out frequently checked ones.
+ * The cache is split into segments by the hash of the key. Each segment has its own lock, its own
+ * part of the size limit and its own {@link SlabStore}, so concurrent checks rarely wait for each other.
+ * @since 5.6
+ */
+final class OffHeapMatchesCache extends AbstractCache<InputSentence, List<RuleMatch>> {
+
+  // rough guess of the on-heap size of an entry not counting the key's text (map node, key, entry object):
+  private static final int ENTRY_OVERHEAD = 128;
+  private static final int WINDOW_PERCENT = 1;
+  // segments don't get smaller than this, so that large entries still fit into a segment:
+  private static final long MIN_SEGMENT_BYTES = 4 * 1024 * 1024;
+  private static final int MAX_SEGMENTS = 64;
+  private static final byte[] NO_DATA = new byte[0];
+
+  private final Segment[] segments;
+  private final long expireAfterNanos;
+  private final RuleRegistry rules = new RuleRegistry();
+  private final StatsCounter stats = new SimpleStatsCounter();
+
+  OffHeapMatchesCache(long maxBytes, long expireAfter, TimeUnit timeUnit) {
+    this(maxBytes, defaultSegmentCount(maxBytes), expireAfter, timeUnit);
+  }
+
+  /**
+   * @param segmentCount number of independently locked segments, a power of 2
+   */
+  OffHeapMatchesCache(long maxBytes, int segmentCount, long expireAfter, TimeUnit timeUnit) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("Cache size must be >= 0: " + maxBytes);
+    }
+    if (segmentCount < 1 || Integer.bitCount(segmentCount) != 1) {
+      throw new IllegalArgumentException("Segment count must be a power of 2: " + segmentCount);
+    }
+    expireAfterNanos = timeUnit.toNanos(expireAfter);
+    segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment(maxBytes / segmentCount);
+    }
+  }
+
+  private static int defaultSegmentCount(long maxBytes) {
+    int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 8 - 1));
+    while (count > 1 && maxBytes / count < MIN_SEGMENT_BYTES) {
+      count /= 2;
+    }
+    return count;
+  }
+
+  private Segment segmentFor(Object key) {
+    int h = key.hashCode();
+    return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+  }
+
+  @Nullable
+  @Override
+  public List<RuleMatch> getIfPresent(Object key) {
+    return key instanceof InputSentence ? getIfPresent((InputSentence) key, null) : null;
+  }
+
+  /**
+   * @param sentence the sentence to be referenced by the deserialized matches
+   */
+  @Nullable
+  List<RuleMatch> getIfPresent(InputSentence key, @Nullable AnalyzedSentence sentence) {
+    byte[] data = segmentFor(key).get(key);
+    if (data == null) {
+      stats.recordMisses(1);
+      return null;
+    }
+    List<RuleMatch> matches = data.length == 0 ? new ArrayList<>() : deserialize(data, sentence);
+    if (matches == null) {
+      // a rule of the cached matches doesn't exist anymore:
+      invalidate(key);
+      stats.recordMisses(1);
+      return null;
+    }
+    stats.recordHits(1);
+    return matches;
+  }
+
+  /**
+   * Call {@code consumer} for all entries that haven't expired. Entries whose rules have been
+   * garbage collected are skipped. Doesn't count as access to the entries.
+   */
+  void forEach(BiConsumer<InputSentence, List<RuleMatch>> consumer) {
+    for (Segment segment : segments) {
+      // the data is copied so that it's deserialized without holding the lock:
+      for (Map.Entry<InputSentence, byte[]> entry : segment.copyEntries().entrySet()) {
+        byte[] data = entry.getValue();
+        List<RuleMatch> matches = data.length == 0 ? new ArrayList<>() : deserialize(data, null);
+        if (matches != null) {
+          consumer.accept(entry.getKey(), matches);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void put(InputSentence key, List<RuleMatch> matches) {
+    // serializing computes lazy suggestions, they're incomplete if a rule exceeded its time budget:
+    long fallbacks = RuleTimeBudget.getFallbackCount();
+    byte[] data = serialize(matches);
+    if (RuleTimeBudget.getFallbackCount() == fallbacks) {
+      segmentFor(key).put(key, data);
+    }
+  }
+
+  @Override
+  public void invalidate(Object key) {
+    segmentFor(key).invalidate(key);
+  }
+
+  @Override
+  public void invalidateAll() {
+    for (Segment segment : segments) {
+      segment.invalidateAll();
+    }
+  }
+
+  @Override
+  public long size() {
+    long size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  /**
+   * @return the estimated size of all entries in bytes
+   */
+  long weightedSize() {
+    long size = 0;
+    for (Segment segment : segments) {
+      size += segment.weightedSize();
+    }
+    return size;
+  }
+
+  @Override
+  public CacheStats stats() {
+    return stats.snapshot();
+  }
+
+  private byte[] serialize(List<RuleMatch> matches) {
+    return RuleMatchCodec.serialize(matches, (out, rule) -> out.writeInt(rules.getHandle(rule)));
+  }
+
+  /**
+   * @return the matches, or {@code null} if a rule of the matches has been garbage collected
+   */
+  @Nullable
+  private List<RuleMatch> deserialize(byte[] data, @Nullable AnalyzedSentence sentence) {
+    return RuleMatchCodec.deserialize(data, sentence, in -> rules.getRule(in.readInt()));
+  }
+
+  /**
+   * A part of the cache with its own lock, size limit, admission policy and memory.
+   */
+  private final class Segment {
+    private final long maxWindowBytes;
+    private final long maxMainBytes;
+    // in access order, i.e. least recently used first:
+    private final LinkedHashMap<InputSentence, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<InputSentence, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private final SlabStore store;
+    private long windowBytes;
+    private long mainBytes;
+
+    Segment(long maxBytes) {
+      maxWindowBytes = maxBytes * WINDOW_PERCENT / 100;
+      maxMainBytes = maxBytes - maxWindowBytes;
+      sketch = new FrequencySketch(maxBytes / ENTRY_OVERHEAD);
+      // the weight of an entry includes the size of its blocks, so the entries always fit:
+      store = new SlabStore(maxBytes);
+    }
+
+    /**
+     * @return a copy of the data, {@link #NO_DATA} for an empty list of matches, or {@code null} if not cached
+     */
+    @Nullable
+    synchronized byte[] get(InputSentence key) {
+      sketch.increment(key.hashCode());
+      Entry entry = window.get(key);
+      if (entry == null) {
+        entry = main.get(key);
+      }
+      if (entry == null) {
+        return null;
+      }
+      long now = System.nanoTime();
+      if (now - entry.lastAccess > expireAfterNanos) {
+        remove(key);
+        return null;
+      }
+      entry.lastAccess = now;
+      return entry.firstBlock < 0 ? NO_DATA : store.read(entry.firstBlock, entry.length);
+    }
+
+    synchronized void put(InputSentence key, byte[] data) {
+      sketch.increment(key.hashCode());
+      remove(key);
+      long weight = ENTRY_OVERHEAD + 2L * key.getText().length() + (long) SlabStore.blocksFor(data.length) * SlabStore.BLOCK_SIZE;
+      if (weight > maxWindowBytes + maxMainBytes) {
+        return;
+      }
+      Entry entry = new Entry(weight, System.nanoTime());
+      window.put(key, entry);
+      windowBytes += weight;
+      // the entry gets its memory only after eviction has made room for it:
+      evictFromWindow();
+      if (data.length > 0 && (window.containsKey(key) || main.containsKey(key))) {
+        int firstBlock = store.write(data);
+        if (firstBlock < 0) {
+          // direct memory is exhausted (see -XX:MaxDirectMemorySize), so the entry is dropped:
+          remove(key);
+          stats.recordEviction();
+          return;
+        }
+        entry.firstBlock = firstBlock;
+        entry.length = data.length;
+      }
+    }
+
+    /**
+     * Move entries from the window to the main area, where they replace the least recently used
+     * entries if they have been accessed more often.
+     */
+    private void evictFromWindow() {
+      while (windowBytes > maxWindowBytes && !window.isEmpty()) {
+        Iterator<Map.Entry<InputSentence, Entry>> windowIt = window.entrySet().iterator();
+        Map.Entry<InputSentence, Entry> candidate = windowIt.next();
+        windowIt.remove();
+        windowBytes -= candidate.getValue().weight;
+        int candidateFrequency = sketch.frequency(candidate.getKey().hashCode());
+        boolean admitted = true;
+        Iterator<Map.Entry<InputSentence, Entry>> mainIt = main.entrySet().iterator();
+        while (mainBytes + candidate.getValue().weight > maxMainBytes) {
+          if (!mainIt.hasNext()) {
+            admitted = false;
+            break;
+          }
+          Map.Entry<InputSentence, Entry> victim = mainIt.next();
+          if (candidateFrequency > sketch.frequency(victim.getKey().hashCode())) {
+            mainIt.remove();
+            mainBytes -= victim.getValue().weight;
+            free(victim.getValue());
+            stats.recordEviction();
+          } else {
+            admitted = false;
+            break;
+          }
+        }
+        if (admitted) {
+          main.put(candidate.getKey(), candidate.getValue());
+          mainBytes += candidate.getValue().weight;
+        } else {
+          free(candidate.getValue());
+          stats.recordEviction();
+        }
+      }
+    }
+
+    private void remove(Object key) {
+      Entry old = window.remove(key);
+      if (old != null) {
+        windowBytes -= old.weight;
+        free(old);
+      }
+      old = main.remove(key);
+      if (old != null) {
+        mainBytes -= old.weight;
+        free(old);
+      }
+    }
+
+    private void free(Entry entry) {
+      if (entry.firstBlock >= 0) {
+        store.free(entry.firstBlock);
+        entry.firstBlock = -1;
+      }
+    }
+
+    synchronized Map<InputSentence, byte[]> copyEntries() {
+      Map<InputSentence, byte[]> entries = new LinkedHashMap<>();
+      long now = System.nanoTime();
+      for (Map<InputSentence, Entry> area : Arrays.asList(main, window)) {
+        for (Map.Entry<InputSentence, Entry> entry : area.entrySet()) {
+          Entry value = entry.getValue();
+          if (now - value.lastAccess <= expireAfterNanos) {
+            entries.put(entry.getKey(), value.firstBlock < 0 ? NO_DATA : store.read(value.firstBlock, value.length));
+          }
+        }
+      }
+      return entries;
+    }
+
+    synchronized void invalidate(Object key) {
+      remove(key);
+    }
+
+    synchronized void invalidateAll() {
+      window.clear();
+      main.clear();
+      windowBytes = 0;
+      mainBytes = 0;
+      store.clear();
+    }
+
+    synchronized long size() {
+      return window.size() + main.size();
+    }
+
+    synchronized long weightedSize() {
+      return windowBytes + mainBytes;
+    }
+  }
+
+  private static class Entry {
+    private final long weight;
+    private long lastAccess;
+    private int firstBlock = -1;  // -1 for an empty list of matches
+    private int length;
+
+    Entry(long weight, long lastAccess) {
+      this.weight = weight;
+      this.lastAccess = lastAccess;
+    }
+  }
+
+  /**
+   * Stores byte arrays in fixed-size blocks of a few large direct buffers (slabs), which are
+   * allocated when needed, up to the given number of bytes. Each block starts with the index
+   * of the next block of the same data, or of the next free block for free blocks, so the
+   * only on-heap objects are the slabs themselves. Not thread-safe.
+   */
+  static final class SlabStore {
+    static final int BLOCK_SIZE = 128;
+    private static final int PAYLOAD_SIZE = BLOCK_SIZE - Integer.BYTES;
+    private static final int MAX_SLAB_SIZE = 1024 * 1024;
+    private static final int NONE = -1;
+
+    private final int blocksPerSlab;
+    private final int maxSlabs;
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private int freeList = NONE;
+    private int unusedBlock;  // all blocks from here to the end of the last slab have never been used
+    private boolean outOfMemory;
+
+    SlabStore(long maxBytes) {
+      long maxBlocks = Math.max(1, (maxBytes + BLOCK_SIZE - 1) / BLOCK_SIZE);
+      blocksPerSlab = (int) Math.min(MAX_SLAB_SIZE / BLOCK_SIZE, maxBlocks);
+      maxSlabs = (int) Math.min(Integer.MAX_VALUE / blocksPerSlab, (maxBlocks + blocksPerSlab - 1) / blocksPerSlab);
+    }
+
+    static int blocksFor(int length) {
+      return (length + PAYLOAD_SIZE - 1) / PAYLOAD_SIZE;
+    }
+
+    /**
+     * @return the first block of the data, or -1 if no more memory could be allocated
+     */
+    int write(byte[] data) {
+      int first = NONE;
+      int previous = NONE;
+      for (int offset = 0; offset < data.length; offset += PAYLOAD_SIZE) {
+        int block = allocate();
+        if (block == NONE) {
+          if (first != NONE) {
+            free(first);
+          }
+          return NONE;
+        }
+        ByteBuffer slab = slabOf(block);
+        int position = positionOf(block);
+        slab.putInt(position, NONE);
+        slab.position(position + Integer.BYTES);
+        slab.put(data, offset, Math.min(PAYLOAD_SIZE, data.length - offset));
+        if (previous == NONE) {
+          first = block;
+        } else {
+          slabOf(previous).putInt(positionOf(previous), block);
+        }
+        previous = block;
+      }
+      return first;
+    }
+
+    byte[] read(int firstBlock, int length) {
+      byte[] data = new byte[length];
+      int block = firstBlock;
+      for (int offset = 0; offset < length; offset += PAYLOAD_SIZE) {
+        ByteBuffer slab = slabOf(block);
+        int position = positionOf(block);
+        slab.position(position + Integer.BYTES);
+        slab.get(data, offset, Math.min(PAYLOAD_SIZE, length - offset));
+        block = slab.getInt(position);
+      }
+      return data;
+    }
+
+    /**
+     * Free all blocks of the data starting at {@code firstBlock}.
+     */
+    void free(int firstBlock) {
+      int last = firstBlock;
+      int next;
+      while ((next = slabOf(last).getInt(positionOf(last))) != NONE) {
+        last = next;
+      }
+      slabOf(last).putInt(positionOf(last), freeList);
+      freeList = firstBlock;
+    }
+
+    /**
+     * Free all blocks, the slabs are kept for re-use.
+     */
+    void clear() {
+      freeList = NONE;
+      unusedBlock = 0;
+    }
+
+    private int allocate() {
+      if (freeList != NONE) {
+        int block = freeList;
+        freeList = slabOf(block).getInt(positionOf(block));
+        return block;
+      }
+      if (unusedBlock == slabs.size() * blocksPerSlab) {
+        if (slabs.size() >= maxSlabs || outOfMemory) {
+          return NONE;
+        }
+        try {
+          slabs.add(ByteBuffer.allocateDirect(blocksPerSlab * BLOCK_SIZE));
+        } catch (OutOfMemoryError e) {
+          // don't try again, each attempt triggers a GC
+          outOfMemory = true;
+          return NONE;
+        }
+      }
+      return unusedBlock++;
+    }
+
+    private ByteBuffer slabOf(int block) {
+      return slabs.get(block / blocksPerSlab);
+    }
+
+    private int positionOf(int block) {
+      return (block % blocksPerSlab) * BLOCK_SIZE;
+    }
+  }
+
+  /**
+   * Maps rules to numbers, so serialized matches can refer to their rule. Only weak references to
+   * the rules are kept, so rules of JLanguageTool instances that are not used anymore can be
+   * garbage collected. Rules are compared by identity.
+   */
+  private static class RuleRegistry {
+    private final ConcurrentMap<Rule, Integer> handles = new MapMaker().weakKeys().makeMap();
+    private final ConcurrentMap<Integer, RuleReference> rules = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Rule> collectedRules = new ReferenceQueue<>();
+    private final AtomicInteger nextHandle = new AtomicInteger();
+
+    int getHandle(Rule rule) {
+      expungeCollectedRules();
+      return handles.computeIfAbsent(rule, r -> {
+        int handle = nextHandle.getAndIncrement();
+        rules.put(handle, new RuleReference(r, handle, collectedRules));
+        return handle;
+      });
+    }
+
+    @Nullable
+    Rule getRule(int handle) {
+      RuleReference ref = rules.get(handle);
+      return ref != null ? ref.get() : null;
+    }
+
+    private void expungeCollectedRules() {
+      RuleReference ref;
+      while ((ref = (RuleReference) collectedRules.poll()) != null) {
+        rules.remove(ref.handle);
+      }
+    }
+  }
+
+  private static class RuleReference extends WeakReference<Rule> {
+    private final int handle;
+
+    RuleReference(Rule rule, int handle, ReferenceQueue<Rule> queue) {
+      super(rule, queue);
+      this.handle = handle;
+    }
+  }
+
+}
@@ -0,0 +1,72 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.rules.RuleMatch;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * A {@link ResultCache} that keeps the matches of sentences serialized in off-heap memory
+ * instead of as objects on the Java heap, which reduces the pressure on the garbage collector
+ * for large caches. Its size limit is in bytes and it only replaces cached sentences by new ones
+ * that are checked more often (W-TinyLFU). Matches are deserialized when they are found in the cache.
+ * Note that lazily computed suggestions of matches are computed when the matches are put into the cache.
+ * The caches for analyzed sentences and remote rule matches are the same as in {@link ResultCache}.
+ * @since 5.6
+ */
+public class OffHeapResultCache extends ResultCache {
+
+  private final OffHeapMatchesCache offHeapMatchesCache;
+
+  /**
+   * @param maxSize maximum size of the analyzed sentence and remote match caches, in number of sentences
+   * @param maxMatchesBytes maximum size of the off-heap matches cache in bytes
+   * @param expireAfter time to expire sentences from the cache after last read access
+   */
+  public OffHeapResultCache(long maxSize, long maxMatchesBytes, long expireAfter, TimeUnit timeUnit) {
+    this(maxSize, new OffHeapMatchesCache(maxMatchesBytes, expireAfter, timeUnit), expireAfter, timeUnit);
+  }
+
+  private OffHeapResultCache(long maxSize, OffHeapMatchesCache matchesCache, long expireAfter, TimeUnit timeUnit) {
+    super(maxSize, expireAfter, timeUnit, matchesCache);
+    this.offHeapMatchesCache = matchesCache;
+  }
+
+  @Override
+  List<RuleMatch> lookupMatches(InputSentence key, @Nullable AnalyzedSentence sentence) {
+    return offHeapMatchesCache.getIfPresent(key, sentence);
+  }
+
+  @Override
+  void forEachMatches(BiConsumer<InputSentence, List<RuleMatch>> consumer) {
+    offHeapMatchesCache.forEach(consumer);
+  }
+
+  /**
+   * @return the estimated size of the cached matches in bytes
+   */
+  public long getMatchesCacheBytes() {
+    return offHeapMatchesCache.weightedSize();
+  }
+
+}
@@ -21,12 +21,18 @@ package org.languagetool;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.Weigher;
+import io.prometheus.client.Histogram;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.patterns.RuleSet;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 /**
  * A cache to speed up text checking for use cases where sentences are checked more than once. This
@@ -41,6 +47,20 @@ import java.util.concurrent.TimeUnit;
  */
 public class ResultCache {
 
+  private static final double[] DURATION_BUCKETS = {
+    0.000_001, 0.000_005, 0.000_01, 0.000_05, 0.000_1, 0.000_5, 0.001, 0.005, 0.01, 0.05
+  };
+
+  private static final Histogram fingerprintDuration = Histogram
+    .build("languagetool_result_cache_fingerprint_seconds", "Time spent calculating the configuration fingerprint of cache keys")
+    .buckets(DURATION_BUCKETS)
+    .register();
+
+  private static final Histogram lookupDuration = Histogram
+    .build("languagetool_result_cache_lookup_seconds", "Time spent looking up sentence matches in the cache")
+    .buckets(DURATION_BUCKETS)
+    .register();
+
   /**
    * rules can fail individually, results can be partial ->
    * store list if success (can be empty), null -> failure/not checked
@@ -48,6 +68,9 @@ public class ResultCache {
   private final Cache<InputSentence, Map<String, List<RuleMatch>>> remoteMatchesCache;
   private final Cache<InputSentence, List<RuleMatch>> matchesCache;
   private final Cache<SimpleInputSentence, AnalyzedSentence> sentenceCache;
+  // matches loaded from a snapshot, still serialized as their rules are only known when they're looked up:
+  private final Cache<InputSentence, byte[]> restoredMatches;
+  private final long maxSize;
 
   /**
    * Create a cache that expires items 5 minutes after the latest read access.
@@ -62,10 +85,19 @@ public class ResultCache {
    * @param expireAfter time to expire sentences from the cache after last read access 
    */
   public ResultCache(long maxSize, long expireAfter, TimeUnit timeUnit) {
+    this(maxSize, expireAfter, timeUnit, null);
+  }
+
+  /**
+   * @param matchesCache the cache for the sentence matches, {@code null} to use one sized by {@code maxSize}
+   * @since 5.6
+   */
+  ResultCache(long maxSize, long expireAfter, TimeUnit timeUnit, Cache<InputSentence, List<RuleMatch>> matchesCache) {
     if (maxSize < 0) {
       throw new IllegalArgumentException("Result cache size must be >= 0: " + maxSize);
     }
-    matchesCache = CacheBuilder.newBuilder().
+    this.maxSize = maxSize;
+    this.matchesCache = matchesCache != null ? matchesCache : CacheBuilder.newBuilder().
             maximumWeight(maxSize/2).weigher(new MatchesWeigher()).
             recordStats().
             expireAfterAccess(expireAfter, timeUnit).
@@ -80,6 +112,10 @@ public class ResultCache {
             recordStats().
             expireAfterAccess(expireAfter, timeUnit).
             build();
+    restoredMatches = CacheBuilder.newBuilder().
+            maximumSize(maxSize).
+            expireAfterAccess(expireAfter, timeUnit).
+            build();
   }
   
   static class MatchesWeigher implements Weigher<InputSentence, List<RuleMatch>> {
@@ -120,6 +156,38 @@ public class ResultCache {
   }
 
   public List<RuleMatch> getIfPresent(InputSentence key) {
+    return getIfPresent(key, null, null);
+  }
+
+  /**
+   * Like {@link #getIfPresent(InputSentence)}, but implementations that don't keep the matches
+   * as objects can use {@code sentence} for the matches they return.
+   * @param rules the rules used for checking the sentence, needed to find matches loaded
+   *              by {@link #loadSnapshot(Path)}
+   * @since 5.6
+   */
+  List<RuleMatch> getIfPresent(InputSentence key, @Nullable AnalyzedSentence sentence, @Nullable RuleSet rules) {
+    long startTime = System.nanoTime();
+    List<RuleMatch> result = lookupMatches(key, sentence);
+    if (result == null && rules != null) {
+      result = lookupRestoredMatches(key, sentence, rules);
+    }
+    lookupDuration.observe((System.nanoTime() - startTime) / 1e9);
+    return result;
+  }
+
+  @Nullable
+  private List<RuleMatch> lookupRestoredMatches(InputSentence key, @Nullable AnalyzedSentence sentence, RuleSet rules) {
+    byte[] data = restoredMatches.getIfPresent(key);
+    if (data == null) {
+      return null;
+    }
+    // the caller puts the matches into the matches cache:
+    restoredMatches.invalidate(key);
+    return RuleMatchCodec.deserialize(data, sentence, in -> rules.getRuleByFullId(RuleMatchCodec.readString(in)));
+  }
+
+  List<RuleMatch> lookupMatches(InputSentence key, @Nullable AnalyzedSentence sentence) {
     return matchesCache.getIfPresent(key);
   }
 
@@ -135,6 +203,44 @@ public class ResultCache {
     sentenceCache.put(key, aSentence);
   }
 
+  /**
+   * Write the cached matches of sentences to a file so that they can be loaded with {@link #loadSnapshot(Path)},
+   * e.g. after a restart. The file is replaced only once it has been written completely. The caches for
+   * analyzed sentences and remote rule matches are not saved.
+   * @return the number of sentences written
+   * @since 5.6
+   */
+  public long saveSnapshot(Path file) throws IOException {
+    return ResultCacheSnapshot.write(this, file);
+  }
+
+  /**
+   * Load cached matches of sentences written by {@link #saveSnapshot(Path)}. Nothing is loaded if the file was
+   * written by a different version of LanguageTool, as the rules might have changed. At most as many sentences
+   * as the cache size given in the constructor are loaded. Loaded matches are used for the first lookup of their
+   * sentence only, after that the regular cache is used.
+   * @return the number of sentences loaded
+   * @since 5.6
+   */
+  public long loadSnapshot(Path file) throws IOException {
+    return ResultCacheSnapshot.read(this, file, maxSize);
+  }
+
+  /**
+   * Call {@code consumer} for all entries of the matches cache.
+   */
+  void forEachMatches(BiConsumer<InputSentence, List<RuleMatch>> consumer) {
+    matchesCache.asMap().forEach(consumer);
+  }
+
+  Cache<InputSentence, byte[]> getRestoredMatches() {
+    return restoredMatches;
+  }
+
+  static void observeFingerprintTime(long nanos) {
+    fingerprintDuration.observe(nanos / 1e9);
+  }
+
   /** @since 4.1 */
   public Cache<InputSentence, List<RuleMatch>> getMatchesCache() {
     return matchesCache;
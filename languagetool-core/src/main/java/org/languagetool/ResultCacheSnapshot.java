@@ -0,0 +1,158 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import com.google.common.hash.HashCode;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.RuleTimeBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * For internal use only. Reads and writes the matches of a {@link ResultCache} from/to a gzipped
+ * binary file. Matches refer to their rules by {@link org.languagetool.rules.Rule#getFullId() full id},
+ * keys are stored with their configuration fingerprint, which includes the language. As the fingerprint
+ * and the rule ids are only meaningful for the same rules, the file records the LanguageTool version
+ * and build it was written with and is ignored by other versions.
+ * @since 5.6
+ */
+final class ResultCacheSnapshot {
+
+  private static final Logger logger = LoggerFactory.getLogger(ResultCacheSnapshot.class);
+
+  private static final int MAGIC = 0x4c54_5243;  // "LTRC"
+  private static final int FORMAT_VERSION = 1;
+
+  private ResultCacheSnapshot() {
+  }
+
+  static long write(ResultCache cache, Path file) throws IOException {
+    Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+    long count;
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmpFile))))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      RuleMatchCodec.writeString(out, JLanguageTool.VERSION);
+      RuleMatchCodec.writeString(out, JLanguageTool.GIT_SHORT_ID);
+      Set<InputSentence> written = new HashSet<>();
+      try {
+        cache.forEachMatches((key, matches) -> {
+          // serializing computes lazy suggestions, they're incomplete if a rule exceeded its time budget:
+          long fallbacks = RuleTimeBudget.getFallbackCount();
+          byte[] data = serialize(matches);
+          if (RuleTimeBudget.getFallbackCount() != fallbacks) {
+            return;
+          }
+          try {
+            writeEntry(out, key, data);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+          written.add(key);
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      count = written.size();
+      // restored entries that haven't been looked up yet, so they survive more than one restart:
+      for (Map.Entry<InputSentence, byte[]> entry : cache.getRestoredMatches().asMap().entrySet()) {
+        if (!written.contains(entry.getKey())) {
+          writeEntry(out, entry.getKey(), entry.getValue());
+          count++;
+        }
+      }
+      out.writeBoolean(false);
+    } catch (IOException e) {
+      Files.deleteIfExists(tmpFile);
+      throw e;
+    }
+    Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return count;
+  }
+
+  /**
+   * Load at most {@code maxEntries} entries into the cache. If the file is damaged, the entries
+   * read up to that point stay in the cache.
+   */
+  static long read(ResultCache cache, Path file, long maxEntries) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Not a result cache snapshot: " + file);
+      }
+      int formatVersion = in.readInt();
+      String version = RuleMatchCodec.readString(in);
+      String gitId = RuleMatchCodec.readString(in);
+      if (formatVersion != FORMAT_VERSION || !Objects.equals(version, JLanguageTool.VERSION) ||
+          !Objects.equals(gitId, JLanguageTool.GIT_SHORT_ID)) {
+        logger.info("Ignoring result cache snapshot " + file + " written by LanguageTool " + version + " (" + gitId + ")" +
+          ", this is " + JLanguageTool.VERSION + " (" + JLanguageTool.GIT_SHORT_ID + ")");
+        return 0;
+      }
+      long count = 0;
+      while (count < maxEntries && in.readBoolean()) {
+        String text = RuleMatchCodec.readString(in);
+        byte[] fingerprint = new byte[in.readUnsignedByte()];
+        in.readFully(fingerprint);
+        JLanguageTool.Mode mode = JLanguageTool.Mode.values()[in.readByte()];
+        JLanguageTool.Level level = JLanguageTool.Level.values()[in.readByte()];
+        Long textSessionID = in.readBoolean() ? in.readLong() : null;
+        byte[] matches = new byte[in.readInt()];
+        in.readFully(matches);
+        InputSentence key = new InputSentence(text, HashCode.fromBytes(fingerprint), mode, level, textSessionID);
+        cache.getRestoredMatches().put(key, matches);
+        count++;
+      }
+      return count;
+    }
+  }
+
+  private static byte[] serialize(List<RuleMatch> matches) {
+    return RuleMatchCodec.serialize(matches, (out, rule) -> RuleMatchCodec.writeString(out, rule.getFullId()));
+  }
+
+  private static void writeEntry(DataOutputStream out, InputSentence key, byte[] matches) throws IOException {
+    out.writeBoolean(true);
+    RuleMatchCodec.writeString(out, key.getText());
+    byte[] fingerprint = key.getConfigFingerprint().asBytes();
+    out.writeByte(fingerprint.length);
+    out.write(fingerprint);
+    out.writeByte(key.getMode().ordinal());
+    out.writeByte(key.getLevel().ordinal());
+    Long textSessionID = key.getTextSessionID();
+    out.writeBoolean(textSessionID != null);
+    if (textSessionID != null) {
+      out.writeLong(textSessionID);
+    }
+    out.writeInt(matches.length);
+    out.write(matches);
+  }
+
+}
@@ -0,0 +1,207 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.SuggestedReplacement;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * For internal use only. Serializes rule matches to a compact binary form for the caches.
+ * How a match refers to its rule is up to the caller, as the rule objects can't be serialized.
+ * @since 5.6
+ */
+final class RuleMatchCodec {
+
+  interface RuleWriter {
+    void write(DataOutputStream out, Rule rule) throws IOException;
+  }
+
+  interface RuleReader {
+    /**
+     * @return the rule, or {@code null} if it isn't available anymore
+     */
+    @Nullable
+    Rule read(DataInputStream in) throws IOException;
+  }
+
+  private RuleMatchCodec() {
+  }
+
+  /**
+   * @return the serialized matches, an empty array for an empty list
+   */
+  static byte[] serialize(List<RuleMatch> matches, RuleWriter ruleWriter) {
+    if (matches.isEmpty()) {
+      return new byte[0];
+    }
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeInt(matches.size());
+      for (RuleMatch match : matches) {
+        ruleWriter.write(out, match.getRule());
+        writeString(out, match.getMessage());
+        writeString(out, match.getShortMessage());
+        out.writeInt(match.getFromPos());
+        out.writeInt(match.getToPos());
+        out.writeInt(match.getPatternFromPos());
+        out.writeInt(match.getPatternToPos());
+        out.writeInt(match.getLine());
+        out.writeInt(match.getEndLine());
+        out.writeInt(match.getColumn());
+        out.writeInt(match.getEndColumn());
+        writeString(out, match.getUrl() != null ? match.getUrl().toString() : null);
+        out.writeByte(match.getType().ordinal());
+        out.writeBoolean(match.isAutoCorrect());
+        writeString(out, match.getErrorLimitLang());
+        String specificRuleId = match.getSpecificRuleId();
+        writeString(out, specificRuleId.equals(match.getRule().getId()) ? null : specificRuleId);
+        writeFeatures(out, match.getFeatures());
+        // this computes lazy suggestions, as they can't be stored otherwise:
+        List<SuggestedReplacement> suggestions = match.getSuggestedReplacementObjects();
+        out.writeInt(suggestions.size());
+        for (SuggestedReplacement suggestion : suggestions) {
+          writeString(out, suggestion.getReplacement());
+          writeString(out, suggestion.getShortDescription());
+          writeString(out, suggestion.getSuffix());
+          out.writeBoolean(suggestion.getConfidence() != null);
+          if (suggestion.getConfidence() != null) {
+            out.writeFloat(suggestion.getConfidence());
+          }
+          out.writeByte(suggestion.getType().ordinal());
+          writeFeatures(out, suggestion.getFeatures());
+        }
+      }
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * @param bytes the result of {@link #serialize}
+   * @param sentence the sentence to be referenced by the matches
+   * @return the matches, or {@code null} if a rule of the matches isn't available anymore
+   */
+  @Nullable
+  static List<RuleMatch> deserialize(byte[] bytes, @Nullable AnalyzedSentence sentence, RuleReader ruleReader) {
+    if (bytes.length == 0) {
+      return new ArrayList<>();
+    }
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+      int matchCount = in.readInt();
+      List<RuleMatch> matches = new ArrayList<>(matchCount);
+      for (int i = 0; i < matchCount; i++) {
+        Rule rule = ruleReader.read(in);
+        if (rule == null) {
+          return null;
+        }
+        String message = readString(in);
+        String shortMessage = readString(in);
+        int fromPos = in.readInt();
+        int toPos = in.readInt();
+        int patternFromPos = in.readInt();
+        int patternToPos = in.readInt();
+        RuleMatch match = new RuleMatch(rule, sentence, fromPos, toPos, patternFromPos, patternToPos, message, shortMessage);
+        match.setLine(in.readInt());
+        match.setEndLine(in.readInt());
+        match.setColumn(in.readInt());
+        match.setEndColumn(in.readInt());
+        String url = readString(in);
+        if (url != null) {
+          match.setUrl(new URL(url));
+        }
+        match.setType(RuleMatch.Type.values()[in.readByte()]);
+        match.setAutoCorrect(in.readBoolean());
+        match.setErrorLimitLang(readString(in));
+        String specificRuleId = readString(in);
+        if (specificRuleId != null) {
+          match.setSpecificRuleId(specificRuleId);
+        }
+        match.setFeatures(readFeatures(in));
+        int suggestionCount = in.readInt();
+        List<SuggestedReplacement> suggestions = new ArrayList<>(suggestionCount);
+        for (int j = 0; j < suggestionCount; j++) {
+          SuggestedReplacement suggestion = new SuggestedReplacement(readString(in), readString(in), readString(in));
+          if (in.readBoolean()) {
+            suggestion.setConfidence(in.readFloat());
+          }
+          suggestion.setType(SuggestedReplacement.SuggestionType.values()[in.readByte()]);
+          suggestion.setFeatures(readFeatures(in));
+          suggestions.add(suggestion);
+        }
+        match.setSuggestedReplacementObjects(suggestions);
+        matches.add(match);
+      }
+      return matches;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  static void writeString(DataOutputStream out, @Nullable String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+    } else {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  @Nullable
+  static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeFeatures(DataOutputStream out, SortedMap<String, Float> features) throws IOException {
+    out.writeInt(features.size());
+    for (Map.Entry<String, Float> entry : features.entrySet()) {
+      writeString(out, entry.getKey());
+      out.writeFloat(entry.getValue());
+    }
+  }
+
+  private static SortedMap<String, Float> readFeatures(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    if (size == 0) {
+      return Collections.emptySortedMap();
+    }
+    SortedMap<String, Float> features = new TreeMap<>();
+    for (int i = 0; i < size; i++) {
+      features.put(readString(in), in.readFloat());
+    }
+    return features;
+  }
+
+}
@@ -0,0 +1,200 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.languagetool.rules.Category;
+import org.languagetool.rules.CategoryId;
+import org.languagetool.rules.Rule;
+
+import java.util.*;
+
+/**
+ * Rules and categories to enable or disable for a single call of
+ * {@link JLanguageTool#check2(org.languagetool.markup.AnnotatedText, boolean, JLanguageTool.ParagraphHandling, RuleMatchListener, JLanguageTool.Mode, JLanguageTool.Level, Long, RuleSelection)},
+ * on top of the configuration of the {@link JLanguageTool} object. The result is the same as calling
+ * {@link org.languagetool.tools.Tools#selectRules(JLanguageTool, Set, Set, Set, Set, boolean, boolean)}
+ * before checking, but the {@link JLanguageTool} object isn't modified, so it can be shared by
+ * requests with different rule settings.
+ * @since 5.6
+ */
+public class RuleSelection {
+
+  private final Set<CategoryId> disabledCategories;
+  private final Set<CategoryId> enabledCategories;
+  private final Set<String> disabledRules;
+  private final Set<String> enabledRules;
+  private final boolean useEnabledOnly;
+  private final boolean enableTempOff;
+  private final Set<String> finallyDisabledRules;
+  private int hashCode;
+
+  /**
+   * @param useEnabledOnly if {@code true}, only the rules in {@code enabledRules} and in {@code enabledCategories} will be used
+   * @param enableTempOff whether to enable rules that are marked {@code default="temp_off"}
+   */
+  public RuleSelection(Collection<CategoryId> disabledCategories, Collection<CategoryId> enabledCategories,
+                       Collection<String> disabledRules, Collection<String> enabledRules,
+                       boolean useEnabledOnly, boolean enableTempOff) {
+    this(new HashSet<>(disabledCategories), new HashSet<>(enabledCategories), new HashSet<>(disabledRules),
+      new HashSet<>(enabledRules), useEnabledOnly, enableTempOff, Collections.emptySet());
+  }
+
+  private RuleSelection(Set<CategoryId> disabledCategories, Set<CategoryId> enabledCategories,
+                        Set<String> disabledRules, Set<String> enabledRules,
+                        boolean useEnabledOnly, boolean enableTempOff, Set<String> finallyDisabledRules) {
+    this.disabledCategories = disabledCategories;
+    this.enabledCategories = enabledCategories;
+    this.disabledRules = disabledRules;
+    this.enabledRules = enabledRules;
+    this.useEnabledOnly = useEnabledOnly;
+    this.enableTempOff = enableTempOff;
+    this.finallyDisabledRules = finallyDisabledRules;
+  }
+
+  /**
+   * @return a selection that is like this one, but with the given rules disabled even
+   * if this selection enables them, e.g. because they must never be used by a server
+   */
+  public RuleSelection andDisable(Collection<String> ruleIds) {
+    if (ruleIds.isEmpty()) {
+      return this;
+    }
+    Set<String> disabled = new HashSet<>(finallyDisabledRules);
+    disabled.addAll(ruleIds);
+    return new RuleSelection(disabledCategories, enabledCategories, disabledRules, enabledRules,
+      useEnabledOnly, enableTempOff, disabled);
+  }
+
+  /**
+   * Apply this selection to a copy of the given configuration, in the same order as
+   * {@link org.languagetool.tools.Tools#selectRules(JLanguageTool, Set, Set, Set, Set, boolean, boolean)}.
+   * @param allRules all rules known to the {@link JLanguageTool} object, active or not
+   */
+  Applied apply(Set<String> baseDisabledRules, Set<CategoryId> baseDisabledCategories,
+                Set<String> baseEnabledRules, Set<CategoryId> baseEnabledCategories, List<Rule> allRules) {
+    Applied result = new Applied(baseDisabledRules, baseDisabledCategories, baseEnabledRules, baseEnabledCategories);
+    if (enableTempOff) {
+      for (Rule rule : allRules) {
+        if (rule.isDefaultTempOff()) {
+          result.enableRule(rule.getFullId());
+        }
+      }
+    }
+    for (CategoryId id : disabledCategories) {
+      result.disabledCategories.add(id);
+      result.enabledCategories.remove(id);
+    }
+    if (enabledCategories.size() > 0) {
+      for (CategoryId id : enabledCategories) {
+        result.disabledCategories.remove(id);
+        result.enabledCategories.add(id);
+      }
+      if (useEnabledOnly) {
+        for (Rule rule : allRules) {
+          Category category = rule.getCategory();
+          if (!enabledCategories.contains(category.getId())) {
+            result.disableRule(rule.getFullId());
+          }
+        }
+      }
+    }
+    for (String ruleId : disabledRules) {
+      result.disableRule(ruleId);
+    }
+    if (enabledRules.size() > 0) {
+      for (String ruleId : enabledRules) {
+        result.enableRule(ruleId);
+      }
+      if (useEnabledOnly) {
+        for (Rule rule : allRules) {
+          if (!(enabledRules.contains(rule.getFullId()) || enabledRules.contains(rule.getId()))) {
+            result.disableRule(rule.getFullId());
+          }
+        }
+      }
+    }
+    for (String ruleId : finallyDisabledRules) {
+      result.disableRule(ruleId);
+    }
+    return result;
+  }
+
+  /**
+   * Selections are equal if they contain the same rules and categories, so the result of
+   * applying them can be reused by checks with equal selections.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    RuleSelection other = (RuleSelection) o;
+    return useEnabledOnly == other.useEnabledOnly && enableTempOff == other.enableTempOff &&
+      hashCode() == other.hashCode() &&
+      disabledCategories.equals(other.disabledCategories) && enabledCategories.equals(other.enabledCategories) &&
+      disabledRules.equals(other.disabledRules) && enabledRules.equals(other.enabledRules) &&
+      finallyDisabledRules.equals(other.finallyDisabledRules);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = hashCode;
+    if (result == 0) {
+      hashCode = result = Objects.hash(disabledCategories, enabledCategories, disabledRules, enabledRules,
+        useEnabledOnly, enableTempOff, finallyDisabledRules);
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "disabledCategories=" + disabledCategories + ", enabledCategories=" + enabledCategories +
+      ", disabledRules=" + disabledRules + ", enabledRules=" + enabledRules +
+      ", useEnabledOnly=" + useEnabledOnly + ", enableTempOff=" + enableTempOff +
+      ", finallyDisabledRules=" + finallyDisabledRules.size();
+  }
+
+  /**
+   * The rule configuration resulting from {@link #apply}.
+   */
+  static class Applied {
+    final Set<String> disabledRules;
+    final Set<CategoryId> disabledCategories;
+    final Set<String> enabledRules;
+    final Set<CategoryId> enabledCategories;
+
+    private Applied(Set<String> disabledRules, Set<CategoryId> disabledCategories,
+                    Set<String> enabledRules, Set<CategoryId> enabledCategories) {
+      this.disabledRules = new HashSet<>(disabledRules);
+      this.disabledCategories = new HashSet<>(disabledCategories);
+      this.enabledRules = new HashSet<>(enabledRules);
+      this.enabledCategories = new HashSet<>(enabledCategories);
+    }
+
+    private void enableRule(String ruleId) {
+      disabledRules.remove(ruleId);
+      enabledRules.add(ruleId);
+    }
+
+    private void disableRule(String ruleId) {
+      disabledRules.add(ruleId);
+      enabledRules.remove(ruleId);
+    }
+  }
+
+}
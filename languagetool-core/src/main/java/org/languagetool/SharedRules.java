@@ -0,0 +1,162 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.patterns.*;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * For internal use only. The rules of a language that are loaded from XML files, i.e. the pattern rules and
+ * the false friend rules for a mother tongue. They don't depend on the configuration of a {@link JLanguageTool},
+ * so all instances for the same language and mother tongue share them and their index for
+ * {@link RuleSet#rulesForSentence}, and only keep which of the rules are active (see {@link RuleSet#activate}).
+ * An instance is kept as long as a {@link JLanguageTool} refers to it.
+ * @since 5.6
+ */
+final class SharedRules {
+
+  private static final LoadingCache<Key, SharedRules> cache = CacheBuilder.newBuilder()
+    .weakValues()
+    .build(new CacheLoader<Key, SharedRules>() {
+      @Override
+      public SharedRules load(Key key) throws Exception {
+        return new SharedRules(key.language, key.motherTongue);
+      }
+    });
+
+  private final List<Rule> patternRules;
+  private final List<Rule> falseFriendRules;
+  private final RuleSet index;
+
+  private SharedRules(Language language, @Nullable Language motherTongue) throws Exception {
+    patternRules = Collections.unmodifiableList(loadPatternRules(language));
+    if (motherTongue != null && !language.hasNGramFalseFriendRule(motherTongue)) {
+      // use the old false friends, which always match, not depending on context
+      falseFriendRules = Collections.unmodifiableList(loadFalseFriendRules(language, motherTongue));
+    } else {
+      falseFriendRules = Collections.emptyList();
+    }
+    List<Rule> allRules = new ArrayList<>(patternRules);
+    allRules.addAll(falseFriendRules);
+    index = RuleSet.textLemmaHinted(allRules);
+  }
+
+  /**
+   * Get the shared rules for the given language and mother tongue, loading them if no other
+   * {@link JLanguageTool} uses them.
+   */
+  static SharedRules get(Language language, @Nullable Language motherTongue) {
+    return cache.getUnchecked(new Key(language, motherTongue));
+  }
+
+  /**
+   * The pattern rules from {@code org/languagetool/rules/<languageCode>/grammar.xml} etc.
+   */
+  List<Rule> getPatternRules() {
+    return patternRules;
+  }
+
+  /**
+   * The false friend rules from {@code rules/false-friends.xml} for the mother tongue, if the
+   * language doesn't have an ngram-based false friend rule for it.
+   */
+  List<Rule> getFalseFriendRules() {
+    return falseFriendRules;
+  }
+
+  /**
+   * The index of all rules of this object, to be used with {@link RuleSet#activate}.
+   */
+  RuleSet getIndex() {
+    return index;
+  }
+
+  private static List<Rule> loadPatternRules(Language language) throws Exception {
+    List<AbstractPatternRule> patternRules = language.getPatternRules();
+    List<String> enabledRules = language.getDefaultEnabledRulesForVariant();
+    List<String> disabledRules = language.getDefaultDisabledRulesForVariant();
+    if (!enabledRules.isEmpty() || !disabledRules.isEmpty()) {
+      for (AbstractPatternRule patternRule : patternRules) {
+        if (enabledRules.contains(patternRule.getId())) {
+          patternRule.setDefaultOn();
+        }
+        if (disabledRules.contains(patternRule.getId())) {
+          patternRule.setDefaultOff();
+        }
+      }
+    }
+    List<AbstractPatternRule> rules = new ArrayList<>(patternRules);
+    List<PatternRuleTransformer> transforms = Arrays.asList(new RepeatedPatternRuleTransformer(language));
+    List<Rule> transformed = new ArrayList<>();
+    for (PatternRuleTransformer op : transforms) {
+      PatternRuleTransformer.TransformedRules result = op.apply(rules);
+      rules = result.getRemainingRules();
+      transformed.addAll(result.getTransformedRules());
+    }
+    transformed.addAll(rules);
+    return transformed;
+  }
+
+  private static List<AbstractPatternRule> loadFalseFriendRules(Language language, Language motherTongue) throws Exception {
+    String filename = JLanguageTool.getDataBroker().getRulesDir() + "/" + JLanguageTool.FALSE_FRIEND_FILE;
+    FalseFriendRuleLoader ruleLoader = new FalseFriendRuleLoader(motherTongue);
+    try (InputStream is = JLanguageTool.getDataBroker().getAsStream(filename)) {
+      if (is == null) {
+        return ruleLoader.getRules(new File(filename), language, motherTongue);
+      } else {
+        return ruleLoader.getRules(is, filename, language, motherTongue);
+      }
+    }
+  }
+
+  /**
+   * Languages are compared by identity, as each {@link Language} object loads its own pattern rules.
+   */
+  private static class Key {
+    private final Language language;
+    private final Language motherTongue;
+
+    Key(Language language, @Nullable Language motherTongue) {
+      this.language = Objects.requireNonNull(language);
+      this.motherTongue = motherTongue;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Key other = (Key) o;
+      return language == other.language && motherTongue == other.motherTongue;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(language) + System.identityHashCode(motherTongue);
+    }
+  }
+
+}
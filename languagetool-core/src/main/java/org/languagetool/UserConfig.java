@@ -18,6 +18,8 @@
  */
 package org.languagetool;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.jetbrains.annotations.NotNull;
@@ -55,6 +57,7 @@ public class UserConfig {
   // provided to rules only for A/B tests
   private final Long textSessionId;
   private final String abTest;
+  private volatile HashCode fingerprint;
 
   public UserConfig() {
     this(new ArrayList<>(), new HashMap<>());
@@ -88,7 +91,8 @@ public class UserConfig {
                     Long userDictCacheSize,
                     LinguServices linguServices, boolean filterDictionaryMatches,
                     @Nullable String abTest, @Nullable Long textSessionId, boolean hidePremiumMatches) {
-    this.userSpecificSpellerWords = Objects.requireNonNull(userSpecificSpellerWords);
+    // copied, as the fingerprint is only calculated once:
+    this.userSpecificSpellerWords = Collections.unmodifiableList(new ArrayList<>(Objects.requireNonNull(userSpecificSpellerWords)));
     for (Map.Entry<String, Integer> entry : ruleValues.entrySet()) {
       this.configurableRuleValues.put(entry.getKey(), entry.getValue());
     }
@@ -130,6 +134,7 @@ public class UserConfig {
     for (Map.Entry<String, Integer> entry : ruleValues.entrySet()) {
       this.configurableRuleValues.put(entry.getKey(), entry.getValue());
     }
+    fingerprint = null;
   }
   
   public int getConfigValueByID(String ruleID) {
@@ -170,6 +175,36 @@ public class UserConfig {
     return premiumUid;
   }
 
+  /**
+   * A hash of everything compared by {@link #equals(Object)}, used for the keys of {@link ResultCache}.
+   * It's only calculated once, as hashing a large user dictionary is expensive.
+   * @since 5.6
+   */
+  HashCode getFingerprint() {
+    HashCode result = fingerprint;
+    if (result == null) {
+      Hasher hasher = ConfigFingerprint.newHasher();
+      Map<String, Integer> sortedRuleValues = new TreeMap<>(configurableRuleValues);
+      hasher.putInt(sortedRuleValues.size());
+      for (Map.Entry<String, Integer> entry : sortedRuleValues.entrySet()) {
+        ConfigFingerprint.putString(hasher, entry.getKey());
+        hasher.putInt(entry.getValue());
+      }
+      hasher.putLong(premiumUid != null ? premiumUid : -1);
+      hasher.putBoolean(premiumUid != null);
+      ConfigFingerprint.putString(hasher, userDictName);
+      hasher.putInt(userSpecificSpellerWords.size());
+      for (String word : userSpecificSpellerWords) {
+        ConfigFingerprint.putString(hasher, word);
+      }
+      hasher.putBoolean(filterDictionaryMatches);
+      ConfigFingerprint.putString(hasher, abTest);
+      hasher.putBoolean(hidePremiumMatches);
+      fingerprint = result = hasher.hash();
+    }
+    return result;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -0,0 +1,191 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 LanguageTooler GmbH
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.language;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash table that maps a bigram of vocabulary ids to a float value
+ * (the log probability, for {@link NGramLangIdentifier}). Keys and values live in a
+ * {@link LongBuffer} and a {@link FloatBuffer}, which are either backed by arrays or
+ * by a memory-mapped model file. Lookups don't allocate.
+ * @since 5.6
+ */
+final class BigramTable {
+
+  private static final long EMPTY = -1L;  // vocabulary ids are >= 0, so this can't be a real key
+
+  private final LongBuffer keys;
+  private final FloatBuffer values;
+  private final int mask;
+  private final int size;
+
+  private BigramTable(LongBuffer keys, FloatBuffer values, int size) {
+    int capacity = keys.capacity();
+    if (Integer.bitCount(capacity) != 1 || values.capacity() != capacity) {
+      throw new IllegalArgumentException("Invalid table capacity: " + capacity + "/" + values.capacity());
+    }
+    this.keys = keys;
+    this.values = values;
+    this.mask = capacity - 1;
+    this.size = size;
+  }
+
+  static long key(int first, int second) {
+    return ((long) first << 32) | (second & 0xFFFFFFFFL);
+  }
+
+  float get(int first, int second, float defaultValue) {
+    long key = key(first, second);
+    int i = hash(key) & mask;
+    while (true) {
+      long k = keys.get(i);
+      if (k == key) {
+        return values.get(i);
+      }
+      if (k == EMPTY) {
+        return defaultValue;
+      }
+      i = (i + 1) & mask;
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  private static int hash(long key) {
+    // finalizer of MurmurHash3
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return (int) key;
+  }
+
+  /**
+   * Format: capacity (int), size (int), capacity keys (long), capacity values (float).
+   */
+  void writeTo(DataOutputStream out) throws IOException {
+    out.writeInt(keys.capacity());
+    out.writeInt(size);
+    for (int i = 0; i < keys.capacity(); i++) {
+      out.writeLong(keys.get(i));
+    }
+    for (int i = 0; i < values.capacity(); i++) {
+      out.writeFloat(values.get(i));
+    }
+  }
+
+  /**
+   * Create a table as a view on the buffer (no copying) and advance the buffer's position
+   * behind the table. The format is the one written by {@link #writeTo(DataOutputStream)}.
+   */
+  static BigramTable readFrom(ByteBuffer buffer) {
+    int capacity = buffer.getInt();
+    int size = buffer.getInt();
+    ByteBuffer keyBytes = buffer.slice();
+    keyBytes.limit(capacity * Long.BYTES);
+    buffer.position(buffer.position() + capacity * Long.BYTES);
+    ByteBuffer valueBytes = buffer.slice();
+    valueBytes.limit(capacity * Float.BYTES);
+    buffer.position(buffer.position() + capacity * Float.BYTES);
+    return new BigramTable(keyBytes.order(buffer.order()).asLongBuffer(), valueBytes.order(buffer.order()).asFloatBuffer(), size);
+  }
+
+  static class Builder {
+
+    private long[] keys;
+    private float[] values;
+    private int size;
+
+    Builder() {
+      this(1024);
+    }
+
+    Builder(int expectedSize) {
+      int capacity = capacityFor(expectedSize);
+      keys = newKeys(capacity);
+      values = new float[capacity];
+    }
+
+    void put(int first, int second, float value) {
+      if (first < 0 || second < 0) {
+        throw new IllegalArgumentException("Invalid vocabulary ids: " + first + ", " + second);
+      }
+      if ((size + 1) * 2L > keys.length) {
+        rehash(keys.length * 2);
+      }
+      if (insert(keys, values, key(first, second), value)) {
+        size++;
+      }
+    }
+
+    BigramTable build() {
+      return new BigramTable(LongBuffer.wrap(keys), FloatBuffer.wrap(values), size);
+    }
+
+    private void rehash(int newCapacity) {
+      long[] newKeys = newKeys(newCapacity);
+      float[] newValues = new float[newCapacity];
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] != EMPTY) {
+          insert(newKeys, newValues, keys[i], values[i]);
+        }
+      }
+      keys = newKeys;
+      values = newValues;
+    }
+
+    /** @return true if the key was new */
+    private static boolean insert(long[] keys, float[] values, long key, float value) {
+      int mask = keys.length - 1;
+      int i = hash(key) & mask;
+      while (keys[i] != EMPTY) {
+        if (keys[i] == key) {
+          values[i] = value;
+          return false;
+        }
+        i = (i + 1) & mask;
+      }
+      keys[i] = key;
+      values[i] = value;
+      return true;
+    }
+
+    private static long[] newKeys(int capacity) {
+      long[] keys = new long[capacity];
+      Arrays.fill(keys, EMPTY);
+      return keys;
+    }
+
+    private static int capacityFor(int expectedSize) {
+      // load factor <= 0.5
+      int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+      return Math.max(capacity, 16);
+    }
+  }
+
+}
@@ -18,6 +18,7 @@
  */
 package org.languagetool.language;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,21 +26,31 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.languagetool.language.LanguageIdentifier.canLanguageBeDetected;
 
 /**
+ * Language detection with one or more external fasttext processes. Requests from
+ * concurrent callers are queued per process and written to it in batches (one line
+ * per request), the result lines are then handed back to the callers in order.
+ * Processes that die or stop answering are restarted.
  * @since 5.0
  */
 public class FastText {
 
   private static final Logger logger = LoggerFactory.getLogger(FastText.class);
   private static final int K_HIGHEST_SCORES = 5;
-  private static final int BUFFER_SIZE = 4096;
+  private static final int MAX_BATCH_SIZE = 64;
+  private static final long HEALTH_CHECK_INTERVAL_MILLIS = 1000;
+  private static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+  private static final AtomicInteger poolCounter = new AtomicInteger();
 
-  private final Process fasttextProcess;
-  private final Reader fasttextIn;
-  private final Writer fasttextOut;
+  private final List<Worker> workers = new ArrayList<>();
+  private final ScheduledExecutorService healthChecker;
+  private final long timeoutMillis;
+  private volatile boolean shutdown;
 
   public static class FastTextException extends RuntimeException {
     private final boolean disabled;
@@ -58,45 +69,141 @@ public class FastText {
   }
 
   public FastText(File modelPath, File binaryPath) throws IOException {
-    fasttextProcess = new ProcessBuilder(binaryPath.getPath(), "predict-prob", modelPath.getPath(), "-", "" + K_HIGHEST_SCORES).start();
-    // avoid buffering, we want to flush/read all data immediately
-    // might cause mixup
-    fasttextIn = new InputStreamReader(fasttextProcess.getInputStream(), StandardCharsets.UTF_8);
-    fasttextOut = new OutputStreamWriter(fasttextProcess.getOutputStream(), StandardCharsets.UTF_8);
+    this(modelPath, binaryPath, 1);
+  }
+
+  /**
+   * @param processes number of fasttext processes to start, requests are distributed among them
+   * @since 5.6
+   */
+  public FastText(File modelPath, File binaryPath, int processes) throws IOException {
+    this(modelPath, binaryPath, processes, DEFAULT_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * @param processes number of fasttext processes to start, requests are distributed among them
+   * @param timeoutMillis maximum time to wait for a result; a process that takes longer is restarted
+   * @since 5.6
+   */
+  public FastText(File modelPath, File binaryPath, int processes, long timeoutMillis) throws IOException {
+    if (processes < 1) {
+      throw new IllegalArgumentException("processes must be >= 1: " + processes);
+    }
+    this.timeoutMillis = timeoutMillis;
+    ProcessBuilder processBuilder = new ProcessBuilder(binaryPath.getPath(), "predict-prob", modelPath.getPath(), "-", "" + K_HIGHEST_SCORES);
+    int poolId = poolCounter.incrementAndGet();
+    try {
+      for (int i = 0; i < processes; i++) {
+        Worker worker = new Worker(processBuilder, "fasttext-" + poolId + "-worker-" + i);
+        workers.add(worker);
+        worker.start();
+      }
+    } catch (IOException e) {
+      workers.forEach(Worker::stop);
+      throw e;
+    }
+    healthChecker = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setNameFormat("fasttext-" + poolId + "-health-check").setDaemon(true).build());
+    healthChecker.scheduleWithFixedDelay(this::checkHealth, HEALTH_CHECK_INTERVAL_MILLIS, HEALTH_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
   }
 
   // for tests only
   FastText() {
-    fasttextProcess = null;
-    fasttextIn = null;
-    fasttextOut = null;
+    healthChecker = null;
+    timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
   }
 
   public Map<String, Double> runFasttext(String text, List<String> additionalLanguageCodes) throws IOException {
-    String joined = text.replace("\n", " ").toLowerCase(Locale.ROOT);
-    char[] cbuf = new char[BUFFER_SIZE];
-    synchronized (this) {
-      fasttextOut.write(joined + System.lineSeparator());
-      fasttextOut.flush();
-      long read = fasttextIn.read(cbuf);
-      if (read <= 0) {
-        // hack to see if this helps us debug the rare case of readLine() returning null:
-        try {
-          logger.warn("fasttextIn.read() returned no data, trying again after short delay");
-          Thread.sleep(10);
-          read = fasttextIn.read(cbuf);
-          if (read == -1) {
-            logger.warn("fasttextIn.read() returned no data again");
+    String joined = text.replace('\n', ' ').replace('\r', ' ').toLowerCase(Locale.ROOT);
+    Set<Worker> tried = new HashSet<>();
+    while (true) {
+      Worker worker = selectWorker(tried);
+      tried.add(worker);
+      Request request = new Request(joined);
+      worker.queue.add(request);
+      if (worker.failed && worker.queue.remove(request)) {
+        // the worker has given up after we selected it, nobody would answer the request
+        continue;
+      }
+      String result;
+      try {
+        result = request.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new FastTextException("Interrupted while waiting for fasttext result", false);
+      } catch (TimeoutException e) {
+        throw new FastTextException("No result from fasttext after " + timeoutMillis + "ms", false);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof FastTextException) {
+          if (hasOtherWorker(tried)) {
+            logger.warn("Retrying fasttext request on another process: " + e.getCause().getMessage());
+            continue;
           }
-        } catch (InterruptedException e) {
-          throw new RuntimeException(e);
+          throw (FastTextException) e.getCause();
         }
+        throw new IOException("fasttext request failed", e.getCause());
       }
-      if (fasttextIn.ready()) {
-        logger.warn("More input to read from Fasttext, this should not happen; language detection results might be mixed up");
+      return parseBuffer(result, additionalLanguageCodes);
+    }
+  }
+
+  /**
+   * The worker with the shortest queue, preferring workers whose process is alive
+   * and those that haven't been tried yet for the current request.
+   */
+  private Worker selectWorker(Set<Worker> tried) {
+    if (shutdown) {
+      throw new FastTextException("fasttext has been shut down", true);
+    }
+    Worker best = null;
+    for (Worker worker : workers) {
+      if (worker.failed) {
+        continue;
+      }
+      if (best == null || rank(worker, tried) < rank(best, tried) ||
+          rank(worker, tried) == rank(best, tried) && worker.queue.size() < best.queue.size()) {
+        best = worker;
+      }
+    }
+    if (best == null) {
+      throw new FastTextException("All fasttext processes have failed and could not be restarted", true);
+    }
+    return best;
+  }
+
+  private static int rank(Worker worker, Set<Worker> tried) {
+    return (tried.contains(worker) ? 2 : 0) + (worker.isProcessAlive() ? 0 : 1);
+  }
+
+  private boolean hasOtherWorker(Set<Worker> tried) {
+    return !shutdown && workers.stream().anyMatch(worker -> !worker.failed && !tried.contains(worker));
+  }
+
+  /**
+   * Kills processes that have not answered within the timeout, so that their worker
+   * thread restarts them, and reports processes that have died. The requests queued
+   * for a dead process are failed, so their callers can use another process.
+   */
+  private void checkHealth() {
+    long now = System.currentTimeMillis();
+    for (Worker worker : workers) {
+      Process process = worker.process;
+      if (process == null || worker.failed) {
+        continue;
+      }
+      long batchStart = worker.batchStartMillis;
+      if (batchStart > 0 && now - batchStart > timeoutMillis) {
+        logger.warn("fasttext process of " + worker.name + " has not answered for " + (now - batchStart) + "ms, restarting it");
+        process.destroyForcibly();
+      } else if (!process.isAlive() && !worker.deadProcessReported) {
+        // the worker thread restarts the process before it handles the next request
+        logger.warn("fasttext process of " + worker.name + " is not alive (exit value " + process.exitValue() + ")");
+        worker.deadProcessReported = true;
+        if (workers.size() > 1) {
+          worker.failQueued(new FastTextException("fasttext process of " + worker.name + " is not alive", false));
+        }
       }
     }
-    return parseBuffer(new String(cbuf), additionalLanguageCodes);
   }
 
   @NotNull
@@ -125,7 +232,169 @@ public class FastText {
   }
 
   void destroy() {
-    fasttextProcess.destroy();
+    shutdown = true;
+    if (healthChecker != null) {
+      healthChecker.shutdownNow();
+    }
+    workers.forEach(Worker::stop);
+  }
+
+  /** For tests: the number of fasttext processes that have been started, including restarts. */
+  int getProcessStartCount() {
+    return workers.stream().mapToInt(worker -> worker.startCount).sum();
+  }
+
+  // for tests only
+  void killProcesses() {
+    for (Worker worker : workers) {
+      Process process = worker.process;
+      if (process != null) {
+        process.destroyForcibly();
+      }
+    }
+  }
+
+  private static class Request {
+    private final String line;
+    private final CompletableFuture<String> result = new CompletableFuture<>();
+    Request(String line) {
+      this.line = line;
+    }
+  }
+
+  /**
+   * One fasttext process and the thread that feeds it. The thread takes all queued
+   * requests (up to {@link #MAX_BATCH_SIZE}), writes them with one flush and then reads
+   * exactly one result line per request.
+   */
+  private class Worker implements Runnable {
+
+    private static final int MAX_RESTART_ATTEMPTS = 5;
+
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final ProcessBuilder processBuilder;
+    private final String name;
+    private final Thread thread;
+
+    private volatile Process process;
+    private volatile long batchStartMillis;
+    private volatile boolean failed;
+    private volatile int startCount;
+    private volatile boolean deadProcessReported;
+    private BufferedReader in;
+    private Writer out;
+
+    Worker(ProcessBuilder processBuilder, String name) throws IOException {
+      this.processBuilder = processBuilder;
+      this.name = name;
+      this.thread = new Thread(this, name);
+      this.thread.setDaemon(true);
+      startProcess();
+    }
+
+    private void startProcess() throws IOException {
+      Process p = processBuilder.start();
+      in = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8));
+      out = new BufferedWriter(new OutputStreamWriter(p.getOutputStream(), StandardCharsets.UTF_8));
+      process = p;
+      deadProcessReported = false;
+      startCount++;
+    }
+
+    void start() {
+      thread.start();
+    }
+
+    boolean isProcessAlive() {
+      Process p = process;
+      return p != null && p.isAlive();
+    }
+
+    void failQueued(FastTextException ex) {
+      List<Request> requests = new ArrayList<>();
+      queue.drainTo(requests);
+      requests.forEach(request -> request.result.completeExceptionally(ex));
+    }
+
+    void stop() {
+      thread.interrupt();
+      Process p = process;
+      if (p != null) {
+        p.destroy();
+      }
+    }
+
+    @Override
+    public void run() {
+      List<Request> batch = new ArrayList<>(MAX_BATCH_SIZE);
+      while (!shutdown) {
+        try {
+          batch.add(queue.take());
+        } catch (InterruptedException e) {
+          break;
+        }
+        queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+        try {
+          if (!process.isAlive()) {
+            logger.warn("fasttext process of " + name + " is not alive (exit value " + process.exitValue() + ")");
+            if (!restart()) {
+              throw new IOException("process not alive and could not be restarted");
+            }
+          }
+          processBatch(batch);
+        } catch (IOException e) {
+          FastTextException ex = new FastTextException("fasttext process of " + name + " failed: " + e.getMessage(), false);
+          batch.forEach(request -> request.result.completeExceptionally(ex));
+          if (!shutdown && !restart()) {
+            failed = true;
+            break;
+          }
+        } finally {
+          batchStartMillis = 0;
+          batch.clear();
+        }
+      }
+      failQueued(new FastTextException("fasttext process of " + name + " is not available", failed));
+    }
+
+    private void processBatch(List<Request> batch) throws IOException {
+      batchStartMillis = System.currentTimeMillis();
+      StringBuilder sb = new StringBuilder();
+      for (Request request : batch) {
+        sb.append(request.line).append('\n');
+      }
+      out.write(sb.toString());
+      out.flush();
+      for (Request request : batch) {
+        String line = in.readLine();
+        if (line == null) {
+          throw new IOException("end of stream, process exit value: " + (process.isAlive() ? "(still running)" : process.exitValue()));
+        }
+        request.result.complete(line);
+      }
+    }
+
+    private boolean restart() {
+      Process old = process;
+      if (old != null) {
+        old.destroyForcibly();
+      }
+      for (int attempt = 1; attempt <= MAX_RESTART_ATTEMPTS; attempt++) {
+        try {
+          startProcess();
+          logger.warn("Restarted fasttext process of " + name);
+          return true;
+        } catch (IOException e) {
+          logger.error("Could not restart fasttext process of " + name + ", attempt " + attempt, e);
+          try {
+            Thread.sleep(100L * attempt);
+          } catch (InterruptedException ie) {
+            return false;
+          }
+        }
+      }
+      return false;
+    }
   }
 
 }
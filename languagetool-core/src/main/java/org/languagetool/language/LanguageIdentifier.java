@@ -110,10 +110,18 @@ public class LanguageIdentifier {
   }
 
   public void enableFasttext(File fasttextBinary, File fasttextModel) {
+    enableFasttext(fasttextBinary, fasttextModel, 1);
+  }
+
+  /**
+   * @param processes number of fasttext processes to use, more processes allow more concurrent detections
+   * @since 5.6
+   */
+  public void enableFasttext(File fasttextBinary, File fasttextModel, int processes) {
     if (fasttextBinary != null && fasttextModel != null) {
       try {
-        fastText = new FastText(fasttextModel, fasttextBinary);
-        logger.info("Started fasttext process for language identification: Binary " + fasttextBinary + " with model @ " + fasttextModel);
+        fastText = new FastText(fasttextModel, fasttextBinary, processes);
+        logger.info("Started " + processes + " fasttext process(es) for language identification: Binary " + fasttextBinary + " with model @ " + fasttextModel);
       } catch (IOException e) {
         throw new RuntimeException("Could not start fasttext process for language identification @ " + fasttextBinary + " with model @ " + fasttextModel, e);
       }
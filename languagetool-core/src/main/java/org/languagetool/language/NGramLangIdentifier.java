@@ -18,205 +18,523 @@
  */
 package org.languagetool.language;
 
+import com.google.common.annotations.VisibleForTesting;
 import org.languagetool.noop.NoopLanguage;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.text.Normalizer;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.zip.ZipFile;
 
 import static java.lang.StrictMath.*;
 import static org.languagetool.language.LanguageIdentifier.canLanguageBeDetected;
 
+/**
+ * Language identification based on character n-gram (currently bigram) probabilities.
+ * The model can be loaded from the original zip file with text files or from
+ * a binary file created with {@link #saveBinary(File)}, which is memory-mapped
+ * and thus loads much faster.
+ */
 public class NGramLangIdentifier {
 
   private final static double EPSILON = 1e-4;
+  private final static float LOG_EPSILON = (float) log(EPSILON);
+  private final static int BINARY_MAGIC = 0x4C544E47;  // "LTNG"
+  private final static int BINARY_VERSION = 1;
+  private final static char NO_TABLE_ENTRY = '\uFFFF';
+  // lower case of the characters that are unchanged by NFKC normalization on their own,
+  // NO_TABLE_ENTRY for all others (text with these goes through Normalizer):
+  private final static char[] LOWER_CASE = new char[0x300];
+  static {
+    for (char c = 0; c < LOWER_CASE.length; c++) {
+      String s = String.valueOf(c);
+      String lower = s.toLowerCase();
+      boolean stable = Normalizer.normalize(s, Normalizer.Form.NFKC).equals(s) && lower.length() == 1;
+      LOWER_CASE[c] = stable ? lower.charAt(0) : NO_TABLE_ENTRY;
+    }
+  }
 
   private final Map<String, Integer> vocab;
+  private final VocabTrie vocabTrie;
   private final List<String[]> codes; // Elem format = {Name, 2-code (or "NULL"), 3-code}
+  private final String[] langCodes;   // 2-character code if possible, otherwise 3-character code
 
-  private final List<Map<String, Double>> knpBigramProbs;
+  private final BigramTable[] knpBigramLogProbs;  // one table per language, same order as 'codes'
   private final int thresholdsStart;
-  private final List<double[]> thresholds;
+  private final double[][] thresholds;
 
   private final int maxLength;
-  private final ZipFile zipFile;
+  private final ThreadLocal<EncodingBuffers> buffers = ThreadLocal.withInitial(EncodingBuffers::new);
 
-  public NGramLangIdentifier(File sourceModelZip, int maxLength) throws IOException {
+  /**
+   * @param model the model, either a zip file with text files or a binary file created with {@link #saveBinary(File)}
+   */
+  public NGramLangIdentifier(File model, int maxLength) throws IOException {
     this.maxLength = maxLength;
-    this.zipFile = new ZipFile(sourceModelZip);
-
-    //Load language codes - Line format = {Language Name}\t{2-code or "NULL"}\t{3-code}
-    codes = new ArrayList<>();
-    try (BufferedReader br = getReader("iso_codes.tsv")) {
-      String line;
-      while ((line = br.readLine()) != null) {
-        String[] values = line.split("\t");
-        if (values[3].equals("1")) {
-          codes.add(values);
-        }
-      }
-    }
-
-    //Load vocab - Line format = {token}
-    vocab = new HashMap<>();
-    try (BufferedReader br = getReader("vocab.txt")) {
-      String line;
-      int i = 0;
-      while ((line = br.readLine()) != null) {
-        vocab.put(line.split("\t")[0].trim(), i);
-        i++;
-      }
-    }
-
-    //Load thresholds
-    thresholds = new ArrayList<>();
-    try (BufferedReader br = getReader("thresholds.txt")) {
-      String line;
-      thresholdsStart = Integer.parseInt(br.readLine());
-      while ((line = br.readLine()) != null) {
-        double[] vals = Arrays.stream(line.split(" ")).mapToDouble(Double::parseDouble).toArray();
-        thresholds.add(vals);
-      }
-      //assert (thresholds.size() == maxLength - thresholdsStart) : "Thresholds file is incomplete: " + thresholds.size() + " != " + maxLength + "-" + thresholdsStart;
-    }
-
-    //Load transition matrices - Line format = {i} {j} {val}
-    knpBigramProbs = expectedFiles().stream().map(this::readLines).parallel().map(NGramLangIdentifier::loadDict).collect(Collectors.toList());
+    Loader loader = isBinaryModel(model) ? loadBinary(model) : loadZip(model);
+    this.codes = loader.codes;
+    this.vocab = loader.vocab;
+    this.thresholdsStart = loader.thresholdsStart;
+    this.thresholds = loader.thresholds;
+    this.knpBigramLogProbs = loader.tables;
+    this.vocabTrie = new VocabTrie(vocab);
+    this.langCodes = codes.stream().map(code -> code[1].equals("NULL") ? code[2] : code[1]).toArray(String[]::new);
   }
 
   public Map<String, Double> detectLanguages(String text, List<String> additionalLanguageCodes) {
-    List<Integer> enc = encode(text);
-    List<Double> finalProbs = new ArrayList<>();
-    List<int[]> keys = keys(enc);
+    EncodingBuffers buffers = this.buffers.get();
+    int encLength = encode(text, buffers);
+    int[] enc = buffers.ids;
+    double[] finalProbs = buffers.probs(langCodes.length);
 
-    for (int i = 0; i < codes.size(); i++) {
+    for (int i = 0; i < langCodes.length; i++) {
+      BigramTable table = knpBigramLogProbs[i];
       double val = 0;
-      for (int[] key: keys) {
-        double prob = knpBigramProbs.get(i).getOrDefault(key[0] + "_" + key[1], EPSILON);
-        val += log(prob);
+      for (int j = 1; j < encLength; j++) {
+        val += table.get(enc[j - 1], enc[j], LOG_EPSILON);
       }
-      finalProbs.add(val);
+      finalProbs[i] = val;
     }
 
     Map<String, Double> result = new HashMap<>();
 
     if (text.length() >= this.thresholdsStart) {
       int argMax = 0;
-      for (int i = 1; i < finalProbs.size(); i++) {
-        if (finalProbs.get(i) > finalProbs.get(argMax)) {
+      for (int i = 1; i < langCodes.length; i++) {
+        if (finalProbs[i] > finalProbs[argMax]) {
           argMax = i;
         }
       }
       int thresholdIndex = min(text.length(), maxLength) - this.thresholdsStart;
-      if (finalProbs.get(argMax) < thresholds.get(thresholdIndex)[argMax]) {
+      if (finalProbs[argMax] < thresholds[thresholdIndex][argMax]) {
         result.put(NoopLanguage.SHORT_CODE, 100.0);
         return result;
       }
     }
 
-    finalProbs = finalProbs.stream().map(StrictMath::exp).collect(Collectors.toList());
-    finalProbs = normalize(finalProbs);
-    for (int i = 0; i < codes.size(); i++) {
-      String langCode = codes.get(i)[1].equals("NULL") ? codes.get(i)[2] : codes.get(i)[1]; //2-character code if possible
-      if (canLanguageBeDetected(langCode, additionalLanguageCodes)) {
-        result.put(langCode, finalProbs.get(i));
+    double tot = 0;
+    for (int i = 0; i < langCodes.length; i++) {
+      finalProbs[i] = exp(finalProbs[i]);
+      tot += finalProbs[i];
+    }
+    for (int i = 0; i < langCodes.length; i++) {
+      if (canLanguageBeDetected(langCodes[i], additionalLanguageCodes)) {
+        result.put(langCodes[i], finalProbs[i] / tot);
       }
     }
 
     return result;
   }
 
-  private BufferedReader getReader(String fileName) throws IOException {
-    InputStream is = this.zipFile.getInputStream(this.zipFile.getEntry(fileName));
+  /**
+   * Save the model in a binary format that can be memory-mapped when loading.
+   * Format (big endian): magic, version, thresholds start, language codes, vocabulary,
+   * thresholds, and one {@link BigramTable} per language. Strings are stored as
+   * byte length plus UTF-8 bytes. The header is padded to a multiple of 8 bytes.
+   * Vocabulary ids that no token maps to (e.g. because two lines of the original
+   * vocabulary are the same after trimming) are stored as empty strings.
+   * @since 5.6
+   */
+  public void saveBinary(File file) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1024 * 1024))) {
+      out.writeInt(BINARY_MAGIC);
+      out.writeInt(BINARY_VERSION);
+      out.writeInt(thresholdsStart);
+      out.writeInt(codes.size());
+      for (String[] code : codes) {
+        out.writeInt(code.length);
+        for (String value : code) {
+          writeString(out, value);
+        }
+      }
+      String[] vocabById = new String[vocab.values().stream().mapToInt(id -> id + 1).max().orElse(0)];
+      Arrays.fill(vocabById, "");
+      vocab.forEach((token, id) -> vocabById[id] = token);
+      out.writeInt(vocabById.length);
+      for (String token : vocabById) {
+        writeString(out, token);
+      }
+      out.writeInt(thresholds.length);
+      for (double[] row : thresholds) {
+        out.writeInt(row.length);
+        for (double value : row) {
+          out.writeDouble(value);
+        }
+      }
+      while (out.size() % 8 != 0) {
+        out.writeByte(0);
+      }
+      for (BigramTable table : knpBigramLogProbs) {
+        table.writeTo(out);
+      }
+    }
+  }
+
+  static boolean isBinaryModel(File file) throws IOException {
+    try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+      return file.length() >= 4 && in.readInt() == BINARY_MAGIC;
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static Loader loadBinary(File file) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      // the mapping stays valid after the channel has been closed
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    Loader loader = new Loader();
+    if (buffer.getInt() != BINARY_MAGIC) {
+      throw new IOException("Not a binary ngram language identification model: " + file);
+    }
+    int version = buffer.getInt();
+    if (version != BINARY_VERSION) {
+      throw new IOException("Unsupported version " + version + " of binary ngram model " + file + ", expected " + BINARY_VERSION);
+    }
+    loader.thresholdsStart = buffer.getInt();
+    int codeCount = buffer.getInt();
+    for (int i = 0; i < codeCount; i++) {
+      String[] code = new String[buffer.getInt()];
+      for (int j = 0; j < code.length; j++) {
+        code[j] = readString(buffer);
+      }
+      loader.codes.add(code);
+    }
+    int vocabSize = buffer.getInt();
+    for (int i = 0; i < vocabSize; i++) {
+      String token = readString(buffer);
+      if (!token.isEmpty()) {
+        loader.vocab.put(token, i);
+      }
+    }
+    loader.thresholds = new double[buffer.getInt()][];
+    for (int i = 0; i < loader.thresholds.length; i++) {
+      double[] row = new double[buffer.getInt()];
+      for (int j = 0; j < row.length; j++) {
+        row[j] = buffer.getDouble();
+      }
+      loader.thresholds[i] = row;
+    }
+    while (buffer.position() % 8 != 0) {
+      buffer.get();
+    }
+    loader.tables = new BigramTable[codeCount];
+    for (int i = 0; i < codeCount; i++) {
+      loader.tables[i] = BigramTable.readFrom(buffer);
+    }
+    return loader;
+  }
+
+  private static Loader loadZip(File sourceModelZip) throws IOException {
+    Loader loader = new Loader();
+    try (ZipFile zipFile = new ZipFile(sourceModelZip)) {
+      //Load language codes - Line format = {Language Name}\t{2-code or "NULL"}\t{3-code}
+      try (BufferedReader br = getReader(zipFile, "iso_codes.tsv")) {
+        String line;
+        while ((line = br.readLine()) != null) {
+          String[] values = line.split("\t");
+          if (values[3].equals("1")) {
+            loader.codes.add(values);
+          }
+        }
+      }
+
+      //Load vocab - Line format = {token}
+      try (BufferedReader br = getReader(zipFile, "vocab.txt")) {
+        String line;
+        int i = 0;
+        while ((line = br.readLine()) != null) {
+          String token = line.split("\t")[0].trim();
+          if (!token.isEmpty()) {
+            // like before, the last line wins if lines are the same after trimming:
+            loader.vocab.put(token, i);
+          }
+          i++;
+        }
+      }
+
+      //Load thresholds
+      List<double[]> thresholds = new ArrayList<>();
+      try (BufferedReader br = getReader(zipFile, "thresholds.txt")) {
+        String line;
+        loader.thresholdsStart = Integer.parseInt(br.readLine());
+        while ((line = br.readLine()) != null) {
+          double[] vals = Arrays.stream(line.split(" ")).mapToDouble(Double::parseDouble).toArray();
+          thresholds.add(vals);
+        }
+      }
+      loader.thresholds = thresholds.toArray(new double[0][]);
+
+      //Load transition matrices - Line format = {i} {j} {val}
+      loader.tables = IntStream.range(0, loader.codes.size())
+        .mapToObj(i -> String.format("%02d.txt", i))
+        .parallel()
+        .map(name -> loadTable(zipFile, name))
+        .toArray(BigramTable[]::new);
+    }
+    return loader;
+  }
+
+  private static BufferedReader getReader(ZipFile zipFile, String fileName) throws IOException {
+    InputStream is = zipFile.getInputStream(zipFile.getEntry(fileName));
     InputStreamReader isr = new InputStreamReader(is, StandardCharsets.UTF_8);
     return new BufferedReader(isr);
   }
 
-  private List<String> readLines(String path) {
-    ArrayList<String> result = new ArrayList<>();
-    try (BufferedReader br = getReader(path)) {
+  private static BigramTable loadTable(ZipFile zipFile, String fileName) {
+    BigramTable.Builder builder = new BigramTable.Builder();
+    try (BufferedReader br = getReader(zipFile, fileName)) {
       String line;
       while ((line = br.readLine()) != null) {
-        result.add(line);
+        String[] parts = line.trim().split(" ");
+        if (parts.length != 3) {
+          throw new IOException("Expected format '{i} {j} {val}' in " + fileName + ", got: '" + line + "'");
+        }
+        float logProb = (float) log(Double.parseDouble(parts[2]));
+        builder.put(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), logProb);
       }
-    } catch(java.io.IOException e) {
-      throw new RuntimeException(e);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
-    return result;
+    return builder.build();
   }
 
-  private static Map<String, Double> loadDict(List<String> lines)  {
-    Map<String, Double> tm = new HashMap<>();
-    for (String line : lines) {
-      String[] parts = line.trim().split(" ");
-      String key = String.join("_", Arrays.copyOfRange(parts, 0, parts.length-1));
-      tm.put(key, Double.parseDouble(parts[parts.length-1]));
-    }
-    return tm;
+  @VisibleForTesting
+  int[] encode(String text) {
+    EncodingBuffers buffers = new EncodingBuffers();
+    int size = encode(text, buffers);
+    return Arrays.copyOf(buffers.ids, size);
   }
 
-  private List<String> expectedFiles() {
-    List<String> result = new ArrayList<>();
-    for (int i = 0; i < codes.size(); i++) {
-      String name = String.format("%02d.txt", i);
-      result.add(name);
+  /**
+   * Normalize the text like the model's training data and encode it into {@code buffers.ids}.
+   * Text that only consists of characters below U+0300 which NFKC leaves unchanged
+   * (most Latin text) is normalized with lookup tables, without allocating.
+   * @return the number of ids
+   */
+  private int encode(String text, EncodingBuffers buffers) {
+    int length = min(text.length(), maxLength);
+    CharSequence input = text;
+    boolean useTable = true;
+    for (int i = 0; i < length; i++) {
+      char c = text.charAt(i);
+      if (c >= LOWER_CASE.length || LOWER_CASE[c] == NO_TABLE_ENTRY) {
+        useTable = false;
+        break;
+      }
+    }
+    if (!useTable) {
+      String normalized = Normalizer.normalize(text.substring(0, length), Normalizer.Form.NFKC).toLowerCase();
+      input = normalized;
+      length = normalized.length();
+    }
+    if (length == 0) {
+      buffers.ids(1)[0] = 1; //Start of sentence token
+      return 1;
+    }
+    // a character gets replaced by at most 5 characters ("<NUM>"):
+    char[] chars = buffers.chars(5 * length + 1);
+    int charCount = 0;
+    chars[charCount++] = '▁';
+    boolean inNumber = false;
+    boolean inWhitespace = false;
+    for (int i = 0; i < length; i++) {
+      char c = useTable ? LOWER_CASE[input.charAt(i)] : input.charAt(i);
+      boolean isNumber = c >= '0' && c <= '9';
+      boolean isWhitespace = c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+      if (isNumber) {
+        if (!inNumber) {
+          charCount = append(chars, charCount, "<NUM>");
+        }
+      } else if (isWhitespace) {
+        if (!inWhitespace) {
+          chars[charCount++] = '▁';
+        }
+      } else {
+        String script = scriptToken(c);
+        if (script != null) {
+          charCount = append(chars, charCount, script);
+        } else {
+          chars[charCount++] = c;
+        }
+      }
+      inNumber = isNumber;
+      inWhitespace = isWhitespace;
     }
-    return result;
-  }
-
-  private List<Integer> encode(String text) {
-    List<Integer> result = new ArrayList<>();
-    result.add(1); //Start of sentence token
-    if (text.length() > maxLength) {
-      text = text.substring(0, maxLength);
-    }
-    text = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase();
-    text = text.replaceAll("\\d+", "<NUM>");
-    text = text.replaceAll("[\\uac00-\\ud7a3]", "<KO>"); // Korean
-    text = text.replaceAll("[\\u3040-\\u30ff]", "<JA>"); // Japanese
-    text = text.replaceAll("[\\u4e00-\\u9FFF]", "<ZH>"); // Chinese
-    text = text.replaceAll("[\\u1780-\\u17FF]", "<KM>"); // Khmer
-    text = text.replaceAll("[\\u1700-\\u171F]", "<TL>"); // Tagalog
-    text = text.replaceAll("[\\u0530-\\u058F]", "<HY>"); // Armenian
-    text = text.replaceAll("[\\u0370-\\u03FF]", "<EL>"); // Greek
-    text = text.replaceAll("[\\u0B80-\\u0BFF]", "<TA>"); // Tamil
-    text = text.replaceAll("\\s+", "▁");
-    if (text.length() == 0) {
-      return result;
-    }
-    text = "▁" + text;
 
+    int[] ids = buffers.ids(charCount + 1);
+    int size = 0;
+    ids[size++] = 1; //Start of sentence token
     int cur = 0;
-    while (cur < text.length()) {
+    while (cur < charCount) {
+      // longest vocabulary entry that starts at 'cur', unknown token (0) if there is none:
       int tok = 0;
       int ci = 1;
-      for (int i = cur + 1; i <= text.length(); i++) {
-        int maybeTok = vocab.getOrDefault(text.substring(cur, i), -1);
+      int node = VocabTrie.ROOT;
+      for (int i = cur; i < charCount; i++) {
+        node = vocabTrie.child(node, chars[i]);
+        if (node == VocabTrie.NONE) {
+          break;
+        }
+        int maybeTok = vocabTrie.token(node);
         if (maybeTok > -1) {
           tok = maybeTok;
-          ci = i - cur;
+          ci = i + 1 - cur;
         }
       }
       cur += ci;
-      result.add(tok);
+      ids[size++] = tok;
     }
-    return result;
+    return size;
   }
 
-  private List<int[]> keys(List<Integer> enc) {
-    //For now just bigrams
-    List<int[]> result = new ArrayList<>();
-    for (int i = 1; i < enc.size(); i++) {
-      result.add(new int[]{enc.get(i-1), enc.get(i)});
+  private static int append(char[] chars, int pos, String s) {
+    s.getChars(0, s.length(), chars, pos);
+    return pos + s.length();
+  }
+
+  // these characters are replaced by a token for their script:
+  private static String scriptToken(char c) {
+    if (c < '\u0370') {
+      return null;
+    } else if (c >= '\uac00' && c <= '\ud7a3') {
+      return "<KO>";
+    } else if (c >= '\u3040' && c <= '\u30ff') {
+      return "<JA>";
+    } else if (c >= '\u4e00' && c <= '\u9FFF') {
+      return "<ZH>";
+    } else if (c >= '\u1780' && c <= '\u17FF') {
+      return "<KM>";
+    } else if (c >= '\u1700' && c <= '\u171F') {
+      return "<TL>";
+    } else if (c >= '\u0530' && c <= '\u058F') {
+      return "<HY>";
+    } else if (c <= '\u03FF') {
+      return "<EL>";
+    } else if (c >= '\u0B80' && c <= '\u0BFF') {
+      return "<TA>";
+    }
+    return null;
+  }
+
+  /**
+   * Reusable per-thread arrays for {@link #detectLanguages(String, List)}.
+   */
+  private static class EncodingBuffers {
+    private char[] chars = new char[0];
+    private int[] ids = new int[0];
+    private double[] probs = new double[0];
+
+    char[] chars(int minLength) {
+      if (chars.length < minLength) {
+        chars = new char[minLength];
+      }
+      return chars;
+    }
+
+    int[] ids(int minLength) {
+      if (ids.length < minLength) {
+        ids = new int[minLength];
+      }
+      return ids;
+    }
+
+    double[] probs(int minLength) {
+      if (probs.length < minLength) {
+        probs = new double[minLength];
+      }
+      return probs;
+    }
+  }
+
+  /**
+   * A character trie of the vocabulary, so that the longest token at a position can be
+   * found without creating substrings. Children are kept in one open-addressing table
+   * keyed by parent node and character.
+   */
+  private static class VocabTrie {
+    static final int ROOT = 0;
+    static final int NONE = -1;
+    private static final long EMPTY = -1L;
+
+    private final long[] keys;
+    private final int[] children;
+    private final int[] tokens;  // per node, -1 if no token ends at the node
+    private final int mask;
+
+    VocabTrie(Map<String, Integer> vocab) {
+      int maxNodes = 1 + vocab.keySet().stream().mapToInt(String::length).sum();
+      int capacity = Integer.highestOneBit(Math.max(maxNodes, 8) * 2 - 1) << 1;
+      keys = new long[capacity];
+      Arrays.fill(keys, EMPTY);
+      children = new int[capacity];
+      int[] nodeTokens = new int[maxNodes];
+      Arrays.fill(nodeTokens, -1);
+      mask = capacity - 1;
+      int nodeCount = 1;
+      for (Map.Entry<String, Integer> entry : vocab.entrySet()) {
+        String token = entry.getKey();
+        int node = ROOT;
+        for (int i = 0; i < token.length(); i++) {
+          long key = key(node, token.charAt(i));
+          int slot = slot(key);
+          if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            children[slot] = nodeCount++;
+          }
+          node = children[slot];
+        }
+        nodeTokens[node] = entry.getValue();
+      }
+      tokens = Arrays.copyOf(nodeTokens, nodeCount);
+    }
+
+    int child(int node, char c) {
+      int slot = slot(key(node, c));
+      return keys[slot] == EMPTY ? NONE : children[slot];
+    }
+
+    int token(int node) {
+      return tokens[node];
+    }
+
+    private static long key(int node, char c) {
+      return ((long) node << 16) | c;
+    }
+
+    // slot of the key, or of the empty slot where it would be inserted
+    private int slot(long key) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      int i = (int) (h ^ (h >>> 32)) & mask;
+      while (keys[i] != EMPTY && keys[i] != key) {
+        i = (i + 1) & mask;
+      }
+      return i;
     }
-    return result;
   }
 
-  private List<Double> normalize(List<Double> vals) {
-    double tot = vals.stream().mapToDouble(f -> f).sum();
-    return vals.stream().map(n -> n/tot).collect(Collectors.toList());
+  private static class Loader {
+    private final List<String[]> codes = new ArrayList<>();
+    private final Map<String, Integer> vocab = new HashMap<>();
+    private int thresholdsStart;
+    private double[][] thresholds;
+    private BigramTable[] tables;
   }
 }
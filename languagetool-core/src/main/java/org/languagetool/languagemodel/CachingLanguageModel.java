@@ -0,0 +1,144 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.languagemodel;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@link LanguageModel} that caches the occurrence counts of another model.
+ * Useful as rules like the confusion rule look up the same frequent ngrams
+ * over and over again. The least recently used counts get evicted when
+ * the cache is full.
+ * @since 5.6
+ */
+public class CachingLanguageModel extends BaseLanguageModel {
+
+  private final BaseLanguageModel delegate;
+  private final Cache<Object, Long> cache;
+
+  private volatile long totalTokenCount = -1;
+
+  /**
+   * @param delegate the model that actually provides the counts
+   * @param maximumSize maximum number of ngram counts kept in the cache
+   */
+  public CachingLanguageModel(BaseLanguageModel delegate, long maximumSize) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("maximumSize must be > 0: " + maximumSize);
+    }
+    this.delegate = Objects.requireNonNull(delegate);
+    this.cache = CacheBuilder.newBuilder()
+      .maximumSize(maximumSize)
+      .recordStats()
+      .build();
+  }
+
+  @Override
+  public long getCount(String token1) {
+    Objects.requireNonNull(token1);
+    Long count = cache.getIfPresent(token1);
+    if (count == null) {
+      count = delegate.getCount(token1);
+      cache.put(token1, count);
+    }
+    return count;
+  }
+
+  @Override
+  public long getCount(List<String> tokens) {
+    if (tokens.size() == 1) {
+      // same key as getCount(String), so both methods share their entries
+      return getCount(tokens.get(0));
+    }
+    // not cached via a loader, so exceptions (e.g. for too long ngrams) get to the caller unwrapped:
+    NgramKey key = new NgramKey(tokens.toArray(new String[0]));
+    Long count = cache.getIfPresent(key);
+    if (count == null) {
+      count = delegate.getCount(tokens);
+      cache.put(key, count);
+    }
+    return count;
+  }
+
+  @Override
+  public long getTotalTokenCount() {
+    long count = totalTokenCount;
+    if (count < 0) {
+      count = delegate.getTotalTokenCount();
+      totalTokenCount = count;
+    }
+    return count;
+  }
+
+  /**
+   * The underlying cache, e.g. to expose its hit rate as metric.
+   */
+  public Cache<?, ?> getCache() {
+    return cache;
+  }
+
+  public CacheStats getStats() {
+    return cache.stats();
+  }
+
+  public BaseLanguageModel getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public void close() {
+    cache.invalidateAll();
+    delegate.close();
+  }
+
+  @Override
+  public String toString() {
+    return "cached(" + delegate + ")";
+  }
+
+  /**
+   * Key for ngrams with more than one token, compares the tokens instead of a joined string.
+   */
+  private static final class NgramKey {
+    private final String[] tokens;
+    private final int hash;
+
+    NgramKey(String[] tokens) {
+      this.tokens = tokens;
+      this.hash = Arrays.hashCode(tokens);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof NgramKey && hash == ((NgramKey) o).hash && Arrays.equals(tokens, ((NgramKey) o).tokens);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+}
@@ -0,0 +1,229 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.languagemodel;
+
+import java.io.*;
+import java.nio.file.Files;
+
+import static org.languagetool.languagemodel.MappedNgramLanguageModel.*;
+
+/**
+ * Creates the index file used by {@link MappedNgramLanguageModel}. Ngrams can be added
+ * in any order; if the same ngram is added more than once, its counts are summed up.
+ * To support more ngrams than fit into memory, entries are first spilled to temporary
+ * files by the highest byte of their fingerprint, then each of these partitions is
+ * sorted in memory and appended to the index.
+ * @since 5.6
+ */
+public class MappedNgramIndexWriter implements AutoCloseable {
+
+  private static final int PARTITION_BITS = 8;
+  private static final int PARTITIONS = 1 << PARTITION_BITS;
+  private static final int TARGET_BUCKET_SIZE = 4;
+
+  private final File outputFile;
+  private final File tempDir;
+  private final DataOutputStream[] partitions = new DataOutputStream[PARTITIONS];
+  private long addedCount;
+  private int maxNgram;
+  private boolean finished;
+
+  public MappedNgramIndexWriter(File outputFile) throws IOException {
+    this.outputFile = outputFile;
+    this.tempDir = Files.createTempDirectory("ngram-index").toFile();
+    for (int i = 0; i < PARTITIONS; i++) {
+      partitions[i] = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(partitionFile(i)), 64 * 1024));
+    }
+  }
+
+  /**
+   * @param ngram tokens joined by a single space, e.g. {@code "of the"}
+   */
+  public void add(String ngram, long count) throws IOException {
+    if (finished) {
+      throw new IllegalStateException("Index has already been written");
+    }
+    if (count < 0) {
+      throw new IllegalArgumentException("count must be >= 0: " + count + " for '" + ngram + "'");
+    }
+    long hash = hash(ngram);
+    DataOutputStream out = partitions[(int) (hash >>> (64 - PARTITION_BITS))];
+    out.writeLong(hash);
+    out.writeLong(count);
+    addedCount++;
+    int tokens = 1;
+    for (int i = 0; i < ngram.length(); i++) {
+      if (ngram.charAt(i) == ' ') {
+        tokens++;
+      }
+    }
+    maxNgram = Math.max(maxNgram, tokens);
+  }
+
+  /**
+   * Sort the added ngrams and write the index file.
+   * @param totalTokenCount the value returned by {@link MappedNgramLanguageModel#getTotalTokenCount()}
+   */
+  public void finish(long totalTokenCount) throws IOException {
+    if (finished) {
+      throw new IllegalStateException("Index has already been written");
+    }
+    finished = true;
+    for (DataOutputStream partition : partitions) {
+      partition.close();
+    }
+    int bucketBits = bucketBitsFor(addedCount);
+    long[] bucketStarts = new long[(1 << bucketBits) + 1];
+    File countsFile = new File(tempDir, "counts");
+    long entryCount = 0;
+    long maxCount = 0;
+    try (DataOutputStream hashesOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile), 1024 * 1024));
+         DataOutputStream countsOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(countsFile), 1024 * 1024))) {
+      hashesOut.write(new byte[HEADER_SIZE]);  // written later
+      for (int i = 0; i < PARTITIONS; i++) {
+        File partitionFile = partitionFile(i);
+        int size = (int) (partitionFile.length() / 16);
+        long[] hashes = new long[size];
+        long[] counts = new long[size];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(partitionFile), 64 * 1024))) {
+          for (int j = 0; j < size; j++) {
+            hashes[j] = in.readLong();
+            counts[j] = in.readLong();
+          }
+        }
+        Files.delete(partitionFile.toPath());
+        // all hashes of a partition have the same sign bit, so signed order is the same as unsigned order:
+        sort(hashes, counts, 0, size - 1);
+        int j = 0;
+        while (j < size) {
+          long hash = hashes[j];
+          long count = 0;
+          while (j < size && hashes[j] == hash) {
+            count += counts[j++];
+          }
+          hashesOut.writeLong(hash);
+          countsOut.writeLong(count);
+          bucketStarts[(int) (hash >>> (64 - bucketBits)) + 1]++;
+          maxCount = Math.max(maxCount, count);
+          entryCount++;
+        }
+      }
+    }
+    for (int i = 1; i < bucketStarts.length; i++) {
+      bucketStarts[i] += bucketStarts[i - 1];
+    }
+    int countBytes = Math.max(1, (64 - Long.numberOfLeadingZeros(maxCount) + 7) / 8);
+    long directoryOffset;
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile, true), 1024 * 1024));
+         DataInputStream countsIn = new DataInputStream(new BufferedInputStream(new FileInputStream(countsFile), 1024 * 1024))) {
+      for (long i = 0; i < entryCount; i++) {
+        long count = countsIn.readLong();
+        for (int b = countBytes - 1; b >= 0; b--) {
+          out.writeByte((int) (count >>> (b * 8)));
+        }
+      }
+      long position = HEADER_SIZE + entryCount * Long.BYTES + entryCount * countBytes;
+      while (position % 8 != 0) {
+        out.writeByte(0);
+        position++;
+      }
+      directoryOffset = position;
+      for (long bucketStart : bucketStarts) {
+        out.writeLong(bucketStart);
+      }
+    }
+    Files.delete(countsFile.toPath());
+    try (RandomAccessFile raf = new RandomAccessFile(outputFile, "rw")) {
+      raf.writeLong(MAGIC);
+      raf.writeInt(VERSION);
+      raf.writeInt(countBytes);
+      raf.writeInt(bucketBits);
+      raf.writeInt(maxNgram);
+      raf.writeLong(entryCount);
+      raf.writeLong(totalTokenCount);
+      raf.writeLong(directoryOffset);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    for (int i = 0; i < PARTITIONS; i++) {
+      partitions[i].close();
+      Files.deleteIfExists(partitionFile(i).toPath());
+    }
+    Files.deleteIfExists(new File(tempDir, "counts").toPath());
+    Files.deleteIfExists(tempDir.toPath());
+  }
+
+  private File partitionFile(int i) {
+    return new File(tempDir, "partition-" + i);
+  }
+
+  static int bucketBitsFor(long entries) {
+    long buckets = Math.max(1, entries / TARGET_BUCKET_SIZE);
+    int bits = 64 - Long.numberOfLeadingZeros(buckets - 1);
+    return Math.max(PARTITION_BITS, Math.min(bits, 30));
+  }
+
+  // quicksort on 'hashes', moving 'counts' along
+  private static void sort(long[] hashes, long[] counts, int low, int high) {
+    while (low < high) {
+      if (high - low < 16) {
+        for (int i = low + 1; i <= high; i++) {
+          for (int j = i; j > low && hashes[j - 1] > hashes[j]; j--) {
+            swap(hashes, counts, j - 1, j);
+          }
+        }
+        return;
+      }
+      long pivot = hashes[(low + high) >>> 1];
+      int i = low;
+      int j = high;
+      while (i <= j) {
+        while (hashes[i] < pivot) {
+          i++;
+        }
+        while (hashes[j] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          swap(hashes, counts, i++, j--);
+        }
+      }
+      // recurse into the smaller part to limit stack depth
+      if (j - low < high - i) {
+        sort(hashes, counts, low, j);
+        low = i;
+      } else {
+        sort(hashes, counts, i, high);
+        high = j;
+      }
+    }
+  }
+
+  private static void swap(long[] hashes, long[] counts, int i, int j) {
+    long h = hashes[i];
+    hashes[i] = hashes[j];
+    hashes[j] = h;
+    long c = counts[i];
+    counts[i] = counts[j];
+    counts[j] = c;
+  }
+
+}
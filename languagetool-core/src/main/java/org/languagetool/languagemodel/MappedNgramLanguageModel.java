@@ -0,0 +1,215 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.languagemodel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Ngram occurrence counts from a single memory-mapped file as written by
+ * {@link MappedNgramIndexWriter}. Ngrams are not stored themselves but as 64-bit
+ * fingerprints, sorted and grouped into buckets by their highest bits, so a lookup is
+ * one read in the bucket directory plus a short scan of the bucket. Counts are stored
+ * with a fixed width. Lookups don't allocate and don't need any locking.
+ *
+ * <p>As only fingerprints are stored, an ngram that's not in the index can, with a very
+ * low probability (about {@code entries / 2^64}), get the count of another ngram.
+ * @since 5.6
+ */
+public class MappedNgramLanguageModel extends BaseLanguageModel {
+
+  /** The file name that {@link org.languagetool.Language#getLanguageModel(File)} looks for in the ngram directory. */
+  public static final String FILE_NAME = "ngrams.bin";
+
+  static final long MAGIC = 0x4C544E4752414D31L;  // "LTNGRAM1"
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 64;
+
+  private static final int DEFAULT_CHUNK_BITS = 30;  // map the file in chunks of 1GB, as a buffer can't be larger than 2GB
+
+  private final File file;
+  private final MappedByteBuffer[] chunks;
+  private final int chunkBits;
+  private final long chunkMask;
+  private final int countBytes;
+  private final int bucketBits;
+  private final long entryCount;
+  private final long totalTokenCount;
+  private final int maxNgram;
+  private final long hashesOffset;
+  private final long countsOffset;
+  private final long directoryOffset;
+
+  public MappedNgramLanguageModel(File file) throws IOException {
+    this(file, DEFAULT_CHUNK_BITS);
+  }
+
+  MappedNgramLanguageModel(File file, int chunkBits) throws IOException {
+    this.file = Objects.requireNonNull(file);
+    this.chunkBits = chunkBits;
+    this.chunkMask = (1L << chunkBits) - 1;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_SIZE) {
+        throw new IOException("File too small to be an ngram index: " + file);
+      }
+      int chunkCount = (int) ((size + chunkMask) >>> chunkBits);
+      chunks = new MappedByteBuffer[chunkCount];
+      for (int i = 0; i < chunkCount; i++) {
+        long start = (long) i << chunkBits;
+        // the mapping stays valid after the channel has been closed
+        chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(1L << chunkBits, size - start));
+        chunks[i].order(ByteOrder.BIG_ENDIAN);
+      }
+    }
+    if (readLong(0) != MAGIC) {
+      throw new IOException("Not an ngram index file (wrong magic number): " + file);
+    }
+    int version = readInt(8);
+    if (version != VERSION) {
+      throw new IOException("Unsupported ngram index version " + version + " in " + file + ", expected " + VERSION);
+    }
+    countBytes = readInt(12);
+    bucketBits = readInt(16);
+    maxNgram = readInt(20);
+    entryCount = readLong(24);
+    totalTokenCount = readLong(32);
+    directoryOffset = readLong(40);
+    hashesOffset = HEADER_SIZE;
+    countsOffset = hashesOffset + entryCount * Long.BYTES;
+  }
+
+  /**
+   * The fingerprint of the ngram, i.e. of the tokens joined with a space. Must not be changed,
+   * as it's used in the index files.
+   */
+  static long hash(List<String> tokens) {
+    long h = 0xcbf29ce484222325L;  // FNV-1a
+    for (int i = 0; i < tokens.size(); i++) {
+      if (i > 0) {
+        h = (h ^ ' ') * 0x100000001b3L;
+      }
+      String token = tokens.get(i);
+      for (int j = 0; j < token.length(); j++) {
+        h = (h ^ token.charAt(j)) * 0x100000001b3L;
+      }
+    }
+    return mix(h);
+  }
+
+  static long hash(String ngram) {
+    long h = 0xcbf29ce484222325L;
+    for (int j = 0; j < ngram.length(); j++) {
+      h = (h ^ ngram.charAt(j)) * 0x100000001b3L;
+    }
+    return mix(h);
+  }
+
+  private static long mix(long h) {
+    // finalizer of MurmurHash3, as FNV-1a alone doesn't distribute the high bits well
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  @Override
+  public long getCount(List<String> tokens) {
+    Objects.requireNonNull(tokens);
+    if (tokens.size() > maxNgram) {
+      throw new RuntimeException("Requested " + tokens.size() + "gram but index has only up to " + maxNgram + "gram: " + tokens);
+    }
+    return getCountForHash(hash(tokens));
+  }
+
+  @Override
+  public long getCount(String token1) {
+    Objects.requireNonNull(token1);
+    return getCountForHash(hash(token1));
+  }
+
+  private long getCountForHash(long hash) {
+    int bucket = (int) (hash >>> (64 - bucketBits));
+    long from = readLong(directoryOffset + (long) bucket * Long.BYTES);
+    long to = readLong(directoryOffset + (long) (bucket + 1) * Long.BYTES);
+    // hashes in a bucket are sorted, but buckets are small, so a linear scan is fastest:
+    for (long i = from; i < to; i++) {
+      long h = readLong(hashesOffset + i * Long.BYTES);
+      if (h == hash) {
+        return readCount(i);
+      }
+      if (Long.compareUnsigned(h, hash) > 0) {
+        break;
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public long getTotalTokenCount() {
+    return totalTokenCount;
+  }
+
+  /** Number of ngrams in the index. */
+  public long getEntryCount() {
+    return entryCount;
+  }
+
+  private long readCount(long index) {
+    long pos = countsOffset + index * countBytes;
+    long result = 0;
+    for (int i = 0; i < countBytes; i++) {
+      result = (result << 8) | (readByte(pos + i) & 0xFF);
+    }
+    return result;
+  }
+
+  private byte readByte(long pos) {
+    return chunks[(int) (pos >>> chunkBits)].get((int) (pos & chunkMask));
+  }
+
+  private int readInt(long pos) {
+    // the header is always in the first chunk
+    return chunks[0].getInt((int) pos);
+  }
+
+  private long readLong(long pos) {
+    // all longs are 8-byte aligned and chunks are a multiple of 8 bytes, so a long never spans two chunks
+    return chunks[(int) (pos >>> chunkBits)].getLong((int) (pos & chunkMask));
+  }
+
+  @Override
+  public void close() {
+    // mapped buffers are released by the garbage collector
+  }
+
+  @Override
+  public String toString() {
+    return file.toString();
+  }
+
+}
@@ -41,11 +41,11 @@ public class AnnotatedText {
   }
 
   private final List<TextPart> parts;
-  private final Map<Integer, MappingValue> mapping;  // plain text position to original text (with markup) position
+  private final PositionMapping mapping;  // plain text position to original text (with markup) position
   private final Map<MetaDataKey, String> metaData;
   private final Map<String, String> customMetaData;
 
-  AnnotatedText(List<TextPart> parts, Map<Integer, MappingValue> mapping, Map<MetaDataKey, String> metaData, Map<String, String> customMetaData) {
+  AnnotatedText(List<TextPart> parts, PositionMapping mapping, Map<MetaDataKey, String> metaData, Map<String, String> customMetaData) {
     this.parts = Objects.requireNonNull(parts);
     this.mapping = Objects.requireNonNull(mapping);
     this.metaData = Objects.requireNonNull(metaData);
@@ -113,31 +113,21 @@ public class AnnotatedText {
     if (mapping.isEmpty()) {
       return 0;
     }
-    int minDiff = Integer.MAX_VALUE;
-    MappingValue bestMatch = null;
-    // algorithm: find the closest lower position
-    for (Map.Entry<Integer, MappingValue> entry : mapping.entrySet()) {
-      int maybeClosePosition = entry.getKey();
-      if (plainTextPosition < maybeClosePosition) {
-        int diff = maybeClosePosition - plainTextPosition;
-        if (diff > 0 && diff < minDiff) {
-          bestMatch = entry.getValue();
-          minDiff = diff;
-        }
-      }
-    }
-    if (bestMatch == null) {
+    // algorithm: find the closest higher position
+    int bestMatch = mapping.indexOfClosestFollowing(plainTextPosition);
+    if (bestMatch == -1) {
       String msg = "mappings: " + (mapping.size() < 5 ? mapping : mapping.size());
       throw new RuntimeException("Could not map " + plainTextPosition + " to original position. isToPos: " + isToPos + ", " + msg);
     }
+    int minDiff = mapping.getPlainPosition(bestMatch) - plainTextPosition;
     // we remove markup total length if usage of fake markup and need from position
-    if (!isToPos && bestMatch.getFakeMarkupLength() > 0) {
-      minDiff = bestMatch.getFakeMarkupLength();
+    if (!isToPos && mapping.getFakeMarkupLength(bestMatch) > 0) {
+      minDiff = mapping.getFakeMarkupLength(bestMatch);
     }
     // We assume that when we have found the closest match there's a one-to-one mapping
     // in this region, thus we can subtract 'minDiff' to get the exact position.
     // If the bestMatch is a fakeMarkup, subtract it:
-    return bestMatch.getTotalPosition() - minDiff;
+    return mapping.getTotalPosition(bestMatch) - minDiff;
   }
   
   /**
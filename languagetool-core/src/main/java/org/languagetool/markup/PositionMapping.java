@@ -0,0 +1,135 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2019 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.markup;
+
+import java.util.Arrays;
+
+/**
+ * Maps plain text positions to positions in the original text (with markup).
+ * The mapping points are stored in sorted primitive arrays, so a lookup is
+ * a binary search that does not allocate.
+ * Use {@link AnnotatedTextBuilder} to create objects of this type.
+ * @since 5.6
+ */
+final class PositionMapping {
+
+  private int[] plainPositions;
+  private int[] totalPositions;
+  private int[] fakeMarkupLengths;
+  private int size;
+
+  PositionMapping() {
+    this(16);
+  }
+
+  PositionMapping(int initialCapacity) {
+    plainPositions = new int[initialCapacity];
+    totalPositions = new int[initialCapacity];
+    fakeMarkupLengths = new int[initialCapacity];
+  }
+
+  /**
+   * Add a mapping point at the end of a plain text part. Positions must be added in
+   * increasing order; a point at the same plain text position as the last one replaces it.
+   */
+  void addText(int plainTextPosition, int totalPosition) {
+    if (size > 0 && plainPositions[size - 1] == plainTextPosition) {
+      totalPositions[size - 1] = totalPosition;
+      fakeMarkupLengths[size - 1] = 0;
+    } else {
+      append(plainTextPosition, totalPosition, 0);
+    }
+  }
+
+  /**
+   * Add a mapping point at the end of the fake content of a markup part. Positions must be
+   * added in increasing order; a point at the same plain text position as the last one is ignored.
+   */
+  void addFakeMarkup(int plainTextPosition, int totalPosition, int fakeMarkupLength) {
+    if (size == 0 || plainPositions[size - 1] != plainTextPosition) {
+      append(plainTextPosition, totalPosition, fakeMarkupLength);
+    }
+  }
+
+  private void append(int plainTextPosition, int totalPosition, int fakeMarkupLength) {
+    if (size > 0 && plainTextPosition < plainPositions[size - 1]) {
+      throw new IllegalArgumentException("Positions must be added in increasing order: " + plainTextPosition + " < " + plainPositions[size - 1]);
+    }
+    if (size == plainPositions.length) {
+      int newCapacity = Math.max(16, size * 2);
+      plainPositions = Arrays.copyOf(plainPositions, newCapacity);
+      totalPositions = Arrays.copyOf(totalPositions, newCapacity);
+      fakeMarkupLengths = Arrays.copyOf(fakeMarkupLengths, newCapacity);
+    }
+    plainPositions[size] = plainTextPosition;
+    totalPositions[size] = totalPosition;
+    fakeMarkupLengths[size] = fakeMarkupLength;
+    size++;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * @return the index of the closest mapping point strictly after {@code plainTextPosition}, or -1 if there's none
+   */
+  int indexOfClosestFollowing(int plainTextPosition) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (plainPositions[mid] <= plainTextPosition) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low < size ? low : -1;
+  }
+
+  int getPlainPosition(int index) {
+    return plainPositions[index];
+  }
+
+  int getTotalPosition(int index) {
+    return totalPositions[index];
+  }
+
+  int getFakeMarkupLength(int index) {
+    return fakeMarkupLengths[index];
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(plainPositions[i]).append("=totalPos:").append(totalPositions[i])
+        .append(",fakeMarkupLen=").append(fakeMarkupLengths[i]);
+    }
+    return sb.append('}').toString();
+  }
+}
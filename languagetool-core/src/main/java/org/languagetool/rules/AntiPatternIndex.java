@@ -0,0 +1,88 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.rules.patterns.RuleSet;
+import org.languagetool.tagging.disambiguation.rules.DisambiguationPatternRule;
+import org.languagetool.tagging.disambiguation.rules.DisambiguationPatternRule.DisambiguatorAction;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The anti-patterns of a rule, indexed by the tokens and lemmas they require, so that
+ * {@link Rule#getSentenceWithImmunization} only needs to try those that can match a sentence.
+ * Indexes are built once per anti-pattern list and shared by all rule instances using that list.
+ * @since 5.6
+ */
+final class AntiPatternIndex {
+
+  // keys are compared by identity, which is fine as the anti-pattern lists are usually created once and then cached:
+  private static final LoadingCache<List<DisambiguationPatternRule>, AntiPatternIndex> indexes =
+    CacheBuilder.newBuilder().weakKeys().build(CacheLoader.from(AntiPatternIndex::new));
+
+  private final RuleSet antiPatterns;
+
+  private AntiPatternIndex(List<DisambiguationPatternRule> antiPatterns) {
+    // other actions might change tokens or lemmas, so the hints from the original sentence aren't reliable for them:
+    boolean onlyFlags = antiPatterns.stream().allMatch(AntiPatternIndex::onlySetsFlags);
+    this.antiPatterns = onlyFlags ? RuleSet.textLemmaHinted(antiPatterns) : RuleSet.plain(new ArrayList<>(antiPatterns));
+  }
+
+  static AntiPatternIndex get(List<DisambiguationPatternRule> antiPatterns) {
+    return indexes.getUnchecked(antiPatterns);
+  }
+
+  /**
+   * @return a copy of the sentence with the tokens matched by the anti-patterns immunized,
+   * or the sentence itself if none of the anti-patterns can match it
+   */
+  AnalyzedSentence immunize(AnalyzedSentence sentence) {
+    List<Rule> candidates = antiPatterns.rulesForSentence(sentence);
+    if (candidates.isEmpty()) {
+      return sentence;
+    }
+    //we need a copy of the sentence, not reference to the old one
+    AnalyzedSentence immunizedSentence = sentence.copy(sentence);
+    try {
+      for (Rule candidate : candidates) {
+        DisambiguationPatternRule antiPattern = (DisambiguationPatternRule) candidate;
+        if (onlySetsFlags(antiPattern)) {
+          antiPattern.replaceInPlace(immunizedSentence);
+        } else {
+          immunizedSentence = antiPattern.replace(immunizedSentence);
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return immunizedSentence;
+  }
+
+  private static boolean onlySetsFlags(DisambiguationPatternRule antiPattern) {
+    DisambiguatorAction action = antiPattern.getAction();
+    return action == DisambiguatorAction.IMMUNIZE || action == DisambiguatorAction.IGNORE_SPELLING;
+  }
+
+}
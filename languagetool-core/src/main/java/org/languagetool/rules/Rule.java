@@ -19,6 +19,9 @@
 package org.languagetool.rules;
 
 import com.google.common.base.Suppliers;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.languagetool.*;
@@ -28,6 +31,7 @@ import org.languagetool.tagging.disambiguation.rules.DisambiguationPatternRule;
 import java.io.IOException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 /**
@@ -50,6 +54,10 @@ import java.util.function.Supplier;
  */
 public abstract class Rule {
 
+  // keys are the (usually static) pattern token lists passed to cacheAntiPatterns, compared by identity:
+  private static final LoadingCache<List<List<PatternToken>>, Map<Language, List<DisambiguationPatternRule>>> sharedAntiPatterns =
+    CacheBuilder.newBuilder().weakKeys().build(CacheLoader.from(() -> new ConcurrentHashMap<>()));
+
   private static final Category MISC = new Category(CategoryIds.MISC, "Miscellaneous");
 
   protected final ResourceBundle messages;
@@ -193,17 +201,14 @@ public abstract class Rule {
    * @since 3.1
    */
   protected AnalyzedSentence getSentenceWithImmunization(AnalyzedSentence sentence) {
-    if (!getAntiPatterns().isEmpty()) {
-      //we need a copy of the sentence, not reference to the old one
-      AnalyzedSentence immunizedSentence = sentence.copy(sentence);
-      for (DisambiguationPatternRule patternRule : getAntiPatterns()) {
-        try {
-          immunizedSentence = patternRule.replace(immunizedSentence);
-        } catch (IOException e) {
-          throw new RuntimeException(e);
-        }
-      }
-      return immunizedSentence;
+    List<DisambiguationPatternRule> antiPatterns = getAntiPatterns();
+    if (!antiPatterns.isEmpty()) {
+      // only anti-patterns whose tokens/lemmas occur in the sentence are applied; the sentence
+      // is only copied if there are any:
+      long startTime = RuleProfiler.start();
+      AnalyzedSentence result = AntiPatternIndex.get(antiPatterns).immunize(sentence);
+      RuleProfiler.stop(startTime, antiPatterns.get(0).getLanguage(), this, RuleProfiler.Phase.IMMUNIZATION, -1);
+      return result;
     }
     return sentence;
   }
@@ -228,7 +233,9 @@ public abstract class Rule {
    * @since 5.2
    */
   protected static Supplier<List<DisambiguationPatternRule>> cacheAntiPatterns(Language language, List<List<PatternToken>> antiPatterns) {
-    return Suppliers.memoize(() -> makeAntiPatterns(antiPatterns, language));
+    // share the anti-patterns (and thus their index, see getSentenceWithImmunization) between all rule instances:
+    return Suppliers.memoize(() -> sharedAntiPatterns.getUnchecked(antiPatterns)
+      .computeIfAbsent(language, lang -> Collections.unmodifiableList(makeAntiPatterns(antiPatterns, lang))));
   }
 
   /**
@@ -423,10 +423,37 @@ public class RuleMatch implements Comparable<RuleMatch> {
    */
   public void setLazySuggestedReplacements(@NotNull Supplier<List<SuggestedReplacement>> replacements) {
     Objects.requireNonNull(replacements, "replacements may not be null");
-    suggestedReplacements = Suppliers.memoize(replacements::get);
+    suggestedReplacements = memoizeUnlessOverBudget(replacements);
     suggestionsComputed = false;
   }
 
+  /**
+   * Like {@link Suppliers#memoize}, but suggestions that are incomplete because the rule exceeded its
+   * {@link RuleTimeBudget} aren't kept, as the match may be cached and used again.
+   */
+  private static Supplier<List<SuggestedReplacement>> memoizeUnlessOverBudget(Supplier<List<SuggestedReplacement>> replacements) {
+    return new Supplier<List<SuggestedReplacement>>() {
+      private volatile List<SuggestedReplacement> value;
+      @Override
+      public List<SuggestedReplacement> get() {
+        List<SuggestedReplacement> result = value;
+        if (result == null) {
+          synchronized (this) {
+            result = value;
+            if (result == null) {
+              long fallbacks = RuleTimeBudget.getFallbackCount();
+              result = replacements.get();
+              if (RuleTimeBudget.getFallbackCount() == fallbacks) {
+                value = result;
+              }
+            }
+          }
+        }
+        return result;
+      }
+    };
+  }
+
   /**
    * Force computing replacements, e.g. for accurate metrics for computation time and to set timeouts for this process
    * Used in server use case (i.e. {@code org.languagetool.server.TextChecker})
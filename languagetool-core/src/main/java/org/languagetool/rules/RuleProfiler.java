@@ -0,0 +1,235 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules;
+
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.Language;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the time spent in rules, per rule id and language. Off by default; when turned on
+ * with {@link #setSampleRate(int)}, only every n-th call (on average) is measured. When off,
+ * the overhead is a single volatile read per rule call.
+ * <p>
+ * Usage: {@code long startTime = RuleProfiler.start(); ...; RuleProfiler.stop(startTime, ...);}
+ * @since 5.6
+ */
+public final class RuleProfiler {
+
+  public enum Phase {
+    /** {@link Rule#match(org.languagetool.AnalyzedSentence)}, including the immunization */
+    SENTENCE,
+    /** {@link TextLevelRule#match(List, org.languagetool.markup.AnnotatedText)} */
+    TEXT_LEVEL,
+    /** applying the rule's anti-patterns, see {@link Rule#getSentenceWithImmunization} */
+    IMMUNIZATION
+  }
+
+  /**
+   * Gets notified of each measured call, e.g. to export metrics.
+   */
+  public interface Listener {
+    /**
+     * @param matches the number of matches found, or -1 for {@link Phase#IMMUNIZATION}
+     */
+    void ruleProfiled(String langCode, String ruleId, Phase phase, long nanos, int matches);
+  }
+
+  /** returned by {@link #start()} if the call should not be measured */
+  public static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+  private static final Map<Key, RuleStats> stats = new ConcurrentHashMap<>();
+
+  private static volatile int sampleRate = 0;
+  @Nullable
+  private static volatile Listener listener;
+
+  private RuleProfiler() {
+  }
+
+  /**
+   * @param sampleRate 0 to turn profiling off, 1 to measure every call, n to measure every n-th call on average
+   */
+  public static void setSampleRate(int sampleRate) {
+    if (sampleRate < 0) {
+      throw new IllegalArgumentException("sampleRate must be >= 0: " + sampleRate);
+    }
+    RuleProfiler.sampleRate = sampleRate;
+  }
+
+  public static int getSampleRate() {
+    return sampleRate;
+  }
+
+  public static void setListener(@Nullable Listener listener) {
+    RuleProfiler.listener = listener;
+  }
+
+  /**
+   * @return the current {@link System#nanoTime()} if the call should be measured, {@link #NOT_SAMPLED} otherwise
+   */
+  public static long start() {
+    int rate = sampleRate;
+    if (rate == 0 || rate > 1 && ThreadLocalRandom.current().nextInt(rate) != 0) {
+      return NOT_SAMPLED;
+    }
+    return System.nanoTime();
+  }
+
+  /**
+   * Record a call if {@code startTime} isn't {@link #NOT_SAMPLED}.
+   * @param matches the number of matches found, or -1 for {@link Phase#IMMUNIZATION}
+   */
+  public static void stop(long startTime, Language lang, Rule rule, Phase phase, int matches) {
+    if (startTime == NOT_SAMPLED) {
+      return;
+    }
+    long nanos = System.nanoTime() - startTime;
+    String langCode = lang.getShortCodeWithCountryAndVariant();
+    String ruleId = rule.getId();
+    stats.computeIfAbsent(new Key(langCode, ruleId, phase), k -> new RuleStats(k)).add(nanos, matches);
+    Listener l = listener;
+    if (l != null) {
+      l.ruleProfiled(langCode, ruleId, phase, nanos, matches);
+    }
+  }
+
+  /**
+   * @param langCode only consider rules of this language (short code with variant), or all if {@code null}
+   * @return up to {@code limit} rules of all phases, sorted by {@code order}
+   */
+  public static List<RuleStats> getTopRules(int limit, @Nullable String langCode, Comparator<RuleStats> order) {
+    if (limit < 0) {
+      throw new IllegalArgumentException("limit must not be negative: " + limit);
+    }
+    List<RuleStats> result = new ArrayList<>();
+    for (RuleStats ruleStats : stats.values()) {
+      if (langCode == null || langCode.equals(ruleStats.getLanguage())) {
+        result.add(ruleStats);
+      }
+    }
+    result.sort(order);
+    return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+  }
+
+  /**
+   * Forget everything recorded so far.
+   */
+  public static void reset() {
+    stats.clear();
+  }
+
+  /**
+   * The measurements of one rule in one phase. The numbers only include the sampled calls.
+   */
+  public static final class RuleStats {
+    public static final Comparator<RuleStats> BY_TOTAL_TIME = Comparator.comparingLong(RuleStats::getTotalNanos).reversed();
+    public static final Comparator<RuleStats> BY_MAX_TIME = Comparator.comparingLong(RuleStats::getMaxNanos).reversed();
+    public static final Comparator<RuleStats> BY_CALLS = Comparator.comparingLong(RuleStats::getCalls).reversed();
+    public static final Comparator<RuleStats> BY_MATCHES = Comparator.comparingLong(RuleStats::getMatches).reversed();
+
+    private final Key key;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final LongAdder matches = new LongAdder();
+
+    private RuleStats(Key key) {
+      this.key = key;
+    }
+
+    private void add(long nanos, int matchCount) {
+      calls.increment();
+      totalNanos.add(nanos);
+      if (nanos > maxNanos.get()) {
+        maxNanos.accumulateAndGet(nanos, Math::max);
+      }
+      if (matchCount > 0) {
+        matches.add(matchCount);
+      }
+    }
+
+    public String getLanguage() {
+      return key.langCode;
+    }
+
+    public String getRuleId() {
+      return key.ruleId;
+    }
+
+    public Phase getPhase() {
+      return key.phase;
+    }
+
+    public long getCalls() {
+      return calls.sum();
+    }
+
+    public long getTotalNanos() {
+      return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+      return maxNanos.get();
+    }
+
+    /**
+     * @return the number of matches found, always 0 for {@link Phase#IMMUNIZATION}
+     */
+    public long getMatches() {
+      return matches.sum();
+    }
+
+    @Override
+    public String toString() {
+      return key.langCode + "/" + key.ruleId + "/" + key.phase + ": " + getCalls() + " calls, " + getTotalNanos() / 1_000_000 + "ms";
+    }
+  }
+
+  private static final class Key {
+    private final String langCode;
+    private final String ruleId;
+    private final Phase phase;
+
+    private Key(String langCode, String ruleId, Phase phase) {
+      this.langCode = langCode;
+      this.ruleId = ruleId;
+      this.phase = phase;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Key key = (Key) o;
+      return langCode.equals(key.langCode) && ruleId.equals(key.ruleId) && phase == key.phase;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(langCode, ruleId, phase);
+    }
+  }
+
+}
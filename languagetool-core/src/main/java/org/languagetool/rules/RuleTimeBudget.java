@@ -0,0 +1,285 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.prometheus.client.Counter;
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.Language;
+import org.languagetool.tools.CircuitBreakers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A time budget for each call of a rule, enforced cooperatively: long-running code (pattern matching,
+ * regular expressions via {@link org.languagetool.tools.InterruptibleCharSequence}, spell checking) calls
+ * {@link #check(long)} with the deadline from {@link #getDeadline()}, which throws an {@link ExceededException}
+ * once the budget is used up. The rule then has no matches (or no suggestions, respectively).
+ * Rules that exceed their budget repeatedly are skipped for a while, using a circuit breaker
+ * per rule and language.
+ * Off by default, when off the overhead is a single volatile read per rule call.
+ * @since 5.6
+ */
+public final class RuleTimeBudget {
+
+  private static final Logger logger = LoggerFactory.getLogger(RuleTimeBudget.class);
+
+  // circuit breakers are only created once a rule exceeds its budget, as there are thousands of rules:
+  private static final CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig.custom()
+    .slidingWindow(20, 5, CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+    .failureRateThreshold(50)
+    .recordExceptions(ExceededException.class)
+    .waitDurationInOpenState(Duration.ofSeconds(60))
+    .enableAutomaticTransitionFromOpenToHalfOpen()
+    .build();
+  private static final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+  // per rule, like the circuit breakers - not in the metrics, that would be too many time series:
+  private static final ConcurrentMap<String, BudgetStats> stats = new ConcurrentHashMap<>();
+
+  private static final Counter exceeded = Counter
+    .build("languagetool_rule_budget_exceeded_total", "Rule calls stopped because they exceeded their time budget")
+    .labelNames("language", "phase").register();
+  private static final Counter skipped = Counter
+    .build("languagetool_rule_budget_skipped_total", "Rule calls skipped because the rule exceeded its time budget too often")
+    .labelNames("language", "phase").register();
+
+  private static final ThreadLocal<long[]> deadline = ThreadLocal.withInitial(() -> new long[1]);
+  private static final ThreadLocal<long[]> fallbacks = ThreadLocal.withInitial(() -> new long[1]);
+
+  private static volatile long budgetNanos = 0;
+
+  public enum Phase {
+    /** {@link Rule#match(AnalyzedSentence)} */
+    MATCH,
+    /** the lazy calculation of suggestions of spelling rules, see {@link RuleMatch#setLazySuggestedReplacements} */
+    SUGGESTIONS
+  }
+
+  private RuleTimeBudget() {
+  }
+
+  /**
+   * @param millis the maximum time per rule call, 0 to turn time budgets off
+   */
+  public static void setBudgetMillis(long millis) {
+    if (millis < 0) {
+      throw new IllegalArgumentException("millis must be >= 0: " + millis);
+    }
+    budgetNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+  public static long getBudgetMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(budgetNanos);
+  }
+
+  public static boolean isEnabled() {
+    return budgetNanos > 0;
+  }
+
+  /**
+   * @return the {@link System#nanoTime()} at which the current rule call on this thread runs out of time,
+   * or 0 if there's no deadline
+   */
+  public static long getDeadline() {
+    return budgetNanos == 0 ? 0 : deadline.get()[0];
+  }
+
+  /**
+   * @return the number of calls on this thread that returned their fallback because the rule exceeded its
+   * budget or was skipped - if it changes while computing a result, the result is incomplete and must not be cached
+   */
+  public static long getFallbackCount() {
+    return fallbacks.get()[0];
+  }
+
+  /**
+   * @param deadline as returned by {@link #getDeadline()}
+   * @throws ExceededException if the deadline has passed
+   */
+  public static void check(long deadline) {
+    if (deadline != 0 && System.nanoTime() - deadline > 0) {
+      throw new ExceededException();
+    }
+  }
+
+  /**
+   * Like {@link #check(long)} for the current deadline.
+   */
+  public static void check() {
+    check(getDeadline());
+  }
+
+  /**
+   * Call {@link Rule#match(AnalyzedSentence)} within the budget.
+   * @return the rule's matches, or no matches if the rule exceeded its budget or is skipped
+   */
+  public static RuleMatch[] match(Language lang, Rule rule, AnalyzedSentence sentence) throws IOException {
+    return call(lang, rule, Phase.MATCH, () -> rule.match(sentence), RuleMatch.EMPTY_ARRAY);
+  }
+
+  /**
+   * Run {@code callable} (e.g. the calculation of suggestions) within the budget of {@code rule}.
+   * @return the result of {@code callable}, or {@code fallback} if it exceeded the budget or is skipped
+   */
+  public static <T> T call(Language lang, Rule rule, Phase phase, IOCallable<T> callable, T fallback) throws IOException {
+    long budget = budgetNanos;
+    if (budget == 0) {
+      return callable.call();
+    }
+    String key = lang.getShortCodeWithCountryAndVariant() + "/" + rule.getId() + "/" + phase.name().toLowerCase();
+    CircuitBreaker circuitBreaker = circuitBreakers.get(key);
+    if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+      skipped.labels(lang.getShortCodeWithCountryAndVariant(), phase.name().toLowerCase()).inc();
+      statsFor(key, lang, rule, phase).skipped.increment();
+      fallbacks.get()[0]++;
+      return fallback;
+    }
+    long[] threadDeadline = deadline.get();
+    long prevDeadline = threadDeadline[0];
+    long startTime = System.nanoTime();
+    threadDeadline[0] = startTime + budget;
+    if (threadDeadline[0] == 0) {
+      threadDeadline[0] = 1;
+    }
+    try {
+      T result = callable.call();
+      if (circuitBreaker != null) {
+        circuitBreaker.onSuccess(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+      }
+      return result;
+    } catch (IOException | RuntimeException e) {
+      ExceededException exceededException = findExceededException(e);
+      if (exceededException == null) {
+        if (circuitBreaker != null) {
+          circuitBreaker.releasePermission();
+        }
+        throw e;
+      }
+      exceeded.labels(lang.getShortCodeWithCountryAndVariant(), phase.name().toLowerCase()).inc();
+      statsFor(key, lang, rule, phase).exceeded.increment();
+      if (circuitBreaker == null) {
+        circuitBreaker = circuitBreakers.computeIfAbsent(key,
+          k -> CircuitBreakers.registry().circuitBreaker("rule-time-budget-" + k.replace('/', '-'), circuitBreakerConfig));
+        logger.info("Rule " + rule.getId() + " exceeded its time budget of " + TimeUnit.NANOSECONDS.toMillis(budget) +
+          "ms for " + lang.getShortCodeWithCountryAndVariant() + " (" + phase.name().toLowerCase() + ")");
+      }
+      circuitBreaker.onError(System.nanoTime() - startTime, TimeUnit.NANOSECONDS, exceededException);
+      fallbacks.get()[0]++;
+      return fallback;
+    } finally {
+      threadDeadline[0] = prevDeadline;
+    }
+  }
+
+  private static BudgetStats statsFor(String key, Language lang, Rule rule, Phase phase) {
+    return stats.computeIfAbsent(key, k -> new BudgetStats(lang.getShortCodeWithCountryAndVariant(), rule.getId(), phase));
+  }
+
+  /**
+   * @param langCode only consider rules of this language (short code with variant), or all if {@code null}
+   * @return up to {@code limit} rules that have exceeded their budget, sorted by the number of calls
+   * that were stopped or skipped
+   */
+  public static List<BudgetStats> getExceededRules(int limit, @Nullable String langCode) {
+    if (limit < 0) {
+      throw new IllegalArgumentException("limit must not be negative: " + limit);
+    }
+    List<BudgetStats> result = new ArrayList<>();
+    for (BudgetStats budgetStats : stats.values()) {
+      if (langCode == null || langCode.equals(budgetStats.getLanguage())) {
+        result.add(budgetStats);
+      }
+    }
+    result.sort(Comparator.comparingLong((BudgetStats s) -> s.getExceeded() + s.getSkipped()).reversed());
+    return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+  }
+
+  private static ExceededException findExceededException(Throwable t) {
+    // rules may wrap exceptions, e.g. PatternRuleMatcher:
+    for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ExceededException) {
+        return (ExceededException) cause;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * How often the calls of one rule in one phase exceeded the budget or were skipped.
+   */
+  public static final class BudgetStats {
+    private final String langCode;
+    private final String ruleId;
+    private final Phase phase;
+    private final LongAdder exceeded = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    private BudgetStats(String langCode, String ruleId, Phase phase) {
+      this.langCode = langCode;
+      this.ruleId = ruleId;
+      this.phase = phase;
+    }
+
+    public String getLanguage() {
+      return langCode;
+    }
+
+    public String getRuleId() {
+      return ruleId;
+    }
+
+    public Phase getPhase() {
+      return phase;
+    }
+
+    public long getExceeded() {
+      return exceeded.sum();
+    }
+
+    public long getSkipped() {
+      return skipped.sum();
+    }
+  }
+
+  public interface IOCallable<T> {
+    T call() throws IOException;
+  }
+
+  /**
+   * Thrown by {@link #check(long)} when a rule call exceeds its time budget.
+   */
+  public static final class ExceededException extends RuntimeException {
+    ExceededException() {
+      super("Rule time budget exceeded", null, false, false);
+    }
+  }
+
+}
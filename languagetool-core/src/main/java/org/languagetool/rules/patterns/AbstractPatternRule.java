@@ -51,6 +51,8 @@ public abstract class AbstractPatternRule extends Rule {
   protected List<Match> suggestionMatches;
   protected List<Match> suggestionMatchesOutMsg;
   protected List<DisambiguationPatternRule> antiPatterns;
+  // a stable view, so the anti-pattern index of getSentenceWithImmunization() can be reused:
+  private List<DisambiguationPatternRule> antiPatternsView = Collections.emptyList();
 
   protected String subId; // because there can be more than one rule in a rule group
   protected int startPositionCorrection;
@@ -320,6 +322,7 @@ public abstract class AbstractPatternRule extends Rule {
       this.antiPatterns = new ArrayList<>(0);
     }
     this.antiPatterns.addAll(antiPatterns);
+    antiPatternsView = Collections.unmodifiableList(this.antiPatterns);
   }
 
   /**
@@ -327,7 +330,7 @@ public abstract class AbstractPatternRule extends Rule {
    */
   @Override
   public final List<DisambiguationPatternRule> getAntiPatterns() {
-    return antiPatterns == null ? Collections.emptyList() : Collections.unmodifiableList(antiPatterns);
+    return antiPatternsView;
   }
 
   /**
@@ -23,6 +23,7 @@ import org.languagetool.AnalyzedSentence;
 import org.languagetool.AnalyzedToken;
 import org.languagetool.AnalyzedTokenReadings;
 import org.languagetool.chunking.ChunkTag;
+import org.languagetool.rules.RuleTimeBudget;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -65,15 +66,18 @@ public abstract class AbstractPatternRulePerformer {
 
     int[] tokenPositions = new int[patternTokenMatchers.size()];
     int limit = rule.isSentStart() ? 1 : Math.max(0, tokens.length - patternSize + 1) + minOccurCorrection;
+    long deadline = RuleTimeBudget.getDeadline();
     if (anchorIndices != null) {
       for (Integer anchorIndex : anchorIndices) {
         int i = anchorIndex - anchor.tokenIndex;
         if (i >= 0 && i < limit) {
+          RuleTimeBudget.check(deadline);
           matchFrom(i, tokens, consumer, tokenPositions);
         }
       }
     } else {
       for (int i = 0; i < limit; i++) {
+        RuleTimeBudget.check(deadline);
         matchFrom(i, tokens, consumer, tokenPositions);
       }
     }
@@ -18,13 +18,14 @@
  */
 package org.languagetool.rules.patterns;
 
+import org.jetbrains.annotations.Nullable;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
 import org.languagetool.ShortDescriptionProvider;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
-import javax.xml.parsers.*;
+import javax.xml.parsers.ParserConfigurationException;
 import java.io.*;
 import java.text.MessageFormat;
 import java.util.*;
@@ -57,7 +58,7 @@ public class FalseFriendRuleLoader extends DefaultHandler {
    */
   public final List<AbstractPatternRule> getRules(File file, Language language, Language motherTongue) throws IOException {
     try (InputStream inputStream = new FileInputStream(file)) {
-      return getRules(inputStream, language, motherTongue);
+      return getRules(inputStream, file.getPath(), language, motherTongue);
     } catch (ParserConfigurationException | SAXException e) {
       throw new IOException("Could not load false friend rules from " + file, e);
     }
@@ -66,14 +67,20 @@ public class FalseFriendRuleLoader extends DefaultHandler {
   public final List<AbstractPatternRule> getRules(InputStream stream,
       Language textLanguage, Language motherTongue)
       throws ParserConfigurationException, SAXException, IOException {
+    return getRules(stream, null, textLanguage, motherTongue);
+  }
+
+  /**
+   * @param path the path of the XML in the classpath or filesystem, to use an up-to-date
+   *             {@link RuleBundle} next to it instead of parsing the XML
+   * @since 5.6
+   */
+  public final List<AbstractPatternRule> getRules(InputStream stream, @Nullable String path,
+      Language textLanguage, Language motherTongue)
+      throws ParserConfigurationException, SAXException, IOException {
     FalseFriendRuleHandler handler = new FalseFriendRuleHandler(
         textLanguage, motherTongue, falseFriendHint);
-    SAXParserFactory factory = SAXParserFactory.newInstance();
-    SAXParser saxParser = factory.newSAXParser();
-    saxParser.getXMLReader().setFeature(
-            "http://apache.org/xml/features/nonvalidating/load-external-dtd",
-            false);
-    saxParser.parse(stream, handler);
+    RuleBundle.parse(stream, path, handler, false);
     List<AbstractPatternRule> rules = handler.getRules();
     List<AbstractPatternRule> filteredRules = new ArrayList<>();
     // Add suggestions to each rule:
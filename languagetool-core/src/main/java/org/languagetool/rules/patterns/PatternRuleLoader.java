@@ -22,8 +22,6 @@ import org.languagetool.JLanguageTool;
 import org.languagetool.tools.Tools;
 import org.xml.sax.helpers.DefaultHandler;
 
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -60,21 +58,19 @@ public class PatternRuleLoader extends DefaultHandler {
 
   /**
    * @param is stream with the XML rules
-   * @param filename used only for verbose exception message - should refer to where the stream comes from
+   * @param filename used for verbose exception message - should refer to where the stream comes from;
+   *                 if it's the path of the XML in the classpath or filesystem, an up-to-date {@link RuleBundle}
+   *                 next to it is used instead of parsing the XML
    */
   public final List<AbstractPatternRule> getRules(InputStream is, String filename) throws IOException {
     try {
       PatternRuleHandler handler = new PatternRuleHandler(filename);
       handler.setRelaxedMode(relaxedMode);
-      SAXParserFactory factory = SAXParserFactory.newInstance();
-      SAXParser saxParser = factory.newSAXParser();
-
       if (JLanguageTool.isCustomPasswordAuthenticatorUsed()) {
         Tools.setPasswordAuthenticator();
       }
 
-      saxParser.getXMLReader().setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-      saxParser.parse(is, handler);
+      RuleBundle.parse(is, filename, handler, false);
       return handler.getRules();
     } catch (Exception e) {
       throw new IOException("Cannot load or parse input stream of '" + filename + "'", e);
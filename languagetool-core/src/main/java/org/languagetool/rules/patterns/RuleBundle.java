@@ -0,0 +1,337 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.JLanguageTool;
+import org.xml.sax.Attributes;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.LocatorImpl;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A precompiled form of a rule XML file (pattern rules, disambiguation rules, false friends):
+ * the SAX events of parsing the XML, stored in a compact binary format. Loading rules from a bundle
+ * replays these events into the same handler that would otherwise get them from the XML parser,
+ * so the resulting rules are the same, but the XML doesn't need to be scanned, its entities
+ * expanded and its DTD processed.
+ * <p>
+ * A bundle is stored next to its XML file, with {@link #FILE_SUFFIX} appended to the file name.
+ * It's only used if it has been created from exactly the same XML by the same LanguageTool
+ * version, otherwise the XML is parsed as usual. Bundles are optional: the build doesn't create
+ * them, they're created by {@code org.languagetool.tools.RuleBundleCompiler} in {@code languagetool-tools}.
+ * Without a bundle, the XML is parsed directly from its stream.
+ * @since 5.6
+ */
+@ApiStatus.Internal
+public final class RuleBundle {
+
+  public static final String FILE_SUFFIX = ".bundle";
+
+  private static final int MAGIC = 0x4C545242;  // "LTRB"
+  private static final int FORMAT_VERSION = 1;
+
+  private static final byte END_OF_DOCUMENT = 0;
+  private static final byte START_ELEMENT = 1;
+  private static final byte END_ELEMENT = 2;
+  private static final byte CHARACTERS = 3;
+
+  private RuleBundle() {
+  }
+
+  /**
+   * Parse the given rule XML and write its bundle.
+   * @param loadExternalDtd whether the loader of this kind of XML file loads the external DTD
+   *                        (it may define default attribute values)
+   */
+  public static void compile(InputStream xml, OutputStream bundle, boolean loadExternalDtd) throws IOException {
+    byte[] bytes = readFully(xml);
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(bundle));
+    writeHeader(out, bytes, loadExternalDtd);
+    try {
+      newParser(loadExternalDtd).parse(new ByteArrayInputStream(bytes), new Recorder(out));
+    } catch (ParserConfigurationException | SAXException e) {
+      throw new IOException("Cannot parse rule XML", e);
+    }
+    out.flush();
+  }
+
+  /**
+   * Let {@code handler} process the events of the given rule XML: from the bundle of {@code path}
+   * if there's an up-to-date one, from parsing the XML otherwise.
+   * @param path the path of the XML in the classpath or in the filesystem, used to find the bundle;
+   *             {@code null} to always parse the XML
+   */
+  public static void parse(InputStream xml, @Nullable String path, DefaultHandler handler, boolean loadExternalDtd)
+      throws IOException, SAXException, ParserConfigurationException {
+    try (InputStream bundle = path != null ? openBundle(path) : null) {
+      if (bundle != null) {
+        // the XML is only read into memory to compare it with the bundle:
+        byte[] bytes = readFully(xml);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(bundle));
+        if (isUpToDate(in, bytes, loadExternalDtd)) {
+          replay(in, handler);
+        } else {
+          newParser(loadExternalDtd).parse(new ByteArrayInputStream(bytes), handler);
+        }
+        return;
+      }
+    }
+    newParser(loadExternalDtd).parse(xml, handler);
+  }
+
+  private static SAXParser newParser(boolean loadExternalDtd) throws ParserConfigurationException, SAXException {
+    SAXParser parser = SAXParserFactory.newInstance().newSAXParser();
+    if (!loadExternalDtd) {
+      parser.getXMLReader().setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+    }
+    return parser;
+  }
+
+  @Nullable
+  private static InputStream openBundle(String path) throws IOException {
+    String bundlePath = path + FILE_SUFFIX;
+    InputStream stream = JLanguageTool.getDataBroker().getAsStream(bundlePath);
+    if (stream == null) {
+      File file = new File(bundlePath);
+      if (file.isFile()) {
+        stream = new FileInputStream(file);
+      }
+    }
+    return stream;
+  }
+
+  private static void writeHeader(DataOutputStream out, byte[] xml, boolean loadExternalDtd) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT_VERSION);
+    // the handlers that turn the events into rules may change with any version:
+    out.writeUTF(JLanguageTool.VERSION);
+    out.writeBoolean(loadExternalDtd);
+    out.writeInt(xml.length);
+    out.writeLong(checksum(xml));
+  }
+
+  private static boolean isUpToDate(DataInputStream in, byte[] xml, boolean loadExternalDtd) throws IOException {
+    try {
+      return in.readInt() == MAGIC &&
+        in.readInt() == FORMAT_VERSION &&
+        in.readUTF().equals(JLanguageTool.VERSION) &&
+        in.readBoolean() == loadExternalDtd &&
+        in.readInt() == xml.length &&
+        in.readLong() == checksum(xml);
+    } catch (EOFException e) {
+      return false;
+    }
+  }
+
+  private static long checksum(byte[] bytes) {
+    CRC32 crc = new CRC32();
+    crc.update(bytes, 0, bytes.length);
+    return crc.getValue();
+  }
+
+  private static void replay(DataInputStream in, DefaultHandler handler) throws IOException, SAXException {
+    List<String> strings = new ArrayList<>();
+    LocatorImpl locator = new LocatorImpl();
+    AttributesImpl attributes = new AttributesImpl();
+    handler.setDocumentLocator(locator);
+    handler.startDocument();
+    while (true) {
+      byte event = in.readByte();
+      switch (event) {
+        case START_ELEMENT:
+          String name = readString(in, strings);
+          locator.setLineNumber(readInt(in));
+          locator.setColumnNumber(readInt(in));
+          attributes.clear();
+          int attributeCount = readInt(in);
+          for (int i = 0; i < attributeCount; i++) {
+            String attributeName = readString(in, strings);
+            attributes.addAttribute("", "", attributeName, "CDATA", readString(in, strings));
+          }
+          handler.startElement("", "", name, attributes);
+          break;
+        case END_ELEMENT:
+          String endName = readString(in, strings);
+          locator.setLineNumber(readInt(in));
+          locator.setColumnNumber(readInt(in));
+          handler.endElement("", "", endName);
+          break;
+        case CHARACTERS:
+          char[] chars = readString(in, strings).toCharArray();
+          handler.characters(chars, 0, chars.length);
+          break;
+        case END_OF_DOCUMENT:
+          handler.endDocument();
+          return;
+        default:
+          throw new IOException("Corrupt rule bundle, unknown event " + event);
+      }
+    }
+  }
+
+  /**
+   * Strings are written once and referred to by their number afterwards.
+   */
+  private static String readString(DataInputStream in, List<String> strings) throws IOException {
+    int index = readInt(in);
+    if (index < strings.size()) {
+      return strings.get(index);
+    }
+    byte[] bytes = new byte[readInt(in)];
+    in.readFully(bytes);
+    String s = new String(bytes, StandardCharsets.UTF_8);
+    strings.add(s);
+    return s;
+  }
+
+  private static int readInt(DataInputStream in) throws IOException {
+    int result = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = in.readByte();
+      result |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        return result;
+      }
+    }
+  }
+
+  private static byte[] readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[64 * 1024];
+    int n;
+    while ((n = in.read(buffer)) != -1) {
+      out.write(buffer, 0, n);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Writes the SAX events of parsing a rule XML. Adjacent character events are merged,
+   * the handlers only collect them.
+   */
+  private static class Recorder extends DefaultHandler {
+    private final DataOutputStream out;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final StringBuilder characters = new StringBuilder();
+    private Locator locator;
+
+    Recorder(DataOutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public void setDocumentLocator(Locator locator) {
+      this.locator = locator;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+      try {
+        flushCharacters();
+        out.writeByte(START_ELEMENT);
+        writeString(qName);
+        writeLocation();
+        writeInt(attributes.getLength());
+        for (int i = 0; i < attributes.getLength(); i++) {
+          writeString(attributes.getQName(i));
+          writeString(attributes.getValue(i));
+        }
+      } catch (IOException e) {
+        throw new SAXException(e);
+      }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+      try {
+        flushCharacters();
+        out.writeByte(END_ELEMENT);
+        writeString(qName);
+        writeLocation();
+      } catch (IOException e) {
+        throw new SAXException(e);
+      }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+      characters.append(ch, start, length);
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+      try {
+        flushCharacters();
+        out.writeByte(END_OF_DOCUMENT);
+      } catch (IOException e) {
+        throw new SAXException(e);
+      }
+    }
+
+    private void flushCharacters() throws IOException {
+      if (characters.length() > 0) {
+        out.writeByte(CHARACTERS);
+        writeString(characters.toString());
+        characters.setLength(0);
+      }
+    }
+
+    private void writeLocation() throws IOException {
+      writeInt(locator == null ? -1 : locator.getLineNumber());
+      writeInt(locator == null ? -1 : locator.getColumnNumber());
+    }
+
+    private void writeString(String s) throws IOException {
+      Integer index = strings.get(s);
+      if (index != null) {
+        writeInt(index);
+      } else {
+        writeInt(strings.size());
+        strings.put(s, strings.size());
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        out.write(bytes);
+      }
+    }
+
+    private void writeInt(int value) throws IOException {
+      while ((value & ~0x7F) != 0) {
+        out.writeByte((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      out.writeByte(value);
+    }
+  }
+
+}
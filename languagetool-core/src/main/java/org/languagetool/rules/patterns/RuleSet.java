@@ -19,6 +19,7 @@
 package org.languagetool.rules.patterns;
 
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.rules.Rule;
 
@@ -35,6 +36,8 @@ import java.util.stream.Collectors;
 @ApiStatus.Internal
 public abstract class RuleSet {
   private volatile Set<String> ruleIds;
+  private volatile Map<String, Rule> rulesByFullId;
+  private volatile Map<Rule, Integer> ruleIndices;
 
   /**
    * @return all rules in this set, not filtered
@@ -46,6 +49,50 @@ public abstract class RuleSet {
    */
   public abstract List<Rule> rulesForSentence(AnalyzedSentence sentence);
 
+  /**
+   * @return the indices in {@link #allRules()} of the rules returned by {@link #rulesForSentence},
+   * as a new BitSet that the caller may modify
+   */
+  BitSet ruleIndicesForSentence(AnalyzedSentence sentence) {
+    Map<Rule, Integer> indices = ruleIndices;
+    if (indices == null) {
+      indices = new IdentityHashMap<>();
+      List<Rule> allRules = allRules();
+      for (int i = 0; i < allRules.size(); i++) {
+        indices.putIfAbsent(allRules.get(i), i);
+      }
+      ruleIndices = indices;
+    }
+    BitSet result = new BitSet();
+    for (Rule rule : rulesForSentence(sentence)) {
+      result.set(indices.get(rule));
+    }
+    return result;
+  }
+
+  /**
+   * Create a RuleSet for {@code rules} that reuses the index of this set (e.g. the token hints of
+   * {@link #textLemmaHinted}) for those of the rules that are also in this set. Only the other rules
+   * are indexed, so this is cheap if this set is shared and contains most of the rules. The returned set
+   * only keeps which rules of this set are active. Its {@link #rulesForSentence} returns rules in the
+   * order of {@code rules}.
+   * @param otherRulesWithLemmaHints like {@link #textLemmaHinted} (if {@code true}) or {@link #textHinted}
+   *                                 for the rules that are not in this set
+   * @since 5.6
+   */
+  public RuleSet activate(List<? extends Rule> rules, boolean otherRulesWithLemmaHints) {
+    return new ActivatedRuleSet(this, rules, otherRulesWithLemmaHints);
+  }
+
+  /**
+   * Create a RuleSet with only those rules of this set whose index in {@link #allRules()} is in {@code included}.
+   * Unlike {@link #activate}, nothing gets indexed, so this is cheap enough to be done for each check.
+   * @since 5.6
+   */
+  public RuleSet subset(BitSet included) {
+    return new SubRuleSet(this, included);
+  }
+
   /**
    * @return the ids of {@link #allRules()}
    * @since 5.6
@@ -58,6 +105,24 @@ public abstract class RuleSet {
     return result;
   }
 
+  /**
+   * @return the first rule of {@link #allRules()} with the given {@link Rule#getFullId() full id},
+   * or {@code null} if there's no such rule
+   * @since 5.6
+   */
+  @Nullable
+  public Rule getRuleByFullId(String fullId) {
+    Map<String, Rule> result = rulesByFullId;
+    if (result == null) {
+      Map<String, Rule> map = new HashMap<>();
+      for (Rule rule : allRules()) {
+        map.putIfAbsent(rule.getFullId(), rule);
+      }
+      rulesByFullId = result = map;
+    }
+    return result.get(fullId);
+  }
+
   /**
    * @return a simple RuleSet that returns all the rules from {@link #rulesForSentence}
    */
@@ -73,6 +138,13 @@ public abstract class RuleSet {
       public List<Rule> rulesForSentence(AnalyzedSentence sentence) {
         return allRules;
       }
+
+      @Override
+      BitSet ruleIndicesForSentence(AnalyzedSentence sentence) {
+        BitSet result = new BitSet(allRules.size());
+        result.set(0, allRules.size());
+        return result;
+      }
     };
   }
 
@@ -126,6 +198,11 @@ public abstract class RuleSet {
 
       @Override
       public List<Rule> rulesForSentence(AnalyzedSentence sentence) {
+        return filterList(ruleIndicesForSentence(sentence), allRules);
+      }
+
+      @Override
+      BitSet ruleIndicesForSentence(AnalyzedSentence sentence) {
         BitSet included = new BitSet();
         included.or(unclassified);
         if (!byLemma.isEmpty()) {
@@ -142,11 +219,115 @@ public abstract class RuleSet {
             included.or(set);
           }
         }
-        return filterList(included, allRules);
+        return included;
       }
     };
   }
 
+  private static class ActivatedRuleSet extends RuleSet {
+    private final List<Rule> allRules;
+    private final RuleSet shared;
+    // the indices in shared.allRules() that are active and their position in allRules:
+    private final BitSet active = new BitSet();
+    private final int[] positions;
+    // the rules that are not in shared and their position in allRules:
+    private final RuleSet otherRules;
+    private final int[] otherPositions;
+
+    ActivatedRuleSet(RuleSet shared, List<? extends Rule> rules, boolean otherRulesWithLemmaHints) {
+      this.allRules = Collections.unmodifiableList(new ArrayList<>(rules));
+      this.shared = shared;
+      List<Rule> sharedRules = shared.allRules();
+      Map<Rule, Integer> sharedIndices = new IdentityHashMap<>(sharedRules.size());
+      for (int i = 0; i < sharedRules.size(); i++) {
+        sharedIndices.putIfAbsent(sharedRules.get(i), i);
+      }
+      positions = new int[sharedRules.size()];
+      List<Rule> others = new ArrayList<>();
+      List<Integer> othersPositions = new ArrayList<>();
+      for (int pos = 0; pos < allRules.size(); pos++) {
+        Rule rule = allRules.get(pos);
+        Integer index = sharedIndices.get(rule);
+        if (index != null && !active.get(index)) {
+          active.set(index);
+          positions[index] = pos;
+        } else {
+          others.add(rule);
+          othersPositions.add(pos);
+        }
+      }
+      otherRules = hinted(others, otherRulesWithLemmaHints);
+      otherPositions = othersPositions.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Override
+    public List<Rule> allRules() {
+      return allRules;
+    }
+
+    @Override
+    public List<Rule> rulesForSentence(AnalyzedSentence sentence) {
+      return filterList(ruleIndicesForSentence(sentence), allRules);
+    }
+
+    @Override
+    BitSet ruleIndicesForSentence(AnalyzedSentence sentence) {
+      BitSet result = new BitSet(allRules.size());
+      BitSet sharedIndices = shared.ruleIndicesForSentence(sentence);
+      sharedIndices.and(active);
+      for (int i = sharedIndices.nextSetBit(0); i >= 0; i = sharedIndices.nextSetBit(i + 1)) {
+        result.set(positions[i]);
+      }
+      BitSet otherIndices = otherRules.ruleIndicesForSentence(sentence);
+      for (int i = otherIndices.nextSetBit(0); i >= 0; i = otherIndices.nextSetBit(i + 1)) {
+        result.set(otherPositions[i]);
+      }
+      return result;
+    }
+  }
+
+  private static class SubRuleSet extends RuleSet {
+    private final RuleSet base;
+    private final BitSet included;
+    private final List<Rule> allRules;
+    // the position in allRules of each included rule of base, by its index in base.allRules():
+    private final int[] positions;
+
+    SubRuleSet(RuleSet base, BitSet included) {
+      this.base = base;
+      this.included = (BitSet) included.clone();
+      List<Rule> baseRules = base.allRules();
+      this.included.clear(baseRules.size(), Math.max(baseRules.size(), this.included.length()));
+      this.allRules = Collections.unmodifiableList(filterList(this.included, baseRules));
+      positions = new int[baseRules.size()];
+      int pos = 0;
+      for (int i = this.included.nextSetBit(0); i >= 0; i = this.included.nextSetBit(i + 1)) {
+        positions[i] = pos++;
+      }
+    }
+
+    @Override
+    public List<Rule> allRules() {
+      return allRules;
+    }
+
+    @Override
+    public List<Rule> rulesForSentence(AnalyzedSentence sentence) {
+      return filterList(ruleIndicesForSentence(sentence), allRules);
+    }
+
+    @Override
+    BitSet ruleIndicesForSentence(AnalyzedSentence sentence) {
+      BitSet baseIndices = base.ruleIndicesForSentence(sentence);
+      baseIndices.and(included);
+      BitSet result = new BitSet(allRules.size());
+      for (int i = baseIndices.nextSetBit(0); i >= 0; i = baseIndices.nextSetBit(i + 1)) {
+        result.set(positions[i]);
+      }
+      return result;
+    }
+  }
+
   @ApiStatus.Internal
   public static <T> List<T> filterList(BitSet includedIndices, List<T> list) {
     List<T> result = new ArrayList<>();
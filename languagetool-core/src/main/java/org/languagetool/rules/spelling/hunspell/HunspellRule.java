@@ -29,6 +29,7 @@ import org.languagetool.noop.NoopLanguage;
 import org.languagetool.rules.Categories;
 import org.languagetool.rules.Rule;
 import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.RuleTimeBudget;
 import org.languagetool.rules.SuggestedReplacement;
 import org.languagetool.rules.spelling.RuleWithLanguage;
 import org.languagetool.rules.spelling.SpellingCheckRule;
@@ -175,7 +176,9 @@ public class HunspellRule extends SpellingCheckRule {
       }
       int prevStartPos = -1;
       int misspelledButEnglish = 0;
+      long deadline = RuleTimeBudget.getDeadline();
       for (int i = 0; i < tokens.length; i++) {
+        RuleTimeBudget.check(deadline);
         String word = tokens[i];
         int dashCorr = 0;
         if ((ignoreWord(Arrays.asList(tokens), i) || ignoreWord(word)) && !isProhibited(cutOffDot(word))) {
@@ -234,11 +237,13 @@ public class HunspellRule extends SpellingCheckRule {
           if (userConfig == null || userConfig.getMaxSpellingSuggestions() == 0 || ruleMatches.size() <= userConfig.getMaxSpellingSuggestions()) {
             ruleMatch.setLazySuggestedReplacements(() -> {
               try {
-                List<SuggestedReplacement> sugg = calcSuggestions(word, cleanWord2);
-                if (isFirstItemHighConfidenceSuggestion(word, sugg)) {
-                  sugg.get(0).setConfidence(HIGH_CONFIDENCE);
-                }
-                return sugg;
+                return RuleTimeBudget.call(language, this, RuleTimeBudget.Phase.SUGGESTIONS, () -> {
+                  List<SuggestedReplacement> sugg = calcSuggestions(word, cleanWord2);
+                  if (isFirstItemHighConfidenceSuggestion(word, sugg)) {
+                    sugg.get(0).setConfidence(HIGH_CONFIDENCE);
+                  }
+                  return sugg;
+                }, new ArrayList<>());
               } catch (IOException e) {
                 throw new RuntimeException(e);
               }
@@ -333,6 +338,7 @@ public class HunspellRule extends SpellingCheckRule {
 
   private List<SuggestedReplacement> calcSuggestions(String word, String cleanWord) throws IOException {
     List<SuggestedReplacement> suggestions = SuggestedReplacement.convert(getSuggestions(cleanWord));
+    RuleTimeBudget.check();
     if (word.endsWith(".")) {
       int pos = 1;
       for (String suggestion : getSuggestions(word)) {
@@ -58,7 +58,9 @@ public class MorfologikSpeller {
       });
 
   private final Dictionary dictionary;
-  private final Speller speller;
+  // Speller keeps state between calls (e.g. its edit distance matrix), so each thread gets its own
+  // instance, while the (thread-safe) dictionary is shared:
+  private final ThreadLocal<Speller> speller;
   private final int maxEditDistance;
 
   /**
@@ -84,7 +86,7 @@ public class MorfologikSpeller {
     }
     this.dictionary = dictionary;
     this.maxEditDistance = maxEditDistance;
-    speller = new Speller(dictionary, maxEditDistance);
+    speller = ThreadLocal.withInitial(() -> new Speller(dictionary, maxEditDistance));
   }
 
   /**
@@ -99,21 +101,21 @@ public class MorfologikSpeller {
     if (word.isEmpty() || SpellingCheckRule.LANGUAGETOOL.equals(word) || SpellingCheckRule.LANGUAGETOOLER.equals(word)) {
       return false;
     }
-    synchronized (this) {
-      return speller.isMisspelled(word);
-    }
+    return speller.get().isMisspelled(word);
   }
 
-  public synchronized List<String> findReplacements(String word) {
-    return speller.findReplacements(word);
+  public List<String> findReplacements(String word) {
+    return speller.get().findReplacements(word);
   }
 
   /**
-   * @deprecated use (or introduce) other methods to this class which would take care of the necessary synchronization
+   * @return the speller of the calling thread, which must not be passed on to other threads
+   * @deprecated the returned speller is bound to the calling thread and skips this class's special cases (e.g. the
+   * name "LanguageTool"), so use (or introduce) methods of this class like {@link #isMisspelled(String)} instead
    */
   @Deprecated
   public Speller getSpeller() {
-    return speller;
+    return speller.get();
   }
 
   public List<WeightedSuggestion> getSuggestions(String word) {
@@ -200,7 +202,7 @@ public class MorfologikSpeller {
    * @since 2.5
    */
   public boolean convertsCase() {
-    return speller.convertsCase();
+    return dictionary.metadata.isConvertingCase();
   }
 
   @Override
@@ -208,7 +210,8 @@ public class MorfologikSpeller {
     return "dist=" + maxEditDistance;
   }
 
-  public synchronized int getFrequency(String word) {
+  public int getFrequency(String word) {
+    Speller speller = this.speller.get();
     int freq = speller.getFrequency(word);
     if (freq == 0 && !word.equals(word.toLowerCase())) {
       freq = speller.getFrequency(word.toLowerCase());
@@ -30,6 +30,7 @@ import org.languagetool.noop.NoopLanguage;
 import org.languagetool.rules.Categories;
 import org.languagetool.rules.ITSIssueType;
 import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.RuleTimeBudget;
 import org.languagetool.rules.SuggestedReplacement;
 import org.languagetool.rules.spelling.SpellingCheckRule;
 import org.languagetool.rules.spelling.suggestions.SuggestionsChanges;
@@ -124,8 +125,10 @@ public abstract class MorfologikSpellerRule extends SpellingCheckRule {
     if (initSpellers()) return toRuleMatchArray(ruleMatches);
     int idx = -1;
     long sentLength = Arrays.stream(sentence.getTokensWithoutWhitespace()).filter(k -> !k.isNonWord()).count() - 1;  // -1 for the SENT_START token
+    long deadline = RuleTimeBudget.getDeadline();
     for (AnalyzedTokenReadings token : tokens) {
       idx++;
+      RuleTimeBudget.check(deadline);
       if (canBeIgnored(tokens, idx, token)) {
         continue;
       }
@@ -482,7 +485,8 @@ public abstract class MorfologikSpellerRule extends SpellingCheckRule {
     return () -> {
       List<SuggestedReplacement> joined;
       try {
-        List<SuggestedReplacement> fromSpeller = calcSpellerSuggestions(word, fullResults);
+        List<SuggestedReplacement> fromSpeller = RuleTimeBudget.call(language, this, RuleTimeBudget.Phase.SUGGESTIONS,
+          () -> calcSpellerSuggestions(word, fullResults), new ArrayList<>());
         joined = joinBeforeAfterSuggestions(fromSpeller, beforeSuggestionStr, afterSuggestionStr);
       } catch (IOException e) {
         throw new RuntimeException(e);
@@ -494,6 +498,7 @@ public abstract class MorfologikSpellerRule extends SpellingCheckRule {
   private List<SuggestedReplacement> calcSpellerSuggestions(String word, boolean fullResults) throws IOException {
     List<SuggestedReplacement> defaultSuggestions = SuggestedReplacement.convert(speller1.getSuggestionsFromDefaultDicts(word));
     List<SuggestedReplacement> userSuggestions = SuggestedReplacement.convert(speller1.getSuggestionsFromUserDicts(word));
+    RuleTimeBudget.check();
     //System.out.println("speller1: " + suggestions);
     boolean onlyCaseDiffers = false;
     if (defaultSuggestions.size() > 0 && word.equalsIgnoreCase(defaultSuggestions.get(0).getReplacement())) {
@@ -18,6 +18,8 @@
  */
 package org.languagetool.synthesis;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import morfologik.stemming.Dictionary;
 import morfologik.stemming.DictionaryLookup;
 import morfologik.stemming.IStemmer;
@@ -33,8 +35,10 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -43,11 +47,18 @@ public class BaseSynthesizer implements Synthesizer {
 
   public final String SPELLNUMBER_TAG = "_spell_number_";
 
+  private static final int MAX_CACHED_SYNTHESES = 10_000;
+
   protected volatile List<String> possibleTags;
 
   private final String tagFileName;
   private final String resourceFileName;
-  private final IStemmer stemmer;
+  // the stemmer is not thread-safe, so each thread gets its own over the shared dictionary:
+  private final ThreadLocal<IStemmer> stemmer;
+  // results of synthesizing with a POS tag regex, keyed by (lemma, regex):
+  private final Cache<Map.Entry<String, String>, String[]> regexSynthesisCache = CacheBuilder.newBuilder()
+    .maximumSize(MAX_CACHED_SYNTHESES)
+    .build();
   private final ManualSynthesizer manualSynthesizer;
   private final ManualSynthesizer removalSynthesizer;
   private final ManualSynthesizer removalSynthesizer2;
@@ -63,7 +74,7 @@ public class BaseSynthesizer implements Synthesizer {
   public BaseSynthesizer(String sorosFileName, String resourceFileName, String tagFileName, Language lang) {
     this.resourceFileName = resourceFileName;
     this.tagFileName = tagFileName;
-    this.stemmer = createStemmer();
+    this.stemmer = ThreadLocal.withInitial(this::createStemmer);
     this.sorosFileName = sorosFileName;
     this.numberSpeller = createNumberSpeller(lang.getShortCode());
     try {
@@ -157,11 +168,9 @@ public class BaseSynthesizer implements Synthesizer {
    */
   protected List<String> lookup(String lemma, String posTag) {
     List<String> results = new ArrayList<>();
-    synchronized (this) { // the stemmer is not thread-safe
-      List<WordData> wordForms = stemmer.lookup(lemma + "|" + posTag);
-      for (WordData wd : wordForms) {
-        results.add(wd.getStem().toString());
-      }
+    List<WordData> wordForms = stemmer.get().lookup(lemma + "|" + posTag);
+    for (WordData wd : wordForms) {
+      results.add(wd.getStem().toString());
     }
     if (manualSynthesizer != null) {
       List<String> manualForms = manualSynthesizer.lookup(lemma, posTag);
@@ -204,8 +213,14 @@ public class BaseSynthesizer implements Synthesizer {
   public String[] synthesize(AnalyzedToken token, String posTag, boolean posTagRegExp) throws IOException {
     if (posTagRegExp) {
       try {
-        Pattern p = Pattern.compile(posTag);
-        return synthesizeForPosTags(token.getLemma(), tag -> p.matcher(tag).matches());
+        Map.Entry<String, String> key = new AbstractMap.SimpleImmutableEntry<>(token.getLemma(), posTag);
+        String[] forms = regexSynthesisCache.getIfPresent(key);
+        if (forms == null) {
+          Pattern p = Pattern.compile(posTag);
+          forms = synthesizeForPosTags(token.getLemma(), tag -> p.matcher(tag).matches());
+          regexSynthesisCache.put(key, forms);
+        }
+        return forms.clone();
       } catch (PatternSyntaxException e) {
         throw new RuntimeException("Error trying to synthesize POS tag " + posTag +
                 " (posTagRegExp: " + posTagRegExp + ") from token " + token.getToken(), e);
@@ -236,10 +251,10 @@ public class BaseSynthesizer implements Synthesizer {
 
   /**
    * @since 2.5
-   * @return the stemmer interface to be used.
+   * @return the stemmer interface to be used. It belongs to the calling thread and must not be shared with other threads.
    */
   public IStemmer getStemmer() {
-    return stemmer;
+    return stemmer.get();
   }
 
   protected void initPossibleTags() throws IOException {
@@ -18,6 +18,8 @@
  */
 package org.languagetool.tagging;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import morfologik.stemming.Dictionary;
 import morfologik.stemming.WordData;
 import org.jetbrains.annotations.NotNull;
@@ -29,6 +31,7 @@ import org.languagetool.tools.StringTools;
 import java.io.*;
 import java.net.URL;
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Base tagger using Morfologik binary dictionaries.
@@ -48,6 +51,10 @@ public abstract class BaseTagger implements Tagger {
   private final boolean tagLowercaseWithUppercase;
   private final String dictionaryPath;
   private final Dictionary dictionary;
+  // word -> readings, as computed by the word tagger including the manual additions and removals:
+  @Nullable
+  private volatile Cache<String, AnalyzedToken[]> readingsCache;
+  private long readingsCacheSize;
 
   /**
    * Get the filenames for manual additions, e.g., {@code /en/added.txt}.
@@ -89,6 +96,38 @@ public abstract class BaseTagger implements Tagger {
     this.wordTagger = initWordTagger(internTags);
   }
 
+  /**
+   * Cache the readings of up to {@code size} words in this tagger. The cache avoids repeated
+   * dictionary lookups for frequent words, e.g. in a server that checks many texts.
+   * Use {@code 0} (the default) to disable the cache. Taggers are usually shared by all
+   * users of a {@link org.languagetool.Language}, so this is typically set via
+   * {@link org.languagetool.GlobalConfig#setTaggerCacheSize(long)}.
+   * @return {@code true} if a new cache was created, {@code false} if the cache had this size already
+   * @since 5.6
+   */
+  public synchronized boolean setReadingsCacheSize(long size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("size must be >= 0: " + size);
+    }
+    if (size == readingsCacheSize) {
+      return false;
+    }
+    readingsCacheSize = size;
+    readingsCache = size > 0 ? CacheBuilder.newBuilder().maximumSize(size).recordStats().build() : null;
+    return size > 0;
+  }
+
+  /**
+   * The cache of word readings, e.g. to expose its hit rate as metric.
+   * @return the cache or {@code null} if the cache is disabled
+   * @see #setReadingsCacheSize(long)
+   * @since 5.6
+   */
+  @Nullable
+  public Cache<String, ?> getReadingsCache() {
+    return readingsCache;
+  }
+
   /**
    * @since 2.9
    */
@@ -178,6 +217,44 @@ public abstract class BaseTagger implements Tagger {
   }
 
   protected List<AnalyzedToken> getAnalyzedTokens(String word) {
+    return getCachedAnalyzedTokens(word, this::analyzeWord);
+  }
+
+  /**
+   * Get the readings of {@code word} from the readings cache, or from {@code analyzer}
+   * if they are not cached yet or the cache is disabled. Only use this for readings that
+   * depend on nothing but the word itself.
+   * @since 5.6
+   */
+  protected final List<AnalyzedToken> getCachedAnalyzedTokens(String word, Function<String, List<AnalyzedToken>> analyzer) {
+    Cache<String, AnalyzedToken[]> readingsCache = this.readingsCache;
+    if (readingsCache == null) {
+      return analyzer.apply(word);
+    }
+    AnalyzedToken[] cached = readingsCache.getIfPresent(word);
+    if (cached == null) {
+      List<AnalyzedToken> result = analyzer.apply(word);
+      // AnalyzedTokens are mutable (e.g. their whitespace flag), so neither the
+      // cached nor the returned tokens may be shared:
+      cached = new AnalyzedToken[result.size()];
+      for (int i = 0; i < cached.length; i++) {
+        cached[i] = copyOf(result.get(i));
+      }
+      readingsCache.put(word, cached);
+      return result;
+    }
+    List<AnalyzedToken> result = new ArrayList<>(cached.length);
+    for (AnalyzedToken token : cached) {
+      result.add(copyOf(token));
+    }
+    return result;
+  }
+
+  private static AnalyzedToken copyOf(AnalyzedToken token) {
+    return new AnalyzedToken(token.getToken(), token.getPOSTag(), token.getLemma());
+  }
+
+  private List<AnalyzedToken> analyzeWord(String word) {
     List<AnalyzedToken> result = new ArrayList<>();
     String lowerWord = word.toLowerCase(locale);
     boolean isLowercase = word.equals(lowerWord);
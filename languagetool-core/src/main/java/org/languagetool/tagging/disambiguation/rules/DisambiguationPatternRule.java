@@ -18,6 +18,7 @@
  */
 package org.languagetool.tagging.disambiguation.rules;
 
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.AnalyzedToken;
@@ -101,6 +102,22 @@ public class DisambiguationPatternRule extends AbstractTokenBasedRule {
     return canBeIgnoredFor(sentence) ? sentence : new DisambiguationPatternRuleReplacer(this).replace(sentence);
   }
 
+  /**
+   * Like {@link #replace(AnalyzedSentence)}, but modifies the tokens of the given sentence instead of
+   * creating a new one. Only supported for the {@link DisambiguatorAction#IMMUNIZE} and
+   * {@link DisambiguatorAction#IGNORE_SPELLING} actions, which only set flags on the matched tokens,
+   * so the sentence must be a private copy, e.g. one created by {@link AnalyzedSentence#copy(AnalyzedSentence)}.
+   * @return whether any token was changed
+   * @since 5.6
+   */
+  @ApiStatus.Internal
+  public final boolean replaceInPlace(AnalyzedSentence sentence) throws IOException {
+    if (disAction != DisambiguatorAction.IMMUNIZE && disAction != DisambiguatorAction.IGNORE_SPELLING) {
+      throw new UnsupportedOperationException("In-place replacement not supported for action " + disAction + " in " + getFullId());
+    }
+    return !canBeIgnoredFor(sentence) && new DisambiguationPatternRuleReplacer(this).replaceInPlace(sentence);
+  }
+
   public void setExamples(List<DisambiguatedExample> examples) {
     this.examples = Objects.requireNonNull(examples);
   }
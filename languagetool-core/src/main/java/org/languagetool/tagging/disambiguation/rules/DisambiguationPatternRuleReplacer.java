@@ -44,8 +44,27 @@ class DisambiguationPatternRuleReplacer extends AbstractPatternRulePerformer {
   }
 
   AnalyzedSentence replace(AnalyzedSentence sentence) throws IOException {
+    AnalyzedTokenReadings[] whTokens = apply(sentence);
+    if (whTokens != null) {
+      return new AnalyzedSentence(whTokens, sentence.getTokens());
+    }
+    return sentence;
+  }
+
+  /**
+   * Apply the rule's action to the tokens of the given sentence without creating a new sentence.
+   * Only valid for actions that just set flags on the existing tokens.
+   * @return whether any token was changed
+   */
+  boolean replaceInPlace(AnalyzedSentence sentence) throws IOException {
+    return apply(sentence) != null;
+  }
+
+  /**
+   * @return the changed tokens (including whitespace), or {@code null} if the rule didn't change anything
+   */
+  private AnalyzedTokenReadings[] apply(AnalyzedSentence sentence) throws IOException {
     AnalyzedTokenReadings[] tokens = sentence.getTokensWithoutWhitespace();
-    AnalyzedTokenReadings[] preDisambigTokens = sentence.getTokens();
     AnalyzedTokenReadings[][] whTokens = {sentence.getTokens()};
     boolean[] changed = {false};
 
@@ -68,10 +87,7 @@ class DisambiguationPatternRuleReplacer extends AbstractPatternRulePerformer {
         changed[0] = true;
       }
     });
-    if (changed[0]) {
-      return new AnalyzedSentence(whTokens[0], preDisambigTokens);
-    }
-    return sentence;
+    return changed[0] ? whTokens[0] : null;
   }
 
   private boolean keepByDisambig(AnalyzedSentence sentence, int ruleMatchFromPos, int ruleMatchToPos) throws IOException {
@@ -18,14 +18,14 @@
  */
 package org.languagetool.tagging.disambiguation.rules;
 
+import org.jetbrains.annotations.Nullable;
 import org.languagetool.JLanguageTool;
+import org.languagetool.rules.patterns.RuleBundle;
 import org.languagetool.tools.Tools;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
@@ -40,15 +40,23 @@ public class DisambiguationRuleLoader extends DefaultHandler {
 
   public final List<DisambiguationPatternRule> getRules(InputStream stream)
       throws ParserConfigurationException, SAXException, IOException {
+    return getRules(stream, null);
+  }
+
+  /**
+   * @param path the path of the XML in the classpath or filesystem, to use an up-to-date
+   *             {@link RuleBundle} next to it instead of parsing the XML
+   * @since 5.6
+   */
+  public final List<DisambiguationPatternRule> getRules(InputStream stream, @Nullable String path)
+      throws ParserConfigurationException, SAXException, IOException {
     DisambiguationRuleHandler handler = new DisambiguationRuleHandler();
-    SAXParserFactory factory = SAXParserFactory.newInstance();
-    SAXParser saxParser = factory.newSAXParser();
 
     if (JLanguageTool.isCustomPasswordAuthenticatorUsed()) {
       Tools.setPasswordAuthenticator();
     }
 
-    saxParser.parse(stream, handler);
+    RuleBundle.parse(stream, path, handler, true);
     return handler.getDisambRules();
   }
 
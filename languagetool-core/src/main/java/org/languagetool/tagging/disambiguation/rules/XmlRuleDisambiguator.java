@@ -23,6 +23,7 @@ import org.jetbrains.annotations.Nullable;
 import org.languagetool.AnalyzedSentence;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
+import org.languagetool.broker.ResourceDataBroker;
 import org.languagetool.rules.Rule;
 import org.languagetool.rules.patterns.RuleSet;
 import org.languagetool.tagging.disambiguation.AbstractDisambiguator;
@@ -30,6 +31,7 @@ import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Objects;
 
@@ -96,7 +98,10 @@ public class XmlRuleDisambiguator extends AbstractDisambiguator {
   protected List<DisambiguationPatternRule> loadPatternRules(String filename)
       throws ParserConfigurationException, SAXException, IOException {
     DisambiguationRuleLoader ruleLoader = new DisambiguationRuleLoader();
-    return ruleLoader.getRules(JLanguageTool.getDataBroker().getFromResourceDirAsStream(filename));
+    ResourceDataBroker dataBroker = JLanguageTool.getDataBroker();
+    try (InputStream stream = dataBroker.getFromResourceDirAsStream(filename)) {
+      return ruleLoader.getRules(stream, dataBroker.getResourceDir() + "/" + filename);
+    }
   }
 
 }
@@ -25,26 +25,40 @@
 package org.languagetool.tools;
 
 import org.jetbrains.annotations.NotNull;
+import org.languagetool.rules.RuleTimeBudget;
 
 /**
  * CharSequence that noticed thread interrupts -- as might be necessary 
  * to recover from a loose regex on unexpected challenging input. 
+ * Also stops when the current rule exceeds its {@link RuleTimeBudget}.
  *
  * @author gojomo
  */
 public class InterruptibleCharSequence implements CharSequence {
 
+  private static final int DEADLINE_CHECK_INTERVAL = 1024; // calls to charAt() between checks of the deadline, a power of 2
+
   private final CharSequence inner;
+  private final long deadline;
+  private int calls;
 
   public InterruptibleCharSequence(CharSequence inner) {
+    this(inner, RuleTimeBudget.getDeadline());
+  }
+
+  private InterruptibleCharSequence(CharSequence inner, long deadline) {
     super();
     this.inner = inner;
+    this.deadline = deadline;
   }
 
   public char charAt(int index) {
     if (Thread.interrupted()) {
       throw new RuntimeException(new InterruptedException());
     }
+    if (deadline != 0 && (++calls & (DEADLINE_CHECK_INTERVAL - 1)) == 0) {
+      RuleTimeBudget.check(deadline);
+    }
     return inner.charAt(index);
   }
 
@@ -53,7 +67,7 @@ public class InterruptibleCharSequence implements CharSequence {
   }
 
   public CharSequence subSequence(int start, int end) {
-    return new InterruptibleCharSequence(inner.subSequence(start, end));
+    return new InterruptibleCharSequence(inner.subSequence(start, end), deadline);
   }
 
   @NotNull
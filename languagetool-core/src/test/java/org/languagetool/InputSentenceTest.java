@@ -18,14 +18,16 @@
  */
 package org.languagetool;
 
+import com.google.common.hash.HashCode;
 import org.junit.Test;
+import org.languagetool.language.Demo;
 import org.languagetool.rules.CategoryId;
+import org.languagetool.rules.RuleMatch;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
+import java.io.IOException;
+import java.util.*;
 
+import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.*;
 
 public class InputSentenceTest {
@@ -72,4 +74,64 @@ public class InputSentenceTest {
     assertNotEquals(inputSentence1a, inputSentence1aOtherAltLang);
   }
 
+  @Test
+  public void testConfigFingerprint() {
+    Language lang = Languages.getLanguageForShortCode("xx-XX");
+    List<Language> altLanguages = new ArrayList<>();
+    UserConfig userConfig = new UserConfig(Arrays.asList("foo1", "foo2"));
+    HashCode fingerprint1 = ConfigFingerprint.of(lang, null, new LinkedHashSet<>(Arrays.asList("ID1", "ID2")), new HashSet<>(),
+            new HashSet<>(), new HashSet<>(), userConfig, altLanguages);
+    HashCode fingerprint2 = ConfigFingerprint.of(lang, null, new LinkedHashSet<>(Arrays.asList("ID2", "ID1")), new HashSet<>(),
+            new HashSet<>(), new HashSet<>(), new UserConfig(Arrays.asList("foo1", "foo2")), altLanguages);
+    assertEquals(fingerprint1, fingerprint2);
+    // the same ids, but as enabled rules:
+    assertNotEquals(fingerprint1, ConfigFingerprint.of(lang, null, new HashSet<>(), new HashSet<>(),
+            new HashSet<>(Arrays.asList("ID1", "ID2")), new HashSet<>(), userConfig, altLanguages));
+    // the same characters, split differently:
+    assertNotEquals(fingerprint1, ConfigFingerprint.of(lang, null, new HashSet<>(Arrays.asList("ID", "1ID2")), new HashSet<>(),
+            new HashSet<>(), new HashSet<>(), userConfig, altLanguages));
+    assertNotEquals(fingerprint1, ConfigFingerprint.of(lang, null, new HashSet<>(Arrays.asList("ID1", "ID2")), new HashSet<>(),
+            new HashSet<>(), new HashSet<>(), new UserConfig(Arrays.asList("foo1", "foo3")), altLanguages));
+
+    InputSentence sentence1 = new InputSentence("foo", fingerprint1, JLanguageTool.Mode.ALL, JLanguageTool.Level.DEFAULT, null);
+    InputSentence sentence2 = new InputSentence("foo", fingerprint2, JLanguageTool.Mode.ALL, JLanguageTool.Level.DEFAULT, null);
+    assertEquals(sentence1, sentence2);
+    assertEquals(sentence1.hashCode(), sentence2.hashCode());
+    assertNotEquals(sentence1, new InputSentence("foo", fingerprint1, JLanguageTool.Mode.ALL, JLanguageTool.Level.PICKY, null));
+    assertNotEquals(sentence1, new InputSentence("foo", fingerprint1, JLanguageTool.Mode.ALL, JLanguageTool.Level.DEFAULT, 42L));
+  }
+
+  @Test
+  public void testCacheAfterReconfiguration() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo(), null, new ResultCache(1000));
+    List<String> ruleIds = getRuleIds(lt.check("This is a test with foo bar."));
+    assertFalse(ruleIds.isEmpty());
+    String ruleId = ruleIds.get(0);
+    lt.disableRule(ruleId);
+    assertFalse(getRuleIds(lt.check("This is a test with foo bar.")).contains(ruleId));
+    lt.enableRule(ruleId);
+    assertThat(getRuleIds(lt.check("This is a test with foo bar.")), is(ruleIds));
+  }
+
+  @Test
+  public void testUserConfigFingerprintWithChangedWordList() {
+    List<String> words = new ArrayList<>(Arrays.asList("foo", "bar"));
+    UserConfig userConfig = new UserConfig(words);
+    HashCode fingerprint = userConfig.getFingerprint();
+    words.add("blah");  // the config keeps a copy, so it's not affected
+    assertThat(userConfig.getAcceptedWords(), is(Arrays.asList("foo", "bar")));
+    assertThat(userConfig.getFingerprint(), is(fingerprint));
+    assertThat(new UserConfig(words).getFingerprint().equals(fingerprint), is(false));
+    userConfig.insertConfigValues(Collections.singletonMap("SOME_RULE", 5));
+    assertThat(userConfig.getFingerprint().equals(fingerprint), is(false));
+  }
+
+  private List<String> getRuleIds(List<RuleMatch> matches) {
+    List<String> result = new ArrayList<>();
+    for (RuleMatch match : matches) {
+      result.add(match.getRule().getId());
+    }
+    return result;
+  }
+
 }
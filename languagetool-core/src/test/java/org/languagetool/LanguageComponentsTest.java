@@ -0,0 +1,87 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+import org.languagetool.chunking.Chunker;
+import org.languagetool.tagging.Tagger;
+import org.languagetool.tagging.xx.DemoTagger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LanguageComponentsTest {
+
+  @Test
+  public void testCreatedOnce() throws Exception {
+    AtomicInteger taggers = new AtomicInteger();
+    AtomicInteger chunkers = new AtomicInteger();
+    Language lang = new FakeLanguage() {
+      @Override
+      public Tagger createDefaultTagger() {
+        taggers.incrementAndGet();
+        return new DemoTagger();
+      }
+      @Override
+      public Chunker createDefaultChunker() {
+        chunkers.incrementAndGet();
+        return null;
+      }
+    };
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Tagger>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          assertNull(lang.getChunker());
+          return lang.getTagger();
+        }));
+      }
+      start.countDown();
+      Tagger tagger = lang.getTagger();
+      for (Future<Tagger> future : futures) {
+        assertSame(tagger, future.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(1, taggers.get());
+    assertEquals(1, chunkers.get());
+  }
+
+  @Test
+  public void testSet() {
+    Language lang = new FakeLanguage();
+    Tagger tagger = new DemoTagger();
+    lang.setTagger(tagger);
+    assertSame(tagger, lang.getTagger());
+    lang.setTagger(null);
+    Tagger defaultTagger = lang.getTagger();
+    assertNotNull(defaultTagger);
+    assertNotSame(tagger, defaultTagger);
+  }
+
+}
@@ -0,0 +1,231 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+import org.languagetool.language.Demo;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.SuggestedReplacement;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class OffHeapResultCacheTest {
+
+  private static final JLanguageTool.Mode MODE = JLanguageTool.Mode.ALL;
+  private static final JLanguageTool.Level LEVEL = JLanguageTool.Level.DEFAULT;
+
+  @Test
+  public void testCheck() throws IOException {
+    OffHeapResultCache cache = new OffHeapResultCache(1000, 1_000_000, 5, TimeUnit.MINUTES);
+    JLanguageTool lt = new JLanguageTool(new Demo(), null, cache);
+    String text = "This is a test with foo bar. And another sentence. This is foo bar again.";
+    List<RuleMatch> matches1 = lt.check(text);
+    assertThat(cache.getMatchesCache().stats().hitCount(), is(0L));
+    assertTrue(cache.getMatchesCacheBytes() > 0);
+    List<RuleMatch> matches2 = lt.check(text);
+    assertThat(cache.getMatchesCache().stats().hitCount(), is(3L));
+    assertFalse(matches1.isEmpty());
+    assertThat(matches2.size(), is(matches1.size()));
+    for (int i = 0; i < matches1.size(); i++) {
+      RuleMatch match1 = matches1.get(i);
+      RuleMatch match2 = matches2.get(i);
+      assertSame(match1.getRule(), match2.getRule());
+      assertThat(match2.getFromPos(), is(match1.getFromPos()));
+      assertThat(match2.getToPos(), is(match1.getToPos()));
+      assertThat(match2.getMessage(), is(match1.getMessage()));
+      assertThat(match2.getSuggestedReplacements(), is(match1.getSuggestedReplacements()));
+      assertThat(match2.getSentence().getText(), is(match1.getSentence().getText()));
+    }
+  }
+
+  @Test
+  public void testSerialization() throws IOException {
+    OffHeapMatchesCache cache = new OffHeapMatchesCache(1_000_000, 5, TimeUnit.MINUTES);
+    FakeRule rule = new FakeRule();
+    RuleMatch match = new RuleMatch(rule, null, 3, 7, 2, 8, "A <suggestion>message</suggestion> with ü", "short");
+    match.setLine(1);
+    match.setEndLine(2);
+    match.setColumn(3);
+    match.setEndColumn(4);
+    match.setUrl(new URL("https://example.org/rule"));
+    match.setType(RuleMatch.Type.Hint);
+    match.setAutoCorrect(true);
+    match.setErrorLimitLang("de");
+    match.setSpecificRuleId("SPECIFIC_ID");
+    match.setFeatures(new TreeMap<>(Collections.singletonMap("f1", 0.5f)));
+    SuggestedReplacement suggestion = new SuggestedReplacement("repl", "desc", "suffix");
+    suggestion.setConfidence(0.9f);
+    suggestion.setType(SuggestedReplacement.SuggestionType.Curated);
+    match.setLazySuggestedReplacements(() -> Arrays.asList(suggestion, new SuggestedReplacement("other")));
+    InputSentence key = new InputSentence("foo", Languages.getLanguageForShortCode("xx-XX"), null,
+      new HashSet<>(), new HashSet<>(), new HashSet<>(), new HashSet<>(), new UserConfig(), new ArrayList<>(), MODE, LEVEL);
+    cache.put(key, Collections.singletonList(match));
+
+    List<RuleMatch> cached = cache.getIfPresent(key);
+    assertNotNull(cached);
+    assertThat(cached.size(), is(1));
+    RuleMatch result = cached.get(0);
+    assertSame(rule, result.getRule());
+    assertThat(result.getMessage(), is(match.getMessage()));
+    assertThat(result.getShortMessage(), is("short"));
+    assertThat(result.getFromPos(), is(3));
+    assertThat(result.getToPos(), is(7));
+    assertThat(result.getPatternFromPos(), is(2));
+    assertThat(result.getPatternToPos(), is(8));
+    assertThat(result.getLine(), is(1));
+    assertThat(result.getEndLine(), is(2));
+    assertThat(result.getColumn(), is(3));
+    assertThat(result.getEndColumn(), is(4));
+    assertThat(result.getUrl().toString(), is("https://example.org/rule"));
+    assertThat(result.getType(), is(RuleMatch.Type.Hint));
+    assertTrue(result.isAutoCorrect());
+    assertThat(result.getErrorLimitLang(), is("de"));
+    assertThat(result.getSpecificRuleId(), is("SPECIFIC_ID"));
+    assertThat(result.getFeatures(), is(match.getFeatures()));
+    assertThat(result.getSuggestedReplacements(), is(Arrays.asList("repl", "other")));
+    SuggestedReplacement resultSuggestion = result.getSuggestedReplacementObjects().get(0);
+    assertThat(resultSuggestion.getShortDescription(), is("desc"));
+    assertThat(resultSuggestion.getSuffix(), is("suffix"));
+    assertThat(resultSuggestion.getConfidence(), is(0.9f));
+    assertThat(resultSuggestion.getType(), is(SuggestedReplacement.SuggestionType.Curated));
+    assertNull(result.getSuggestedReplacementObjects().get(1).getConfidence());
+
+    InputSentence emptyKey = new InputSentence("bar", Languages.getLanguageForShortCode("xx-XX"), null,
+      new HashSet<>(), new HashSet<>(), new HashSet<>(), new HashSet<>(), new UserConfig(), new ArrayList<>(), MODE, LEVEL);
+    cache.put(emptyKey, Collections.emptyList());
+    assertThat(cache.getIfPresent(emptyKey), is(Collections.emptyList()));
+    assertThat(cache.size(), is(2L));
+  }
+
+  @Test
+  public void testFrequentEntriesAreKept() {
+    OffHeapMatchesCache cache = new OffHeapMatchesCache(20_000, 5, TimeUnit.MINUTES);
+    InputSentence frequent = key("a frequently checked sentence");
+    cache.put(frequent, Collections.emptyList());
+    for (int i = 0; i < 10; i++) {
+      assertNotNull(cache.getIfPresent(frequent));
+    }
+    for (int i = 0; i < 1000; i++) {
+      cache.put(key("a sentence checked only once: " + i), Collections.emptyList());
+      assertTrue(cache.weightedSize() <= 20_000);
+    }
+    assertNotNull(cache.getIfPresent(frequent));
+    assertTrue(cache.stats().evictionCount() > 0);
+  }
+
+  @Test
+  public void testExpiry() throws InterruptedException {
+    OffHeapMatchesCache cache = new OffHeapMatchesCache(20_000, 1, TimeUnit.MILLISECONDS);
+    InputSentence key = key("foo");
+    cache.put(key, Collections.emptyList());
+    Thread.sleep(10);
+    assertNull(cache.getIfPresent(key));
+    assertThat(cache.size(), is(0L));
+  }
+
+  @Test
+  public void testSlabStore() {
+    OffHeapMatchesCache.SlabStore store = new OffHeapMatchesCache.SlabStore(10 * OffHeapMatchesCache.SlabStore.BLOCK_SIZE);
+    byte[] small = "foo".getBytes(StandardCharsets.UTF_8);
+    byte[] large = new byte[5 * OffHeapMatchesCache.SlabStore.BLOCK_SIZE];
+    new Random(1).nextBytes(large);
+    int smallBlock = store.write(small);
+    int largeBlock = store.write(large);
+    assertThat(store.read(smallBlock, small.length), is(small));
+    assertThat(store.read(largeBlock, large.length), is(large));
+    assertThat(store.write(large), is(-1));  // only 10 blocks, 7 of them are used
+    store.free(largeBlock);
+    int reused = store.write(large);
+    assertTrue(reused >= 0);
+    assertThat(store.read(reused, large.length), is(large));
+    assertThat(store.read(smallBlock, small.length), is(small));
+  }
+
+  @Test
+  public void testConcurrentAccess() throws Exception {
+    int maxBytes = 300_000;
+    OffHeapMatchesCache cache = new OffHeapMatchesCache(maxBytes, 8, 5, TimeUnit.MINUTES);
+    FakeRule rule = new FakeRule();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        int seed = t;
+        futures.add(executor.submit(() -> {
+          Random random = new Random(seed);
+          for (int i = 0; i < 20_000; i++) {
+            String text = "sentence " + random.nextInt(3000);
+            InputSentence key = key(text);
+            List<RuleMatch> cached = cache.getIfPresent(key);
+            if (cached == null) {
+              // messages of different lengths, so entries use different numbers of blocks:
+              String message = StringUtils.repeat(text + " ", random.nextInt(40));
+              cache.put(key, Collections.singletonList(new RuleMatch(rule, null, 0, 1, message)));
+            } else {
+              assertThat(cached.size(), is(1));
+              assertTrue(cached.get(0).getMessage().isEmpty() || cached.get(0).getMessage().startsWith(text + " "));
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertTrue(cache.weightedSize() <= maxBytes);
+    assertTrue(cache.stats().hitCount() > 0);
+    assertTrue(cache.stats().evictionCount() > 0);
+  }
+
+  private InputSentence key(String text) {
+    return new InputSentence(text, Languages.getLanguageForShortCode("xx-XX"), null,
+      new HashSet<>(), new HashSet<>(), new HashSet<>(), new HashSet<>(), new UserConfig(), new ArrayList<>(), MODE, LEVEL);
+  }
+
+  private static class FakeRule extends Rule {
+    @Override
+    public String getId() {
+      return "FAKE_ID";
+    }
+    @Override
+    public String getDescription() {
+      return "fake rule";
+    }
+    @Override
+    public RuleMatch[] match(AnalyzedSentence sentence) {
+      throw new RuntimeException("not implemented");
+    }
+  }
+
+}
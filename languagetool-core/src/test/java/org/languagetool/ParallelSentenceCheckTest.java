@@ -0,0 +1,182 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.After;
+import org.junit.Test;
+import org.languagetool.language.Demo;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ParallelSentenceCheckTest {
+
+  private final ExecutorService executor = new ForkJoinPool(3);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testSameResultAsSequentialCheck() throws IOException {
+    String text = longText();
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    List<RuleMatch> expected = lt.check(text);
+    assertThat(expected.size() > 30, is(true));
+    for (int chunkSize : new int[] {1, 7, 1000}) {
+      JLanguageTool parallelLt = new JLanguageTool(new Demo());
+      parallelLt.setSentenceCheckExecutor(executor, chunkSize);
+      List<RuleMatch> matches = parallelLt.check(text);
+      assertThat(matches.toString(), is(expected.toString()));
+    }
+  }
+
+  @Test
+  public void testCallerChecksChunksThatExecutorHasNotStarted() throws Exception {
+    String text = longText();
+    List<RuleMatch> expected = new JLanguageTool(new Demo()).check(text);
+    ExecutorService busyExecutor = Executors.newSingleThreadExecutor();
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      busyExecutor.execute(() -> {
+        try {
+          release.await();
+        } catch (InterruptedException ignored) {
+        }
+      });
+      // the executor's only thread is blocked, so the check must not wait for it:
+      JLanguageTool lt = new JLanguageTool(new Demo());
+      lt.setSentenceCheckExecutor(busyExecutor, 3);
+      assertThat(lt.check(text).toString(), is(expected.toString()));
+    } finally {
+      release.countDown();
+      busyExecutor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testInterruptWhileWaitingForChunk() throws Exception {
+    Thread caller = Thread.currentThread();
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    lt.addRule(new BlockingRule(caller, blocked, release));
+    lt.setSentenceCheckExecutor(executor, 1);
+    Thread interrupter = new Thread(() -> {
+      try {
+        if (!blocked.await(10, TimeUnit.SECONDS)) {
+          return;
+        }
+        // the second chunk is blocked in the executor, wait until the caller waits for it:
+        while (caller.getState() != Thread.State.WAITING) {
+          Thread.sleep(1);
+        }
+        caller.interrupt();
+      } catch (InterruptedException ignored) {
+      }
+    });
+    interrupter.start();
+    try {
+      lt.check("This is a test. Blocked here.");  // no exception, the check stops like a cancelled check
+      assertThat(Thread.currentThread().isInterrupted(), is(true));
+    } finally {
+      Thread.interrupted();
+      release.countDown();
+      interrupter.join();
+    }
+  }
+
+  private String longText() {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 30; i++) {
+      text.append("A small toast. No error here. Foo go bar.\n\nFirst goes last there, please! ");
+    }
+    return text.toString();
+  }
+
+  static class BlockingRule extends Rule {
+    private final Thread caller;
+    private final CountDownLatch blocked;
+    private final CountDownLatch release;
+
+    BlockingRule(Thread caller, CountDownLatch blocked, CountDownLatch release) {
+      this.caller = caller;
+      this.blocked = blocked;
+      this.release = release;
+    }
+
+    @Override
+    public String getId() {
+      return "BLOCKING_RULE";
+    }
+
+    @Override
+    public String getDescription() {
+      return "Blocks in other threads than the caller when the sentence contains 'Blocked'";
+    }
+
+    @Override
+    public RuleMatch[] match(AnalyzedSentence sentence) {
+      try {
+        if (Thread.currentThread() != caller && sentence.getText().contains("Blocked")) {
+          blocked.countDown();
+          release.await();
+        } else if (Thread.currentThread() == caller) {
+          // make sure the caller doesn't check the blocked sentence itself:
+          blocked.await(10, TimeUnit.SECONDS);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return RuleMatch.EMPTY_ARRAY;
+    }
+  }
+
+  @Test
+  public void testErrorRateTooHigh() throws IOException {
+    StringBuilder text = new StringBuilder("This is a sentence without errors, it's just here to have some more words. ");
+    for (int i = 0; i < 40; i++) {
+      text.append("Foo go bar. ");
+    }
+    for (ExecutorService sentenceExecutor : new ExecutorService[] {null, executor}) {
+      JLanguageTool lt = new JLanguageTool(new Demo());
+      lt.setMaxErrorsPerWordRate(0.1f);
+      lt.setSentenceCheckExecutor(sentenceExecutor, 2);
+      try {
+        lt.check(text.toString());
+        fail();
+      } catch (RuntimeException e) {
+        assertThat(e.getCause() instanceof ErrorRateTooHighException, is(true));
+      }
+    }
+  }
+
+}
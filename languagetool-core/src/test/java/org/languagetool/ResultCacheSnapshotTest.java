@@ -0,0 +1,116 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.languagetool.language.Demo;
+import org.languagetool.rules.RuleMatch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class ResultCacheSnapshotTest {
+
+  private static final String TEXT = "This is a test with foo bar. And another sentence. This is foo bar again.";
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testSaveAndLoad() throws IOException {
+    Path file = tempFolder.getRoot().toPath().resolve("cache.bin");
+    ResultCache cache = new ResultCache(1000);
+    List<RuleMatch> matches = new JLanguageTool(new Demo(), null, cache).check(TEXT);
+    assertFalse(matches.isEmpty());
+    assertThat(cache.saveSnapshot(file), is(3L));
+
+    ResultCache newCache = new ResultCache(1000);
+    assertThat(newCache.loadSnapshot(file), is(3L));
+    JLanguageTool lt = new JLanguageTool(new Demo(), null, newCache);
+    assertEquals(toString(matches), toString(lt.check(TEXT)));
+    assertThat(newCache.getRestoredMatches().size(), is(0L));
+    // the matches refer to the rules of the new instance:
+    List<RuleMatch> newMatches = lt.check(TEXT);
+    assertTrue(lt.getAllRules().contains(newMatches.get(0).getRule()));
+    assertThat(newCache.getMatchesCache().stats().hitCount(), is(3L));
+  }
+
+  @Test
+  public void testOffHeapCache() throws IOException {
+    Path file = tempFolder.getRoot().toPath().resolve("cache.bin");
+    ResultCache cache = new OffHeapResultCache(1000, 1_000_000, 5, TimeUnit.MINUTES);
+    List<RuleMatch> matches = new JLanguageTool(new Demo(), null, cache).check(TEXT);
+    assertThat(cache.saveSnapshot(file), is(3L));
+    ResultCache newCache = new OffHeapResultCache(1000, 1_000_000, 5, TimeUnit.MINUTES);
+    assertThat(newCache.loadSnapshot(file), is(3L));
+    assertEquals(toString(matches), toString(new JLanguageTool(new Demo(), null, newCache).check(TEXT)));
+  }
+
+  @Test
+  public void testRestoredEntriesAreSavedAgain() throws IOException {
+    Path file = tempFolder.getRoot().toPath().resolve("cache.bin");
+    ResultCache cache = new ResultCache(1000);
+    new JLanguageTool(new Demo(), null, cache).check(TEXT);
+    cache.saveSnapshot(file);
+    ResultCache newCache = new ResultCache(1000);
+    newCache.loadSnapshot(file);
+    assertThat(newCache.saveSnapshot(file), is(3L));
+  }
+
+  @Test
+  public void testLoadIsLimitedByCacheSize() throws IOException {
+    Path file = tempFolder.getRoot().toPath().resolve("cache.bin");
+    ResultCache cache = new ResultCache(1000);
+    new JLanguageTool(new Demo(), null, cache).check(TEXT);
+    cache.saveSnapshot(file);
+    ResultCache smallCache = new ResultCache(2);
+    assertThat(smallCache.loadSnapshot(file), is(2L));
+  }
+
+  @Test
+  public void testOtherConfiguration() throws IOException {
+    Path file = tempFolder.getRoot().toPath().resolve("cache.bin");
+    ResultCache cache = new ResultCache(1000);
+    List<RuleMatch> matches = new JLanguageTool(new Demo(), null, cache).check(TEXT);
+    cache.saveSnapshot(file);
+    ResultCache newCache = new ResultCache(1000);
+    newCache.loadSnapshot(file);
+    JLanguageTool lt = new JLanguageTool(new Demo(), null, newCache);
+    lt.disableRule(matches.get(0).getRule().getId());
+    lt.check(TEXT);
+    assertThat(newCache.getRestoredMatches().size(), is(3L));
+  }
+
+  private static String toString(List<RuleMatch> matches) {
+    StringBuilder sb = new StringBuilder();
+    for (RuleMatch match : matches) {
+      sb.append(match.getRule().getFullId()).append(' ').append(match.getFromPos()).append('-').append(match.getToPos())
+        .append(' ').append(match.getMessage()).append(' ').append(match.getSuggestedReplacements()).append('\n');
+    }
+    return sb.toString();
+  }
+
+}
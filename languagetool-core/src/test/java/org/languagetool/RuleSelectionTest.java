@@ -0,0 +1,112 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool;
+
+import org.junit.Test;
+import org.languagetool.language.Demo;
+import org.languagetool.markup.AnnotatedTextBuilder;
+import org.languagetool.rules.CategoryId;
+import org.languagetool.rules.RuleMatch;
+import org.languagetool.tools.Tools;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RuleSelectionTest {
+
+  private static final String TEXT = "A small toast. No error here. Foo go bar.\n\nFirst goes last there, please! This is foo bar.";
+
+  @Test
+  public void testSameResultAsConfiguredJLanguageTool() throws IOException {
+    JLanguageTool sharedLt = new JLanguageTool(new Demo(), null, new ResultCache(1000));
+    List<String> none = Collections.emptyList();
+    List<CategoryId> noCategories = Collections.emptyList();
+    List<CategoryId> misc = Collections.singletonList(new CategoryId("MISC"));
+    List<CategoryId> other = Collections.singletonList(new CategoryId("OTHER"));
+    assertSameResult(sharedLt, noCategories, noCategories, none, none, false);
+    assertSameResult(sharedLt, noCategories, noCategories, Collections.singletonList("DEMO_RULE"), none, false);
+    assertSameResult(sharedLt, noCategories, noCategories, none, Collections.singletonList("DEMO_RULE_OFF"), false);
+    assertSameResult(sharedLt, noCategories, noCategories, none, Collections.singletonList("DEMO_RULE"), true);
+    assertSameResult(sharedLt, misc, noCategories, none, none, false);
+    assertSameResult(sharedLt, noCategories, other, none, none, true);
+    assertThat(check(sharedLt, null).toString(), is(new JLanguageTool(new Demo()).check(TEXT).toString()));
+  }
+
+  private void assertSameResult(JLanguageTool sharedLt, List<CategoryId> disabledCategories, List<CategoryId> enabledCategories,
+                                List<String> disabledRules, List<String> enabledRules, boolean useEnabledOnly) throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    Tools.selectRules(lt, new HashSet<>(disabledCategories), new HashSet<>(enabledCategories),
+      new HashSet<>(disabledRules), new HashSet<>(enabledRules), useEnabledOnly, false);
+    List<RuleMatch> expected = lt.check(TEXT);
+    RuleSelection selection = new RuleSelection(disabledCategories, enabledCategories, disabledRules, enabledRules, useEnabledOnly, false);
+    // twice, so the second result comes from the cache:
+    for (int i = 0; i < 2; i++) {
+      assertThat(selection.toString(), check(sharedLt, selection).toString(), is(expected.toString()));
+    }
+  }
+
+  @Test
+  public void testAndDisable() throws IOException {
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    List<CategoryId> noCategories = Collections.emptyList();
+    RuleSelection selection = new RuleSelection(noCategories, noCategories, Collections.emptyList(),
+      Arrays.asList("DEMO_RULE", "DEMO_RULE_OFF"), true, false);
+    assertThat(ruleIds(check(lt, selection)).contains("DEMO_RULE"), is(true));
+    assertThat(ruleIds(check(lt, selection.andDisable(Collections.singletonList("DEMO_RULE")))).contains("DEMO_RULE"), is(false));
+  }
+
+  @Test
+  public void testEqualSelections() throws IOException {
+    List<CategoryId> noCategories = Collections.emptyList();
+    RuleSelection selection1 = new RuleSelection(noCategories, noCategories, Collections.emptyList(),
+      Arrays.asList("DEMO_RULE", "DEMO_RULE_OFF"), true, false);
+    RuleSelection selection2 = new RuleSelection(noCategories, noCategories, Collections.emptyList(),
+      Arrays.asList("DEMO_RULE_OFF", "DEMO_RULE"), true, false);
+    assertThat(selection1.equals(selection2), is(true));
+    assertThat(selection1.hashCode(), is(selection2.hashCode()));
+    assertThat(selection1.equals(selection1.andDisable(Collections.singletonList("DEMO_RULE"))), is(false));
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    assertThat(ruleIds(check(lt, selection1)).contains("DEMO_RULE"), is(true));
+    // the selected rules are reused for equal selections, but not after the configuration has changed:
+    assertThat(ruleIds(check(lt, selection2)).contains("DEMO_RULE"), is(true));
+    RuleSelection selection3 = new RuleSelection(noCategories, noCategories, Collections.emptyList(),
+      Collections.singletonList("DEMO_RULE_OFF"), false, false);
+    assertThat(ruleIds(check(lt, selection3)).contains("REGEX_DEMO_PARTIAL_MARK"), is(true));
+    lt.disableRule("REGEX_DEMO_PARTIAL_MARK");
+    assertThat(ruleIds(check(lt, new RuleSelection(noCategories, noCategories, Collections.emptyList(),
+      Collections.singletonList("DEMO_RULE_OFF"), false, false))).contains("REGEX_DEMO_PARTIAL_MARK"), is(false));
+  }
+
+  private static List<RuleMatch> check(JLanguageTool lt, RuleSelection selection) throws IOException {
+    return lt.check2(new AnnotatedTextBuilder().addText(TEXT).build(), true, JLanguageTool.ParagraphHandling.NORMAL, null,
+      JLanguageTool.Mode.ALL, JLanguageTool.Level.DEFAULT, null, selection).getRuleMatches();
+  }
+
+  private static Set<String> ruleIds(List<RuleMatch> matches) {
+    Set<String> result = new HashSet<>();
+    for (RuleMatch match : matches) {
+      result.add(match.getRule().getId());
+    }
+    return result;
+  }
+
+}
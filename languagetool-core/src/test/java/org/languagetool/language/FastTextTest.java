@@ -19,6 +19,7 @@
 package org.languagetool.language;
 
 import org.jetbrains.annotations.Nullable;
+import org.junit.Assume;
 import org.junit.Ignore;
 import org.junit.Test;
 
@@ -26,15 +27,14 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Locale;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.fail;
+import static org.junit.Assert.*;
 
 public class FastTextTest {
 
@@ -146,4 +146,82 @@ public class FastTextTest {
     assertThat(res5.get("de"), is(0.9));
   }
 
+  @Test
+  public void testConcurrentRequestsWithProcessPool() throws Exception {
+    File fakeBinary = createFakeFastTextBinary();
+    FastText ft = new FastText(new File("unused-model"), fakeBinary, 2);
+    try {
+      List<String> langCodes = Arrays.asList("en", "de");
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      List<Future<Boolean>> futures = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        boolean german = i % 3 == 0;
+        futures.add(executor.submit(() -> {
+          Map<String, Double> res = ft.runFasttext(german ? "Das ist DEUTSCH" : "this is english", langCodes);
+          return german ? res.get("de") == 0.9 : res.get("en") == 0.9;
+        }));
+      }
+      for (Future<Boolean> future : futures) {
+        assertTrue(future.get());
+      }
+      executor.shutdown();
+    } finally {
+      ft.destroy();
+    }
+  }
+
+  @Test
+  public void testRestartOfDeadProcess() throws Exception {
+    File fakeBinary = createFakeFastTextBinary();
+    FastText ft = new FastText(new File("unused-model"), fakeBinary, 1);
+    try {
+      List<String> langCodes = Arrays.asList("en", "de");
+      assertThat(ft.runFasttext("this is english", langCodes).get("en"), is(0.9));
+      assertThat(ft.getProcessStartCount(), is(1));
+      ft.killProcesses();
+      Thread.sleep(200);
+      assertThat(ft.runFasttext("das ist deutsch", langCodes).get("de"), is(0.9));
+      assertThat(ft.getProcessStartCount(), is(2));
+    } finally {
+      ft.destroy();
+    }
+  }
+
+  @Test(timeout = 30_000)
+  public void testRequestIsRetriedWhenProcessDies() throws Exception {
+    File marker = File.createTempFile("fake-fasttext-die", ".marker");
+    marker.deleteOnExit();
+    // the first process that gets a request exits without answering:
+    File fakeBinary = createFakeFastTextBinary("if rm \"" + marker.getAbsolutePath() + "\" 2>/dev/null; then exit 1; fi");
+    FastText ft = new FastText(new File("unused-model"), fakeBinary, 2, 60_000);
+    try {
+      List<String> langCodes = Arrays.asList("en", "de");
+      assertThat(ft.runFasttext("this is english", langCodes).get("en"), is(0.9));
+      assertFalse(marker.exists());
+    } finally {
+      ft.destroy();
+    }
+  }
+
+  private File createFakeFastTextBinary() throws IOException {
+    return createFakeFastTextBinary(":");
+  }
+
+  private File createFakeFastTextBinary(String onRequest) throws IOException {
+    Assume.assumeFalse(System.getProperty("os.name").toLowerCase(Locale.ROOT).contains("windows"));
+    File script = File.createTempFile("fake-fasttext", ".sh");
+    script.deleteOnExit();
+    Files.write(script.toPath(), Arrays.asList(
+      "#!/bin/sh",
+      "while IFS= read -r line; do",
+      "  " + onRequest,
+      "  case \"$line\" in",
+      "    *deutsch*) echo \"__label__de 0.9 __label__en 0.1\";;",
+      "    *) echo \"__label__en 0.9 __label__de 0.1\";;",
+      "  esac",
+      "done"));
+    assertTrue(script.setExecutable(true));
+    return script;
+  }
+
 }
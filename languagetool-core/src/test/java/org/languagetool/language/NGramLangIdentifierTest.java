@@ -0,0 +1,137 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 LanguageTooler GmbH
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.language;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.*;
+
+public class NGramLangIdentifierTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testDetectionWithZipAndBinaryModel() throws IOException {
+    File zip = createModelZip();
+    NGramLangIdentifier fromZip = new NGramLangIdentifier(zip, 50);
+    assertFalse(NGramLangIdentifier.isBinaryModel(zip));
+    assertDetection(fromZip);
+
+    File binary = tempFolder.newFile("model.bin");
+    fromZip.saveBinary(binary);
+    assertTrue(NGramLangIdentifier.isBinaryModel(binary));
+    NGramLangIdentifier fromBinary = new NGramLangIdentifier(binary, 50);
+    assertDetection(fromBinary);
+    List<String> langs = Arrays.asList("en", "de");
+    assertEquals(fromZip.detectLanguages("aab ab", langs), fromBinary.detectLanguages("aab ab", langs));
+  }
+
+  @Test
+  public void testEncoding() throws IOException {
+    NGramLangIdentifier identifier = new NGramLangIdentifier(createModelZip(), 50);
+    // ids: 0=<unk>, 1=<s>, 2=▁, 3=a, 4=b, 5=<NUM>, 6=<KO>, 7=ab, 8=ä
+    assertThat(identifier.encode(""), is(new int[]{1}));
+    assertThat(identifier.encode("aab ab"), is(new int[]{1, 2, 3, 7, 2, 7}));
+    assertThat(identifier.encode("AB \t\n12 345x"), is(new int[]{1, 2, 7, 2, 5, 2, 5, 0}));
+    assertThat(identifier.encode("가나 Ä"), is(new int[]{1, 2, 6, 6, 2, 8}));
+    // NFKC: "ａ" (fullwidth) is "a", "ﬀ" is "ff"
+    assertThat(identifier.encode("ａｂ ﬀ"), is(new int[]{1, 2, 7, 2, 0, 0}));
+    // only the first maxLength characters are used:
+    assertThat(identifier.encode("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa").length, is(52));
+  }
+
+  @Test
+  public void testBinaryModelWithDuplicateVocabulary() throws IOException {
+    File zip = tempFolder.newFile("model-duplicates.zip");
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+      addEntry(out, "iso_codes.tsv", "English\ten\teng\t1\nGerman\tde\tdeu\t1\n");
+      // "a " and "a" are the same token after trimming, the last one (id 4) is used
+      addEntry(out, "vocab.txt", "<unk>\n<s>\n▁\na \na\nb\n");
+      addEntry(out, "thresholds.txt", "100\n-1000 -1000\n");
+      addEntry(out, "00.txt", "1 2 0.5\n2 4 0.5\n4 4 0.9\n4 5 0.01\n");
+      addEntry(out, "01.txt", "1 2 0.5\n2 5 0.5\n5 5 0.9\n5 4 0.01\n");
+    }
+    NGramLangIdentifier fromZip = new NGramLangIdentifier(zip, 50);
+    File binary = tempFolder.newFile("model-duplicates.bin");
+    fromZip.saveBinary(binary);
+    NGramLangIdentifier fromBinary = new NGramLangIdentifier(binary, 50);
+    assertThat(fromBinary.encode("ab"), is(new int[]{1, 2, 4, 5}));
+    assertDetection(fromZip);
+    assertDetection(fromBinary);
+  }
+
+  @Test
+  public void testBigramTable() {
+    BigramTable.Builder builder = new BigramTable.Builder(2);
+    for (int i = 0; i < 1000; i++) {
+      builder.put(i, i + 1, i / 10f);
+    }
+    builder.put(5, 6, 42f);
+    BigramTable table = builder.build();
+    assertThat(table.size(), is(1000));
+    assertThat(table.get(5, 6, -1f), is(42f));
+    assertThat(table.get(999, 1000, -1f), is(99.9f));
+    assertThat(table.get(6, 5, -1f), is(-1f));
+    assertThat(table.get(0, 0, -1f), is(-1f));
+  }
+
+  private void assertDetection(NGramLangIdentifier identifier) {
+    List<String> langs = Arrays.asList("en", "de");
+    Map<String, Double> resultA = identifier.detectLanguages("aaa", langs);
+    assertTrue(resultA.get("en") > 0.9);
+    Map<String, Double> resultB = identifier.detectLanguages("bbb", langs);
+    assertTrue(resultB.get("de") > 0.9);
+    assertEquals(1.0, resultB.get("en") + resultB.get("de"), 0.0001);
+  }
+
+  private File createModelZip() throws IOException {
+    File zip = tempFolder.newFile("model.zip");
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+      addEntry(out, "iso_codes.tsv", "English\ten\teng\t1\nGerman\tde\tdeu\t1\nKlingon\tNULL\ttlh\t0\n");
+      // ids: 0=<unk>, 1=<s>, 2=▁, 3=a, 4=b, 5=<NUM>, 6=<KO>, 7=ab, 8=ä
+      addEntry(out, "vocab.txt", "<unk>\n<s>\n▁\na\nb\n<NUM>\n<KO>\nab\nä\n");
+      addEntry(out, "thresholds.txt", "100\n-1000 -1000\n");
+      addEntry(out, "00.txt", "1 2 0.5\n2 3 0.5\n3 3 0.9\n3 4 0.01\n");
+      addEntry(out, "01.txt", "1 2 0.5\n2 4 0.5\n4 4 0.9\n4 3 0.01\n");
+    }
+    return zip;
+  }
+
+  private void addEntry(ZipOutputStream out, String name, String content) throws IOException {
+    out.putNextEntry(new ZipEntry(name));
+    out.write(content.getBytes(StandardCharsets.UTF_8));
+    out.closeEntry();
+  }
+
+}
@@ -0,0 +1,96 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.languagemodel;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class CachingLanguageModelTest {
+
+  @Test
+  public void testCaching() {
+    CountingLanguageModel delegate = new CountingLanguageModel();
+    CachingLanguageModel model = new CachingLanguageModel(delegate, 100);
+    assertThat(model.getCount("of"), is(2L));
+    assertThat(model.getCount("of"), is(2L));
+    assertThat(model.getCount(Collections.singletonList("of")), is(2L));
+    assertThat(delegate.lookups, is(1));
+    assertThat(model.getCount(Arrays.asList("of", "the")), is(6L));
+    assertThat(model.getCount(Arrays.asList("of", "the")), is(6L));
+    assertThat(model.getCount(Arrays.asList("of the")), is(6L));  // one token with a space is a different key
+    assertThat(delegate.lookups, is(3));
+    assertThat(model.getStats().hitCount(), is(3L));
+    assertThat(model.getTotalTokenCount(), is(1000L));
+    assertThat(model.getTotalTokenCount(), is(1000L));
+    assertThat(delegate.totalTokenCountLookups, is(1));
+  }
+
+  @Test
+  public void testEviction() {
+    CountingLanguageModel delegate = new CountingLanguageModel();
+    CachingLanguageModel model = new CachingLanguageModel(delegate, 10);
+    for (int i = 0; i < 100; i++) {
+      model.getCount(Arrays.asList("word" + i, "x"));
+    }
+    assertThat(model.getCache().size() <= 10, is(true));
+  }
+
+  @Test
+  public void testException() {
+    CachingLanguageModel model = new CachingLanguageModel(new CountingLanguageModel(), 10);
+    try {
+      model.getCount(Arrays.asList("a", "b", "c", "d"));
+      fail();
+    } catch (IllegalArgumentException expected) {
+      // not wrapped by the cache
+    }
+  }
+
+  static class CountingLanguageModel extends BaseLanguageModel {
+    int lookups;
+    int totalTokenCountLookups;
+    @Override
+    public long getCount(String token1) {
+      return getCount(Collections.singletonList(token1));
+    }
+    @Override
+    public long getCount(List<String> tokens) {
+      if (tokens.size() > 3) {
+        throw new IllegalArgumentException("Too long: " + tokens);
+      }
+      lookups++;
+      return String.join(" ", tokens).length();
+    }
+    @Override
+    public long getTotalTokenCount() {
+      totalTokenCountLookups++;
+      return 1000;
+    }
+    @Override
+    public void close() {}
+  }
+
+}
@@ -0,0 +1,101 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.languagemodel;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class MappedNgramLanguageModelTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testLanguageModel() throws IOException {
+    File file = writeIndex();
+    try (MappedNgramLanguageModel model = new MappedNgramLanguageModel(file)) {
+      assertCounts(model);
+    }
+  }
+
+  @Test
+  public void testLanguageModelWithSmallChunks() throws IOException {
+    File file = writeIndex();
+    // 64 byte chunks, so that many lookups need to cross chunk boundaries:
+    try (MappedNgramLanguageModel model = new MappedNgramLanguageModel(file, 6)) {
+      assertCounts(model);
+    }
+  }
+
+  @Test
+  public void testManyEntries() throws IOException {
+    File file = tempFolder.newFile();
+    try (MappedNgramIndexWriter writer = new MappedNgramIndexWriter(file)) {
+      for (int i = 0; i < 50_000; i++) {
+        writer.add("word" + i + " next", i);
+      }
+      writer.finish(1_000_000);
+    }
+    try (MappedNgramLanguageModel model = new MappedNgramLanguageModel(file, 12)) {
+      assertThat(model.getEntryCount(), is(50_000L));
+      for (int i = 0; i < 50_000; i += 7) {
+        assertThat(model.getCount(Arrays.asList("word" + i, "next")), is((long) i));
+      }
+      assertThat(model.getCount(Arrays.asList("word50000", "next")), is(0L));
+    }
+  }
+
+  private void assertCounts(MappedNgramLanguageModel model) {
+    assertThat(model.getCount("the"), is(55L));
+    assertThat(model.getCount(Arrays.asList("the", "nice")), is(3L));
+    assertThat(model.getCount(Arrays.asList("the", "nice", "building")), is(1L));
+    assertThat(model.getCount(Arrays.asList("a", "big", "old", "house")), is(300_000_000_000L));
+    assertThat(model.getCount("not-in-here"), is(0L));
+    assertThat(model.getCount(Arrays.asList("nice", "the")), is(0L));
+    assertThat(model.getTotalTokenCount(), is(3L));
+    assertThat(model.getEntryCount(), is(4L));
+    try {
+      model.getCount(Arrays.asList("a", "b", "c", "d", "e"));
+      fail();
+    } catch (RuntimeException expected) {}
+  }
+
+  private File writeIndex() throws IOException {
+    File file = tempFolder.newFile();
+    try (MappedNgramIndexWriter writer = new MappedNgramIndexWriter(file)) {
+      writer.add("the", 50);
+      writer.add("the nice", 3);
+      writer.add("the", 5);  // duplicates get summed up
+      writer.add("the nice building", 1);
+      writer.add("a big old house", 300_000_000_000L);
+      writer.finish(3);
+    }
+    return file;
+  }
+
+}
@@ -71,4 +71,38 @@ public class AnnotatedTextTest {
     assertThat(contextTools.getContext(14, 18, text.getTextWithMarkup()), is("hello <p>more #xxxx# text!"));
   }
 
+  @Test
+  public void testManyMarkupParts() {
+    AnnotatedTextBuilder builder = new AnnotatedTextBuilder();
+    for (int i = 0; i < 1000; i++) {
+      builder.addText("word ").addMarkup("<b>");
+    }
+    AnnotatedText text = builder.build();
+    // each "word " (5 chars) is followed by "<b>" (3 chars):
+    assertThat(text.getOriginalTextPositionFor(0, false), is(0));
+    assertThat(text.getOriginalTextPositionFor(4, false), is(4));
+    assertThat(text.getOriginalTextPositionFor(5, false), is(8));
+    assertThat(text.getOriginalTextPositionFor(502, false), is(802));
+    assertThat(text.getOriginalTextPositionFor(4999, false), is(7996));
+    try {
+      text.getOriginalTextPositionFor(5000, false);
+      fail();
+    } catch (RuntimeException expected) {}
+  }
+
+  @Test
+  public void testFakeMarkupPositions() {
+    AnnotatedText text = new AnnotatedTextBuilder().
+            addText("hello").
+            addMarkup("<br/>", "\n").
+            addMarkup("<x/>").
+            addText("world").
+            build();
+    assertThat(text.getPlainText(), is("hello\nworld"));
+    assertThat(text.getOriginalTextPositionFor(4, true), is(4));
+    assertThat(text.getOriginalTextPositionFor(5, false), is(5));
+    assertThat(text.getOriginalTextPositionFor(6, false), is(14));
+    assertThat(text.getOriginalTextPositionFor(8, false), is(16));
+  }
+
 }
@@ -0,0 +1,99 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules;
+
+import org.junit.Test;
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.AnalyzedTokenReadings;
+import org.languagetool.JLanguageTool;
+import org.languagetool.TestTools;
+import org.languagetool.language.Demo;
+import org.languagetool.rules.patterns.PatternToken;
+import org.languagetool.tagging.disambiguation.rules.DisambiguationPatternRule;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+import static org.languagetool.rules.patterns.PatternRuleBuilderHelper.token;
+
+public class AntiPatternIndexTest {
+
+  private static final List<List<PatternToken>> ANTI_PATTERNS = Arrays.asList(
+    Arrays.asList(token("is"), token("is")),
+    Arrays.asList(token("that"), token("that")),
+    Arrays.asList(token("had"), token("had"))
+  );
+
+  private final Demo demoLanguage = new Demo();
+  private final JLanguageTool lt = new JLanguageTool(demoLanguage);
+
+  @Test
+  public void testImmunization() throws IOException {
+    WordRepeatRuleWithAntiPatterns rule = new WordRepeatRuleWithAntiPatterns(demoLanguage);
+    assertThat(rule.match(lt.getAnalyzedSentence("This is is a test")).length, is(0));
+    assertThat(rule.match(lt.getAnalyzedSentence("He said that that had had no effect")).length, is(0));
+    assertThat(rule.match(lt.getAnalyzedSentence("A a test")).length, is(1));
+    assertThat(rule.match(lt.getAnalyzedSentence("This is is a a test")).length, is(1));
+
+    AnalyzedSentence sentence = lt.getAnalyzedSentence("This is is a test");
+    AnalyzedSentence immunized = rule.getSentenceWithImmunization(sentence);
+    assertNotSame(sentence, immunized);
+    assertTrue(immunized.getTokensWithoutWhitespace()[2].isImmunized());
+    assertTrue(immunized.getTokensWithoutWhitespace()[3].isImmunized());
+    assertFalse(immunized.getTokensWithoutWhitespace()[4].isImmunized());
+    for (AnalyzedTokenReadings token : sentence.getTokens()) {
+      assertFalse("original sentence must not be modified", token.isImmunized());
+    }
+  }
+
+  @Test
+  public void testNoCopyIfNoAntiPatternCanMatch() throws IOException {
+    WordRepeatRuleWithAntiPatterns rule = new WordRepeatRuleWithAntiPatterns(demoLanguage);
+    AnalyzedSentence sentence = lt.getAnalyzedSentence("A test without any of the tokens.");
+    assertSame(sentence, rule.getSentenceWithImmunization(sentence));
+  }
+
+  @Test
+  public void testAntiPatternsAreShared() {
+    List<DisambiguationPatternRule> antiPatterns1 = new WordRepeatRuleWithAntiPatterns(demoLanguage).getAntiPatterns();
+    List<DisambiguationPatternRule> antiPatterns2 = new WordRepeatRuleWithAntiPatterns(new Demo()).getAntiPatterns();
+    assertThat(antiPatterns1.size(), is(3));
+    assertSame(antiPatterns1, antiPatterns2);
+    assertSame(AntiPatternIndex.get(antiPatterns1), AntiPatternIndex.get(antiPatterns2));
+  }
+
+  static class WordRepeatRuleWithAntiPatterns extends WordRepeatRule {
+    private final Supplier<List<DisambiguationPatternRule>> antiPatterns;
+
+    WordRepeatRuleWithAntiPatterns(Demo language) {
+      super(TestTools.getEnglishMessages(), language);
+      antiPatterns = cacheAntiPatterns(language, ANTI_PATTERNS);
+    }
+
+    @Override
+    public List<DisambiguationPatternRule> getAntiPatterns() {
+      return antiPatterns.get();
+    }
+  }
+
+}
@@ -0,0 +1,79 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules;
+
+import org.junit.After;
+import org.junit.Test;
+import org.languagetool.JLanguageTool;
+import org.languagetool.language.Demo;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RuleProfilerTest {
+
+  private static final String TEXT = "This is a test with foo bar. And another sentence.";
+
+  @After
+  public void tearDown() {
+    RuleProfiler.setSampleRate(0);
+    RuleProfiler.setListener(null);
+    RuleProfiler.reset();
+  }
+
+  @Test
+  public void testProfiling() throws IOException {
+    AtomicInteger listenerCalls = new AtomicInteger();
+    RuleProfiler.setListener((langCode, ruleId, phase, nanos, matches) -> listenerCalls.incrementAndGet());
+    RuleProfiler.setSampleRate(1);
+    Demo lang = new Demo();
+    List<RuleMatch> matches = new JLanguageTool(lang).check(TEXT);
+    assertFalse(matches.isEmpty());
+    String langCode = lang.getShortCodeWithCountryAndVariant();
+    List<RuleProfiler.RuleStats> top = RuleProfiler.getTopRules(1000, langCode, RuleProfiler.RuleStats.BY_TOTAL_TIME);
+    assertFalse(top.isEmpty());
+    long totalCalls = 0;
+    for (int i = 0; i < top.size(); i++) {
+      RuleProfiler.RuleStats stats = top.get(i);
+      assertEquals(langCode, stats.getLanguage());
+      assertTrue(stats.getCalls() > 0);
+      assertTrue(stats.getMaxNanos() <= stats.getTotalNanos());
+      if (i > 0) {
+        assertTrue(top.get(i - 1).getTotalNanos() >= stats.getTotalNanos());
+      }
+      totalCalls += stats.getCalls();
+    }
+    assertEquals(totalCalls, listenerCalls.get());
+    String ruleId = matches.get(0).getRule().getId();
+    assertTrue(top.stream().anyMatch(stats -> stats.getRuleId().equals(ruleId) && stats.getMatches() > 0));
+    assertEquals(1, RuleProfiler.getTopRules(1, null, RuleProfiler.RuleStats.BY_CALLS).size());
+    assertTrue(RuleProfiler.getTopRules(10, "xx", RuleProfiler.RuleStats.BY_CALLS).isEmpty());
+  }
+
+  @Test
+  public void testDisabled() throws IOException {
+    new JLanguageTool(new Demo()).check(TEXT);
+    assertTrue(RuleProfiler.getTopRules(10, null, RuleProfiler.RuleStats.BY_TOTAL_TIME).isEmpty());
+    assertEquals(RuleProfiler.NOT_SAMPLED, RuleProfiler.start());
+  }
+
+}
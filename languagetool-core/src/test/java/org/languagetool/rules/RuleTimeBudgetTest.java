@@ -0,0 +1,175 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules;
+
+import org.junit.After;
+import org.junit.Test;
+import org.languagetool.AnalyzedSentence;
+import org.languagetool.JLanguageTool;
+import org.languagetool.ResultCache;
+import org.languagetool.language.Demo;
+import org.languagetool.tools.InterruptibleCharSequence;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class RuleTimeBudgetTest {
+
+  @After
+  public void tearDown() {
+    RuleTimeBudget.setBudgetMillis(0);
+  }
+
+  @Test
+  public void testSlowRuleIsStoppedAndThenSkipped() throws IOException {
+    RuleTimeBudget.setBudgetMillis(20);
+    SlowRule slowRule = new SlowRule();
+    JLanguageTool lt = new JLanguageTool(new Demo());
+    lt.addRule(slowRule);
+    for (int i = 0; i < 10; i++) {
+      long startTime = System.currentTimeMillis();
+      assertTrue(lt.check("A sentence " + i + ".").stream().noneMatch(match -> match.getRule() == slowRule));
+      assertTrue(System.currentTimeMillis() - startTime < 5000);
+    }
+    // the circuit breaker opens after 5 calls that exceeded the budget:
+    assertEquals(5, slowRule.calls.get());
+    RuleTimeBudget.BudgetStats stats = RuleTimeBudget.getExceededRules(100, null).stream()
+      .filter(s -> s.getRuleId().equals("SLOW_TEST_RULE")).findFirst().orElseThrow(AssertionError::new);
+    assertEquals(RuleTimeBudget.Phase.MATCH, stats.getPhase());
+    assertEquals(5, stats.getExceeded());
+    assertEquals(5, stats.getSkipped());
+  }
+
+  @Test
+  public void testDisabled() throws IOException {
+    assertFalse(RuleTimeBudget.isEnabled());
+    assertEquals(0, RuleTimeBudget.getDeadline());
+    RuleTimeBudget.check();
+    Rule rule = new FakeRule();
+    RuleMatch[] matches = new RuleMatch[1];
+    assertSame(matches, RuleTimeBudget.call(new Demo(), rule, RuleTimeBudget.Phase.MATCH, () -> matches, null));
+  }
+
+  @Test
+  public void testRegexIsStopped() throws IOException {
+    RuleTimeBudget.setBudgetMillis(20);
+    Pattern pattern = Pattern.compile("(.*a){12}b");  // takes minutes
+    String text = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa";
+    Boolean result = RuleTimeBudget.call(new Demo(), new FakeRule("REGEX_TEST_RULE"), RuleTimeBudget.Phase.MATCH,
+      () -> pattern.matcher(new InterruptibleCharSequence(text)).matches(), null);
+    assertNull(result);
+    assertEquals(0, RuleTimeBudget.getDeadline());
+  }
+
+  @Test
+  public void testIncompleteMatchesAreNotCached() throws IOException {
+    RuleTimeBudget.setBudgetMillis(20);
+    SometimesSlowRule rule = new SometimesSlowRule();
+    JLanguageTool lt = new JLanguageTool(new Demo(), null, new ResultCache(1000));
+    lt.addRule(rule);
+    lt.disableRule("test_unification_with_negation");  // would hide the match
+    rule.slow = true;
+    assertTrue(lt.check("A sentence.").stream().noneMatch(match -> match.getRule() == rule));
+    rule.slow = false;
+    assertTrue(lt.check("A sentence.").stream().anyMatch(match -> match.getRule() == rule));
+    // complete matches are cached:
+    assertTrue(lt.check("A sentence.").stream().anyMatch(match -> match.getRule() == rule));
+    assertEquals(2, rule.calls.get());
+  }
+
+  @Test
+  public void testIncompleteSuggestionsAreNotKept() {
+    RuleTimeBudget.setBudgetMillis(20);
+    Rule rule = new FakeRule("LAZY_SUGGESTIONS_TEST_RULE");
+    AtomicBoolean slow = new AtomicBoolean(true);
+    RuleMatch match = new RuleMatch(rule, null, 0, 1, "message");
+    match.setLazySuggestedReplacements(() -> {
+      try {
+        return RuleTimeBudget.call(new Demo(), rule, RuleTimeBudget.Phase.SUGGESTIONS, () -> {
+          while (slow.get()) {
+            RuleTimeBudget.check();
+          }
+          return Collections.singletonList(new SuggestedReplacement("suggestion"));
+        }, Collections.emptyList());
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    assertTrue(match.getSuggestedReplacements().isEmpty());
+    slow.set(false);
+    assertEquals(Collections.singletonList("suggestion"), match.getSuggestedReplacements());
+  }
+
+  static class SometimesSlowRule extends Rule {
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile boolean slow;
+
+    @Override
+    public String getId() {
+      return "SOMETIMES_SLOW_TEST_RULE";
+    }
+
+    @Override
+    public String getDescription() {
+      return "A rule that doesn't finish in time while 'slow' is set";
+    }
+
+    @Override
+    public RuleMatch[] match(AnalyzedSentence sentence) {
+      calls.incrementAndGet();
+      while (slow) {
+        RuleTimeBudget.check();
+      }
+      return new RuleMatch[] {new RuleMatch(this, sentence, 0, 1, "message")};
+    }
+  }
+
+  static class SlowRule extends Rule {
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public String getId() {
+      return "SLOW_TEST_RULE";
+    }
+
+    @Override
+    public String getDescription() {
+      return "A rule that never finishes in time";
+    }
+
+    @Override
+    public RuleMatch[] match(AnalyzedSentence sentence) throws IOException {
+      calls.incrementAndGet();
+      while (true) {
+        RuleTimeBudget.check();
+        try {
+          Thread.sleep(1);
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,128 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.rules.patterns;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.languagetool.JLanguageTool;
+import org.languagetool.tagging.disambiguation.rules.DisambiguationPatternRule;
+import org.languagetool.tagging.disambiguation.rules.DisambiguationRuleLoader;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class RuleBundleTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testPatternRules() throws Exception {
+    File xml = copyResource("/org/languagetool/rules/xx/grammar.xml");
+    List<String> expected = describe(new PatternRuleLoader().getRules(xml));
+    compile(xml, false);
+    List<String> fromBundle = describe(new PatternRuleLoader().getRules(xml));
+    assertTrue(expected.size() >= 30);
+    assertEquals(expected, fromBundle);
+  }
+
+  @Test
+  public void testDisambiguationRules() throws Exception {
+    File xml = copyResource("/org/languagetool/resource/xx/disambiguation.xml");
+    List<String> expected = describeDisambiguation(xml);
+    compile(xml, true);
+    assertFalse(expected.isEmpty());
+    assertEquals(expected, describeDisambiguation(xml));
+  }
+
+  @Test
+  public void testBundleIsUsed() throws Exception {
+    File xml = copyResource("/org/languagetool/rules/xx/grammar.xml");
+    File bundle = compile(xml, false);
+    // keep the header, which says the bundle is up to date, but cut off the events:
+    byte[] bytes = Files.readAllBytes(bundle.toPath());
+    Files.write(bundle.toPath(), Arrays.copyOf(bytes, 100));
+    try {
+      new PatternRuleLoader().getRules(xml);
+      fail();
+    } catch (IOException expected) {
+    }
+  }
+
+  @Test
+  public void testOutdatedBundleIsIgnored() throws Exception {
+    File xml = copyResource("/org/languagetool/rules/xx/grammar.xml");
+    compile(xml, false);
+    String modified = new String(Files.readAllBytes(xml.toPath()), StandardCharsets.UTF_8)
+      .replace("id=\"DEMO_RULE\"", "id=\"DEMO_RULE_MODIFIED\"");
+    Files.write(xml.toPath(), modified.getBytes(StandardCharsets.UTF_8));
+    List<String> rules = describe(new PatternRuleLoader().getRules(xml));
+    assertTrue(rules.stream().anyMatch(rule -> rule.startsWith("DEMO_RULE_MODIFIED[")));
+
+    // a bundle compiled with other parser settings is ignored, too:
+    compile(xml, true);
+    assertEquals(rules, describe(new PatternRuleLoader().getRules(xml)));
+
+    Files.write(new File(xml.getPath() + RuleBundle.FILE_SUFFIX).toPath(), new byte[]{1, 2, 3}, StandardOpenOption.TRUNCATE_EXISTING);
+    assertEquals(rules, describe(new PatternRuleLoader().getRules(xml)));
+  }
+
+  private File copyResource(String path) throws IOException {
+    File file = new File(tempFolder.getRoot(), new File(path).getName());
+    try (InputStream in = JLanguageTool.getDataBroker().getAsStream(path)) {
+      Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    return file;
+  }
+
+  private static File compile(File xml, boolean loadExternalDtd) throws IOException {
+    File bundle = new File(xml.getPath() + RuleBundle.FILE_SUFFIX);
+    try (InputStream in = new FileInputStream(xml); OutputStream out = new FileOutputStream(bundle)) {
+      RuleBundle.compile(in, out, loadExternalDtd);
+    }
+    return bundle;
+  }
+
+  private static List<String> describe(List<AbstractPatternRule> rules) {
+    return rules.stream()
+      .map(rule -> rule + " " + rule.getMessage() + " " + rule.getSuggestionsOutMsg() + " " + rule.getAntiPatterns() +
+        " " + rule.getCategory().getName() + " " + rule.getIncorrectExamples() + " " + rule.getCorrectExamples() +
+        " " + rule.getUrl() + " " + rule.getFilterArguments() + " " + rule.isDefaultOff())
+      .collect(Collectors.toList());
+  }
+
+  private static List<String> describeDisambiguation(File xml) throws Exception {
+    try (InputStream in = new FileInputStream(xml)) {
+      List<DisambiguationPatternRule> rules = new DisambiguationRuleLoader().getRules(in, xml.getPath());
+      return rules.stream()
+        .map(rule -> rule + " " + rule.getAction() + " " + rule.getExamples() + " " + rule.getAntiPatterns())
+        .collect(Collectors.toList());
+    }
+  }
+
+}
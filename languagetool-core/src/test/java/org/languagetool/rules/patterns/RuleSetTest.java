@@ -25,6 +25,7 @@ import org.languagetool.AnalyzedTokenReadings;
 import org.languagetool.FakeLanguage;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 
 import static org.junit.Assert.assertEquals;
@@ -68,6 +69,42 @@ public class RuleSetTest {
     assertRulesForSentence(textLemmaHinted(Arrays.asList(ruleOf(unsuitable), unrelated)), unrelated);
   }
 
+  @Test
+  public void activatedRulesKeepOrder() {
+    PatternRule suitable1 = ruleOf(csToken("token"));
+    PatternRule suitable2 = ruleOf(new PatternTokenBuilder().token("lemma").matchInflectedForms().build());
+    PatternRule unsuitable = ruleOf(csToken("unsuitable"));
+    PatternRule inactive = ruleOf(csToken("token"));
+    RuleSet shared = textLemmaHinted(Arrays.asList(suitable1, unsuitable, inactive, suitable2));
+
+    PatternRule other = ruleOf(pos("somePos"));
+    PatternRule otherUnsuitable = ruleOf(csToken("unsuitable"));
+    RuleSet activated = shared.activate(Arrays.asList(suitable2, other, unsuitable, otherUnsuitable, suitable1), true);
+    assertEquals(Arrays.asList(suitable2, other, unsuitable, otherUnsuitable, suitable1), activated.allRules());
+    assertRulesForSentence(activated, suitable2, other, suitable1);
+
+    assertRulesForSentence(shared.activate(Collections.emptyList(), true));
+    assertRulesForSentence(RuleSet.plain(Arrays.asList(unsuitable, suitable1)).activate(Arrays.asList(suitable1, other), true), suitable1, other);
+  }
+
+  @Test
+  public void subset() {
+    PatternRule suitable1 = ruleOf(csToken("token"));
+    PatternRule suitable2 = ruleOf(new PatternTokenBuilder().token("lemma").matchInflectedForms().build());
+    PatternRule unsuitable = ruleOf(csToken("unsuitable"));
+    PatternRule excluded = ruleOf(csToken("token"));
+    RuleSet all = textLemmaHinted(Arrays.asList(suitable1, excluded, unsuitable, suitable2));
+    BitSet included = new BitSet();
+    included.set(0);
+    included.set(2);
+    included.set(3);
+    RuleSet subset = all.subset(included);
+    assertEquals(Arrays.asList(suitable1, unsuitable, suitable2), subset.allRules());
+    assertRulesForSentence(subset, suitable1, suitable2);
+    assertRulesForSentence(subset.activate(Arrays.asList(suitable2, excluded), true), suitable2, excluded);
+    assertRulesForSentence(all.subset(new BitSet()));
+  }
+
   private static void assertRulesForSentence(RuleSet ruleSet, PatternRule... expected) {
     assertEquals(Arrays.asList(expected), ruleSet.rulesForSentence(sampleSentence));
   }
@@ -0,0 +1,49 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.dev;
+
+import org.languagetool.language.NGramLangIdentifier;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Convert the zip-based model of {@link NGramLangIdentifier} to its binary format, which
+ * is memory-mapped on load. Use the binary file as {@code ngramLangIdentData} in the server
+ * configuration.
+ */
+public class NGramLangIdentifierModelConverter {
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.out.println("Usage: " + NGramLangIdentifierModelConverter.class.getSimpleName() + " <modelZip> <outputFile>");
+      System.exit(1);
+    }
+    long startTime = System.currentTimeMillis();
+    NGramLangIdentifier ngram = new NGramLangIdentifier(new File(args[0]), 50);
+    long loadTime = System.currentTimeMillis();
+    System.out.println("Loaded " + args[0] + " in " + (loadTime - startTime) + "ms");
+    ngram.saveBinary(new File(args[1]));
+    System.out.println("Wrote " + args[1] + " in " + (System.currentTimeMillis() - loadTime) + "ms");
+    startTime = System.currentTimeMillis();
+    new NGramLangIdentifier(new File(args[1]), 50);
+    System.out.println("Loaded binary model in " + (System.currentTimeMillis() - startTime) + "ms");
+  }
+
+}
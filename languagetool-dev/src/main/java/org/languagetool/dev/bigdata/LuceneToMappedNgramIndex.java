@@ -0,0 +1,118 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.dev.bigdata;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.languagetool.languagemodel.LuceneLanguageModel;
+import org.languagetool.languagemodel.MappedNgramIndexWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Converts the Lucene ngram indexes ({@code 1grams}, {@code 2grams}, ..., optionally
+ * split into {@code index-N} sub directories) to the single memory-mapped file
+ * read by {@link org.languagetool.languagemodel.MappedNgramLanguageModel}.
+ * Put the result into the language's ngram directory as {@code ngrams.bin} to have it
+ * used instead of the Lucene indexes.
+ * @since 5.6
+ */
+public class LuceneToMappedNgramIndex {
+
+  private LuceneToMappedNgramIndex() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.out.println("Usage: " + LuceneToMappedNgramIndex.class.getSimpleName() + " <ngramIndexDir> <outputFile>");
+      System.out.println("  <ngramIndexDir> is a directory with sub directories '1grams' etc. or 'index-1' etc.");
+      System.exit(1);
+    }
+    File topDir = new File(args[0]);
+    File outputFile = new File(args[1]);
+    long totalTokenCount;
+    try (LuceneLanguageModel lm = new LuceneLanguageModel(topDir)) {
+      totalTokenCount = lm.getTotalTokenCount();
+    }
+    long startTime = System.currentTimeMillis();
+    long docCount = 0;
+    try (MappedNgramIndexWriter writer = new MappedNgramIndexWriter(outputFile)) {
+      for (File indexDir : getNgramIndexDirs(topDir)) {
+        System.out.println("Reading " + indexDir);
+        docCount += addIndex(indexDir, writer);
+      }
+      writer.finish(totalTokenCount);
+    }
+    long time = System.currentTimeMillis() - startTime;
+    System.out.println("Wrote " + docCount + " ngram documents to " + outputFile + " in " + time + "ms");
+  }
+
+  private static List<File> getNgramIndexDirs(File topDir) {
+    List<File> topDirs = new ArrayList<>();
+    File[] subDirs = topDir.listFiles((file, name) -> name.matches("index-\\d+"));
+    if (subDirs != null && subDirs.length > 0) {
+      topDirs.addAll(Arrays.asList(subDirs));
+    } else {
+      topDirs.add(topDir);
+    }
+    List<File> result = new ArrayList<>();
+    for (File dir : topDirs) {
+      for (int i = 1; i <= 4; i++) {
+        File indexDir = new File(dir, i + "grams");
+        if (indexDir.isDirectory()) {
+          result.add(indexDir);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static long addIndex(File indexDir, MappedNgramIndexWriter writer) throws IOException {
+    long count = 0;
+    try (FSDirectory directory = FSDirectory.open(indexDir.getCanonicalFile().toPath());
+         DirectoryReader reader = DirectoryReader.open(directory)) {
+      Bits liveDocs = MultiFields.getLiveDocs(reader);
+      for (int i = 0; i < reader.maxDoc(); i++) {
+        if (liveDocs != null && !liveDocs.get(i)) {
+          continue;
+        }
+        Document doc = reader.document(i);
+        String ngram = doc.get("ngram");
+        String countStr = doc.get("count");
+        if (ngram == null || countStr == null) {
+          continue;  // e.g. the 'totalTokenCount' meta document
+        }
+        // duplicates (same ngram in several documents) get summed up by the writer:
+        writer.add(ngram, Long.parseLong(countStr));
+        if (++count % 1_000_000 == 0) {
+          System.out.println(count + "...");
+        }
+      }
+    }
+    return count;
+  }
+
+}
@@ -67,6 +67,7 @@ public class Configuration {
   static final boolean DEFAULT_MULTI_THREAD = false;
   static final boolean DEFAULT_NO_BACKGROUND_CHECK = false;
   static final boolean DEFAULT_USE_QUEUE = true;
+  static final int DEFAULT_QUEUE_THREADS = 1;
   static final boolean DEFAULT_USE_DOC_LANGUAGE = true;
   static final boolean DEFAULT_DO_REMOTE_CHECK = false;
   static final boolean DEFAULT_USE_OTHER_SERVER = false;
@@ -100,6 +101,7 @@ public class Configuration {
   private static final String PARA_CHECK_KEY = "numberParagraphs";
   private static final String RESET_CHECK_KEY = "doResetCheck";
   private static final String USE_QUEUE_KEY = "useTextLevelQueue";
+  private static final String QUEUE_THREADS_KEY = "textLevelQueueThreads";
   private static final String NO_BACKGROUND_CHECK_KEY = "noBackgroundCheck";
   private static final String USE_DOC_LANG_KEY = "useDocumentLanguage";
   private static final String USE_GUI_KEY = "useGUIConfig";
@@ -184,6 +186,7 @@ public class Configuration {
   private boolean isMultiThreadLO = DEFAULT_MULTI_THREAD;
   private boolean noBackgroundCheck = DEFAULT_NO_BACKGROUND_CHECK;
   private boolean useTextLevelQueue = DEFAULT_USE_QUEUE;
+  private int numTextLevelQueueThreads = DEFAULT_QUEUE_THREADS;
   private boolean useDocLanguage = DEFAULT_USE_DOC_LANGUAGE;
   private boolean doRemoteCheck = DEFAULT_DO_REMOTE_CHECK;
   private boolean useOtherServer = DEFAULT_USE_OTHER_SERVER;
@@ -273,6 +276,7 @@ public class Configuration {
     isMultiThreadLO = DEFAULT_MULTI_THREAD;
     noBackgroundCheck = DEFAULT_NO_BACKGROUND_CHECK;
     useTextLevelQueue = DEFAULT_USE_QUEUE;
+    numTextLevelQueueThreads = DEFAULT_QUEUE_THREADS;
     useDocLanguage = DEFAULT_USE_DOC_LANGUAGE;
     doRemoteCheck = DEFAULT_DO_REMOTE_CHECK;
     useOtherServer = DEFAULT_USE_OTHER_SERVER;
@@ -322,6 +326,7 @@ public class Configuration {
     this.numParasToCheck = configuration.numParasToCheck;
     this.doResetCheck = configuration.doResetCheck;
     this.useTextLevelQueue = configuration.useTextLevelQueue;
+    this.numTextLevelQueueThreads = configuration.numTextLevelQueueThreads;
     this.noBackgroundCheck = configuration.noBackgroundCheck;
     this.isMultiThreadLO = configuration.isMultiThreadLO;
     this.useDocLanguage = configuration.useDocLanguage;
@@ -651,6 +656,23 @@ public class Configuration {
     this.useTextLevelQueue = useTextLevelQueue;
   }
 
+  /**
+   * get the number of threads checking the text level queue
+   * (every thread needs its own LanguageTool instance)
+   * @since 5.6
+   */
+  public int getNumTextLevelQueueThreads() {
+    return numTextLevelQueueThreads;
+  }
+
+  /**
+   * set the number of threads checking the text level queue
+   * @since 5.6
+   */
+  public void setNumTextLevelQueueThreads(int numThreads) {
+    this.numTextLevelQueueThreads = numThreads;
+  }
+
   /**
    * set option to switch off background check
    * if true: LT engine is switched of (no marks inside of document)
@@ -1266,6 +1288,11 @@ public class Configuration {
       useTextLevelQueue = Boolean.parseBoolean(useTextLevelQueueString);
     }
 
+    String queueThreadsString = (String) props.get(prefix + QUEUE_THREADS_KEY);
+    if (queueThreadsString != null) {
+      numTextLevelQueueThreads = Integer.parseInt(queueThreadsString);
+    }
+
     String noBackgroundCheckString = (String) props.get(prefix + NO_BACKGROUND_CHECK_KEY);
     if (noBackgroundCheckString != null) {
       noBackgroundCheck = Boolean.parseBoolean(noBackgroundCheckString);
@@ -1517,6 +1544,7 @@ public class Configuration {
     allProfileKeys.add(PARA_CHECK_KEY);
     allProfileKeys.add(RESET_CHECK_KEY);
     allProfileKeys.add(USE_QUEUE_KEY);
+    allProfileKeys.add(QUEUE_THREADS_KEY);
     allProfileKeys.add(NO_BACKGROUND_CHECK_KEY);
     allProfileKeys.add(USE_DOC_LANG_KEY);
     allProfileKeys.add(USE_GUI_KEY);
@@ -1619,6 +1647,9 @@ public class Configuration {
     if (useTextLevelQueue != DEFAULT_USE_QUEUE) {
       props.setProperty(prefix + USE_QUEUE_KEY, Boolean.toString(useTextLevelQueue));
     }
+    if (numTextLevelQueueThreads != DEFAULT_QUEUE_THREADS) {
+      props.setProperty(prefix + QUEUE_THREADS_KEY, Integer.toString(numTextLevelQueueThreads));
+    }
     if (noBackgroundCheck != DEFAULT_NO_BACKGROUND_CHECK) {
       props.setProperty(prefix + NO_BACKGROUND_CHECK_KEY, Boolean.toString(noBackgroundCheck));
     }
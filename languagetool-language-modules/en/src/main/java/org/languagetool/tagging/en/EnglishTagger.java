@@ -56,37 +56,7 @@ public class EnglishTagger extends BaseTagger {
           word = word.replace("’", "'");
         }
       }
-      final List<AnalyzedToken> l = new ArrayList<>();
-      final String lowerWord = word.toLowerCase(locale);
-      final boolean isLowercase = word.equals(lowerWord);
-      final boolean isMixedCase = StringTools.isMixedCase(word);
-      final boolean isAllUpper = StringTools.isAllUppercase(word);
-      List<AnalyzedToken> taggerTokens = asAnalyzedTokenListForTaggedWords(word, getWordTagger().tag(word));
-      
-      // normal case:
-      addTokens(taggerTokens, l);
-      // tag non-lowercase (alluppercase or startuppercase), but not mixed-case words with lowercase word tags:
-      if (!isLowercase && !isMixedCase) {
-        List<AnalyzedToken> lowerTaggerTokens = asAnalyzedTokenListForTaggedWords(word, getWordTagger().tag(lowerWord));
-        addTokens(lowerTaggerTokens, l);
-      }
-      
-      //tag all-uppercase proper nouns (ex. FRANCE)
-      if (l.isEmpty() && isAllUpper) {
-        final String firstUpper = StringTools.uppercaseFirstChar(lowerWord);
-        List<AnalyzedToken> firstupperTaggerTokens = asAnalyzedTokenListForTaggedWords(word, getWordTagger().tag(firstUpper));
-        addTokens(firstupperTaggerTokens, l);
-      }
-
-      // additional tagging with prefixes   removed: && !isMixedCase
-      /*if (l.isEmpty()) {
-        addTokens(additionalTags(word), l);
-      }*/
-
-      if (l.isEmpty()) {
-        l.add(new AnalyzedToken(word, null, null));
-      }
-      
+      List<AnalyzedToken> l = getCachedAnalyzedTokens(word, this::analyzeWord);
       AnalyzedTokenReadings atr = new AnalyzedTokenReadings(l, pos);
       if (containsTypographicApostrophe) {
         atr.setTypographicApostrophe();
@@ -99,6 +69,40 @@ public class EnglishTagger extends BaseTagger {
     return tokenReadings;
   }
   
+  private List<AnalyzedToken> analyzeWord(String word) {
+    final List<AnalyzedToken> l = new ArrayList<>();
+    final String lowerWord = word.toLowerCase(locale);
+    final boolean isLowercase = word.equals(lowerWord);
+    final boolean isMixedCase = StringTools.isMixedCase(word);
+    final boolean isAllUpper = StringTools.isAllUppercase(word);
+    List<AnalyzedToken> taggerTokens = asAnalyzedTokenListForTaggedWords(word, getWordTagger().tag(word));
+    
+    // normal case:
+    addTokens(taggerTokens, l);
+    // tag non-lowercase (alluppercase or startuppercase), but not mixed-case words with lowercase word tags:
+    if (!isLowercase && !isMixedCase) {
+      List<AnalyzedToken> lowerTaggerTokens = asAnalyzedTokenListForTaggedWords(word, getWordTagger().tag(lowerWord));
+      addTokens(lowerTaggerTokens, l);
+    }
+    
+    //tag all-uppercase proper nouns (ex. FRANCE)
+    if (l.isEmpty() && isAllUpper) {
+      final String firstUpper = StringTools.uppercaseFirstChar(lowerWord);
+      List<AnalyzedToken> firstupperTaggerTokens = asAnalyzedTokenListForTaggedWords(word, getWordTagger().tag(firstUpper));
+      addTokens(firstupperTaggerTokens, l);
+    }
+
+    // additional tagging with prefixes   removed: && !isMixedCase
+    /*if (l.isEmpty()) {
+      addTokens(additionalTags(word), l);
+    }*/
+
+    if (l.isEmpty()) {
+      l.add(new AnalyzedToken(word, null, null));
+    }
+    return l;
+  }
+
   private void addTokens(final List<AnalyzedToken> taggedTokens, final List<AnalyzedToken> l) {
     if (taggedTokens != null) {
       l.addAll(taggedTokens);
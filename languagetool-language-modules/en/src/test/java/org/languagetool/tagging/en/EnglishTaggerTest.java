@@ -27,9 +27,10 @@ import org.languagetool.tokenizers.en.EnglishWordTokenizer;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class EnglishTaggerTest {
 
@@ -67,6 +68,25 @@ public class EnglishTaggerTest {
       "You/[you]PRP|You/[you]PRP_O2P|You/[you]PRP_O2S|You/[you]PRP_S2P|You/[you]PRP_S2S -- have/[have]NN|have/[have]VB|have/[have]VBP -- n't/[not]RB", tokenizer, tagger);
   }
 
+  @Test
+  public void testReadingsCache() throws IOException {
+    EnglishTagger cachingTagger = new EnglishTagger();
+    assertNull(cachingTagger.getReadingsCache());
+    assertTrue(cachingTagger.setReadingsCacheSize(100));
+    assertFalse(cachingTagger.setReadingsCacheSize(100));  // same size, cache is kept
+    assertNotNull(cachingTagger.getReadingsCache());
+    List<AnalyzedTokenReadings> readings1 = cachingTagger.tag(Arrays.asList("This", " ", "house", " ", "house"));
+    List<AnalyzedTokenReadings> readings2 = cachingTagger.tag(Arrays.asList("house", "’s"));
+    assertEquals(3, cachingTagger.getReadingsCache().stats().hitCount());  // " ", "house", "house"
+    assertEquals(tagger.tag(Arrays.asList("This", " ", "house", " ", "house")).toString(), readings1.toString());
+    assertEquals(tagger.tag(Arrays.asList("house", "’s")).toString(), readings2.toString());
+    // tokens must not be shared, as they are mutable:
+    assertNotSame(readings1.get(2).getReadings().get(0), readings1.get(4).getReadings().get(0));
+    assertEquals(11, readings1.get(4).getStartPos());
+    assertTrue(readings2.get(1).hasTypographicApostrophe());
+    assertNull(tagger.getReadingsCache());
+  }
+
   @Test
   public void testLemma() throws IOException {
     List<String> words = new ArrayList<>();
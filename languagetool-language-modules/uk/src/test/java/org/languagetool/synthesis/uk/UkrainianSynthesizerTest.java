@@ -48,6 +48,16 @@ public class UkrainianSynthesizerTest {
             getSortedArray(synth.synthesize(dummyToken("червоний"), "adj:.:v_oru:compb", true))));
   }
 
+  @Test
+  public final void testSynthesizeRegexCached() throws IOException {
+    UkrainianSynthesizer synth = new UkrainianSynthesizer(new Ukrainian());
+    String[] forms = synth.synthesize(dummyToken("червоний"), "adj:f:v_rod.*", true);
+    assertEquals("[червоної]", Arrays.toString(forms));
+    forms[0] = "modified";
+    // served from the cache now, which must not be affected by changes to the first result:
+    assertEquals("[червоної]", Arrays.toString(synth.synthesize(dummyToken("червоний"), "adj:f:v_rod.*", true)));
+  }
+
   private AnalyzedToken dummyToken(String tokenStr) {
     return new AnalyzedToken(tokenStr, tokenStr, tokenStr);
   }
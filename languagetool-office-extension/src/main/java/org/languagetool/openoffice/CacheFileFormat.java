@@ -0,0 +1,993 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.languagetool.openoffice.ResultCache.CacheEntry;
+import org.languagetool.openoffice.ResultCache.SerialProofreadingError;
+import org.languagetool.openoffice.ResultCache.SerialPropertyValue;
+
+import com.sun.star.beans.PropertyState;
+import com.sun.star.beans.PropertyValue;
+import com.sun.star.lang.Locale;
+import com.sun.star.linguistic2.SingleProofreadingError;
+
+/**
+ * Binary format of the cache files written by {@link CacheIO}.
+ * <p>
+ * A file is a header followed by segments. The first segment stores the complete caches, 
+ * every following segment is appended by a later save and stores only the paragraphs that 
+ * have changed since; unchanged paragraphs are copied from the state of the previous segment 
+ * by runs of paragraph numbers. Strings are stored once per file and referenced by number.
+ * Numbers are stored as varints. Every segment ends with a CRC32 of its bytes and every paragraph 
+ * has a 64 bit checksum of its content, that is used to find the unchanged paragraphs.
+ * A segment with a wrong CRC (e.g. an interrupted save) is ignored together with the following ones.
+ * The file is rewritten completely, if the appended segments become too large.
+ * <p>
+ * Files in the old format (serialized objects in GZIP format) are recognized by {@link #isCacheFile(File)}.
+ * @since 5.6
+ */
+class CacheFileFormat {
+
+  private static final byte[] MAGIC = { 'L', 'T', 'O', 'C' };
+  private static final int FORMAT_VERSION = 1;
+  private static final int SEGMENT_FULL = 'F';
+  private static final int SEGMENT_DELTA = 'D';
+
+  private static final int RUN_COPY = 0;
+  private static final int RUN_NEW = 1;
+  
+  private static final int STRING_NULL = 0;
+  private static final int STRING_NEW = 1;
+  private static final int STRING_FIRST_ID = 2;
+
+  private static final int VALUE_NULL = 0;
+  private static final int VALUE_STRING = 1;
+  private static final int VALUE_INT = 2;
+  private static final int VALUE_SHORT = 3;
+  private static final int VALUE_BOOLEAN = 4;
+  private static final int VALUE_LONG = 5;
+
+  private static final int ENTRY_EXISTS = 1;
+  private static final int ENTRY_SENTENCE_POSITIONS = 2;
+
+  private static final int MAX_DELTA_SEGMENTS = 50;
+
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  //  state of the file that was read or written last; used to append a segment at the next save
+  private File stateFile = null;
+  private long stateLength = 0;
+  private long fullSegmentLength = 0;
+  private int numDeltaSegments = 0;
+  private int numCaches = 0;
+  private long[] checksums = null;
+  private Map<String, Integer> stringIds = new HashMap<>();
+
+  /**
+   * The content of a cache file
+   */
+  static class Content {
+    final DocumentCache docCache;
+    final List<ResultCache> paragraphsCache;
+    final Map<Integer, Map<String, Set<Integer>>> ignoredMatches;
+    final List<String> disabledRuleIds;
+    final List<String> disabledCategories;
+    final List<String> enabledRuleIds;
+    final String ltVersion;
+    
+    Content(DocumentCache docCache, List<ResultCache> paragraphsCache, Map<Integer, Map<String, Set<Integer>>> ignoredMatches,
+        List<String> disabledRuleIds, List<String> disabledCategories, List<String> enabledRuleIds, String ltVersion) {
+      this.docCache = docCache;
+      this.paragraphsCache = paragraphsCache;
+      this.ignoredMatches = ignoredMatches;
+      this.disabledRuleIds = disabledRuleIds;
+      this.disabledCategories = disabledCategories;
+      this.enabledRuleIds = enabledRuleIds;
+      this.ltVersion = ltVersion;
+    }
+  }
+
+  /**
+   * true, if the file starts like a file of this format (and not like a file of the old format)
+   */
+  static boolean isCacheFile(File file) throws IOException {
+    try (InputStream in = new FileInputStream(file)) {
+      byte[] magic = new byte[MAGIC.length];
+      int n = 0;
+      while (n < magic.length) {
+        int read = in.read(magic, n, magic.length - n);
+        if (read < 0) {
+          return false;
+        }
+        n += read;
+      }
+      return Arrays.equals(magic, MAGIC);
+    }
+  }
+  
+  /**
+   * Write the content to file: append the changed paragraphs, if the file was 
+   * read or written last by this instance, else (or if there are too many changes) rewrite the file
+   */
+  void write(File file, Content content) throws IOException {
+    long[] newChecksums = getChecksums(content.docCache, content.paragraphsCache);
+    if (canAppend(file, content)) {
+      try {
+        appendSegment(file, content, newChecksums);
+        if (stateLength <= 2 * fullSegmentLength && numDeltaSegments <= MAX_DELTA_SEGMENTS) {
+          return;
+        }
+      } catch (IOException e) {
+        MessageHandler.printToLogFile("Appending to cache file failed: " + e.getMessage());
+      }
+    }
+    writeFull(file, content, newChecksums);
+  }
+
+  /**
+   * Read the content of file; gives back null, if the file is not valid
+   */
+  Content read(File file) throws IOException {
+    resetState();
+    List<String> strings = new ArrayList<>();
+    Segment state = null;
+    long length = 0;
+    int numSegments = 0;
+    try (CountingInputStream counter = new CountingInputStream(new BufferedInputStream(new FileInputStream(file)), file.length());
+         CheckedInputStream in = new CheckedInputStream(counter, new CRC32())) {
+      byte[] magic = new byte[MAGIC.length];
+      readFully(in, magic);
+      if (!Arrays.equals(magic, MAGIC)) {
+        return null;
+      }
+      int version = readVarint(in);
+      if (version != FORMAT_VERSION) {
+        MessageHandler.printToLogFile("Unknown version of cache file: " + version);
+        return null;
+      }
+      length = counter.count;
+      for (;;) {
+        in.getChecksum().reset();
+        int type = in.read();
+        if (type < 0) {
+          break;
+        }
+        int numStrings = strings.size();
+        Segment segment;
+        try {
+          if ((type == SEGMENT_FULL) != (state == null) || (type != SEGMENT_FULL && type != SEGMENT_DELTA)) {
+            throw new IOException("Unexpected segment type: " + type);
+          }
+          segment = readSegment(in, strings, state);
+          long crc = in.getChecksum().getValue();
+          if ((readInt(counter) & 0xffffffffL) != crc) {
+            throw new IOException("Wrong checksum");
+          }
+        } catch (IOException | RuntimeException e) {
+          //  e.g. save was interrupted: use the state of the complete segments
+          //  (corrupted bytes that are read before the CRC is checked may also cause runtime exceptions)
+          MessageHandler.printToLogFile("Cache file: Segment " + numSegments + " ignored: " + e.getMessage());
+          while (strings.size() > numStrings) {
+            strings.remove(strings.size() - 1);
+          }
+          break;
+        }
+        state = segment;
+        length = counter.count;
+        if (numSegments == 0) {
+          fullSegmentLength = length;
+        }
+        numSegments++;
+      }
+    }
+    if (state == null) {
+      return null;
+    }
+    if (length == file.length()) {
+      stateFile = file;
+      stateLength = length;
+      numDeltaSegments = numSegments - 1;
+      numCaches = state.numCaches;
+      checksums = new long[state.paragraphs.size()];
+      for (int i = 0; i < checksums.length; i++) {
+        checksums[i] = state.paragraphs.get(i).checksum;
+      }
+      for (int i = 0; i < strings.size(); i++) {
+        stringIds.put(strings.get(i), i);
+      }
+    }
+    return state.toContent();
+  }
+
+  /**
+   * Forget the state of the last read or written file
+   */
+  void resetState() {
+    stateFile = null;
+    stateLength = 0;
+    fullSegmentLength = 0;
+    numDeltaSegments = 0;
+    numCaches = 0;
+    checksums = null;
+    stringIds = new HashMap<>();
+  }
+
+  private boolean canAppend(File file, Content content) {
+    return checksums != null && file.equals(stateFile) && file.length() == stateLength 
+        && content.paragraphsCache.size() == numCaches;
+  }
+
+  /**
+   * Rewrite the file: write to a temporary file and replace the file by it
+   */
+  private void writeFull(File file, Content content, long[] newChecksums) throws IOException {
+    resetState();
+    File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+    try {
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmpFile))) {
+        out.write(MAGIC);
+        writeVarint(out, FORMAT_VERSION);
+        writeSegment(out, SEGMENT_FULL, content, newChecksums);
+      }
+      Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      resetState();
+      tmpFile.delete();
+      throw e;
+    }
+    stateFile = file;
+    stateLength = file.length();
+    fullSegmentLength = stateLength;
+    numCaches = content.paragraphsCache.size();
+    checksums = newChecksums;
+  }
+
+  private void appendSegment(File file, Content content, long[] newChecksums) throws IOException {
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file, true))) {
+      writeSegment(out, SEGMENT_DELTA, content, newChecksums);
+    } catch (IOException e) {
+      resetState();
+      throw e;
+    }
+    stateLength = file.length();
+    numDeltaSegments++;
+    checksums = newChecksums;
+  }
+
+  private void writeSegment(OutputStream fileOut, int type, Content content, long[] newChecksums) throws IOException {
+    CheckedOutputStream out = new CheckedOutputStream(fileOut, new CRC32());
+    out.write(type);
+    writeString(out, content.ltVersion);
+    writeStrings(out, content.disabledRuleIds);
+    writeStrings(out, content.disabledCategories);
+    writeStrings(out, content.enabledRuleIds);
+    DocumentCache docCache = content.docCache;
+    writeVarint(out, zigZag(docCache.getDefaultParaCheck()));
+    out.write(docCache.isImpress() ? 1 : 0);
+    writeVarint(out, content.paragraphsCache.size());
+    writeIncreasingInts(out, docCache.getChapterBegins());
+    int size = docCache.size();
+    writeVarint(out, size);
+    Map<Long, Integer> oldParagraphs = new HashMap<>();
+    if (type == SEGMENT_DELTA) {
+      for (int i = checksums.length - 1; i >= 0; i--) {
+        oldParagraphs.put(checksums[i], i);
+      }
+    }
+    int i = 0;
+    while (i < size) {
+      int oldStart = getOldParagraph(i, newChecksums, oldParagraphs);
+      int n = 1;
+      if (oldStart >= 0) {
+        while (i + n < size && oldStart + n < checksums.length && checksums[oldStart + n] == newChecksums[i + n]) {
+          n++;
+        }
+        writeVarint(out, (n << 1) | RUN_COPY);
+        writeVarint(out, zigZag(oldStart - i));
+      } else {
+        while (i + n < size && getOldParagraph(i + n, newChecksums, oldParagraphs) < 0) {
+          n++;
+        }
+        writeVarint(out, (n << 1) | RUN_NEW);
+        for (int j = i; j < i + n; j++) {
+          writeParagraph(out, j, newChecksums[j], docCache, content.paragraphsCache);
+        }
+      }
+      i += n;
+    }
+    writeIgnoredMatches(out, content.ignoredMatches);
+    writeInt(fileOut, (int) out.getChecksum().getValue());
+  }
+
+  private int getOldParagraph(int i, long[] newChecksums, Map<Long, Integer> oldParagraphs) {
+    if (checksums != null && i < checksums.length && checksums[i] == newChecksums[i]) {
+      return i;
+    }
+    Integer oldParagraph = oldParagraphs.get(newChecksums[i]);
+    return oldParagraph == null ? -1 : oldParagraph;
+  }
+
+  private void writeParagraph(OutputStream out, int n, long checksum, DocumentCache docCache, List<ResultCache> paragraphsCache) throws IOException {
+    writeLong(out, checksum);
+    writeString(out, docCache.getFlatParagraph(n));
+    Locale locale = docCache.getFlatParagraphLocale(n);
+    writeString(out, locale.Language);
+    writeString(out, locale.Country);
+    writeString(out, locale.Variant);
+    out.write(docCache.getNumberOfTextParagraph(n) >= 0 ? 1 : 0);
+    writeIncreasingInts(out, toList(docCache.getFlatParagraphFootnotes(n)));
+    for (ResultCache cache : paragraphsCache) {
+      CacheEntry entry = cache.getCacheEntry(n);
+      if (entry == null) {
+        writeVarint(out, 0);
+        continue;
+      }
+      writeVarint(out, ENTRY_EXISTS | (entry.nextSentencePositions != null ? ENTRY_SENTENCE_POSITIONS : 0));
+      if (entry.nextSentencePositions != null) {
+        writeIncreasingInts(out, entry.nextSentencePositions);
+      }
+      writeVarint(out, entry.errorArray.length);
+      for (SerialProofreadingError error : entry.errorArray) {
+        writeVarint(out, zigZag(error.nErrorStart));
+        writeVarint(out, zigZag(error.nErrorLength));
+        writeVarint(out, zigZag(error.nErrorType));
+        writeString(out, error.aFullComment);
+        writeString(out, error.aRuleIdentifier);
+        writeString(out, error.aShortComment);
+        writeVarint(out, error.aSuggestions == null ? 0 : error.aSuggestions.length + 1);
+        if (error.aSuggestions != null) {
+          for (String suggestion : error.aSuggestions) {
+            writeString(out, suggestion);
+          }
+        }
+        writeVarint(out, error.aProperties == null ? 0 : numStoredProperties(error.aProperties) + 1);
+        if (error.aProperties != null) {
+          for (SerialPropertyValue property : error.aProperties) {
+            if (isStoredValue(property.value)) {
+              writeString(out, property.name);
+              writeValue(out, property.value);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private void writeIgnoredMatches(OutputStream out, Map<Integer, Map<String, Set<Integer>>> ignoredMatches) throws IOException {
+    writeVarint(out, ignoredMatches.size());
+    for (Map.Entry<Integer, Map<String, Set<Integer>>> paragraph : ignoredMatches.entrySet()) {
+      writeVarint(out, zigZag(paragraph.getKey()));
+      writeVarint(out, paragraph.getValue().size());
+      for (Map.Entry<String, Set<Integer>> rule : paragraph.getValue().entrySet()) {
+        writeString(out, rule.getKey());
+        writeVarint(out, rule.getValue().size());
+        for (int x : rule.getValue()) {
+          writeVarint(out, zigZag(x));
+        }
+      }
+    }
+  }
+
+  private Segment readSegment(InputStream in, List<String> strings, Segment previous) throws IOException {
+    Segment segment = new Segment();
+    segment.ltVersion = readString(in, strings);
+    segment.disabledRuleIds = readStrings(in, strings);
+    segment.disabledCategories = readStrings(in, strings);
+    segment.enabledRuleIds = readStrings(in, strings);
+    segment.defaultParaCheck = unZigZag(readVarint(in));
+    segment.isImpress = readByte(in) != 0;
+    segment.numCaches = readLength(in);
+    if (previous != null && previous.numCaches != segment.numCaches) {
+      throw new IOException("Number of caches changed");
+    }
+    segment.chapterBegins = readIncreasingInts(in);
+    int size = readVarint(in);
+    if (size < 0) {
+      throw new IOException("Invalid number of paragraphs: " + size);
+    }
+    //  copied paragraphs take no space in the segment, so size can't be checked against the bytes left
+    segment.paragraphs = new ArrayList<>(Math.min(size, 1024));
+    while (segment.paragraphs.size() < size) {
+      int run = readVarint(in);
+      int n = run >>> 1;
+      if (n <= 0 || segment.paragraphs.size() + n > size) {
+        throw new IOException("Invalid run of paragraphs: " + n);
+      }
+      if ((run & 1) == RUN_COPY) {
+        int oldStart = segment.paragraphs.size() + unZigZag(readVarint(in));
+        if (previous == null || oldStart < 0 || oldStart + n > previous.paragraphs.size()) {
+          throw new IOException("Invalid copy of paragraphs: " + oldStart);
+        }
+        segment.paragraphs.addAll(previous.paragraphs.subList(oldStart, oldStart + n));
+      } else {
+        for (int i = 0; i < n; i++) {
+          segment.paragraphs.add(readParagraph(in, strings, segment.numCaches));
+        }
+      }
+    }
+    int numIgnored = readVarint(in);
+    segment.ignoredMatches = new HashMap<>();
+    for (int i = 0; i < numIgnored; i++) {
+      int y = unZigZag(readVarint(in));
+      int numRules = readVarint(in);
+      Map<String, Set<Integer>> rules = new HashMap<>();
+      for (int j = 0; j < numRules; j++) {
+        String ruleId = readString(in, strings);
+        int numX = readVarint(in);
+        Set<Integer> xs = new HashSet<>();
+        for (int k = 0; k < numX; k++) {
+          xs.add(unZigZag(readVarint(in)));
+        }
+        rules.put(ruleId, xs);
+      }
+      segment.ignoredMatches.put(y, rules);
+    }
+    return segment;
+  }
+
+  private Paragraph readParagraph(InputStream in, List<String> strings, int numCaches) throws IOException {
+    Paragraph paragraph = new Paragraph();
+    long checksum = readLong(in);
+    paragraph.text = readString(in, strings);
+    paragraph.locale = new Locale(readString(in, strings), readString(in, strings), readString(in, strings));
+    paragraph.isText = readByte(in) != 0;
+    paragraph.footnotes = toArray(readIncreasingInts(in));
+    paragraph.nextSentencePositions = new List[numCaches];
+    paragraph.errors = new SingleProofreadingError[numCaches][];
+    for (int c = 0; c < numCaches; c++) {
+      int flags = readVarint(in);
+      if ((flags & ENTRY_EXISTS) == 0) {
+        continue;
+      }
+      if ((flags & ENTRY_SENTENCE_POSITIONS) != 0) {
+        paragraph.nextSentencePositions[c] = readIncreasingInts(in);
+      }
+      SingleProofreadingError[] errors = new SingleProofreadingError[readLength(in)];
+      for (int i = 0; i < errors.length; i++) {
+        SingleProofreadingError error = new SingleProofreadingError();
+        error.nErrorStart = unZigZag(readVarint(in));
+        error.nErrorLength = unZigZag(readVarint(in));
+        error.nErrorType = unZigZag(readVarint(in));
+        error.aFullComment = readString(in, strings);
+        error.aRuleIdentifier = readString(in, strings);
+        error.aShortComment = readString(in, strings);
+        int numSuggestions = readLength(in);
+        if (numSuggestions > 0) {
+          error.aSuggestions = new String[numSuggestions - 1];
+          for (int j = 0; j < error.aSuggestions.length; j++) {
+            error.aSuggestions[j] = readString(in, strings);
+          }
+        }
+        int numProperties = readLength(in);
+        if (numProperties > 0) {
+          error.aProperties = new PropertyValue[numProperties - 1];
+          for (int j = 0; j < error.aProperties.length; j++) {
+            String name = readString(in, strings);
+            error.aProperties[j] = new PropertyValue(name, -1, readValue(in, strings), PropertyState.DIRECT_VALUE);
+          }
+        }
+        errors[i] = error;
+      }
+      paragraph.errors[c] = errors;
+    }
+    paragraph.checksum = paragraph.getChecksum();
+    if (paragraph.checksum != checksum) {
+      throw new IOException("Wrong checksum of paragraph");
+    }
+    return paragraph;
+  }
+
+  /**
+   * The state of the caches after a segment
+   */
+  private static class Segment {
+    String ltVersion;
+    List<String> disabledRuleIds;
+    List<String> disabledCategories;
+    List<String> enabledRuleIds;
+    int defaultParaCheck;
+    boolean isImpress;
+    int numCaches;
+    List<Integer> chapterBegins;
+    List<Paragraph> paragraphs;
+    Map<Integer, Map<String, Set<Integer>>> ignoredMatches;
+
+    Content toContent() {
+      List<String> texts = new ArrayList<>(paragraphs.size());
+      List<Locale> locales = new ArrayList<>(paragraphs.size());
+      List<int[]> footnotes = new ArrayList<>(paragraphs.size());
+      List<Integer> toTextMapping = new ArrayList<>(paragraphs.size());
+      List<ResultCache> paragraphsCache = new ArrayList<>(numCaches);
+      for (int c = 0; c < numCaches; c++) {
+        paragraphsCache.add(new ResultCache());
+      }
+      int nText = 0;
+      for (int i = 0; i < paragraphs.size(); i++) {
+        Paragraph paragraph = paragraphs.get(i);
+        texts.add(paragraph.text);
+        locales.add(paragraph.locale);
+        footnotes.add(paragraph.footnotes);
+        toTextMapping.add(paragraph.isText ? nText++ : -1);
+        for (int c = 0; c < numCaches; c++) {
+          if (paragraph.errors[c] != null) {
+            paragraphsCache.get(c).put(i, paragraph.nextSentencePositions[c], paragraph.errors[c]);
+          }
+        }
+      }
+      DocumentCache docCache = new DocumentCache(texts, locales, footnotes, toTextMapping, chapterBegins, defaultParaCheck, isImpress);
+      return new Content(docCache, paragraphsCache, ignoredMatches, disabledRuleIds, disabledCategories, enabledRuleIds, ltVersion);
+    }
+  }
+
+  /**
+   * A paragraph read from file (the text and the entries of all caches)
+   */
+  private static class Paragraph {
+    long checksum;
+    String text;
+    Locale locale;
+    boolean isText;
+    int[] footnotes;
+    List<Integer>[] nextSentencePositions;
+    SingleProofreadingError[][] errors;
+
+    long getChecksum() {
+      long h = hashParagraph(text, locale, isText, footnotes);
+      for (int c = 0; c < errors.length; c++) {
+        if (errors[c] == null) {
+          h = hash(h, 0);
+          continue;
+        }
+        h = hash(h, 1);
+        h = hashInts(h, nextSentencePositions[c]);
+        h = hash(h, errors[c].length);
+        for (SingleProofreadingError error : errors[c]) {
+          h = hashError(h, error.nErrorStart, error.nErrorLength, error.nErrorType, 
+              error.aFullComment, error.aRuleIdentifier, error.aShortComment, error.aSuggestions);
+          h = hash(h, error.aProperties == null ? -1 : error.aProperties.length);
+          if (error.aProperties != null) {
+            for (PropertyValue property : error.aProperties) {
+              h = hashProperty(h, property.Name, property.Value);
+            }
+          }
+        }
+      }
+      return h;
+    }
+  }
+
+  /**
+   * Checksums of the paragraphs of the document and its cache entries
+   */
+  private static long[] getChecksums(DocumentCache docCache, List<ResultCache> paragraphsCache) {
+    long[] checksums = new long[docCache.size()];
+    for (int n = 0; n < checksums.length; n++) {
+      long h = hashParagraph(docCache.getFlatParagraph(n), docCache.getFlatParagraphLocale(n), 
+          docCache.getNumberOfTextParagraph(n) >= 0, docCache.getFlatParagraphFootnotes(n));
+      for (ResultCache cache : paragraphsCache) {
+        CacheEntry entry = cache.getCacheEntry(n);
+        if (entry == null) {
+          h = hash(h, 0);
+          continue;
+        }
+        h = hash(h, 1);
+        h = hashInts(h, entry.nextSentencePositions);
+        h = hash(h, entry.errorArray.length);
+        for (SerialProofreadingError error : entry.errorArray) {
+          h = hashError(h, error.nErrorStart, error.nErrorLength, error.nErrorType, 
+              error.aFullComment, error.aRuleIdentifier, error.aShortComment, error.aSuggestions);
+          h = hash(h, error.aProperties == null ? -1 : numStoredProperties(error.aProperties));
+          if (error.aProperties != null) {
+            for (SerialPropertyValue property : error.aProperties) {
+              if (isStoredValue(property.value)) {
+                h = hashProperty(h, property.name, property.value);
+              }
+            }
+          }
+        }
+      }
+      checksums[n] = h;
+    }
+    return checksums;
+  }
+
+  private static long hashParagraph(String text, Locale locale, boolean isText, int[] footnotes) {
+    long h = hash(FNV_OFFSET, text);
+    h = hash(h, locale.Language);
+    h = hash(h, locale.Country);
+    h = hash(h, locale.Variant);
+    h = hash(h, isText ? 1 : 0);
+    h = hash(h, footnotes == null ? 0 : footnotes.length);
+    if (footnotes != null) {
+      for (int footnote : footnotes) {
+        h = hash(h, footnote);
+      }
+    }
+    return h;
+  }
+
+  private static long hashError(long h, int start, int length, int type, String fullComment, 
+      String ruleId, String shortComment, String[] suggestions) {
+    h = hash(h, start);
+    h = hash(h, length);
+    h = hash(h, type);
+    h = hash(h, fullComment);
+    h = hash(h, ruleId);
+    h = hash(h, shortComment);
+    h = hash(h, suggestions == null ? -1 : suggestions.length);
+    if (suggestions != null) {
+      for (String suggestion : suggestions) {
+        h = hash(h, suggestion);
+      }
+    }
+    return h;
+  }
+
+  private static long hashProperty(long h, String name, Object value) {
+    h = hash(h, name);
+    h = hash(h, valueType(value));
+    return hash(h, value == null ? null : value.toString());
+  }
+
+  private static long hashInts(long h, List<Integer> ints) {
+    h = hash(h, ints == null ? -1 : ints.size());
+    if (ints != null) {
+      for (int i : ints) {
+        h = hash(h, i);
+      }
+    }
+    return h;
+  }
+
+  //  FNV-1a, 64 bit
+  private static long hash(long h, int value) {
+    for (int i = 0; i < 4; i++) {
+      h = (h ^ ((value >>> (8 * i)) & 0xff)) * FNV_PRIME;
+    }
+    return h;
+  }
+
+  private static long hash(long h, String s) {
+    if (s == null) {
+      return hash(h, -1);
+    }
+    h = hash(h, s.length());
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      h = (h ^ (c & 0xff)) * FNV_PRIME;
+      h = (h ^ (c >>> 8)) * FNV_PRIME;
+    }
+    return h;
+  }
+
+  private static int numStoredProperties(SerialPropertyValue[] properties) {
+    int n = 0;
+    for (SerialPropertyValue property : properties) {
+      if (isStoredValue(property.value)) {
+        n++;
+      }
+    }
+    return n;
+  }
+
+  /**
+   * Properties of other types than these are not stored
+   */
+  private static boolean isStoredValue(Object value) {
+    return valueType(value) >= 0;
+  }
+
+  private static int valueType(Object value) {
+    if (value == null) {
+      return VALUE_NULL;
+    } else if (value instanceof String) {
+      return VALUE_STRING;
+    } else if (value instanceof Integer) {
+      return VALUE_INT;
+    } else if (value instanceof Short) {
+      return VALUE_SHORT;
+    } else if (value instanceof Boolean) {
+      return VALUE_BOOLEAN;
+    } else if (value instanceof Long) {
+      return VALUE_LONG;
+    }
+    return -1;
+  }
+
+  private void writeValue(OutputStream out, Object value) throws IOException {
+    int type = valueType(value);
+    out.write(type);
+    if (type == VALUE_STRING) {
+      writeString(out, (String) value);
+    } else if (type == VALUE_INT) {
+      writeVarint(out, zigZag((Integer) value));
+    } else if (type == VALUE_SHORT) {
+      writeVarint(out, zigZag((Short) value));
+    } else if (type == VALUE_BOOLEAN) {
+      out.write((Boolean) value ? 1 : 0);
+    } else if (type == VALUE_LONG) {
+      writeLong(out, (Long) value);
+    }
+  }
+
+  private static Object readValue(InputStream in, List<String> strings) throws IOException {
+    int type = readByte(in);
+    switch (type) {
+      case VALUE_NULL:
+        return null;
+      case VALUE_STRING:
+        return readString(in, strings);
+      case VALUE_INT:
+        return unZigZag(readVarint(in));
+      case VALUE_SHORT:
+        return (short) unZigZag(readVarint(in));
+      case VALUE_BOOLEAN:
+        return readByte(in) != 0;
+      case VALUE_LONG:
+        return readLong(in);
+      default:
+        throw new IOException("Unknown type of property value: " + type);
+    }
+  }
+
+  /**
+   * Write a string as reference to the string table; new strings are added to the table
+   */
+  private void writeString(OutputStream out, String s) throws IOException {
+    if (s == null) {
+      writeVarint(out, STRING_NULL);
+      return;
+    }
+    Integer id = stringIds.get(s);
+    if (id != null) {
+      writeVarint(out, id + STRING_FIRST_ID);
+      return;
+    }
+    stringIds.put(s, stringIds.size());
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    writeVarint(out, STRING_NEW);
+    writeVarint(out, bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(InputStream in, List<String> strings) throws IOException {
+    int ref = readVarint(in);
+    if (ref == STRING_NULL) {
+      return null;
+    } else if (ref == STRING_NEW) {
+      byte[] bytes = new byte[readLength(in)];
+      readFully(in, bytes);
+      String s = new String(bytes, StandardCharsets.UTF_8);
+      strings.add(s);
+      return s;
+    }
+    int id = ref - STRING_FIRST_ID;
+    if (id >= strings.size()) {
+      throw new IOException("Unknown string: " + id);
+    }
+    return strings.get(id);
+  }
+
+  private void writeStrings(OutputStream out, List<String> strings) throws IOException {
+    writeVarint(out, strings.size());
+    for (String s : strings) {
+      writeString(out, s);
+    }
+  }
+
+  private static List<String> readStrings(InputStream in, List<String> strings) throws IOException {
+    int n = readLength(in);
+    List<String> list = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      list.add(readString(in, strings));
+    }
+    return list;
+  }
+
+  /**
+   * Write a list of (mostly) increasing numbers as differences
+   */
+  private static void writeIncreasingInts(OutputStream out, List<Integer> ints) throws IOException {
+    if (ints == null) {
+      writeVarint(out, 0);
+      return;
+    }
+    writeVarint(out, ints.size());
+    int last = 0;
+    for (int i : ints) {
+      writeVarint(out, zigZag(i - last));
+      last = i;
+    }
+  }
+
+  private static List<Integer> readIncreasingInts(InputStream in) throws IOException {
+    int n = readLength(in);
+    List<Integer> ints = new ArrayList<>(n);
+    int last = 0;
+    for (int i = 0; i < n; i++) {
+      last += unZigZag(readVarint(in));
+      ints.add(last);
+    }
+    return ints;
+  }
+
+  private static List<Integer> toList(int[] ints) {
+    List<Integer> list = new ArrayList<>(ints == null ? 0 : ints.length);
+    if (ints != null) {
+      for (int i : ints) {
+        list.add(i);
+      }
+    }
+    return list;
+  }
+
+  private static int[] toArray(List<Integer> list) {
+    int[] ints = new int[list.size()];
+    for (int i = 0; i < ints.length; i++) {
+      ints[i] = list.get(i);
+    }
+    return ints;
+  }
+
+  private static int zigZag(int n) {
+    return (n << 1) ^ (n >> 31);
+  }
+
+  private static int unZigZag(int n) {
+    return (n >>> 1) ^ -(n & 1);
+  }
+
+  private static void writeVarint(OutputStream out, int value) throws IOException {
+    while ((value & ~0x7f) != 0) {
+      out.write((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  private static int readVarint(InputStream in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = readByte(in);
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Invalid varint");
+  }
+
+  /**
+   * Read the length of an array or list, whose elements take at least one byte each
+   * (or the length of a string in bytes): a corrupted length must not allocate
+   * more memory than the rest of the file can fill
+   */
+  private static int readLength(InputStream in) throws IOException {
+    int n = readVarint(in);
+    if (n < 0 || n > in.available()) {
+      throw new IOException("Invalid length: " + n);
+    }
+    return n;
+  }
+
+  private static void writeInt(OutputStream out, int value) throws IOException {
+    for (int i = 24; i >= 0; i -= 8) {
+      out.write(value >>> i);
+    }
+  }
+
+  private static int readInt(InputStream in) throws IOException {
+    int value = 0;
+    for (int i = 0; i < 4; i++) {
+      value = (value << 8) | readByte(in);
+    }
+    return value;
+  }
+
+  private static void writeLong(OutputStream out, long value) throws IOException {
+    writeInt(out, (int) (value >>> 32));
+    writeInt(out, (int) value);
+  }
+
+  private static long readLong(InputStream in) throws IOException {
+    return ((long) readInt(in) << 32) | (readInt(in) & 0xffffffffL);
+  }
+
+  private static int readByte(InputStream in) throws IOException {
+    int b = in.read();
+    if (b < 0) {
+      throw new EOFException();
+    }
+    return b;
+  }
+
+  private static void readFully(InputStream in, byte[] bytes) throws IOException {
+    int n = 0;
+    while (n < bytes.length) {
+      int read = in.read(bytes, n, bytes.length - n);
+      if (read < 0) {
+        throw new EOFException();
+      }
+      n += read;
+    }
+  }
+
+  /**
+   * Count the bytes read, to know the end of the last complete segment;
+   * {@link #available()} is the exact number of bytes left in the file
+   */
+  private static class CountingInputStream extends FilterInputStream {
+    private final long length;
+    long count = 0;
+
+    CountingInputStream(InputStream in, long length) {
+      super(in);
+      this.length = length;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(Integer.MAX_VALUE, Math.max(0, length - count));
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        count++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n > 0) {
+        count += n;
+      }
+      return n;
+    }
+  }
+
+}
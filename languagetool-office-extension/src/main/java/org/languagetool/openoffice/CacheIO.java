@@ -33,7 +33,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import org.languagetool.JLanguageTool;
 import org.languagetool.gui.Configuration;
@@ -58,11 +57,12 @@ public class CacheIO implements Serializable {
   private static final long MAX_CACHE_TIME = 365 * 24 * 3600000;      //  Save cache files maximal one year
   private static final String CACHEFILE_MAP = "LtCacheMap";           //  Name of cache map file
   private static final String CACHEFILE_PREFIX = "LtCache";           //  Prefix for cache files (simply a number is added for file name)
-  private static final String CACHEFILE_EXTENSION = "lcz";            //  extension of the files name (Note: cache files are in zip format)
+  private static final String CACHEFILE_EXTENSION = "lcz";            //  extension of the files name (Note: old cache files are in zip format, see CacheFileFormat)
   private static final int MIN_CHARACTERS_TO_SAVE_CACHE = 25000;      //  Minimum characters of document for saving cache 
   
   private String documentPath = null;
   private AllCaches allCaches;
+  private transient CacheFileFormat cacheFileFormat = new CacheFileFormat();   //  remembers the last file to append only the changes
   
   CacheIO(XComponent xComponent) {
     setDocumentPath(xComponent);
@@ -148,11 +148,7 @@ public class CacheIO implements Serializable {
    */
   private void saveAllCaches(String cachePath) {
     try {
-      GZIPOutputStream fileOut = new GZIPOutputStream(new FileOutputStream(cachePath));
-      ObjectOutputStream out = new ObjectOutputStream(fileOut);
-      out.writeObject(allCaches);
-      out.close();
-      fileOut.close();
+      cacheFileFormat.write(new File(cachePath), allCaches.toContent());
       MessageHandler.printToLogFile("Caches saved to: " + cachePath);
       if (DEBUG_MODE) {
         printCacheInfo();
@@ -219,11 +215,22 @@ public class CacheIO implements Serializable {
     try {
       File file = new File( cachePath );
       if (file.exists() && !file.isDirectory()) {
-        GZIPInputStream fileIn = new GZIPInputStream(new FileInputStream(file));
-        ObjectInputStream in = new ObjectInputStream(fileIn);
-        allCaches = (AllCaches) in.readObject();
-        in.close();
-        fileIn.close();
+        if (CacheFileFormat.isCacheFile(file)) {
+          CacheFileFormat.Content content = cacheFileFormat.read(file);
+          if (content == null) {
+            MessageHandler.printToLogFile("Cache file not valid: " + cachePath);
+            return false;
+          }
+          allCaches = new AllCaches(content);
+        } else {
+          //  cache file of an older version: it is replaced by the new format at next save
+          cacheFileFormat.resetState();
+          GZIPInputStream fileIn = new GZIPInputStream(new FileInputStream(file));
+          ObjectInputStream in = new ObjectInputStream(fileIn);
+          allCaches = (AllCaches) in.readObject();
+          in.close();
+          fileIn.close();
+        }
         MessageHandler.printToLogFile("Caches read from: " + cachePath);
         if (DEBUG_MODE) {
           printCacheInfo();
@@ -391,6 +398,21 @@ public class CacheIO implements Serializable {
       this.ignoredMatches = clone;
     }
     
+    AllCaches(CacheFileFormat.Content content) {
+      docCache = content.docCache;
+      paragraphsCache = content.paragraphsCache;
+      disabledRuleIds = content.disabledRuleIds;
+      disabledCategories = content.disabledCategories;
+      enabledRuleIds = content.enabledRuleIds;
+      ignoredMatches = content.ignoredMatches;
+      ltVersion = content.ltVersion;
+    }
+    
+    CacheFileFormat.Content toContent() {
+      return new CacheFileFormat.Content(docCache, paragraphsCache, ignoredMatches, 
+          disabledRuleIds, disabledCategories, enabledRuleIds, ltVersion);
+    }
+    
   }
 
   /**
@@ -83,6 +83,29 @@ public class DocumentCache implements Serializable {
     mapParagraphs(textParagraphs);
   }
   
+  /**
+   * create a document cache from the parts stored in a cache file (see {@link CacheFileFormat})
+   * toTextMapping contains the number of the text paragraph or -1 for every flat paragraph 
+   */
+  DocumentCache(List<String> paragraphs, List<Locale> locales, List<int[]> footnotes, List<Integer> toTextMapping, 
+      List<Integer> chapterBegins, int defaultParaCheck, boolean isImpress) {
+    this.paragraphs = paragraphs;
+    this.footnotes = footnotes;
+    this.chapterBegins = chapterBegins;
+    this.locales = new ArrayList<SerialLocale>(locales.size());
+    for (Locale locale : locales) {
+      this.locales.add(new SerialLocale(locale));
+    }
+    this.toTextMapping = toTextMapping;
+    for (int i = 0; i < toTextMapping.size(); i++) {
+      if (toTextMapping.get(i) >= 0) {
+        toParaMapping.add(i);
+      }
+    }
+    this.defaultParaCheck = defaultParaCheck;
+    this.isImpress = isImpress;
+  }
+  
   /**
    * reset the document cache
    * load the actual state of the document into the cache
@@ -290,6 +313,27 @@ public class DocumentCache implements Serializable {
     footnotes.set(toParaMapping.get(n), footnotePos);
   }
   
+  /**
+   * get the paragraphs that begin a chapter (headings, changes of language, etc.)
+   */
+  List<Integer> getChapterBegins() {
+    return chapterBegins;
+  }
+  
+  /**
+   * get the default number of paragraphs to check
+   */
+  int getDefaultParaCheck() {
+    return defaultParaCheck;
+  }
+  
+  /**
+   * true, if the cache stores an impress document
+   */
+  boolean isImpress() {
+    return isImpress;
+  }
+  
   /**
    * is DocumentCache empty
    */
@@ -505,7 +505,8 @@ class SingleDocument {
           nStart = docCache.getStartOfParaCheck(nTPara, nCheck, overrideRunning, true, false);
           nEnd = docCache.getEndOfParaCheck(nTPara, nCheck, overrideRunning, true, false);
         }
-        mDocHandler.getTextLevelCheckQueue().addQueueEntry(nStart, nEnd, nCache, nCheck, docId, overrideRunning);
+        int priority = nFPara == numLastVCPara ? TextLevelCheckQueue.PRIORITY_CURSOR : TextLevelCheckQueue.PRIORITY_VISIBLE;
+        mDocHandler.getTextLevelCheckQueue().addQueueEntry(nStart, nEnd, nCache, nCheck, docId, overrideRunning, priority);
       }
     }
   }
@@ -521,28 +522,41 @@ class SingleDocument {
     return mDocHandler.getTextLevelCheckQueue().createQueueEntry(nStart, nEnd, nCache, nCheck, docID, false);
   }
 
+  /**
+   * true, if paragraph nPara is not in cache and its check is not already queued
+   */
+  private boolean needsQueueEntry(int nPara, int nCache) {
+    if (!mDocHandler.isSortedRuleForIndex(nCache) || !docCache.isFinished() 
+        || paragraphsCache.get(nCache).getCacheEntry(docCache.getFlatParagraphNumber(nPara)) != null) {
+      return false;
+    }
+    TextLevelCheckQueue textLevelQueue = mDocHandler.getTextLevelCheckQueue();
+    return textLevelQueue == null || !textLevelQueue.isQueued(docID, nPara, nCache, mDocHandler.getNumMinToCheckParas().get(nCache));
+  }
+
   /**
    * get the next queue entry which is the next empty cache entry
+   * that is not already queued
    */
   public QueueEntry getNextQueueEntry(int nPara) {
     if (docCache != null) {
       if (nPara >= 0 && nPara < docCache.textSize()) {
         for (int nCache = 1; nCache < paragraphsCache.size(); nCache++) {
-          if (mDocHandler.isSortedRuleForIndex(nCache) && docCache.isFinished() && paragraphsCache.get(nCache).getCacheEntry(docCache.getFlatParagraphNumber(nPara)) == null) {
+          if (needsQueueEntry(nPara, nCache)) {
             return createQueueEntry(nPara, nCache);
           }
         }
       }
       for (int i = nPara + 1; i < docCache.textSize(); i++) {
         for (int nCache = 1; nCache < paragraphsCache.size(); nCache++) {
-          if (mDocHandler.isSortedRuleForIndex(nCache) && docCache.isFinished() && paragraphsCache.get(nCache).getCacheEntry(docCache.getFlatParagraphNumber(i)) == null) {
+          if (needsQueueEntry(i, nCache)) {
             return createQueueEntry(i, nCache);
           }
         }
       }
       for (int i = 0; i < nPara && i < docCache.textSize(); i++) {
         for (int nCache = 1; nCache < paragraphsCache.size(); nCache++) {
-          if (mDocHandler.isSortedRuleForIndex(nCache) && docCache.isFinished() && paragraphsCache.get(nCache).getCacheEntry(docCache.getFlatParagraphNumber(i)) == null) {
+          if (needsQueueEntry(i, nCache)) {
             return createQueueEntry(i, nCache);
           }
         }
@@ -195,6 +195,20 @@ public class SwJLanguageTool {
     }
   }
 
+  /**
+   * Set a callback to cancel a running check
+   * (not supported by remote check)
+   */
+  public void setCheckCancelledCallback(JLanguageTool.CheckCancelledCallback callback) {
+    if (!isRemote) {
+      if (isMultiThread) {
+        mlt.setCheckCancelledCallback(callback);
+      } else {
+        lt.setCheckCancelledCallback(callback);
+      }
+    }
+  }
+
   /**
    * check text by LT
    * default: check only grammar
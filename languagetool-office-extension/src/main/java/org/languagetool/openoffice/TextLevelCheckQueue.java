@@ -19,43 +19,43 @@
 package org.languagetool.openoffice;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.languagetool.Language;
+import org.languagetool.gui.Configuration;
 
 import com.sun.star.lang.Locale;
 
 /**
  * Class of a queue to handle parallel check of text level rules
+ * The entries are checked by a configurable number of threads (see {@link Configuration#getNumTextLevelQueueThreads()}),
+ * each with its own LanguageTool; the paragraph under the cursor is checked first, 
+ * then the other paragraphs requested by LibreOffice, then the rest of the documents
  * @since 4.9
  * @author Fred Kruse
  */
 public class TextLevelCheckQueue {
   
-  public static final int NO_FLAG = 0;
-  public static final int RESET_FLAG = 1;
-  public static final int STOP_FLAG = 2;
-  public static final int DISPOSE_FLAG = 3;
+  public static final int PRIORITY_CURSOR = 0;      //  paragraph under the view cursor
+  public static final int PRIORITY_VISIBLE = 1;     //  paragraphs requested by LibreOffice (visible or changed)
+  public static final int PRIORITY_DOCUMENT = 2;    //  rest of the documents
 
   private static final int MAX_WAIT = 5000;
   
   private static final int HEAP_CHECK_INTERVAL = 50;
 
-  private List<QueueEntry> textRuleQueue = Collections.synchronizedList(new ArrayList<QueueEntry>());  //  Queue to check text rules in a separate thread
-  private Object queueWakeup = new Object();
+  private final TextLevelQueueEntries queueEntries = new TextLevelQueueEntries();  //  Queue to check text rules in separate threads
+  private final List<QueueWorker> queueWorkers = new ArrayList<>();
+  private final AtomicInteger runningWorkers = new AtomicInteger();
+  private final AtomicInteger waitingWorkers = new AtomicInteger();
+  private final Object initLock = new Object();
   private MultiDocumentsHandler multiDocHandler;
-  private SortedTextRules sortedTextRules = null;
 
-  private QueueIterator queueIterator;
-  private int lastStart = -1;
-  private int lastEnd = -1;
-  private int lastCache = -1;
-  private String lastDocId = null;
-  private Language lastLanguage = null;
-  private boolean interruptCheck = false;
-  private boolean queueRuns = false;
-  private boolean queueWaits = false;
+  private volatile int lastStart = -1;
+  private volatile String lastDocId = null;
+  private volatile int resetCount = 0;
+  private volatile boolean interruptCheck = false;
   
   private int numSinceHeapTest = 0;
 
@@ -63,16 +63,31 @@ public class TextLevelCheckQueue {
   
   TextLevelCheckQueue(MultiDocumentsHandler multiDocumentsHandler) {
     multiDocHandler = multiDocumentsHandler;
-    queueIterator = new QueueIterator();
-    queueIterator.start();
     debugMode = OfficeTools.DEBUG_MODE_TQ;
+    Configuration config = multiDocHandler.getConfiguration();
+    int numThreads = config == null ? 1 : Math.max(1, config.getNumTextLevelQueueThreads());
+    for (int i = 0; i < numThreads; i++) {
+      queueWorkers.add(new QueueWorker(i));
+    }
+    runningWorkers.set(numThreads);
+    for (QueueWorker queueWorker : queueWorkers) {
+      queueWorker.start();
+    }
   }
  
  /**
   * Add a new entry to queue
-  * add it only if the new entry is not identical with the last entry or the running
+  * add it only if the new entry is not covered by a waiting or running entry
   */
   public void addQueueEntry(int nStart, int nEnd, int nCache, int nCheck, String docId, boolean overrideRunning) {
+    addQueueEntry(nStart, nEnd, nCache, nCheck, docId, overrideRunning, PRIORITY_VISIBLE);
+  }
+
+  /**
+   * Add a new entry with a priority to queue
+   * add it only if the new entry is not covered by a waiting or running entry
+   */
+  public void addQueueEntry(int nStart, int nEnd, int nCache, int nCheck, String docId, boolean overrideRunning, int priority) {
     if (nStart < 0 || nEnd <= nStart || nCache < 0 || docId == null) {
       if (debugMode) {
         MessageHandler.printToLogFile("Return without add to queue: nCache = " + nCache
@@ -82,49 +97,13 @@ public class TextLevelCheckQueue {
       return;
     }
     QueueEntry queueEntry = new QueueEntry(nStart, nEnd, nCache, nCheck, docId, overrideRunning);
-    int setIn = -1;
-    if (!textRuleQueue.isEmpty()) {
-      if (!overrideRunning && nStart >= lastStart  && nEnd <= lastEnd && nCache == lastCache && docId.equals(lastDocId)) {
-        return;
-      }
-      synchronized(textRuleQueue) {
-        for (int i = textRuleQueue.size() - 1; i >= 0; i--) {
-          QueueEntry entry = textRuleQueue.get(i);
-          if (entry.isObsolete(queueEntry)) {
-            if (!overrideRunning && entry.overrideRunning) {
-              queueEntry.overrideRunning = true;
-            }
-            textRuleQueue.remove(i);
-            if (setIn > i) {
-              setIn = i;
-            }
-            if (debugMode) {
-              MessageHandler.printToLogFile("remove queue entry: docId = " + entry.docId + ", nStart = " + entry.nStart + ", nEnd = " + entry.nEnd 
-                  + ", nCache = " + entry.nCache + ", nCheck = " + entry.nCheck + ", overrideRunning = " + entry.overrideRunning);
-            }
-          } else if (entry.isEqualButSmallerCacheNumber(queueEntry)) {
-            setIn = i;
-            if (debugMode) {
-              MessageHandler.printToLogFile("smaler nCache (old): docId = " + entry.docId + ", nStart = " + entry.nStart + ", nEnd = " + entry.nEnd 
-                  + ", nCache = " + entry.nCache + ", nCheck = " + entry.nCheck + ", overrideRunning = " + entry.overrideRunning);
-              MessageHandler.printToLogFile("smaler nCache (new): docId = " + docId + ", nStart = " + nStart + ", nEnd = " + nEnd 
-                  + ", nCache = " + nCache + ", nCheck = " + nCheck + ", overrideRunning = " + overrideRunning);
-            }
-          }
-        }
-      }
-    }
+    queueEntry.priority = priority;
+    boolean added = queueEntries.add(queueEntry);
     if (debugMode) {
-      MessageHandler.printToLogFile("add queue entry: docId = " + docId + ", nStart = " + nStart + ", nEnd = " + nEnd 
-          + ", nCache = " + nCache + ", nCheck = " + nCheck + ", overrideRunning = " + overrideRunning);
+      MessageHandler.printToLogFile((added ? "add queue entry: " : "queue entry covered: ") + "docId = " + docId 
+          + ", nStart = " + nStart + ", nEnd = " + nEnd + ", nCache = " + nCache + ", nCheck = " + nCheck 
+          + ", overrideRunning = " + overrideRunning + ", priority = " + priority);
     }
-    if (setIn >= 0) {
-      textRuleQueue.add(setIn, queueEntry);
-    } else {
-      textRuleQueue.add(queueEntry);
-    }
-    interruptCheck = false;
-    wakeupQueue();
   }
   
   /**
@@ -139,34 +118,21 @@ public class TextLevelCheckQueue {
   }
   
   /**
-   * wake up the waiting iteration of the queue
+   * true, if the check of paragraph nPara for a cache is already queued or running
    */
-  private void wakeupQueue() {
-    synchronized(queueWakeup) {
-      if (debugMode) {
-        MessageHandler.printToLogFile("wake queue");
-      }
-      queueWakeup.notify();
-    }
+  public boolean isQueued(String docId, int nPara, int nCache, int nCheck) {
+    return queueEntries.isQueued(docId, nPara, nCache, nCheck);
   }
 
   /**
    * Set a stop flag to get a definite ending of the iteration
    */
   public void setStop() {
-    if (queueRuns) {
-      synchronized(textRuleQueue) {
-        textRuleQueue.clear();
-      }
-      interruptCheck = true;
-      QueueEntry queueEntry = new QueueEntry();
-      queueEntry.setStop();
-      if (debugMode) {
-        MessageHandler.printToLogFile("stop queue");
-      }
-      textRuleQueue.add(queueEntry);
+    interruptCheck = true;
+    if (debugMode) {
+      MessageHandler.printToLogFile("stop queue");
     }
-    wakeupQueue();
+    queueEntries.stop();
   }
   
   /**
@@ -174,58 +140,45 @@ public class TextLevelCheckQueue {
    * all entries are removed; LanguageTool is new initialized
    */
   public void setReset() {
-    synchronized(textRuleQueue) {
-      textRuleQueue.clear();
-    }
-    if (!queueWaits && lastStart >= 0) {
-      waitForInterrupt();
+    interruptCheck = true;
+    if (queueEntries.cancel(null)) {
+      waitForInterrupt(null);
     }
     if (debugMode) {
       MessageHandler.printToLogFile("reset queue");
     }
-    doReset();
-    wakeupQueue();
+    resetCount++;
+    interruptCheck = false;
   }
   
   /**
    * remove all entries for the disposed docId (gone document)
+   * and cancel its running checks
    * @param docId
    */
   public void interruptCheck(String docId) {
     if (debugMode) {
       MessageHandler.printToLogFile("interrupt queue");
     }
-    if (!textRuleQueue.isEmpty()) {
-      synchronized(textRuleQueue) {
-        for (int i = textRuleQueue.size() - 1; i >= 0; i--) {
-          QueueEntry queueEntry = textRuleQueue.get(i);
-          if (docId.equals(queueEntry.docId)) {
-            textRuleQueue.remove(queueEntry);
-          }
-        }
-      }
+    if (queueEntries.cancel(docId)) {
+      waitForInterrupt(docId);
     }
-    if (!queueWaits && lastStart >= 0 && lastDocId != null && lastDocId.equals(docId)) {
-      waitForInterrupt();
+    if (docId.equals(lastDocId)) {
       lastDocId = null;
     }
   }
   
   /**
-   * Set interrupt and wait till finish last check
+   * Wait till the canceled checks of a document (docId == null: of all documents) are finished
    */
-  private void waitForInterrupt() {
-    interruptCheck = true;
+  private void waitForInterrupt(String docId) {
     MessageHandler.printToLogFile("Interrupt initiated");
-    wakeupQueue();
-    int n = 0;
-    while (interruptCheck && n < MAX_WAIT) {
-      try {
-        Thread.sleep(1);
-        n++;
-      } catch (InterruptedException e) {
-        MessageHandler.showError(e);
+    try {
+      if (queueEntries.awaitFinished(docId, MAX_WAIT)) {
+        MessageHandler.printToLogFile("Interrupt ended");
       }
+    } catch (InterruptedException e) {
+      MessageHandler.showError(e);
     }
   }
 
@@ -260,8 +213,13 @@ public class TextLevelCheckQueue {
   
   /**
    * gives back information if queue is interrupted
+   * or, for a thread of the queue, if its running check is canceled
    */
   public boolean isInterrupted() {
+    Thread thread = Thread.currentThread();
+    if (thread instanceof QueueWorker) {
+      return ((QueueWorker) thread).isCheckCancelled();
+    }
     return interruptCheck;
   }
   
@@ -269,22 +227,14 @@ public class TextLevelCheckQueue {
    * gives back information if queue is running
    */
   public boolean isRunning() {
-    return queueRuns;
+    return runningWorkers.get() > 0;
   }
   
   /**
-   * gives back information if queue is waiting
+   * gives back information if all workers are idle
    */
   public boolean isWaiting() {
-    return queueWaits;
-  }
-  
-  /**
-   * reset LanguageToo; do an new initialization
-   */
-  private void doReset() {
-    textRuleQueue.clear();
-    queueIterator.initLangtool(null);
+    return waitingWorkers.get() == runningWorkers.get();
   }
   
   /**
@@ -307,6 +257,7 @@ public class TextLevelCheckQueue {
       if (docId != null && docId.equals(documents.get(n).getDocID()) && !documents.get(n).isDisposed() && !documents.get(n).isImpress()) {
         QueueEntry queueEntry = documents.get(n).getQueueEntryForChangedParagraph();
         if (queueEntry != null) {
+          queueEntry.priority = PRIORITY_VISIBLE;
           return queueEntry;
         }
         nDoc = n;
@@ -335,7 +286,7 @@ public class TextLevelCheckQueue {
   /**
    * run heap space test, in intervals
    */
-  private boolean testHeapSpace() {
+  private synchronized boolean testHeapSpace() {
     if (numSinceHeapTest > HEAP_CHECK_INTERVAL) {
       numSinceHeapTest = 0;
       if (!multiDocHandler.isEnoughHeapSpace()) {
@@ -347,18 +298,32 @@ public class TextLevelCheckQueue {
     return true;
   }
 
+  /**
+   *  run a queue entry for the specific document
+   */
+  private void runQueueEntry(QueueEntry queueEntry, SwJLanguageTool lt) {
+    if (testHeapSpace()) {
+      SingleDocument document = getSingleDocument(queueEntry.docId);
+      if (document != null) {
+        document.runQueueEntry(queueEntry.nStart, queueEntry.nEnd, queueEntry.nCache, 
+            queueEntry.nCheck, queueEntry.overrideRunning, lt);
+      }
+    }
+  }
   
   /**
    * Internal class to store queue entries
    */
-  class QueueEntry {
+  static class QueueEntry {
     int nStart;
     int nEnd;
     int nCache;
     int nCheck;
     String docId;
     boolean overrideRunning;
-    int special = TextLevelCheckQueue.NO_FLAG;
+    int priority = PRIORITY_DOCUMENT;
+    long seq;                                   //  order of adding, set by TextLevelQueueEntries
+    private volatile boolean cancelled = false;
     
     QueueEntry(int nStart, int nEnd, int nCache, int nCheck, String docId, boolean overrideRunning) {
       this.nStart = nStart;
@@ -373,28 +338,15 @@ public class TextLevelCheckQueue {
       this(nStart, nEnd, nCache, nCheck, docId, false);
     }
     
-    QueueEntry() {
-    }
-
     /**
-     * Set reset flag
+     * Cancel the check of the entry
      */
-    void setReset() {
-      special = TextLevelCheckQueue.RESET_FLAG;
+    void cancel() {
+      cancelled = true;
     }
     
-    /**
-     * Set stop flag
-     */
-    void setStop() {
-      special = TextLevelCheckQueue.STOP_FLAG;
-    }
-    
-    /**
-     * Set dispose flag
-     */
-    void setDispose(String docId) {
-      special = TextLevelCheckQueue.DISPOSE_FLAG;
+    boolean isCancelled() {
+      return cancelled;
     }
     
     /**
@@ -412,68 +364,79 @@ public class TextLevelCheckQueue {
       return false;
     }
 
-    /**
-     * entry is equal but number of cache is smaller then new entry e
-     */
-    public boolean isEqualButSmallerCacheNumber(QueueEntry e) {
-      if (e == null) {
-        return false;
-      }
-      if (nStart >= e.nStart && nEnd <= e.nEnd && nCache < e.nCache && docId.equals(e.docId)) {
-        return true;
-      }
-      return false;
+    @Override
+    public int hashCode() {
+      return 31 * (31 * (31 * nStart + nEnd) + nCache) + docId.hashCode();
     }
 
     /**
-     * entry is obsolete and should be replaced by new entry e
+     * the check of the entry covers the check of entry e
+     * (results of all paragraphs of e are stored in the same cache)
      */
-    public boolean isObsolete(QueueEntry e) {
-      if (e == null || nCheck != e.nCheck || nCache != e.nCache || !docId.equals(e.docId)) {
+    public boolean covers(QueueEntry e) {
+      if (e == null) {
         return false;
       }
-      if (nCheck < -1 || (nCheck == -1 && e.nStart >= nStart && e.nStart <= nEnd) 
-          || (nCheck >= 0 && nStart == e.nStart && nEnd == e.nEnd)) {
-        return true;
-      }
-      return false;
+      return nCache == e.nCache && nCheck == e.nCheck && nStart <= e.nStart && e.nEnd <= nEnd && docId.equals(e.docId);
     }
 
-    /**
-     *  run a queue entry for the specific document
-     */
-    void runQueueEntry(MultiDocumentsHandler multiDocHandler, SwJLanguageTool lt) {
-      if (testHeapSpace()) {
-        SingleDocument document = getSingleDocument(docId);
-        if (document != null) {
-          document.runQueueEntry(nStart, nEnd, nCache, nCheck, overrideRunning, lt);
-        }
-      }
-    }
-    
   }
 
   /**
    * class for automatic iteration of the queue
+   * every thread runs its own LanguageTool
    */
-  class QueueIterator extends Thread {
+  class QueueWorker extends Thread {
     
     private SwJLanguageTool lt;
-
+    private SortedTextRules sortedTextRules;
+    private Language lastLanguage = null;
+    private int lastCache = -1;
+    private int lastReset;
+    private volatile QueueEntry runningEntry = null;
       
-    public QueueIterator() {
+    QueueWorker(int num) {
+      super("LanguageTool text level queue " + num);
+      lastReset = resetCount;
     }
     
     /**
      * initialize languagetool for text level iteration
      */
-    public void initLangtool(Language language) {
+    private void initLangtool(Language language) {
       if (debugMode) {
         MessageHandler.printToLogFile("queue: InitLangtool: language = " + (language == null ? "null" : language.getShortCodeWithCountryAndVariant()));
       }
-      lt = multiDocHandler.initLanguageTool(language, false);
-      multiDocHandler.initCheck(lt, multiDocHandler.getLocale());
-      sortedTextRules = new SortedTextRules(lt, multiDocHandler.getConfiguration(), multiDocHandler.getDisabledRules());
+      synchronized (initLock) {
+        lt = multiDocHandler.initLanguageTool(language, false);
+        multiDocHandler.initCheck(lt, multiDocHandler.getLocale());
+        sortedTextRules = new SortedTextRules(lt, multiDocHandler.getConfiguration(), multiDocHandler.getDisabledRules());
+      }
+      if (lt != null) {
+        lt.setCheckCancelledCallback(this::isCheckCancelled);
+      }
+    }
+    
+    /**
+     * true, if the check of the running entry is canceled
+     */
+    boolean isCheckCancelled() {
+      QueueEntry queueEntry = runningEntry;
+      return interruptCheck || (queueEntry != null && queueEntry.isCancelled());
+    }
+    
+    /**
+     * Add an entry for the next unchecked paragraph, if there is no other entry
+     */
+    private boolean addNextQueueEntry() {
+      String docId = lastDocId;
+      if (docId != null) {
+        QueueEntry queueEntry = getNextQueueEntry(lastStart, docId);
+        if (queueEntry != null) {
+          return queueEntries.add(queueEntry);
+        }
+      }
+      return false;
     }
     
     /**
@@ -482,66 +445,42 @@ public class TextLevelCheckQueue {
     @Override
     public void run() {
       try {
-        queueRuns = true;
         if (debugMode) {
-          MessageHandler.printToLogFile("queue started");
+          MessageHandler.printToLogFile("queue started: " + getName());
         }
         for (;;) {
-          queueWaits = false;
-          if (interruptCheck) {
-            MessageHandler.printToLogFile("Interrupt ended");
-          }
-          interruptCheck = false;
-          if (textRuleQueue.isEmpty()) {
-            synchronized(textRuleQueue) {
-              if (lastDocId != null) {
-                QueueEntry queueEntry = getNextQueueEntry(lastStart, lastDocId);
-                if (queueEntry != null) {
-                  textRuleQueue.add(queueEntry);
-                  queueEntry = null;
-                  continue;
-                }
+          long version = queueEntries.getVersion();
+          QueueEntry queueEntry = queueEntries.poll();
+          if (queueEntry == null) {
+            if (queueEntries.isStopped()) {
+              if (debugMode) {
+                MessageHandler.printToLogFile("queue ended: " + getName());
               }
+              return;
             }
-            synchronized(queueWakeup) {
+            if (!addNextQueueEntry()) {
+              if (debugMode) {
+                MessageHandler.printToLogFile("queue waits: " + getName());
+              }
+              waitingWorkers.incrementAndGet();
               try {
-                if (debugMode) {
-                  MessageHandler.printToLogFile("queue waits");
-                }
-                lastStart = -1;
-                lastEnd = -1;
-                queueWaits = true;
-                queueWakeup.wait();
-              } catch (Throwable e) {
-                MessageHandler.showError(e);
-                return;
+                queueEntries.awaitChange(version);
+              } finally {
+                waitingWorkers.decrementAndGet();
               }
             }
           } else {
-            QueueEntry queueEntry;
-            synchronized(textRuleQueue) {
-              if (!textRuleQueue.isEmpty()) {
-                queueEntry = textRuleQueue.get(textRuleQueue.size() - 1);
-                textRuleQueue.remove(textRuleQueue.size() - 1);
-              } else {
-                continue;
-              }
+            if (debugMode) {
+              MessageHandler.printToLogFile("run queue entry: docId = " + queueEntry.docId + ", nStart = " 
+                  + queueEntry.nStart + ", nEnd = " + queueEntry.nEnd + ", nCheck = " + queueEntry.nCheck 
+                  + ", overrideRunning = " + queueEntry.overrideRunning + ", priority = " + queueEntry.priority);
             }
-            if (queueEntry.special == STOP_FLAG) {
-              if (debugMode) {
-                MessageHandler.printToLogFile("queue ended");
-              }
-              queueRuns = false;
-              return;
-            } else {
-              if (debugMode) {
-                MessageHandler.printToLogFile("run queue entry: docId = " + queueEntry.docId + ", nStart = " 
-                    + queueEntry.nStart + ", nEnd = " + queueEntry.nEnd + ", nCheck = " + queueEntry.nCheck + ", overrideRunning = " + queueEntry.overrideRunning);
-              }
+            try {
               Language entryLanguage = getLanguage(queueEntry.docId, queueEntry.nStart);
               if (entryLanguage != null) {
-                if (lastLanguage == null || !lastLanguage.equals(entryLanguage)) {
+                if (lastLanguage == null || !lastLanguage.equals(entryLanguage) || lastReset != resetCount) {
                   lastLanguage = entryLanguage;
+                  lastReset = resetCount;
                   initLangtool(lastLanguage);
                   sortedTextRules.activateTextRulesByIndex(queueEntry.nCache, lt);
                 } else if (lastCache != queueEntry.nCache) {
@@ -549,16 +488,20 @@ public class TextLevelCheckQueue {
                 }
               }
               lastDocId = queueEntry.docId;
-	            lastStart = queueEntry.nStart;
-	            lastEnd = queueEntry.nEnd;
-	            lastCache = queueEntry.nCache;
-	            queueEntry.runQueueEntry(multiDocHandler, entryLanguage == null ? null : lt);
-              queueEntry = null;
+              lastStart = queueEntry.nStart;
+              lastCache = queueEntry.nCache;
+              runningEntry = queueEntry;
+              runQueueEntry(queueEntry, entryLanguage == null ? null : lt);
+            } finally {
+              runningEntry = null;
+              queueEntries.finished(queueEntry);
             }
           }
         }
       } catch (Throwable e) {
         MessageHandler.showError(e);
+      } finally {
+        runningWorkers.decrementAndGet();
       }
     }
     
@@ -0,0 +1,265 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.languagetool.openoffice.TextLevelCheckQueue.QueueEntry;
+
+/**
+ * The entries of the text level check queue, shared by the threads of the queue.
+ * Entries are taken by priority (see {@link TextLevelCheckQueue#PRIORITY_CURSOR}) and
+ * the newest entry first within the same priority. An entry is dropped if a waiting or
+ * running entry of the same document and cache already covers its range of paragraphs, 
+ * and replaces the waiting entries it covers itself.
+ * Knows nothing about documents or LibreOffice, so it can be tested on its own.
+ * @since 5.6
+ */
+class TextLevelQueueEntries {
+
+  private static final Comparator<QueueEntry> PRIORITY_ORDER =
+      Comparator.<QueueEntry>comparingInt(e -> e.priority).thenComparing(e -> -e.seq);
+
+  //  waiting entries sorted by priority
+  private final TreeSet<QueueEntry> waiting = new TreeSet<>(PRIORITY_ORDER);
+  //  waiting entries by docId, by cache and check (see rangeKey) and by nStart
+  //  No entry of a range map covers another one, so nEnd increases with nStart
+  private final Map<String, Map<Long, TreeMap<Integer, QueueEntry>>> ranges = new HashMap<>();
+  private final List<QueueEntry> running = new ArrayList<>();
+
+  private long nextSeq = 0;
+  private long version = 0;
+  private boolean stopped = false;
+
+  /**
+   * Add an entry; gives back false if it is covered by a waiting or running entry.
+   * A covering waiting entry gets the higher priority of both.
+   * Running entries are ignored if the entry overrides running checks.
+   */
+  synchronized boolean add(QueueEntry entry) {
+    if (stopped) {
+      return false;
+    }
+    if (!entry.overrideRunning) {
+      for (QueueEntry runningEntry : running) {
+        if (!runningEntry.isCancelled() && runningEntry.covers(entry)) {
+          return false;
+        }
+      }
+    }
+    TreeMap<Integer, QueueEntry> docRanges = ranges.computeIfAbsent(entry.docId, k -> new HashMap<>())
+        .computeIfAbsent(rangeKey(entry.nCache, entry.nCheck), k -> new TreeMap<>());
+    Map.Entry<Integer, QueueEntry> floor = docRanges.floorEntry(entry.nStart);
+    if (floor != null && floor.getValue().nEnd >= entry.nEnd) {
+      QueueEntry waitingEntry = floor.getValue();
+      waiting.remove(waitingEntry);
+      waitingEntry.priority = Math.min(waitingEntry.priority, entry.priority);
+      waitingEntry.overrideRunning |= entry.overrideRunning;
+      waitingEntry.seq = nextSeq++;
+      waiting.add(waitingEntry);
+      return false;
+    }
+    Map.Entry<Integer, QueueEntry> next = docRanges.ceilingEntry(entry.nStart);
+    while (next != null && next.getValue().nEnd <= entry.nEnd) {
+      QueueEntry covered = next.getValue();
+      docRanges.remove(next.getKey());
+      waiting.remove(covered);
+      entry.priority = Math.min(entry.priority, covered.priority);
+      entry.overrideRunning |= covered.overrideRunning;
+      next = docRanges.higherEntry(next.getKey());
+    }
+    entry.seq = nextSeq++;
+    docRanges.put(entry.nStart, entry);
+    waiting.add(entry);
+    changed();
+    return true;
+  }
+
+  /**
+   * Take the waiting entry with the highest priority and mark it as running;
+   * gives back null if there is none or the queue is stopped
+   */
+  synchronized QueueEntry poll() {
+    if (stopped) {
+      return null;
+    }
+    QueueEntry entry = waiting.pollFirst();
+    if (entry != null) {
+      removeRange(entry);
+      running.add(entry);
+    }
+    return entry;
+  }
+
+  /**
+   * Mark a running entry as finished
+   */
+  synchronized void finished(QueueEntry entry) {
+    for (int i = 0; i < running.size(); i++) {
+      if (running.get(i) == entry) {
+        running.remove(i);
+        changed();
+        return;
+      }
+    }
+  }
+
+  /**
+   * true, if a waiting or running entry already covers paragraph nPara
+   */
+  synchronized boolean isQueued(String docId, int nPara, int nCache, int nCheck) {
+    for (QueueEntry runningEntry : running) {
+      if (!runningEntry.isCancelled() && runningEntry.nCache == nCache && runningEntry.nCheck == nCheck 
+          && runningEntry.docId.equals(docId) && runningEntry.nStart <= nPara && nPara < runningEntry.nEnd) {
+        return true;
+      }
+    }
+    Map<Long, TreeMap<Integer, QueueEntry>> docRanges = ranges.get(docId);
+    TreeMap<Integer, QueueEntry> cacheRanges = docRanges == null ? null : docRanges.get(rangeKey(nCache, nCheck));
+    if (cacheRanges != null) {
+      Map.Entry<Integer, QueueEntry> floor = cacheRanges.floorEntry(nPara);
+      return floor != null && nPara < floor.getValue().nEnd;
+    }
+    return false;
+  }
+
+  /**
+   * Remove all waiting entries of a document and cancel its running entries
+   * (docId == null: of all documents); gives back true if there are running entries
+   */
+  synchronized boolean cancel(String docId) {
+    if (docId == null) {
+      waiting.clear();
+      ranges.clear();
+    } else {
+      Map<Long, TreeMap<Integer, QueueEntry>> docRanges = ranges.remove(docId);
+      if (docRanges != null) {
+        for (TreeMap<Integer, QueueEntry> cacheRanges : docRanges.values()) {
+          for (QueueEntry entry : cacheRanges.values()) {
+            waiting.remove(entry);
+          }
+        }
+      }
+    }
+    boolean hasRunning = false;
+    for (QueueEntry runningEntry : running) {
+      if (docId == null || docId.equals(runningEntry.docId)) {
+        runningEntry.cancel();
+        hasRunning = true;
+      }
+    }
+    changed();
+    return hasRunning;
+  }
+
+  /**
+   * Wait until no entry of the document is running (docId == null: of any document)
+   * gives back false if the time was over before
+   */
+  synchronized boolean awaitFinished(String docId, long timeoutMillis) throws InterruptedException {
+    long end = System.currentTimeMillis() + timeoutMillis;
+    while (isRunning(docId)) {
+      long rest = end - System.currentTimeMillis();
+      if (rest <= 0) {
+        return false;
+      }
+      wait(rest);
+    }
+    return true;
+  }
+
+  /**
+   * The number of changes so far, see {@link #awaitChange(long)}
+   */
+  synchronized long getVersion() {
+    return version;
+  }
+
+  /**
+   * Wait until an entry is added or finished, the queue is canceled or stopped
+   * after version was read by {@link #getVersion()}
+   */
+  synchronized void awaitChange(long version) throws InterruptedException {
+    while (this.version == version && !stopped) {
+      wait();
+    }
+  }
+
+  /**
+   * Stop the queue: remove all entries, cancel the running entries and wake up all waiting threads
+   */
+  synchronized void stop() {
+    cancel(null);
+    stopped = true;
+    notifyAll();
+  }
+
+  synchronized boolean isStopped() {
+    return stopped;
+  }
+
+  synchronized int size() {
+    return waiting.size();
+  }
+
+  synchronized boolean isEmpty() {
+    return waiting.isEmpty();
+  }
+
+  private boolean isRunning(String docId) {
+    for (QueueEntry runningEntry : running) {
+      if (docId == null || docId.equals(runningEntry.docId)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void removeRange(QueueEntry entry) {
+    Map<Long, TreeMap<Integer, QueueEntry>> docRanges = ranges.get(entry.docId);
+    long key = rangeKey(entry.nCache, entry.nCheck);
+    TreeMap<Integer, QueueEntry> cacheRanges = docRanges.get(key);
+    cacheRanges.remove(entry.nStart);
+    if (cacheRanges.isEmpty()) {
+      docRanges.remove(key);
+      if (docRanges.isEmpty()) {
+        ranges.remove(entry.docId);
+      }
+    }
+  }
+
+  private void changed() {
+    version++;
+    notifyAll();
+  }
+
+  /**
+   * Only entries for the same cache and number of paragraphs to check cover each other
+   */
+  private static long rangeKey(int nCache, int nCheck) {
+    return ((long) nCache << 32) | (nCheck & 0xffffffffL);
+  }
+
+}
@@ -0,0 +1,219 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import com.sun.star.beans.PropertyState;
+import com.sun.star.beans.PropertyValue;
+import com.sun.star.lang.Locale;
+import com.sun.star.linguistic2.SingleProofreadingError;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class CacheFileFormatTest {
+
+  private static final Locale LOCALE = new Locale("en", "US", "");
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static List<String> paragraphs(int n) {
+    List<String> paragraphs = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      paragraphs.add("This is paragraph number " + i + " of the test document.");
+    }
+    return paragraphs;
+  }
+
+  private static SingleProofreadingError error(int start, String ruleId) {
+    SingleProofreadingError error = new SingleProofreadingError();
+    error.nErrorStart = start;
+    error.nErrorLength = 4;
+    error.nErrorType = 2;
+    error.aRuleIdentifier = ruleId;
+    error.aShortComment = "Short";
+    error.aFullComment = "Full comment for " + ruleId;
+    error.aSuggestions = new String[] { "this", "that" };
+    error.aProperties = new PropertyValue[] {
+        new PropertyValue("FullCommentURL", -1, "https://example.com/" + ruleId, PropertyState.DIRECT_VALUE),
+        new PropertyValue("LineColor", -1, 0x1e90ff, PropertyState.DIRECT_VALUE),
+        new PropertyValue("LineType", -1, (short) 3, PropertyState.DIRECT_VALUE) };
+    return error;
+  }
+
+  private static CacheFileFormat.Content content(List<String> paragraphs) {
+    // footnotes and matches depend on the text only, like they move with the paragraph in a document:
+    List<int[]> footnotes = new ArrayList<>();
+    for (String paragraph : paragraphs) {
+      footnotes.add(Math.floorMod(paragraph.hashCode(), 10) == 0 ? new int[] { 3, 7 } : new int[0]);
+    }
+    DocumentCache docCache = new DocumentCache(paragraphs, paragraphs, footnotes, LOCALE);
+    List<ResultCache> paragraphsCache = new ArrayList<>();
+    for (int c = 0; c < 2; c++) {
+      ResultCache cache = new ResultCache();
+      for (int i = 0; i < paragraphs.size(); i++) {
+        int k = Math.floorMod(paragraphs.get(i).hashCode() + c, 6);
+        if (k == 0) {
+          cache.put(i, Arrays.asList(10, 20), new SingleProofreadingError[] { error(5, "RULE_" + Math.floorMod(paragraphs.get(i).hashCode(), 5)) });
+        } else if (k < 3) {
+          cache.put(i, new SingleProofreadingError[0]);
+        }
+      }
+      paragraphsCache.add(cache);
+    }
+    Map<Integer, Map<String, Set<Integer>>> ignoredMatches = new HashMap<>();
+    ignoredMatches.put(2, Collections.singletonMap("RULE_2", new HashSet<>(Arrays.asList(5, 8))));
+    return new CacheFileFormat.Content(docCache, paragraphsCache, ignoredMatches, Arrays.asList("DISABLED"),
+        new ArrayList<>(), Arrays.asList("ENABLED_1", "ENABLED_2"), "5.6-SNAPSHOT");
+  }
+
+  private static void assertSameContent(CacheFileFormat.Content expected, CacheFileFormat.Content actual) {
+    assertEquals(expected.ltVersion, actual.ltVersion);
+    assertEquals(expected.disabledRuleIds, actual.disabledRuleIds);
+    assertEquals(expected.disabledCategories, actual.disabledCategories);
+    assertEquals(expected.enabledRuleIds, actual.enabledRuleIds);
+    assertEquals(expected.ignoredMatches, actual.ignoredMatches);
+    assertEquals(expected.docCache.size(), actual.docCache.size());
+    assertEquals(expected.docCache.textSize(), actual.docCache.textSize());
+    for (int i = 0; i < expected.docCache.size(); i++) {
+      assertEquals(expected.docCache.getFlatParagraph(i), actual.docCache.getFlatParagraph(i));
+      assertEquals(expected.docCache.getNumberOfTextParagraph(i), actual.docCache.getNumberOfTextParagraph(i));
+      assertArrayEquals(expected.docCache.getFlatParagraphFootnotes(i), actual.docCache.getFlatParagraphFootnotes(i));
+      assertEquals(LOCALE.Country, actual.docCache.getFlatParagraphLocale(i).Country);
+      for (int c = 0; c < expected.paragraphsCache.size(); c++) {
+        SingleProofreadingError[] expectedErrors = expected.paragraphsCache.get(c).getMatches(i);
+        SingleProofreadingError[] errors = actual.paragraphsCache.get(c).getMatches(i);
+        if (expectedErrors == null) {
+          assertNull(errors);
+          continue;
+        }
+        assertEquals(expectedErrors.length, errors.length);
+        for (int j = 0; j < errors.length; j++) {
+          assertEquals(expectedErrors[j].nErrorStart, errors[j].nErrorStart);
+          assertEquals(expectedErrors[j].aRuleIdentifier, errors[j].aRuleIdentifier);
+          assertEquals(expectedErrors[j].aFullComment, errors[j].aFullComment);
+          assertArrayEquals(expectedErrors[j].aSuggestions, errors[j].aSuggestions);
+          assertEquals(expectedErrors[j].aProperties.length, errors[j].aProperties.length);
+          for (int k = 0; k < errors[j].aProperties.length; k++) {
+            assertEquals(expectedErrors[j].aProperties[k].Name, errors[j].aProperties[k].Name);
+            assertEquals(expectedErrors[j].aProperties[k].Value, errors[j].aProperties[k].Value);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    File file = tempFolder.newFile("LtCache1.lcz");
+    CacheFileFormat.Content content = content(paragraphs(100));
+    new CacheFileFormat().write(file, content);
+    assertTrue(CacheFileFormat.isCacheFile(file));
+    assertSameContent(content, new CacheFileFormat().read(file));
+  }
+
+  @Test
+  public void testIncrementalSave() throws IOException {
+    File file = tempFolder.newFile("LtCache1.lcz");
+    CacheFileFormat format = new CacheFileFormat();
+    List<String> paragraphs = paragraphs(500);
+    format.write(file, content(paragraphs));
+    long fullLength = file.length();
+    paragraphs.set(250, "A changed paragraph.");
+    paragraphs.add(0, "An inserted paragraph.");
+    CacheFileFormat.Content changed = content(paragraphs);
+    format.write(file, changed);
+    long deltaLength = file.length() - fullLength;
+    assertTrue("Delta too large: " + deltaLength + " of " + fullLength, deltaLength > 0 && deltaLength < fullLength / 10);
+    CacheFileFormat reader = new CacheFileFormat();
+    assertSameContent(changed, reader.read(file));
+    // the reader can append to the file, too:
+    paragraphs.set(100, "Another changed paragraph.");
+    CacheFileFormat.Content changedAgain = content(paragraphs);
+    reader.write(file, changedAgain);
+    assertTrue(file.length() - fullLength < fullLength / 5);
+    assertSameContent(changedAgain, new CacheFileFormat().read(file));
+  }
+
+  @Test
+  public void testBrokenTail() throws IOException {
+    File file = tempFolder.newFile("LtCache1.lcz");
+    CacheFileFormat format = new CacheFileFormat();
+    List<String> paragraphs = paragraphs(50);
+    CacheFileFormat.Content content = content(paragraphs);
+    format.write(file, content);
+    paragraphs = paragraphs(50);
+    paragraphs.set(10, "A changed paragraph.");
+    format.write(file, content(paragraphs));
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(raf.length() - 3);
+    }
+    // interrupted save: the state before is used
+    CacheFileFormat reader = new CacheFileFormat();
+    assertSameContent(content, reader.read(file));
+    // the file is rewritten at next save
+    reader.write(file, content(paragraphs));
+    assertSameContent(content(paragraphs), new CacheFileFormat().read(file));
+  }
+
+  @Test
+  public void testCorruptedDeltaSegment() throws IOException {
+    File file = tempFolder.newFile("LtCache1.lcz");
+    CacheFileFormat format = new CacheFileFormat();
+    CacheFileFormat.Content content = content(paragraphs(50));
+    format.write(file, content);
+    int fullLength = (int) file.length();
+    List<String> paragraphs = paragraphs(50);
+    paragraphs.set(10, "A changed paragraph.");
+    format.write(file, content(paragraphs));
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    //  corrupted lengths must not cause exceptions other than IOException, e.g. NegativeArraySizeException
+    for (int pos = fullLength + 1; pos < bytes.length - 4; pos++) {
+      byte[] flipped = bytes.clone();
+      flipped[pos] ^= 0xff;
+      Files.write(file.toPath(), flipped);
+      assertSameContent(content, new CacheFileFormat().read(file));
+      byte[] overwritten = bytes.clone();
+      Arrays.fill(overwritten, pos, pos + 4, (byte) 0xff);
+      Files.write(file.toPath(), overwritten);
+      assertSameContent(content, new CacheFileFormat().read(file));
+    }
+  }
+
+  @Test
+  public void testOldFormat() throws IOException {
+    File file = tempFolder.newFile("LtCache1.lcz");
+    try (GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+      out.write(new byte[] { 1, 2, 3, 4, 5 });
+    }
+    assertFalse(CacheFileFormat.isCacheFile(file));
+    assertNull(new CacheFileFormat().read(file));
+  }
+
+}
@@ -0,0 +1,136 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.openoffice;
+
+import org.junit.Test;
+import org.languagetool.openoffice.TextLevelCheckQueue.QueueEntry;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TextLevelQueueEntriesTest {
+
+  private static QueueEntry entry(int nStart, int nEnd, String docId, int priority) {
+    QueueEntry entry = new QueueEntry(nStart, nEnd, 1, 5, docId);
+    entry.priority = priority;
+    return entry;
+  }
+
+  @Test
+  public void testPriorityOrder() {
+    TextLevelQueueEntries entries = new TextLevelQueueEntries();
+    assertTrue(entries.add(entry(0, 5, "doc1", TextLevelCheckQueue.PRIORITY_DOCUMENT)));
+    assertTrue(entries.add(entry(10, 15, "doc1", TextLevelCheckQueue.PRIORITY_VISIBLE)));
+    assertTrue(entries.add(entry(20, 25, "doc1", TextLevelCheckQueue.PRIORITY_VISIBLE)));
+    assertTrue(entries.add(entry(30, 35, "doc1", TextLevelCheckQueue.PRIORITY_CURSOR)));
+    assertEquals(4, entries.size());
+    assertEquals(30, entries.poll().nStart);
+    // newest first within the same priority:
+    assertEquals(20, entries.poll().nStart);
+    assertEquals(10, entries.poll().nStart);
+    assertEquals(0, entries.poll().nStart);
+    assertNull(entries.poll());
+  }
+
+  @Test
+  public void testCoalesce() {
+    TextLevelQueueEntries entries = new TextLevelQueueEntries();
+    assertTrue(entries.add(entry(10, 20, "doc1", TextLevelCheckQueue.PRIORITY_DOCUMENT)));
+    // covered by waiting entry - gets its higher priority:
+    assertFalse(entries.add(entry(12, 13, "doc1", TextLevelCheckQueue.PRIORITY_CURSOR)));
+    assertFalse(entries.add(entry(10, 20, "doc1", TextLevelCheckQueue.PRIORITY_VISIBLE)));
+    // overlapping but not covered:
+    assertTrue(entries.add(entry(15, 25, "doc1", TextLevelCheckQueue.PRIORITY_DOCUMENT)));
+    // other document, cache or number of paragraphs to check:
+    assertTrue(entries.add(entry(12, 13, "doc2", TextLevelCheckQueue.PRIORITY_DOCUMENT)));
+    assertTrue(entries.add(new QueueEntry(12, 13, 2, 5, "doc1")));
+    assertTrue(entries.add(new QueueEntry(12, 13, 1, -1, "doc1")));
+    assertEquals(5, entries.size());
+    // covers and replaces the waiting entries of doc1 for cache 1:
+    assertTrue(entries.add(entry(5, 30, "doc1", TextLevelCheckQueue.PRIORITY_DOCUMENT)));
+    assertEquals(4, entries.size());
+    QueueEntry first = entries.poll();
+    assertEquals(5, first.nStart);
+    assertEquals(30, first.nEnd);
+    assertEquals(TextLevelCheckQueue.PRIORITY_CURSOR, first.priority);
+    assertFalse(entries.isQueued("doc1", 31, 1, 5));
+    assertTrue(entries.isQueued("doc1", 29, 1, 5));   // running
+    assertTrue(entries.isQueued("doc2", 12, 1, 5));   // waiting
+    assertFalse(entries.isQueued("doc2", 13, 1, 5));
+    assertFalse(entries.isQueued("doc1", 29, 2, 5));
+  }
+
+  @Test
+  public void testRunningEntries() throws InterruptedException {
+    TextLevelQueueEntries entries = new TextLevelQueueEntries();
+    assertTrue(entries.add(entry(10, 20, "doc1", TextLevelCheckQueue.PRIORITY_VISIBLE)));
+    QueueEntry running = entries.poll();
+    assertFalse(entries.add(entry(11, 12, "doc1", TextLevelCheckQueue.PRIORITY_VISIBLE)));
+    QueueEntry override = entry(11, 12, "doc1", TextLevelCheckQueue.PRIORITY_VISIBLE);
+    override.overrideRunning = true;
+    assertTrue(entries.add(override));
+    assertTrue(entries.add(entry(30, 40, "doc2", TextLevelCheckQueue.PRIORITY_VISIBLE)));
+    // the document changed: waiting entries are removed, running are canceled
+    assertTrue(entries.cancel("doc1"));
+    assertTrue(running.isCancelled());
+    assertEquals(1, entries.size());
+    assertFalse(entries.awaitFinished("doc1", 1));
+    assertTrue(entries.awaitFinished("doc2", 1));
+    // a canceled entry doesn't cover new ones:
+    assertTrue(entries.add(entry(11, 12, "doc1", TextLevelCheckQueue.PRIORITY_VISIBLE)));
+    entries.finished(running);
+    assertTrue(entries.awaitFinished("doc1", 1));
+    assertFalse(entries.cancel("doc1"));
+    assertEquals(1, entries.size());
+  }
+
+  @Test
+  public void testWakeUpAndStop() throws InterruptedException {
+    TextLevelQueueEntries entries = new TextLevelQueueEntries();
+    CountDownLatch added = new CountDownLatch(1);
+    CountDownLatch stopped = new CountDownLatch(1);
+    Thread worker = new Thread(() -> {
+      try {
+        while (!entries.isStopped()) {
+          long version = entries.getVersion();
+          QueueEntry entry = entries.poll();
+          if (entry != null) {
+            entries.finished(entry);
+            added.countDown();
+          } else {
+            entries.awaitChange(version);
+          }
+        }
+        stopped.countDown();
+      } catch (InterruptedException ignored) {
+      }
+    });
+    worker.start();
+    assertTrue(entries.add(entry(0, 1, "doc1", TextLevelCheckQueue.PRIORITY_DOCUMENT)));
+    assertTrue(added.await(10, TimeUnit.SECONDS));
+    entries.stop();
+    assertTrue(stopped.await(10, TimeUnit.SECONDS));
+    assertFalse(entries.add(entry(0, 1, "doc1", TextLevelCheckQueue.PRIORITY_DOCUMENT)));
+    assertNull(entries.poll());
+    worker.join();
+  }
+
+}
@@ -34,6 +34,8 @@ import org.languagetool.markup.AnnotatedTextBuilder;
 import org.languagetool.rules.CorrectExample;
 import org.languagetool.rules.IncorrectExample;
 import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleProfiler;
+import org.languagetool.rules.RuleTimeBudget;
 import org.languagetool.rules.TextLevelRule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +44,8 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -93,6 +97,12 @@ class ApiV2 {
     } else if (path.equals("admin/refreshUser")) {
       // private (i.e. undocumented) API for our own use only
       handleRefreshUserInfoRequest(httpExchange, parameters, config);
+    } else if (path.equals("admin/saveCache")) {
+      // private (i.e. undocumented) API for our own use only
+      handleSaveCacheRequest(httpExchange, config);
+    } else if (path.equals("admin/rules/top")) {
+      // private (i.e. undocumented) API for our own use only
+      handleTopRulesRequest(httpExchange, parameters, config);
     } else if (path.equals("users/me")) {
       // private (i.e. undocumented) API for our own use only
       handleGetUserInfoRequest(httpExchange, config);
@@ -251,7 +261,7 @@ class ApiV2 {
     Language lang = Languages.getLanguageForShortCode(params.get("lang"));
     JLanguageTool lt = new JLanguageTool(lang);
     if (textChecker.config.languageModelDir != null) {
-      lt.activateLanguageModelRules(textChecker.config.languageModelDir);
+      LanguageModelCaches.activateLanguageModelRules(lt, lang, textChecker.config);
     }
     List<Rule> rules = lt.getAllRules();
     List<Rule> foundRules = new ArrayList<>();
@@ -319,6 +329,114 @@ class ApiV2 {
     }
   }
 
+  /*
+   * Save the result cache to the configured file, e.g. before a deploy
+   * -> for internal use, see ensureAdminRequest()
+   */
+  private void handleSaveCacheRequest(HttpExchange httpExchange, HTTPServerConfig config) throws Exception {
+    ensurePostMethod(httpExchange, "/admin/saveCache");
+    ensureAdminRequest(httpExchange, "/admin/saveCache", config);
+    if (config.getCacheSize() <= 0 || config.getCacheSnapshotFile() == null) {
+      throw new BadRequestException("/admin/saveCache needs 'cacheSize' and 'cacheSnapshotFile' to be configured");
+    }
+    long count = textChecker.saveCacheSnapshot();
+    StringWriter sw = new StringWriter();
+    try (JsonGenerator g = factory.createGenerator(sw)) {
+      g.writeStartObject();
+      g.writeNumberField("sentences", count);
+      g.writeEndObject();
+    }
+    sendJson(httpExchange, sw);
+  }
+
+  /*
+   * Admin requests need the configured admin token. Without a token, they're only allowed from
+   * localhost without a proxy: the address of the socket's peer is used, as the 'X-Forwarded-For'
+   * header is set by the client, and requests with that header are rejected (behind a proxy,
+   * every request comes from the proxy's address).
+   */
+  private void ensureAdminRequest(HttpExchange httpExchange, String path, HTTPServerConfig config) {
+    String adminToken = config.getAdminToken();
+    if (adminToken != null) {
+      String authorization = httpExchange.getRequestHeaders().getFirst("Authorization");
+      if (authorization == null || !MessageDigest.isEqual(("Bearer " + adminToken).getBytes(StandardCharsets.UTF_8),
+                                                          authorization.getBytes(StandardCharsets.UTF_8))) {
+        throw new AuthException(path + " needs the admin token as 'Authorization: Bearer <token>' header");
+      }
+      return;
+    }
+    if (httpExchange.getRequestHeaders().containsKey("X-Forwarded-For")) {
+      throw new AuthException(path + " can only be called via a proxy if 'adminToken' is configured");
+    }
+    InetSocketAddress peer = httpExchange.getRemoteAddress();
+    if (peer == null || peer.getAddress() == null || !peer.getAddress().isLoopbackAddress()) {
+      throw new AuthException(path + " can only be called from localhost if 'adminToken' isn't configured");
+    }
+  }
+
+  /*
+   * The rules that take the most time (or are called most often, or match most often), as measured by RuleProfiler,
+   * and the rules that most often exceeded their RuleTimeBudget
+   * -> for internal use, see ensureAdminRequest()
+   */
+  private void handleTopRulesRequest(HttpExchange httpExchange, Map<String, String> params, HTTPServerConfig config) throws Exception {
+    ensureGetMethod(httpExchange, "/admin/rules/top");
+    ensureAdminRequest(httpExchange, "/admin/rules/top", config);
+    if (config.getRuleProfilingSampleRate() <= 0 && config.getRuleTimeBudgetMillis() <= 0) {
+      throw new BadRequestException("/admin/rules/top needs 'ruleProfilingSampleRate' or 'ruleTimeBudgetMillis' to be configured");
+    }
+    int limit;
+    try {
+      limit = Integer.parseInt(params.getOrDefault("limit", "20"));
+    } catch (NumberFormatException e) {
+      throw new BadRequestException("'limit' must be a number: " + params.get("limit"));
+    }
+    if (limit < 0) {
+      throw new BadRequestException("'limit' must not be negative: " + limit);
+    }
+    String sort = params.getOrDefault("sort", "time");
+    Comparator<RuleProfiler.RuleStats> order;
+    switch (sort) {
+      case "time": order = RuleProfiler.RuleStats.BY_TOTAL_TIME; break;
+      case "maxTime": order = RuleProfiler.RuleStats.BY_MAX_TIME; break;
+      case "calls": order = RuleProfiler.RuleStats.BY_CALLS; break;
+      case "matches": order = RuleProfiler.RuleStats.BY_MATCHES; break;
+      default: throw new BadRequestException("Unknown value for 'sort', use 'time', 'maxTime', 'calls', or 'matches': " + sort);
+    }
+    List<RuleProfiler.RuleStats> topRules = RuleProfiler.getTopRules(limit, params.get("language"), order);
+    StringWriter sw = new StringWriter();
+    try (JsonGenerator g = factory.createGenerator(sw)) {
+      g.writeStartObject();
+      g.writeNumberField("sampleRate", RuleProfiler.getSampleRate());
+      g.writeArrayFieldStart("rules");
+      for (RuleProfiler.RuleStats stats : topRules) {
+        g.writeStartObject();
+        g.writeStringField("language", stats.getLanguage());
+        g.writeStringField("ruleId", stats.getRuleId());
+        g.writeStringField("phase", stats.getPhase().name().toLowerCase());
+        g.writeNumberField("calls", stats.getCalls());
+        g.writeNumberField("totalMillis", stats.getTotalNanos() / 1_000_000.0);
+        g.writeNumberField("maxMillis", stats.getMaxNanos() / 1_000_000.0);
+        g.writeNumberField("matches", stats.getMatches());
+        g.writeEndObject();
+      }
+      g.writeEndArray();
+      g.writeArrayFieldStart("budgetExceeded");
+      for (RuleTimeBudget.BudgetStats stats : RuleTimeBudget.getExceededRules(limit, params.get("language"))) {
+        g.writeStartObject();
+        g.writeStringField("language", stats.getLanguage());
+        g.writeStringField("ruleId", stats.getRuleId());
+        g.writeStringField("phase", stats.getPhase().name().toLowerCase());
+        g.writeNumberField("exceeded", stats.getExceeded());
+        g.writeNumberField("skipped", stats.getSkipped());
+        g.writeEndObject();
+      }
+      g.writeEndArray();
+      g.writeEndObject();
+    }
+    sendJson(httpExchange, sw);
+  }
+
   /*
    * Provide information on user that requests this, e.g. for add-on to acquire token + other information
    * Expects user + password via HTTP Basic Auth
@@ -493,7 +611,7 @@ class ApiV2 {
     StringWriter sw = new StringWriter();
     JLanguageTool lt = new JLanguageTool(lang);
     if (textChecker.config.languageModelDir != null) {
-      lt.activateLanguageModelRules(textChecker.config.languageModelDir);
+      LanguageModelCaches.activateLanguageModelRules(lt, lang, textChecker.config);
     }
     if (textChecker.config.word2vecModelDir != null) {
       lt.activateWord2VecModelRules(textChecker.config.word2vecModelDir);
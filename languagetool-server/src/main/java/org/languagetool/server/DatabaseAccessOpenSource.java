@@ -74,7 +74,7 @@ class DatabaseAccessOpenSource extends DatabaseAccess {
           }
         }));
 
-        DatabaseLogger.init(sqlSessionFactory);
+        DatabaseLogger.init(sqlSessionFactory, config);
         if (!config.getDatabaseLogging()) {
           logger.info("dbLogging not set to true, turning off logging");
           DatabaseLogger.getInstance().disableLogging();
@@ -24,25 +24,44 @@ package org.languagetool.server;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
+import org.languagetool.server.ServerMetricsCollector.DatabaseLogDropReason;
 
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Writes log entries to the database asynchronously. Entries are kept in a bounded queue
+ * (see {@link DropPolicy} for what happens when it's full) and written by one or more
+ * writer threads in JDBC batches, committed when the batch size is reached or the flush
+ * interval has elapsed since the first entry of the batch.
  * @since 4.3
  */
 class DatabaseLogger {
 
+  /**
+   * What to do with a new entry when the queue is full.
+   * @since 5.6
+   */
+  enum DropPolicy {
+    /** discard the new entry */
+    NEWEST,
+    /** discard the oldest entry in the queue to make room for the new one */
+    OLDEST
+  }
+
   // package private for mocking in tests
   static DatabaseLogger instance = null;
 
-  // smaller numbers used for tests
-  static final int POLLING_TIME = 1000;
-  static int SQL_BATCH_SIZE = 1000;
-  static int SQL_BATCH_WAITING_TIME = 10000; // milliseconds to wait until batch gets committed anyway
-  
-  private static final int MAX_QUEUE_SIZE = 50000; // drop entries after limit is reached, to avoid running out of memory
+  static final int DEFAULT_QUEUE_SIZE = 50000; // drop entries after limit is reached, to avoid running out of memory
+  static final int DEFAULT_BATCH_SIZE = 1000;
+  static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 10000; // milliseconds to wait until batch gets committed anyway
+
+  private static final int DROP_REPORT_INTERVAL = 1000; // print only every n-th discarded entry
+  private static final int MAX_WRITE_ATTEMPTS = 2;
 
   /**
    * @return an instance that will be disabled until initialized by DatabaseAccess
@@ -58,67 +77,84 @@ class DatabaseLogger {
    * called by DatabaseAccess.init
    * @param factory shared factory from DatabaseAccess
    */
-  static void init(SqlSessionFactory factory) {
-    getInstance().start(factory);
+  static void init(SqlSessionFactory factory, HTTPServerConfig config) {
+    DatabaseLogger logger = getInstance();
+    logger.configure(factory, config.getDbLogQueueSize(), config.getDbLogDropPolicy(),
+      config.getDbLogBatchSize(), config.getDbLogFlushIntervalMillis());
+    logger.start(config.getDbLogWriterThreads());
   }
 
-  private class WorkerThread extends Thread {
+  private class WriterThread extends Thread {
+    WriterThread(int number) {
+      super("DatabaseLogger-writer-" + number);
+    }
+
     @Override
     public void run() {
-      try (SqlSession session = sessionFactory.openSession(ExecutorType.BATCH, false)) {
-        while (!Thread.currentThread().isInterrupted()) {
-          int batchSize = 0;
-          long batchTime = System.currentTimeMillis();
-          // commit when batch size is reached or after waiting period elapsed
-          while(!Thread.currentThread().isInterrupted()
-            && batchSize < SQL_BATCH_SIZE
-            && System.currentTimeMillis() - batchTime < SQL_BATCH_WAITING_TIME)  {
-            if (messages.size() > SQL_BATCH_SIZE) {
-              ServerTools.print(String.format("Logging queue filling up: %d entries", messages.size()));
-            }
-            // polling to be able to react when waiting time has elapsed
-            DatabaseLogEntry entry = messages.poll(POLLING_TIME, TimeUnit.MILLISECONDS);
-            if (entry == null) {
-              continue;
-            }
-            batchSize++;
-            session.insert(entry.getMappingIdentifier(), entry.getMapping());
-            DatabaseLogEntry followup = entry.followup();
-            if (followup != null) { // followup statements need to be inserted directly afterwards, dependant on e.g. generated primary keys
-              session.insert(followup.getMappingIdentifier(), followup.getMapping());
-              batchSize++;
-            }
-          }
-          session.commit();
+      List<DatabaseLogEntry> batch = new ArrayList<>(batchSize);
+      while (!isInterrupted()) {
+        try {
+          collectBatch(batch);
+        } catch (InterruptedException e) {
+          interrupt();
         }
-      } catch (Exception e) {
-        e.printStackTrace();
-        if (!Thread.currentThread().isInterrupted()) {
-          new WorkerThread().start();
+        if (!batch.isEmpty()) {
+          write(batch);
+          batch.clear();
         }
       }
     }
   }
 
-  private final BlockingQueue<DatabaseLogEntry> messages = new LinkedBlockingQueue<>();
+  private final AtomicInteger pending = new AtomicInteger(); // queued or being written
+  private final AtomicLong dropped = new AtomicLong();
+  private final List<WriterThread> writers = new ArrayList<>();
+  private volatile BlockingQueue<DatabaseLogEntry> messages = null;
+  private DropPolicy dropPolicy = DropPolicy.NEWEST;
+  private int batchSize = DEFAULT_BATCH_SIZE;
+  private long flushIntervalMillis = DEFAULT_FLUSH_INTERVAL_MILLIS;
   private SqlSessionFactory sessionFactory = null;
-  private WorkerThread worker = null;
-  private boolean disabled = true;
+  private volatile boolean disabled = true;
+
+  // package private for tests
+  DatabaseLogger() {
+  }
 
-  private DatabaseLogger() {
+  /**
+   * Set up the queue. Entries are only written to the database after {@link #start(int)}.
+   */
+  void configure(SqlSessionFactory factory, int queueSize, DropPolicy dropPolicy, int batchSize, long flushIntervalMillis) {
+    this.sessionFactory = factory;
+    this.messages = new ArrayBlockingQueue<>(queueSize);
+    this.dropPolicy = Objects.requireNonNull(dropPolicy);
+    this.batchSize = batchSize;
+    this.flushIntervalMillis = flushIntervalMillis;
   }
 
-  private void start(SqlSessionFactory factory) {
-    sessionFactory = factory;
+  /**
+   * Start {@code writerThreads} threads writing the queued entries to the database.
+   */
+  synchronized void start(int writerThreads) {
     disabled = false;
-    worker = new WorkerThread();
-    worker.start();
+    for (int i = 0; i < writerThreads; i++) {
+      WriterThread writer = new WriterThread(i + 1);
+      writers.add(writer);
+      writer.start();
+    }
   }
 
-  public void disableLogging() {
+  public synchronized void disableLogging() {
     this.disabled = true;
-    if (worker != null) {
-      worker.interrupt();
+    for (WriterThread writer : writers) {
+      writer.interrupt();
+    }
+    writers.clear();
+    // nobody writes the queued entries anymore:
+    BlockingQueue<DatabaseLogEntry> queue = messages;
+    if (queue != null) {
+      List<DatabaseLogEntry> discarded = new ArrayList<>();
+      queue.drainTo(discarded);
+      pending.addAndGet(-discarded.size());
     }
   }
 
@@ -127,28 +163,121 @@ class DatabaseLogger {
   }
 
   public void log(DatabaseLogEntry entry) {
+    if (!disabled) {
+      offer(entry);
+    }
+  }
+
+  /**
+   * Add an entry to the queue, dropping an entry according to the {@link DropPolicy} if the queue is full.
+   */
+  void offer(DatabaseLogEntry entry) {
+    BlockingQueue<DatabaseLogEntry> queue = messages;
+    pending.incrementAndGet();
+    while (!queue.offer(entry)) {
+      if (dropPolicy == DropPolicy.NEWEST || queue.poll() != null) {
+        pending.decrementAndGet();
+        if (dropped.getAndIncrement() % DROP_REPORT_INTERVAL == 0) {
+          ServerTools.print("Logging queue has reached size limit of " + (queue.size() + queue.remainingCapacity()) +
+            "; discarding " + (dropPolicy == DropPolicy.NEWEST ? "new" : "old") + " messages.");
+        }
+        ServerMetricsCollector.getInstance().logDatabaseLogDropped(DatabaseLogDropReason.QUEUE_FULL, 1);
+        if (dropPolicy == DropPolicy.NEWEST) {
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Wait for the first entry, then collect more entries until {@code batchSize}
+   * is reached or {@code flushIntervalMillis} have elapsed.
+   */
+  private void collectBatch(List<DatabaseLogEntry> batch) throws InterruptedException {
+    BlockingQueue<DatabaseLogEntry> queue = messages;
+    batch.add(queue.take());
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+    while (batch.size() < batchSize) {
+      if (queue.drainTo(batch, batchSize - batch.size()) == 0) {
+        long remaining = deadline - System.nanoTime();
+        DatabaseLogEntry entry = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+        if (entry == null) {
+          break;
+        }
+        batch.add(entry);
+      }
+    }
+    ServerMetricsCollector.getInstance().logDatabaseLogQueueSize(queue.size());
+  }
+
+  /**
+   * Write the entries in one transaction. Entries without followup are grouped by their statement
+   * so that each statement becomes a single JDBC batch. Entries with followup are written afterwards
+   * in their original order, each directly followed by its followup, as that may depend on e.g.
+   * generated primary keys. A batch that fails (e.g. as a deadlock victim of a parallel writer)
+   * is tried once more before its entries are dropped.
+   */
+  private void write(List<DatabaseLogEntry> batch) {
+    long startTime = System.nanoTime();
+    // a fixed order of statements, so parallel writers lock tables in the same order:
+    Map<String, List<Map<Object, Object>>> byStatement = new TreeMap<>();
+    List<DatabaseLogEntry> withFollowup = new ArrayList<>();
+    List<DatabaseLogEntry> followups = new ArrayList<>();
+    for (DatabaseLogEntry entry : batch) {
+      DatabaseLogEntry followup = entry.followup();
+      if (followup == null) {
+        byStatement.computeIfAbsent(entry.getMappingIdentifier(), k -> new ArrayList<>()).add(entry.getMapping());
+      } else {
+        withFollowup.add(entry);
+        followups.add(followup);
+      }
+    }
     try {
-      if (!disabled) {
-        if (messages.size() < MAX_QUEUE_SIZE) {
-          messages.put(entry);
-        } else {
-          ServerTools.print("Logging queue has reached size limit; discarding new messages.");
+      for (int attempt = 1; ; attempt++) {
+        try (SqlSession session = sessionFactory.openSession(ExecutorType.BATCH, false)) {
+          for (Map.Entry<String, List<Map<Object, Object>>> statement : byStatement.entrySet()) {
+            for (Map<Object, Object> mapping : statement.getValue()) {
+              session.insert(statement.getKey(), mapping);
+            }
+          }
+          for (int i = 0; i < withFollowup.size(); i++) {
+            DatabaseLogEntry entry = withFollowup.get(i);
+            session.insert(entry.getMappingIdentifier(), entry.getMapping());
+            DatabaseLogEntry followup = followups.get(i);
+            session.insert(followup.getMappingIdentifier(), followup.getMapping());
+          }
+          session.commit();
+          break;
+        } catch (Exception e) {
+          if (attempt >= MAX_WRITE_ATTEMPTS) {
+            ServerTools.print("Could not write " + batch.size() + " log entries to the database: " + e);
+            ServerMetricsCollector.getInstance().logDatabaseLogDropped(DatabaseLogDropReason.WRITE_ERROR, batch.size());
+            break;
+          }
         }
       }
-    } catch (InterruptedException e) {
-      e.printStackTrace();
+    } finally {
+      pending.addAndGet(-batch.size());
     }
+    ServerMetricsCollector.getInstance().logDatabaseLogFlush(System.nanoTime() - startTime);
+  }
+
+  /**
+   * @return the number of entries discarded because the queue was full
+   * @since 5.6
+   */
+  long getDroppedCount() {
+    return dropped.get();
   }
 
   /**
-   * For testing; wait until queue is empty.
+   * For testing; wait until all entries have been written, or logging has been disabled.
    */
   public void flush() {
     try {
-      while (messages.peek() != null) {
-          Thread.sleep(100);
+      while (pending.get() > 0 && !disabled) {
+        Thread.sleep(10);
       }
-      Thread.sleep(SQL_BATCH_WAITING_TIME + 5000);
     } catch (InterruptedException e) {
       throw new RuntimeException(e);
     }
@@ -22,7 +22,6 @@ import org.languagetool.JLanguageTool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -60,10 +59,7 @@ class ErrorRequestLimiter extends RequestLimiter {
    * @param params the request's query parameters
    */
   void logAccess(String ipAddress, Map<String, List<String>> httpHeader, Map<String, String> params) {
-    while (requestEvents.size() > REQUEST_QUEUE_SIZE) {
-      requestEvents.remove(0);
-    }
-    requestEvents.add(new RequestEvent(ipAddress, new Date(), 0, computeFingerprint(httpHeader, params), JLanguageTool.Mode.ALL));
+    recordRequest(ipAddress, computeFingerprint(httpHeader, params), 0, JLanguageTool.Mode.ALL);
   }
   
 }
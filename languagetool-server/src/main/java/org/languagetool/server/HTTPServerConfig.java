@@ -71,9 +71,13 @@ public class HTTPServerConfig {
   protected long maxCheckTimeMillisPremium = -1;
   protected int maxCheckThreads = 10;
   protected int maxTextCheckerThreads; // default to same value as maxCheckThreads
+  protected int sentenceCheckThreads = 0;
+  protected int sentenceCheckChunkSize = 20;
   protected int textCheckerQueueSize = 8;
   protected Mode mode;
   protected File languageModelDir = null;
+  protected long ngramCacheSize = 0;
+  protected long taggerCacheSize = 0;
   protected File word2vecModelDir = null;
   protected boolean pipelineCaching = false;
   protected boolean pipelinePrewarming = false;
@@ -82,6 +86,7 @@ public class HTTPServerConfig {
   protected int pipelineExpireTime;
   protected File fasttextModel = null;
   protected File fasttextBinary = null;
+  protected int fasttextProcesses = 1;
   protected File neuralNetworkModelDir = null;
   protected int requestLimit;
   protected int requestLimitInBytes;
@@ -96,6 +101,9 @@ public class HTTPServerConfig {
   protected File remoteRulesConfigFile = null;
   protected int cacheSize = 0;
   protected long cacheTTLSeconds = 300;
+  protected long cacheOffHeapSizeMB = 0;
+  protected File cacheSnapshotFile = null;
+  protected String adminToken = null;
   protected float maxErrorsPerWordRate = 0;
   protected int maxSpellingSuggestions = 0;
   protected List<String> blockedReferrers = new ArrayList<>();
@@ -134,6 +142,11 @@ public class HTTPServerConfig {
   protected int databaseDownIntervalSeconds = 10;
 
   protected boolean dbLogging;
+  protected int dbLogQueueSize = DatabaseLogger.DEFAULT_QUEUE_SIZE;
+  protected DatabaseLogger.DropPolicy dbLogDropPolicy = DatabaseLogger.DropPolicy.NEWEST;
+  protected int dbLogBatchSize = DatabaseLogger.DEFAULT_BATCH_SIZE;
+  protected long dbLogFlushIntervalMillis = DatabaseLogger.DEFAULT_FLUSH_INTERVAL_MILLIS;
+  protected int dbLogWriterThreads = 1;
   protected boolean prometheusMonitoring = false;
   protected int prometheusPort = 9301;
   protected GlobalConfig globalConfig = new GlobalConfig();
@@ -168,6 +181,8 @@ public class HTTPServerConfig {
   protected boolean skipLoggingChecks = false;
 
   protected int slowRuleLoggingThreshold = -1; // threshold in milliseconds, used by SlowRuleLogger; < 0 - disabled
+  protected int ruleProfilingSampleRate = 0; // 0 - disabled, n - measure every n-th rule call, see RuleProfiler
+  protected long ruleTimeBudgetMillis = 0; // 0 - disabled, see RuleTimeBudget
 
   protected String abTest = null;
   protected Pattern abTestClients = null;
@@ -175,9 +190,9 @@ public class HTTPServerConfig {
   protected File ngramLangIdentData;
 
   private static final List<String> KNOWN_OPTION_KEYS = Arrays.asList("abTest", "abTestClients", "abTestRollout",
-    "beolingusFile", "blockedReferrers", "cacheSize", "cacheTTLSeconds",
-    "dbDriver", "dbPassword", "dbUrl", "dbUsername", "disabledRuleIds", "fasttextBinary", "fasttextModel", "grammalectePassword",
-    "grammalecteServer", "grammalecteUser", "ipFingerprintFactor", "languageModel", "maxCheckThreads", "maxTextCheckerThreads", "textCheckerQueueSize", "maxCheckTimeMillis",
+    "beolingusFile", "blockedReferrers", "cacheSize", "cacheTTLSeconds", "cacheOffHeapSizeMB", "cacheSnapshotFile",
+    "adminToken", "dbDriver", "dbPassword", "dbUrl", "dbUsername", "disabledRuleIds", "fasttextBinary", "fasttextModel", "fasttextProcesses", "grammalectePassword",
+    "grammalecteServer", "grammalecteUser", "ipFingerprintFactor", "languageModel", "ngramCacheSize", "taggerCacheSize", "maxCheckThreads", "maxTextCheckerThreads", "sentenceCheckThreads", "sentenceCheckChunkSize", "textCheckerQueueSize", "maxCheckTimeMillis",
     "maxCheckTimeWithApiKeyMillis", "maxErrorsPerWordRate", "maxPipelinePoolSize", "maxSpellingSuggestions", "maxTextHardLength",
     "maxTextLength", "maxTextLengthWithApiKey", "maxWorkQueueSize", "neuralNetworkModel", "pipelineCaching",
     "pipelineExpireTimeInSeconds", "pipelinePrewarming", "prometheusMonitoring", "prometheusPort", "remoteRulesFile",
@@ -192,7 +207,8 @@ public class HTTPServerConfig {
     "premiumAlways",
     "redisPassword", "redisHost", "redisCertificate", "redisKey", "redisKeyPassword",
     "redisUseSentinel", "sentinelHost", "sentinelPort", "sentinelPassword", "sentinelMasterId",
-    "dbLogging", "premiumOnly", "nerUrl");
+    "dbLogging", "dbLogQueueSize", "dbLogDropPolicy", "dbLogBatchSize", "dbLogFlushIntervalMillis", "dbLogWriterThreads",
+    "premiumOnly", "nerUrl", "ruleProfilingSampleRate", "ruleTimeBudgetMillis");
 
   /**
    * Create a server configuration for the default port ({@link #DEFAULT_PORT}).
@@ -334,6 +350,15 @@ public class HTTPServerConfig {
         if (langModel != null && loadLangModel) {
           setLanguageModelDirectory(langModel);
         }
+        ngramCacheSize = Long.parseLong(getOptionalProperty(props, "ngramCacheSize", "0"));
+        if (ngramCacheSize < 0) {
+          throw new IllegalArgumentException("Invalid value for ngramCacheSize, must be >= 0: " + ngramCacheSize);
+        }
+        taggerCacheSize = Long.parseLong(getOptionalProperty(props, "taggerCacheSize", "0"));
+        if (taggerCacheSize < 0) {
+          throw new IllegalArgumentException("Invalid value for taggerCacheSize, must be >= 0: " + taggerCacheSize);
+        }
+        globalConfig.setTaggerCacheSize(taggerCacheSize);
         String word2vecModel = getOptionalProperty(props, "word2vecModel", null);
         if (word2vecModel != null && loadWord2VecModel) {
           setWord2VecModelDirectory(word2vecModel);
@@ -347,6 +372,10 @@ public class HTTPServerConfig {
         if (fasttextBinary != null && fasttextModel != null) {
           setFasttextPaths(fasttextModel, fasttextBinary);
         }
+        fasttextProcesses = Integer.parseInt(getOptionalProperty(props, "fasttextProcesses", "1"));
+        if (fasttextProcesses < 1) {
+          throw new IllegalArgumentException("Invalid value for fasttextProcesses, must be >= 1: " + fasttextProcesses);
+        }
         maxCheckThreads = Integer.parseInt(getOptionalProperty(props, "maxCheckThreads", "10"));
         if (maxCheckThreads < 1) {
           throw new IllegalArgumentException("Invalid value for maxCheckThreads, must be >= 1: " + maxCheckThreads);
@@ -356,6 +385,14 @@ public class HTTPServerConfig {
         if (maxTextCheckerThreads < 0) {
           throw new IllegalArgumentException("Invalid value for maxTextCheckerThreads, must be >= 1: " + maxTextCheckerThreads);
         }
+        sentenceCheckThreads = Integer.parseInt(getOptionalProperty(props, "sentenceCheckThreads", "0"));
+        if (sentenceCheckThreads < 0) {
+          throw new IllegalArgumentException("Invalid value for sentenceCheckThreads, must be >= 0: " + sentenceCheckThreads);
+        }
+        sentenceCheckChunkSize = Integer.parseInt(getOptionalProperty(props, "sentenceCheckChunkSize", "20"));
+        if (sentenceCheckChunkSize < 1) {
+          throw new IllegalArgumentException("Invalid value for sentenceCheckChunkSize, must be >= 1: " + sentenceCheckChunkSize);
+        }
         textCheckerQueueSize = Integer.parseInt(getOptionalProperty(props, "textCheckerQueueSize", "8"));
         if (textCheckerQueueSize < 0) {
           throw new IllegalArgumentException("Invalid value for textCheckerQueueSize, must be >= 1: " + textCheckerQueueSize);
@@ -387,6 +424,21 @@ public class HTTPServerConfig {
           throw new IllegalArgumentException("Use of cacheTTLSeconds without also setting cacheSize has no effect.");
         }
         cacheTTLSeconds = Integer.parseInt(getOptionalProperty(props, "cacheTTLSeconds", "300"));
+        cacheOffHeapSizeMB = Long.parseLong(getOptionalProperty(props, "cacheOffHeapSizeMB", "0"));
+        if (cacheOffHeapSizeMB < 0) {
+          throw new IllegalArgumentException("Invalid value for cacheOffHeapSizeMB: " + cacheOffHeapSizeMB + ", use 0 to keep matches on the heap");
+        }
+        if (props.containsKey("cacheOffHeapSizeMB") && !props.containsKey("cacheSize")) {
+          throw new IllegalArgumentException("Use of cacheOffHeapSizeMB without also setting cacheSize has no effect.");
+        }
+        String cacheSnapshotFilePath = getOptionalProperty(props, "cacheSnapshotFile", null);
+        if (cacheSnapshotFilePath != null) {
+          if (!props.containsKey("cacheSize")) {
+            throw new IllegalArgumentException("Use of cacheSnapshotFile without also setting cacheSize has no effect.");
+          }
+          cacheSnapshotFile = new File(cacheSnapshotFilePath);
+        }
+        adminToken = getOptionalProperty(props, "adminToken", null);
         if (props.containsKey("warmUp")) {
           System.err.println("Setting ignored: 'warmUp'. Look into using pipelineCaching and pipelinePrewarming instead.");
         }
@@ -449,7 +501,37 @@ public class HTTPServerConfig {
         if (dbLogging && (dbDriver == null || dbUrl == null || dbUsername == null || dbPassword == null)) {
           throw new IllegalArgumentException("dbLogging can only be true if dbDriver, dbUrl, dbUsername, and dbPassword are all set");
         }
+        dbLogQueueSize = Integer.parseInt(getOptionalProperty(props, "dbLogQueueSize", String.valueOf(DatabaseLogger.DEFAULT_QUEUE_SIZE)));
+        if (dbLogQueueSize < 1) {
+          throw new IllegalArgumentException("Invalid value for dbLogQueueSize, must be >= 1: " + dbLogQueueSize);
+        }
+        String dropPolicy = getOptionalProperty(props, "dbLogDropPolicy", "newest").trim();
+        try {
+          dbLogDropPolicy = DatabaseLogger.DropPolicy.valueOf(dropPolicy.toUpperCase());
+        } catch (IllegalArgumentException e) {
+          throw new IllegalArgumentException("Invalid value for dbLogDropPolicy, use 'newest' or 'oldest': " + dropPolicy);
+        }
+        dbLogBatchSize = Integer.parseInt(getOptionalProperty(props, "dbLogBatchSize", String.valueOf(DatabaseLogger.DEFAULT_BATCH_SIZE)));
+        if (dbLogBatchSize < 1) {
+          throw new IllegalArgumentException("Invalid value for dbLogBatchSize, must be >= 1: " + dbLogBatchSize);
+        }
+        dbLogFlushIntervalMillis = Long.parseLong(getOptionalProperty(props, "dbLogFlushIntervalMillis", String.valueOf(DatabaseLogger.DEFAULT_FLUSH_INTERVAL_MILLIS)));
+        if (dbLogFlushIntervalMillis < 0) {
+          throw new IllegalArgumentException("Invalid value for dbLogFlushIntervalMillis, must be >= 0: " + dbLogFlushIntervalMillis);
+        }
+        dbLogWriterThreads = Integer.parseInt(getOptionalProperty(props, "dbLogWriterThreads", "1"));
+        if (dbLogWriterThreads < 1) {
+          throw new IllegalArgumentException("Invalid value for dbLogWriterThreads, must be >= 1: " + dbLogWriterThreads);
+        }
         slowRuleLoggingThreshold = Integer.valueOf(getOptionalProperty(props, "slowRuleLoggingThreshold", "-1"));
+        ruleProfilingSampleRate = Integer.parseInt(getOptionalProperty(props, "ruleProfilingSampleRate", "0"));
+        if (ruleProfilingSampleRate < 0) {
+          throw new IllegalArgumentException("Invalid value for ruleProfilingSampleRate, must be >= 0: " + ruleProfilingSampleRate);
+        }
+        ruleTimeBudgetMillis = Long.parseLong(getOptionalProperty(props, "ruleTimeBudgetMillis", "0"));
+        if (ruleTimeBudgetMillis < 0) {
+          throw new IllegalArgumentException("Invalid value for ruleTimeBudgetMillis, must be >= 0: " + ruleTimeBudgetMillis);
+        }
         disabledRuleIds = Arrays.asList(getOptionalProperty(props, "disabledRuleIds", "").split(",\\s*"));
         globalConfig.setGrammalecteServer(getOptionalProperty(props, "grammalecteServer", null));
         globalConfig.setGrammalecteUser(getOptionalProperty(props, "grammalecteUser", null));
@@ -484,7 +566,7 @@ public class HTTPServerConfig {
         if (ngramLangIdentData != null) {
           File dir = new File(ngramLangIdentData);
           if (!dir.exists() || dir.isDirectory()) {
-            throw new IllegalArgumentException("ngramLangIdentData does not exist or is a directory (needs to be a ZIP file): " + ngramLangIdentData);
+            throw new IllegalArgumentException("ngramLangIdentData does not exist or is a directory (needs to be a ZIP file or a binary model file): " + ngramLangIdentData);
           }
           setNgramLangIdentData(dir);
         }
@@ -831,6 +913,84 @@ public class HTTPServerConfig {
     fasttextBinary = Objects.requireNonNull(binary);
   }
 
+  /**
+   * Number of fasttext processes used for language detection.
+   * @since 5.6
+   */
+  public int getFasttextProcesses() {
+    return fasttextProcesses;
+  }
+
+  /**
+   * @since 5.6
+   */
+  public void setFasttextProcesses(int fasttextProcesses) {
+    this.fasttextProcesses = fasttextProcesses;
+  }
+
+  /**
+   * Maximum number of ngram occurrence counts cached per language model, 0 to disable caching.
+   * @since 5.6
+   */
+  public long getNgramCacheSize() {
+    return ngramCacheSize;
+  }
+
+  /**
+   * @since 5.6
+   */
+  public void setNgramCacheSize(long ngramCacheSize) {
+    this.ngramCacheSize = ngramCacheSize;
+  }
+
+  /**
+   * Maximum number of words whose readings are cached per tagger, 0 to disable caching.
+   * @since 5.6
+   */
+  public long getTaggerCacheSize() {
+    return taggerCacheSize;
+  }
+
+  /**
+   * @since 5.6
+   */
+  public void setTaggerCacheSize(long taggerCacheSize) {
+    this.taggerCacheSize = taggerCacheSize;
+    globalConfig.setTaggerCacheSize(taggerCacheSize);
+  }
+
+  /**
+   * Number of threads in the pool shared by all checks to check the sentences of long texts
+   * in parallel, 0 to check sentences sequentially.
+   * @since 5.6
+   */
+  public int getSentenceCheckThreads() {
+    return sentenceCheckThreads;
+  }
+
+  /**
+   * @since 5.6
+   */
+  public void setSentenceCheckThreads(int sentenceCheckThreads) {
+    this.sentenceCheckThreads = sentenceCheckThreads;
+  }
+
+  /**
+   * Number of sentences checked together by one thread if {@link #getSentenceCheckThreads()} is &gt; 0.
+   * Texts with no more sentences than this are checked sequentially.
+   * @since 5.6
+   */
+  public int getSentenceCheckChunkSize() {
+    return sentenceCheckChunkSize;
+  }
+
+  /**
+   * @since 5.6
+   */
+  public void setSentenceCheckChunkSize(int sentenceCheckChunkSize) {
+    this.sentenceCheckChunkSize = sentenceCheckChunkSize;
+  }
+
   /** @since 2.7 */
   Mode getMode() {
     return mode;
@@ -981,6 +1141,56 @@ public class HTTPServerConfig {
     this.cacheTTLSeconds = cacheTTLSeconds;
   }
 
+  /**
+   * Size limit in megabytes for the rule matches in the cache, which are then kept serialized outside
+   * the Java heap. 0 means the matches are kept on the heap, limited only by {@link #getCacheSize()}.
+   * @since 5.6
+   */
+  long getCacheOffHeapSizeMB() {
+    return cacheOffHeapSizeMB;
+  }
+
+  /**
+   * @since 5.6
+   */
+  void setCacheOffHeapSizeMB(long cacheOffHeapSizeMB) {
+    this.cacheOffHeapSizeMB = cacheOffHeapSizeMB;
+  }
+
+  /**
+   * File that the matches cache is saved to on shutdown and loaded from on startup, or {@code null}.
+   * @since 5.6
+   */
+  @Nullable
+  File getCacheSnapshotFile() {
+    return cacheSnapshotFile;
+  }
+
+  /**
+   * @since 5.6
+   */
+  void setCacheSnapshotFile(File cacheSnapshotFile) {
+    this.cacheSnapshotFile = cacheSnapshotFile;
+  }
+
+  /**
+   * Token that requests to the {@code /v2/admin/...} endpoints for the server operator need to send
+   * as {@code Authorization: Bearer <token>} header, or {@code null} to only allow these requests
+   * from localhost without a proxy.
+   * @since 5.6
+   */
+  @Nullable
+  String getAdminToken() {
+    return adminToken;
+  }
+
+  /**
+   * @since 5.6
+   */
+  void setAdminToken(String adminToken) {
+    this.adminToken = adminToken;
+  }
+
   /**
    * Maximum errors per word rate, checking will stop if the rate is higher.
    * For example, with a rate of 0.33, the checking would stop if the user's
@@ -1114,6 +1324,81 @@ public class HTTPServerConfig {
     return this.dbLogging;
   }
 
+  /**
+   * Maximum number of entries waiting to be written to the database, see {@link #getDbLogDropPolicy()}.
+   * @since 5.6
+   */
+  int getDbLogQueueSize() {
+    return dbLogQueueSize;
+  }
+
+  /**
+   * @since 5.6
+   */
+  void setDbLogQueueSize(int dbLogQueueSize) {
+    this.dbLogQueueSize = dbLogQueueSize;
+  }
+
+  /**
+   * Which entries are discarded when more than {@link #getDbLogQueueSize()} entries are waiting.
+   * @since 5.6
+   */
+  DatabaseLogger.DropPolicy getDbLogDropPolicy() {
+    return dbLogDropPolicy;
+  }
+
+  /**
+   * @since 5.6
+   */
+  void setDbLogDropPolicy(DatabaseLogger.DropPolicy dbLogDropPolicy) {
+    this.dbLogDropPolicy = dbLogDropPolicy;
+  }
+
+  /**
+   * Maximum number of entries written to the database in one transaction.
+   * @since 5.6
+   */
+  int getDbLogBatchSize() {
+    return dbLogBatchSize;
+  }
+
+  /**
+   * @since 5.6
+   */
+  void setDbLogBatchSize(int dbLogBatchSize) {
+    this.dbLogBatchSize = dbLogBatchSize;
+  }
+
+  /**
+   * Maximum time in milliseconds that log entries wait for their batch to fill up before it's written anyway.
+   * @since 5.6
+   */
+  long getDbLogFlushIntervalMillis() {
+    return dbLogFlushIntervalMillis;
+  }
+
+  /**
+   * @since 5.6
+   */
+  void setDbLogFlushIntervalMillis(long dbLogFlushIntervalMillis) {
+    this.dbLogFlushIntervalMillis = dbLogFlushIntervalMillis;
+  }
+
+  /**
+   * Number of threads writing log entries to the database in parallel.
+   * @since 5.6
+   */
+  int getDbLogWriterThreads() {
+    return dbLogWriterThreads;
+  }
+
+  /**
+   * @since 5.6
+   */
+  void setDbLogWriterThreads(int dbLogWriterThreads) {
+    this.dbLogWriterThreads = dbLogWriterThreads;
+  }
+
 
   /**
    * timeout for database requests (for now, only requests for credentials to log in)
@@ -1253,6 +1538,37 @@ public class HTTPServerConfig {
     return slowRuleLoggingThreshold;
   }
 
+  /**
+   * @return 0 if the time spent in rules is not measured, n if every n-th rule call (on average) is measured
+   * @since 5.6
+   */
+  public int getRuleProfilingSampleRate() {
+    return ruleProfilingSampleRate;
+  }
+
+  /**
+   * @since 5.6
+   */
+  public void setRuleProfilingSampleRate(int ruleProfilingSampleRate) {
+    this.ruleProfilingSampleRate = ruleProfilingSampleRate;
+  }
+
+  /**
+   * @return the maximum time in milliseconds for a rule to check one sentence (or to calculate its spelling
+   * suggestions), 0 for no limit. Rules that exceed it often are skipped for a while.
+   * @since 5.6
+   */
+  public long getRuleTimeBudgetMillis() {
+    return ruleTimeBudgetMillis;
+  }
+
+  /**
+   * @since 5.6
+   */
+  public void setRuleTimeBudgetMillis(long ruleTimeBudgetMillis) {
+    this.ruleTimeBudgetMillis = ruleTimeBudgetMillis;
+  }
+
   /**
    * @since 4.5
    */
@@ -0,0 +1,72 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.jetbrains.annotations.Nullable;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.languagemodel.BaseLanguageModel;
+import org.languagetool.languagemodel.CachingLanguageModel;
+import org.languagetool.languagemodel.LanguageModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Wraps the ngram language models with a {@link CachingLanguageModel} if configured
+ * via {@code ngramCacheSize}. There's one cache per model, shared by all pipelines.
+ * @since 5.6
+ */
+final class LanguageModelCaches {
+
+  // keyed by identity, as the languages keep only one model instance per index anyway:
+  private static final Map<LanguageModel, CachingLanguageModel> cachedModels = new IdentityHashMap<>();
+
+  private LanguageModelCaches() {
+  }
+
+  /**
+   * Like {@link JLanguageTool#activateLanguageModelRules(File)}, but uses a cached model
+   * if {@link HTTPServerConfig#getNgramCacheSize()} is &gt; 0.
+   */
+  static void activateLanguageModelRules(JLanguageTool lt, Language lang, HTTPServerConfig config) throws IOException {
+    File indexDir = config.getLanguageModelDir();
+    if (config.getNgramCacheSize() > 0) {
+      lt.activateLanguageModelRules(getLanguageModel(lang, indexDir, config.getNgramCacheSize()));
+    } else {
+      lt.activateLanguageModelRules(indexDir);
+    }
+  }
+
+  @Nullable
+  static synchronized LanguageModel getLanguageModel(Language lang, File indexDir, long cacheSize) throws IOException {
+    LanguageModel model = lang.getLanguageModel(indexDir);
+    if (!(model instanceof BaseLanguageModel)) {
+      return model;
+    }
+    return cachedModels.computeIfAbsent(model, k -> {
+      CachingLanguageModel cachingModel = new CachingLanguageModel((BaseLanguageModel) k, cacheSize);
+      ServerMetricsCollector.getInstance().monitorCache("languagetool_ngram_cache_" + lang.getShortCodeWithCountryAndVariant(), cachingModel.getCache());
+      return cachingModel;
+    });
+  }
+
+}
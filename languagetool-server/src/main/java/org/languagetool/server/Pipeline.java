@@ -21,6 +21,7 @@ package org.languagetool.server;
 
 import org.jetbrains.annotations.NotNull;
 import org.languagetool.*;
+import org.languagetool.languagemodel.LanguageModel;
 import org.languagetool.rules.*;
 import org.languagetool.rules.patterns.AbstractPatternRule;
 import org.xml.sax.SAXException;
@@ -33,6 +34,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Wrapper for JLanguageTool instances that can be made immutable.
@@ -49,6 +51,7 @@ class Pipeline extends JLanguageTool {
   }
 
   private boolean setup = false;
+  private Set<String> lockedRuleIds = Collections.emptySet();
 
   /**
    * Prevents any further changes after this method was called.
@@ -57,6 +60,24 @@ class Pipeline extends JLanguageTool {
    this.setup = true;
   }
 
+  /**
+   * Set the ids of the rules that must stay disabled, even if a request enables them
+   * with its {@link RuleSelection}.
+   * @since 5.6
+   */
+  void setLockedRuleIds(Set<String> ruleIds) {
+    preventModificationAfterSetup();
+    this.lockedRuleIds = Collections.unmodifiableSet(ruleIds);
+  }
+
+  /**
+   * @see #setLockedRuleIds(Set)
+   * @since 5.6
+   */
+  Set<String> getLockedRuleIds() {
+    return lockedRuleIds;
+  }
+
   Pipeline(Language language, List<Language> altLanguages, Language motherTongue, ResultCache cache, GlobalConfig globalConfig, UserConfig userConfig, boolean inputLogging) {
     super(language, altLanguages, motherTongue, cache, globalConfig, userConfig, inputLogging);
   }
@@ -79,6 +100,12 @@ class Pipeline extends JLanguageTool {
     super.setMaxErrorsPerWordRate(maxErrorsPerWordRate);
   }
 
+  @Override
+  public void setSentenceCheckExecutor(ExecutorService executor, int sentencesPerChunk) {
+    preventModificationAfterSetup();
+    super.setSentenceCheckExecutor(executor, sentencesPerChunk);
+  }
+
   @Override
   public void setOutput(PrintStream printStream) {
     preventModificationAfterSetup();
@@ -103,6 +130,12 @@ class Pipeline extends JLanguageTool {
     super.activateLanguageModelRules(indexDir);
   }
 
+  @Override
+  public void activateLanguageModelRules(LanguageModel languageModel) throws IOException {
+    preventModificationAfterSetup();
+    super.activateLanguageModelRules(languageModel);
+  }
+
   @Override
   public void activateWord2VecModelRules(File indexDir) throws IOException {
     preventModificationAfterSetup();
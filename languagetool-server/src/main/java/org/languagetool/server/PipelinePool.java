@@ -21,6 +21,7 @@
 
 package org.languagetool.server;
 
+import com.google.common.cache.Cache;
 import org.apache.commons.pool2.KeyedObjectPool;
 import org.apache.commons.pool2.KeyedPooledObjectFactory;
 import org.apache.commons.pool2.PooledObject;
@@ -33,15 +34,15 @@ import org.languagetool.rules.DictionaryMatchFilter;
 import org.languagetool.rules.DictionarySpellMatchFilter;
 import org.languagetool.rules.RemoteRuleConfig;
 import org.languagetool.rules.Rule;
-import org.languagetool.tools.Tools;
+import org.languagetool.tagging.BaseTagger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 /**
@@ -56,11 +57,16 @@ class PipelinePool implements KeyedPooledObjectFactory<PipelineSettings, Pipelin
   private final HTTPServerConfig config;
   private final ResultCache cache;
   private final boolean internalServer;
+  // shared by all pipelines, so long texts can be checked in parallel without a thread pool per pipeline:
+  private final ExecutorService sentenceCheckPool;
+  // taggers are shared by all pipelines of a language, their caches must only be registered once:
+  private final Set<Cache<String, ?>> monitoredTaggerCaches = ConcurrentHashMap.newKeySet();
 
   PipelinePool(HTTPServerConfig config, ResultCache cache, boolean internalServer) {
     this.internalServer = internalServer;
     this.config = config;
     this.cache = cache;
+    this.sentenceCheckPool = config.getSentenceCheckThreads() > 0 ? new ForkJoinPool(config.getSentenceCheckThreads()) : null;
     int maxPoolSize = config.getMaxPipelinePoolSize();
     if (config.isPipelineCachingEnabled()) {
       GenericKeyedObjectPoolConfig<Pipeline> poolConfig = new GenericKeyedObjectPoolConfig<>();
@@ -78,25 +84,40 @@ class PipelinePool implements KeyedPooledObjectFactory<PipelineSettings, Pipelin
 
   Pipeline getPipeline(PipelineSettings settings) throws Exception {
     if (pool == null) {
+      ServerMetricsCollector.getInstance().logPipelineRequest(ServerMetricsCollector.PipelineRequestResult.UNPOOLED);
       return createPipeline(settings.lang, settings.motherTongue, settings.query, settings.globalConfig, settings.userConfig, config.getDisabledRuleIds());
     } else {
       try {
         long time = System.currentTimeMillis();
         logger.info("Requesting pipeline; pool has {} active objects, {} idle; pipeline settings: {}",
           pool.getNumActive(), pool.getNumIdle(), settings);
+        // not exact with concurrent requests for the same settings, but good enough for metrics:
+        boolean idleAvailable = pool.getNumIdle(settings) > 0;
         Pipeline p = pool.borrowObject(settings);
+        ServerMetricsCollector.getInstance().logPipelineRequest(idleAvailable ?
+          ServerMetricsCollector.PipelineRequestResult.HIT : ServerMetricsCollector.PipelineRequestResult.MISS);
         logger.info("Fetching pipeline took {}ms; pool has {} active objects, {} idle; pipeline settings: {}",
           System.currentTimeMillis() - time, pool.getNumActive(), pool.getNumIdle(), settings);
         return p;
       } catch(NoSuchElementException ignored) {
         logger.info("Pipeline pool capacity reached: {} active objects, {} idle",
           pool.getNumActive(), pool.getNumIdle());
+        ServerMetricsCollector.getInstance().logPipelineRequest(ServerMetricsCollector.PipelineRequestResult.EXHAUSTED);
         return createPipeline(settings.lang, settings.motherTongue, settings.query, settings.globalConfig, settings.userConfig, config.getDisabledRuleIds());
       }
     }
   }
 
 
+  /**
+   * Stop the threads that check sentences in parallel, running checks get interrupted.
+   */
+  void shutdown() {
+    if (sentenceCheckPool != null) {
+      sentenceCheckPool.shutdownNow();
+    }
+  }
+
   void returnPipeline(PipelineSettings settings, Pipeline pipeline) throws Exception {
     if (pool == null) return;
     try {
@@ -110,6 +131,8 @@ class PipelinePool implements KeyedPooledObjectFactory<PipelineSettings, Pipelin
 
   /**
    * Create a JLanguageTool instance for a specific language, mother tongue, and rule configuration.
+   * Rules enabled or disabled by a request are not part of the configuration, they're applied
+   * per check with a {@link RuleSelection}.
    * Uses Pipeline wrapper to safely share objects
    *  @param lang the language to be used
    * @param motherTongue the user's mother tongue or {@code null}
@@ -117,11 +140,22 @@ class PipelinePool implements KeyedPooledObjectFactory<PipelineSettings, Pipelin
   Pipeline createPipeline(Language lang, Language motherTongue, TextChecker.QueryParams params, GlobalConfig globalConfig,
                           UserConfig userConfig, List<String> disabledRuleIds)
     throws Exception { // package-private for mocking
+    ServerMetricsCollector.getInstance().logPipelineCreated(lang);
     Pipeline lt = new Pipeline(lang, params.altLanguages, motherTongue, cache, globalConfig, userConfig, params.inputLogging);
     lt.setMaxErrorsPerWordRate(config.getMaxErrorsPerWordRate());
+    if (sentenceCheckPool != null) {
+      lt.setSentenceCheckExecutor(sentenceCheckPool, config.getSentenceCheckChunkSize());
+    }
+    if (lang.getTagger() instanceof BaseTagger) {
+      // the cache is configured via GlobalConfig when the pipeline gets created:
+      Cache<String, ?> taggerCache = ((BaseTagger) lang.getTagger()).getReadingsCache();
+      if (taggerCache != null && monitoredTaggerCaches.add(taggerCache)) {
+        ServerMetricsCollector.getInstance().monitorCache("languagetool_tagger_cache_" + lang.getShortCodeWithCountryAndVariant(), taggerCache);
+      }
+    }
     lt.disableRules(disabledRuleIds);
     if (config.getLanguageModelDir() != null) {
-      lt.activateLanguageModelRules(config.getLanguageModelDir());
+      LanguageModelCaches.activateLanguageModelRules(lt, lang, config);
     }
     if (config.getWord2VecModelDir () != null) {
       lt.activateWord2VecModelRules(config.getWord2VecModelDir());
@@ -155,39 +189,37 @@ class PipelinePool implements KeyedPooledObjectFactory<PipelineSettings, Pipelin
     } else {
       lt.activateRemoteRules(config.getRemoteRulesConfigFile());
     }
-    if (params.useQuerySettings) {
-      Tools.selectRules(lt, new HashSet<>(params.disabledCategories), new HashSet<>(params.enabledCategories),
-        new HashSet<>(params.disabledRules), new HashSet<>(params.enabledRules), params.useEnabledOnly, params.enableTempOffRules);
-    }
     if (userConfig.filterDictionaryMatches()) {
       lt.addMatchFilter(new DictionaryMatchFilter(userConfig));
     }
     lt.addMatchFilter(new DictionarySpellMatchFilter(userConfig));
 
     Premium premium = Premium.get();
+    // all rules that must be disabled are locked, as a request's RuleSelection could enable them otherwise:
+    Set<String> lockedRuleIds = new HashSet<>();
     if (config.isPremiumOnly()) {
       //System.out.println("Enabling ONLY premium rules.");
-      int premiumEnabled = 0;
-      int otherDisabled = 0;
       for (Rule rule : lt.getAllActiveRules()) {
         if (premium.isPremiumRule(rule)) {
           lt.enableRule(rule.getFullId());
-          premiumEnabled++;
-        } else {
-          lt.disableRule(rule.getFullId());
-          otherDisabled++;
         }
       }
-      //System.out.println("Enabled " + premiumEnabled + " premium rules, disabled " + otherDisabled + " non-premium rules.");
+      for (Rule rule : lt.getAllRules()) {
+        if (!premium.isPremiumRule(rule)) {
+          lockedRuleIds.add(rule.getFullId());
+        }
+      }
     } else if (!params.premium && !params.enableHiddenRules) { // compute premium matches locally to use as hidden matches
       if (!(premium instanceof PremiumOff)) {
-        for (Rule rule : lt.getAllActiveRules()) {
+        for (Rule rule : lt.getAllRules()) {
           if (premium.isPremiumRule(rule)) {
-            lt.disableRule(rule.getFullId());
+            lockedRuleIds.add(rule.getFullId());
           }
         }
       }
     }
+    lt.disableRules(new ArrayList<>(lockedRuleIds));
+    lt.setLockedRuleIds(lockedRuleIds);
 
     if (pool != null) {
       lt.setupFinished();
@@ -21,19 +21,19 @@ package org.languagetool.server;
 import org.languagetool.JLanguageTool;
 
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Limit the maximum number of request per IP address for a given time range.
  */
 class RequestLimiter {
 
-  // TODO: this only works if the period covered is larger than requestLimitPeriodInSeconds -
-  // we should add a sanity check that warns if that's not the case
-  static final int REQUEST_QUEUE_SIZE = 1000;
+  private final Map<String, SlidingWindowCounter> requestsByIp = new ConcurrentHashMap<>();
+  // keys are the IP and the fingerprint, as fingerprints are only compared for requests from the same IP:
+  private final Map<String, SlidingWindowCounter> requestsByFingerprint = new ConcurrentHashMap<>();
+  private final AtomicLong nextEviction = new AtomicLong();
 
-  final List<RequestEvent> requestEvents = new CopyOnWriteArrayList<>();
-  
   private final int ipFingerprintFactor;
   private final List<String> whitelistUsers;
   private final int whitelistLimit;
@@ -126,13 +126,60 @@ class RequestLimiter {
       return;
     }
     int reqSize = getRequestSize(params);
-    while (requestEvents.size() > REQUEST_QUEUE_SIZE) {
-      requestEvents.remove(0);
-    }
-    requestEvents.add(new RequestEvent(ipAddress, new Date(), reqSize, computeFingerprint(httpHeader, params), ServerTools.getMode(params)));
+    recordRequest(ipAddress, computeFingerprint(httpHeader, params), reqSize, ServerTools.getMode(params));
     checkLimit(ipAddress, params, httpHeader);
   }
 
+  /**
+   * Count a request for the limits checked by {@link #checkLimit}.
+   * @since 5.6
+   */
+  void recordRequest(String ipAddress, String fingerprint, int sizeInBytes, JLanguageTool.Mode mode) {
+    long now = System.currentTimeMillis();
+    // text level rules cause much less load, so count them accordingly
+    int size = mode == JLanguageTool.Mode.TEXTLEVEL_ONLY ? (int) (sizeInBytes * 0.1f) : sizeInBytes;
+    addRequest(requestsByIp, ipAddress, now, size);
+    addRequest(requestsByFingerprint, fingerprintKey(ipAddress, fingerprint), now, size);
+    evictIdleCounters(now);
+  }
+
+  private void addRequest(Map<String, SlidingWindowCounter> counters, String key, long now, int size) {
+    // compute() so this can't race with the removal of idle counters:
+    counters.compute(key, (k, counter) -> {
+      if (counter == null) {
+        counter = new SlidingWindowCounter(getRequestLimitPeriodInMillis(), now);
+      }
+      counter.add(now, size);
+      return counter;
+    });
+  }
+
+  private void evictIdleCounters(long now) {
+    long next = nextEviction.get();
+    if (now >= next && nextEviction.compareAndSet(next, now + getRequestLimitPeriodInMillis())) {
+      for (Map<String, SlidingWindowCounter> counters : Arrays.asList(requestsByIp, requestsByFingerprint)) {
+        for (String key : counters.keySet()) {
+          counters.computeIfPresent(key, (k, counter) -> counter.isIdle(now) ? null : counter);
+        }
+      }
+    }
+  }
+
+  private long getRequestLimitPeriodInMillis() {
+    return Math.max(1, requestLimitPeriodInSeconds * 1000L);
+  }
+
+  private static String fingerprintKey(String ipAddress, String fingerprint) {
+    return ipAddress + '\n' + fingerprint;
+  }
+
+  /**
+   * The number of IPs with requests in the current period, plus those that have not been evicted yet.
+   */
+  int getTrackedIpCount() {
+    return requestsByIp.size();
+  }
+
   private int getRequestSize(Map<String, String> params) {
     String text = params.get("text");
     if (text != null) {
@@ -193,104 +240,73 @@ class RequestLimiter {
   }
 
   void checkLimit(String ipAddress, Map<String, String> parameters, Map<String, List<String>> httpHeader) {
-    int requestsByIp = 0;
-    int requestSizeByIp = 0;
-    int requestsByFingerprint = 0;
-    int requestSizeByFingerprint = 0;
-    // all requests before this date are considered old:
-    Date thresholdDate = new Date(System.currentTimeMillis() - requestLimitPeriodInSeconds * 1000L);
+    long now = System.currentTimeMillis();
     String fingerprint = computeFingerprint(httpHeader, parameters);
+    SlidingWindowCounter ipCounter = requestsByIp.get(ipAddress);
+    if (ipCounter == null) {
+      return;
+    }
+    int requestsByIp = ipCounter.getRequests(now);
+    long requestSizeByIp = ipCounter.getSize(now);
+    if (requestsByIp == 0) {
+      return;
+    }
     String referer = getReferer(httpHeader);
     String userAgent = getUserAgent(httpHeader);
     Long clientId = getClientId(parameters);
     String user = parameters.get("username");
     boolean whitelistedUser = user != null && whitelistUsers.contains(user);
-    for (RequestEvent event : requestEvents) {
-      if (event.ip.equals(ipAddress) && event.date.after(thresholdDate)) {
-        // text level rules cause much less load, so count them accordingly
-        float modeFactor = event.mode == JLanguageTool.Mode.TEXTLEVEL_ONLY ? 0.1f : 1f;
-        requestsByIp++;
-        requestSizeByIp += event.getSizeInBytes() * modeFactor;
-        if (whitelistedUser) {
-          if (whitelistLimit <= 0 || requestsByIp < whitelistLimit) {
-            continue;
-          } else {
-            String msg = "limit: " + ipRequestLimit + " / " + requestLimitPeriodInSeconds + ", requests: "  + requestsByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
-            logger.log(new DatabaseAccessLimitLogEntry("MaxRequestPerPeriodIp", server, clientId, null, msg, referer, userAgent));
-            throw new TooManyRequestsException("Whitelist request limit of " + whitelistLimit + " requests per " +
-              requestLimitPeriodInSeconds + " seconds exceeded");
-          }
-        }
-        if (event.fingerprint.equals(fingerprint)) {
-          requestsByFingerprint++;
-          requestSizeByFingerprint += event.getSizeInBytes() * modeFactor;
-        }
-        if (ipFingerprintFactor > 0 && requestLimit > 0 && requestsByFingerprint > requestLimit) {
-          String msg = "limit: " + requestLimit + " / " + requestLimitPeriodInSeconds + ", requests: "  + requestsByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
-          logger.log(new DatabaseAccessLimitLogEntry("MaxRequestPerPeriodFingerprint", server, clientId, null, msg, referer, userAgent));
-          throw new TooManyRequestsException("Client request limit of " + requestLimit + " requests per " +
-            requestLimitPeriodInSeconds + " seconds exceeded"); }
-        if (requestLimit > 0 && requestsByIp > ipRequestLimit) {
-          String msg = "limit: " + ipRequestLimit + " / " + requestLimitPeriodInSeconds + ", requests: "  + requestsByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
-          logger.log(new DatabaseAccessLimitLogEntry("MaxRequestPerPeriodIp", server, clientId, null, msg, referer, userAgent));
-          throw new TooManyRequestsException("IP request limit of " + ipRequestLimit + " requests per " +
-            requestLimitPeriodInSeconds + " seconds exceeded");
-        }
-        if (event.mode == JLanguageTool.Mode.TEXTLEVEL_ONLY) {
-          if (ipFingerprintFactor > 0 && requestLimitInBytes > 0 && requestSizeByFingerprint > requestLimitInBytes) {
-            String msg = "limit in Mode.TEXTLEVEL_ONLY: " + requestLimitInBytes + " / " + requestLimitPeriodInSeconds + ", request size: "  + requestSizeByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
-            logger.log(new DatabaseAccessLimitLogEntry("MaxRequestSizePerPeriodFingerprint", server, clientId, null, msg, referer, userAgent));
-            throw new TooManyRequestsException("Client request size limit of " + requestLimitInBytes + " bytes per " +
-              requestLimitPeriodInSeconds + " seconds exceeded in text-level checks");
-          }
-          if (requestLimitInBytes > 0 && requestSizeByIp > ipRequestLimitInBytes) {
-            String msg = "limit in Mode.TEXTLEVEL_ONLY: " + ipRequestLimitInBytes + " / " + requestLimitPeriodInSeconds + ", request size: "  + requestSizeByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
-            logger.log(new DatabaseAccessLimitLogEntry("MaxRequestSizePerPeriodIp", server, clientId, null, msg, referer, userAgent));
-            throw new TooManyRequestsException("IP request size limit of " + ipRequestLimitInBytes + " bytes per " +
-              requestLimitPeriodInSeconds + " seconds exceeded in text-level checks");
-          }
-        } else {
-          if (ipFingerprintFactor > 0 && requestLimitInBytes > 0 && requestSizeByFingerprint > requestLimitInBytes) {
-            String msg = "limit: " + requestLimitInBytes + " / " + requestLimitPeriodInSeconds + ", request size: "  + requestSizeByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
-            logger.log(new DatabaseAccessLimitLogEntry("MaxRequestSizePerPeriodFingerprint", server, clientId, null, msg, referer, userAgent));
-            throw new TooManyRequestsException("Client request size limit of " + requestLimitInBytes + " bytes per " +
-              requestLimitPeriodInSeconds + " seconds exceeded");
-          }
-          if (requestLimitInBytes > 0 && requestSizeByIp > ipRequestLimitInBytes) {
-            String msg = "limit: " + ipRequestLimitInBytes + " / " + requestLimitPeriodInSeconds + ", request size: "  + requestSizeByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
-            logger.log(new DatabaseAccessLimitLogEntry("MaxRequestSizePerPeriodIp", server, clientId, null, msg, referer, userAgent));
-            throw new TooManyRequestsException("IP request size limit of " + ipRequestLimitInBytes + " bytes per " +
-              requestLimitPeriodInSeconds + " seconds exceeded");
-          }
-        }
+    if (whitelistedUser) {
+      if (whitelistLimit <= 0 || requestsByIp < whitelistLimit) {
+        return;
       }
+      String msg = "limit: " + ipRequestLimit + " / " + requestLimitPeriodInSeconds + ", requests: "  + requestsByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
+      logger.log(new DatabaseAccessLimitLogEntry("MaxRequestPerPeriodIp", server, clientId, null, msg, referer, userAgent));
+      throw new TooManyRequestsException("Whitelist request limit of " + whitelistLimit + " requests per " +
+        requestLimitPeriodInSeconds + " seconds exceeded");
     }
-  }
-  
-  protected static class RequestEvent {
-
-    private final String ip;
-    private final Date date;
-    private final int sizeInBytes;
-    private final String fingerprint;
-    private final JLanguageTool.Mode mode;
-
-    RequestEvent(String ip, Date date, int sizeInBytes, String fingerprint, JLanguageTool.Mode mode) {
-      this.ip = ip;
-      this.date = new Date(date.getTime());
-      this.sizeInBytes = sizeInBytes;
-      this.fingerprint = fingerprint;
-      this.mode = mode;
+    SlidingWindowCounter fingerprintCounter = requestsByFingerprint.get(fingerprintKey(ipAddress, fingerprint));
+    int requestsByFingerprint = fingerprintCounter != null ? fingerprintCounter.getRequests(now) : 0;
+    long requestSizeByFingerprint = fingerprintCounter != null ? fingerprintCounter.getSize(now) : 0;
+    if (ipFingerprintFactor > 0 && requestLimit > 0 && requestsByFingerprint > requestLimit) {
+      String msg = "limit: " + requestLimit + " / " + requestLimitPeriodInSeconds + ", requests: "  + requestsByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
+      logger.log(new DatabaseAccessLimitLogEntry("MaxRequestPerPeriodFingerprint", server, clientId, null, msg, referer, userAgent));
+      throw new TooManyRequestsException("Client request limit of " + requestLimit + " requests per " +
+        requestLimitPeriodInSeconds + " seconds exceeded");
     }
-
-    protected Date getDate() {
-      return date;
+    if (requestLimit > 0 && requestsByIp > ipRequestLimit) {
+      String msg = "limit: " + ipRequestLimit + " / " + requestLimitPeriodInSeconds + ", requests: "  + requestsByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
+      logger.log(new DatabaseAccessLimitLogEntry("MaxRequestPerPeriodIp", server, clientId, null, msg, referer, userAgent));
+      throw new TooManyRequestsException("IP request limit of " + ipRequestLimit + " requests per " +
+        requestLimitPeriodInSeconds + " seconds exceeded");
     }
-    
-    int getSizeInBytes() {
-      return sizeInBytes;
+    if (ServerTools.getMode(parameters) == JLanguageTool.Mode.TEXTLEVEL_ONLY) {
+      if (ipFingerprintFactor > 0 && requestLimitInBytes > 0 && requestSizeByFingerprint > requestLimitInBytes) {
+        String msg = "limit in Mode.TEXTLEVEL_ONLY: " + requestLimitInBytes + " / " + requestLimitPeriodInSeconds + ", request size: "  + requestSizeByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
+        logger.log(new DatabaseAccessLimitLogEntry("MaxRequestSizePerPeriodFingerprint", server, clientId, null, msg, referer, userAgent));
+        throw new TooManyRequestsException("Client request size limit of " + requestLimitInBytes + " bytes per " +
+          requestLimitPeriodInSeconds + " seconds exceeded in text-level checks");
+      }
+      if (requestLimitInBytes > 0 && requestSizeByIp > ipRequestLimitInBytes) {
+        String msg = "limit in Mode.TEXTLEVEL_ONLY: " + ipRequestLimitInBytes + " / " + requestLimitPeriodInSeconds + ", request size: "  + requestSizeByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
+        logger.log(new DatabaseAccessLimitLogEntry("MaxRequestSizePerPeriodIp", server, clientId, null, msg, referer, userAgent));
+        throw new TooManyRequestsException("IP request size limit of " + ipRequestLimitInBytes + " bytes per " +
+          requestLimitPeriodInSeconds + " seconds exceeded in text-level checks");
+      }
+    } else {
+      if (ipFingerprintFactor > 0 && requestLimitInBytes > 0 && requestSizeByFingerprint > requestLimitInBytes) {
+        String msg = "limit: " + requestLimitInBytes + " / " + requestLimitPeriodInSeconds + ", request size: "  + requestSizeByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
+        logger.log(new DatabaseAccessLimitLogEntry("MaxRequestSizePerPeriodFingerprint", server, clientId, null, msg, referer, userAgent));
+        throw new TooManyRequestsException("Client request size limit of " + requestLimitInBytes + " bytes per " +
+          requestLimitPeriodInSeconds + " seconds exceeded");
+      }
+      if (requestLimitInBytes > 0 && requestSizeByIp > ipRequestLimitInBytes) {
+        String msg = "limit: " + ipRequestLimitInBytes + " / " + requestLimitPeriodInSeconds + ", request size: "  + requestSizeByIp + ", ip: " + ipAddress + ", fingerprint: " + fingerprint;
+        logger.log(new DatabaseAccessLimitLogEntry("MaxRequestSizePerPeriodIp", server, clientId, null, msg, referer, userAgent));
+        throw new TooManyRequestsException("IP request size limit of " + ipRequestLimitInBytes + " bytes per " +
+          requestLimitPeriodInSeconds + " seconds exceeded");
+      }
     }
-
   }
 
 }
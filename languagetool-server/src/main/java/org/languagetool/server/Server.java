@@ -128,20 +128,28 @@ abstract class Server {
     System.out.println("                 'maxSpellingSuggestions' - only this many spelling errors will have suggestions for performance reasons (optional,\n" +
                        "                                            affects Hunspell-based languages only)");
     System.out.println("                 'maxCheckThreads' - maximum number of threads working in parallel (optional)");
+    System.out.println("                 'sentenceCheckThreads' - size of a thread pool shared by all checks to check the sentences of long texts in parallel (optional, default: 0 = no parallel checks)");
+    System.out.println("                 'sentenceCheckChunkSize' - number of sentences checked by one thread of 'sentenceCheckThreads' (optional, default: 20)");
     System.out.println("                 'cacheSize' - size of internal cache in number of sentences (optional, default: 0)");
     System.out.println("                 'cacheTTLSeconds' - how many seconds sentences are kept in cache (optional, default: 300 if 'cacheSize' is set)");
+    System.out.println("                 'cacheOffHeapSizeMB' - if > 0, keep the cached rule matches serialized outside the Java heap, limited to this many megabytes (optional, default: 0)");
+    System.out.println("                 'cacheSnapshotFile' - file to save the cached rule matches to on shutdown (and via POST to /v2/admin/saveCache), loaded again on startup by the same LanguageTool version (optional)");
+    System.out.println("                 'adminToken' - secret for /v2/admin/saveCache and /v2/admin/rules/top, to be sent as 'Authorization: Bearer <token>' header (optional, default: these endpoints only work from localhost without a proxy)");
     System.out.println("                 'requestLimit' - maximum number of requests per requestLimitPeriodInSeconds (optional)");
     System.out.println("                 'requestLimitInBytes' - maximum aggregated size of requests per requestLimitPeriodInSeconds (optional)");
     System.out.println("                 'timeoutRequestLimit' - maximum number of timeout request (optional)");
     System.out.println("                 'requestLimitPeriodInSeconds' - time period to which requestLimit and timeoutRequestLimit applies (optional)");
     System.out.println("                 'languageModel' - a directory with '1grams', '2grams', '3grams' sub directories which contain a Lucene index");
     System.out.println("                                   each with ngram occurrence counts; activates the confusion rule if supported (optional)");
+    System.out.println("                 'ngramCacheSize' - number of ngram occurrence counts to cache per language model (optional, default: 0 = no cache)");
+    System.out.println("                 'taggerCacheSize' - number of words whose POS tags are cached per language (optional, default: 0 = no cache)");
     System.out.println("                 'word2vecModel' - a directory with word2vec data (optional), see");
     System.out.println("                  https://github.com/languagetool-org/languagetool/blob/master/languagetool-standalone/CHANGES.md#word2vec");
     System.out.println("                 'fasttextModel' - a model file for better language detection (optional), see");
     System.out.println("                                   https://fasttext.cc/docs/en/language-identification.html");
     System.out.println("                 'fasttextBinary' - compiled fasttext executable for language detection (optional), see");
     System.out.println("                                    https://fasttext.cc/docs/en/support.html");
+    System.out.println("                 'fasttextProcesses' - number of fasttext processes used for concurrent language detection (optional, default: 1)");
     System.out.println("                 'maxWorkQueueSize' - reject request if request queue gets larger than this (optional)");
     System.out.println("                 'rulesFile' - a file containing rules configuration, such as .langugagetool.cfg (optional)");
     System.out.println("                 'warmUp' - set to 'true' to warm up server at start, i.e. run a short check with all languages (optional)");
@@ -152,6 +160,8 @@ abstract class Server {
     System.out.println("                 'maxPipelinePoolSize' - cache size if 'pipelineCaching' is set");
     System.out.println("                 'pipelineExpireTimeInSeconds' - time after which pipeline cache items expire");
     System.out.println("                 'pipelinePrewarming' - set to 'true' to fill pipeline cache on start (can slow down start a lot)");
+    System.out.println("                 'ruleTimeBudgetMillis' - maximum time for a rule to check a sentence, rules that often take longer are skipped for a minute (optional, default: 0 = no limit)");
+    System.out.println("                 'ruleProfilingSampleRate' - measure the time spent in every n-th rule call, for Prometheus and /v2/admin/rules/top (optional, default: 0 = off)");
     System.out.println("                 Spellcheck-only languages: You can add simple spellcheck-only support for languages that LT doesn't");
     System.out.println("                                            support by defining two optional properties:");
     System.out.println("                   'lang-xx' - set name of the language, use language code instead of 'xx', e.g. lang-tr=Turkish");
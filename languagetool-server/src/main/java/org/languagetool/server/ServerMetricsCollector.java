@@ -29,6 +29,7 @@ import io.prometheus.client.hotspot.DefaultExports;
 import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
 import org.languagetool.Premium;
+import org.languagetool.rules.RuleProfiler;
 
 import java.io.IOException;
 import java.util.Objects;
@@ -45,6 +46,18 @@ public class ServerMetricsCollector {
     INVALID_REQUEST
   }
 
+  public enum PipelineRequestResult {
+    HIT,        // an idle pipeline was available in the pool
+    MISS,       // the pool had to create a pipeline
+    EXHAUSTED,  // the pool is full, a pipeline was created that's not kept
+    UNPOOLED    // pipeline caching is disabled
+  }
+
+  public enum DatabaseLogDropReason {
+    QUEUE_FULL,  // the DatabaseLogger queue was full
+    WRITE_ERROR  // writing a batch to the database failed
+  }
+
   private static final double[] LATENCY_BUCKETS = {
     0.025, 0.05, .1, .25, .5, .75, 1., 2., 4., 6., 8., 10., 15.
   };
@@ -58,6 +71,18 @@ public class ServerMetricsCollector {
     10, 100, 500, 1000, 2500, 5000, 7500, 10000, 20000, 50000
   };
 
+  private static final double[] FLUSH_LATENCY_BUCKETS = {
+    0.005, 0.01, 0.025, 0.05, .1, .25, .5, 1., 2.5, 5., 10.
+  };
+
+  private static final double[] RULE_TIME_BUCKETS = {
+    0.0001, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, .1, .5, 1.
+  };
+
+  private static final double[] RULE_MATCHES_BUCKETS = {
+    0, 1, 2, 5, 10, 25, 100
+  };
+
   private static final ServerMetricsCollector collector = new ServerMetricsCollector();
   
   private static HTTPServer server;
@@ -105,6 +130,35 @@ public class ServerMetricsCollector {
   private final Counter failedHealthcheckCounter = Counter
     .build("languagetool_failed_healthchecks_total", "Failed healthchecks").register();
 
+  private final Counter pipelineRequestCounter = Counter
+    .build("languagetool_pipeline_requests_total", "Pipeline requests by pool result")
+    .labelNames("result").register();
+
+  private final Counter pipelineCreatedCounter = Counter
+    .build("languagetool_pipelines_created_total", "Created pipelines")
+    .labelNames("language").register();
+
+  private final Gauge databaseLogQueueSize = Gauge
+    .build("languagetool_db_log_queue_size", "Entries waiting to be written by the DatabaseLogger").register();
+
+  private final Counter databaseLogDroppedCounter = Counter
+    .build("languagetool_db_log_dropped_total", "Database log entries that were discarded")
+    .labelNames("reason").register();
+
+  private final Histogram databaseLogFlushLatency = Histogram
+    .build("languagetool_db_log_flush_seconds", "Histogram of the time to write a batch of database log entries")
+    .buckets(FLUSH_LATENCY_BUCKETS).register();
+
+  // no rule_id label, as there are thousands of rules per language - see /v2/admin/rules/top for single rules:
+  private final Histogram ruleTime = Histogram
+    .build("languagetool_rule_time_seconds", "Histogram of the time spent in a rule, sampled")
+    .buckets(RULE_TIME_BUCKETS)
+    .labelNames("language", "phase").register();
+  private final Histogram ruleMatches = Histogram
+    .build("languagetool_rule_matches", "Histogram of the number of matches per rule call, sampled")
+    .buckets(RULE_MATCHES_BUCKETS)
+    .labelNames("language").register();
+
   private final Info buildInfo = Info
     .build("languagetool_build", "Build information").register();
 
@@ -194,4 +248,34 @@ public class ServerMetricsCollector {
     failedHealthcheckCounter.inc();
   }
 
+  public void logPipelineRequest(PipelineRequestResult result) {
+    pipelineRequestCounter.labels(result.name().toLowerCase()).inc();
+  }
+
+  public void logPipelineCreated(Language language) {
+    pipelineCreatedCounter.labels(language != null ? language.getShortCode() : UNKNOWN).inc();
+  }
+
+  public void logDatabaseLogQueueSize(int size) {
+    databaseLogQueueSize.set(size);
+  }
+
+  public void logDatabaseLogDropped(DatabaseLogDropReason reason, int count) {
+    databaseLogDroppedCounter.labels(reason.name().toLowerCase()).inc(count);
+  }
+
+  public void logDatabaseLogFlush(long nanos) {
+    databaseLogFlushLatency.observe(nanos / 1_000_000_000.0);
+  }
+
+  /**
+   * To be used as {@link RuleProfiler.Listener}.
+   */
+  public void logRuleProfile(String langCode, String ruleId, RuleProfiler.Phase phase, long nanos, int matches) {
+    ruleTime.labels(langCode, phase.name().toLowerCase()).observe(nanos / 1_000_000_000.0);
+    if (matches >= 0) {
+      ruleMatches.labels(langCode).observe(matches);
+    }
+  }
+
 }
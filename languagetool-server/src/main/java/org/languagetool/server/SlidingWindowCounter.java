@@ -0,0 +1,102 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import java.util.Arrays;
+
+/**
+ * Counts requests and their size over the last {@code periodMillis}, using a ring buffer of
+ * time buckets. Adding and reading the totals is O(1). Buckets are {@code periodMillis / BUCKETS}
+ * wide, so requests expire at bucket granularity, i.e. up to one bucket width before they're
+ * {@code periodMillis} old.
+ * @since 5.6
+ */
+class SlidingWindowCounter {
+
+  static final int BUCKETS = 64;
+
+  private final long bucketMillis;
+  private final int[] bucketRequests = new int[BUCKETS];
+  private final long[] bucketSizes = new long[BUCKETS];
+  private long currentEpoch;
+  private int requests;
+  private long size;
+
+  SlidingWindowCounter(long periodMillis, long now) {
+    this.bucketMillis = Math.max(1, (periodMillis + BUCKETS - 1) / BUCKETS);
+    this.currentEpoch = now / bucketMillis;
+  }
+
+  synchronized void add(long now, int size) {
+    advance(now);
+    int bucket = (int) (currentEpoch % BUCKETS);
+    bucketRequests[bucket]++;
+    bucketSizes[bucket] += size;
+    requests++;
+    this.size += size;
+  }
+
+  /**
+   * @return the number of requests in the period before {@code now}
+   */
+  synchronized int getRequests(long now) {
+    advance(now);
+    return requests;
+  }
+
+  /**
+   * @return the total size of the requests in the period before {@code now}
+   */
+  synchronized long getSize(long now) {
+    advance(now);
+    return size;
+  }
+
+  /**
+   * @return true if there have been no requests in the period before {@code now}
+   */
+  synchronized boolean isIdle(long now) {
+    advance(now);
+    return requests == 0;
+  }
+
+  // expire the buckets that have fallen out of the period:
+  private void advance(long now) {
+    long epoch = now / bucketMillis;
+    if (epoch <= currentEpoch) {
+      return;
+    }
+    if (epoch - currentEpoch >= BUCKETS) {
+      Arrays.fill(bucketRequests, 0);
+      Arrays.fill(bucketSizes, 0);
+      requests = 0;
+      size = 0;
+    } else {
+      for (long e = currentEpoch + 1; e <= epoch; e++) {
+        int bucket = (int) (e % BUCKETS);
+        requests -= bucketRequests[bucket];
+        size -= bucketSizes[bucket];
+        bucketRequests[bucket] = 0;
+        bucketSizes[bucket] = 0;
+      }
+    }
+    currentEpoch = epoch;
+  }
+
+}
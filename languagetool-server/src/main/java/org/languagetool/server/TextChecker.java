@@ -87,6 +87,7 @@ abstract class TextChecker {
   private final LanguageIdentifier fastTextIdentifier;
   private final ExecutorService executorService;
   private final ResultCache cache;
+  private final Thread cacheSnapshotHook;
   private final DatabaseLogger databaseLogger;
   private final Long logServerId;
   private final Random random = new Random();
@@ -100,7 +101,7 @@ abstract class TextChecker {
     this.workQueue = workQueue;
     this.reqCounter = reqCounter;
     this.fastTextIdentifier = new LanguageIdentifier();
-    this.fastTextIdentifier.enableFasttext(config.getFasttextBinary(), config.getFasttextModel());
+    this.fastTextIdentifier.enableFasttext(config.getFasttextBinary(), config.getFasttextModel(), config.getFasttextProcesses());
     if (config.getNgramLangIdentData() != null) {
       this.ngramIdentifier = new LanguageIdentifier();
       this.ngramIdentifier.enableNgrams(config.getNgramLangIdentData());
@@ -137,8 +138,14 @@ abstract class TextChecker {
       );
     }
 
-    this.cache = config.getCacheSize() > 0 ? new ResultCache(
-      config.getCacheSize(), config.getCacheTTLSeconds(), TimeUnit.SECONDS) : null;
+    if (config.getCacheSize() <= 0) {
+      this.cache = null;
+    } else if (config.getCacheOffHeapSizeMB() > 0) {
+      this.cache = new OffHeapResultCache(config.getCacheSize(), config.getCacheOffHeapSizeMB() * 1024 * 1024,
+        config.getCacheTTLSeconds(), TimeUnit.SECONDS);
+    } else {
+      this.cache = new ResultCache(config.getCacheSize(), config.getCacheTTLSeconds(), TimeUnit.SECONDS);
+    }
     this.databaseLogger = DatabaseLogger.getInstance();
     if (databaseLogger.isLogging()) {
       this.logServerId = DatabaseAccess.getInstance().getOrCreateServerId();
@@ -152,6 +159,20 @@ abstract class TextChecker {
       ServerMetricsCollector.getInstance().monitorCache("languagetool_sentences_cache", cache.getSentenceCache());
       ServerMetricsCollector.getInstance().monitorCache("languagetool_remote_matches_cache", cache.getRemoteMatchesCache());
     }
+    if (cache != null && config.getCacheSnapshotFile() != null) {
+      loadCacheSnapshot();
+      // deploys usually stop the process without calling shutdownNow():
+      cacheSnapshotHook = new Thread(() -> {
+        try {
+          saveCacheSnapshot();
+        } catch (Exception e) {
+          log.error("Could not save result cache to " + config.getCacheSnapshotFile(), e);
+        }
+      }, "cache-snapshot");
+      Runtime.getRuntime().addShutdownHook(cacheSnapshotHook);
+    } else {
+      cacheSnapshotHook = null;
+    }
 
     pipelinePool = new PipelinePool(config, cache, internalServer);
     if (config.isPipelinePrewarmingEnabled()) {
@@ -159,6 +180,15 @@ abstract class TextChecker {
       prewarmPipelinePool();
       log.info("Prewarming finished.");
     }
+    if (config.getRuleTimeBudgetMillis() > 0) {
+      RuleTimeBudget.setBudgetMillis(config.getRuleTimeBudgetMillis());
+      log.info("Rule time budget enabled: " + config.getRuleTimeBudgetMillis() + "ms");
+    }
+    if (config.getRuleProfilingSampleRate() > 0) {
+      RuleProfiler.setListener(ServerMetricsCollector.getInstance()::logRuleProfile);
+      RuleProfiler.setSampleRate(config.getRuleProfilingSampleRate());
+      log.info("Rule profiling enabled, measuring every " + config.getRuleProfilingSampleRate() + ". rule call");
+    }
     if (config.getAbTest() != null) {
       UserConfig.enableABTests();
       log.info("A/B-Test enabled: " + config.getAbTest());
@@ -193,12 +223,12 @@ abstract class TextChecker {
         QueryParams params = new QueryParams(Collections.emptyList(), Collections.emptyList(), addonDisabledRules,
           Collections.emptyList(), Collections.emptyList(), false, true,
           true, true, Premium.isPremiumVersion(), false, mode, JLanguageTool.Level.PICKY, null);
-        PipelineSettings settings = new PipelineSettings(language, null, params, config.globalConfig, user);
+        PipelineSettings settings = new PipelineSettings(language, null, params.forPipeline(), config.globalConfig, user);
         prewarmSettings.put(settings, NUM_PIPELINES_PER_SETTING);
 
-        PipelineSettings settingsMotherTongueEqual = new PipelineSettings(language, language, params, config.globalConfig, user);
+        PipelineSettings settingsMotherTongueEqual = new PipelineSettings(language, language, params.forPipeline(), config.globalConfig, user);
         PipelineSettings settingsMotherTongueEnglish = new PipelineSettings(language,
-          Languages.getLanguageForName("English"), params, config.globalConfig, user);
+          Languages.getLanguageForName("English"), params.forPipeline(), config.globalConfig, user);
         prewarmSettings.put(settingsMotherTongueEqual, NUM_PIPELINES_PER_SETTING);
         prewarmSettings.put(settingsMotherTongueEnglish, NUM_PIPELINES_PER_SETTING);
       }
@@ -226,7 +256,48 @@ abstract class TextChecker {
 
   void shutdownNow() {
     executorService.shutdownNow();
+    pipelinePool.shutdown();
     RemoteRule.shutdown();
+    if (cacheSnapshotHook != null) {
+      try {
+        if (Runtime.getRuntime().removeShutdownHook(cacheSnapshotHook)) {
+          cacheSnapshotHook.run();
+        }
+      } catch (IllegalStateException ignored) {
+        // JVM shutdown is in progress, the hook saves the cache
+      }
+    }
+  }
+
+  private void loadCacheSnapshot() {
+    Path file = config.getCacheSnapshotFile().toPath();
+    if (!Files.exists(file)) {
+      log.info("Result cache file " + file + " not found, starting with an empty cache");
+      return;
+    }
+    long startTime = System.currentTimeMillis();
+    try {
+      long count = cache.loadSnapshot(file);
+      log.info("Loaded " + count + " cached sentences from " + file + " in " + (System.currentTimeMillis() - startTime) + "ms");
+    } catch (IOException e) {
+      log.warn("Could not load result cache from " + file, e);
+    }
+  }
+
+  /**
+   * Save the matches cache to the {@code cacheSnapshotFile} so it can be loaded after a restart.
+   * @return the number of sentences saved
+   * @since 5.6
+   */
+  synchronized long saveCacheSnapshot() throws IOException {
+    if (cache == null || config.getCacheSnapshotFile() == null) {
+      throw new IllegalStateException("Saving the cache needs 'cacheSize' and 'cacheSnapshotFile' to be configured");
+    }
+    Path file = config.getCacheSnapshotFile().toPath();
+    long startTime = System.currentTimeMillis();
+    long count = cache.saveSnapshot(file);
+    log.info("Saved " + count + " cached sentences to " + file + " in " + (System.currentTimeMillis() - startTime) + "ms");
+    return count;
   }
 
   void checkText(AnnotatedText aText, HttpExchange httpExchange, Map<String, String> parameters, ErrorRequestLimiter errorRequestLimiter,
@@ -767,14 +838,19 @@ abstract class TextChecker {
     Pipeline lt = null;
     List<CheckResults> res = new ArrayList<>();
     try {
-      settings = new PipelineSettings(lang, motherTongue, params, config.globalConfig, userConfig);
+      settings = new PipelineSettings(lang, motherTongue, params.forPipeline(), config.globalConfig, userConfig);
       lt = pipelinePool.getPipeline(settings);
       Long textSessionId = userConfig.getTextSessionId();
       if (params.regressionTestMode) {
         textSessionId = -2L; // magic value for remote rule roll-out - includes all results, even from disabled models
       }
+      RuleSelection ruleSelection = null;
+      if (params.useQuerySettings) {
+        ruleSelection = new RuleSelection(params.disabledCategories, params.enabledCategories, params.disabledRules, params.enabledRules,
+          params.useEnabledOnly, params.enableTempOffRules).andDisable(lt.getLockedRuleIds());
+      }
       res.add(lt.check2(aText, true, JLanguageTool.ParagraphHandling.NORMAL, listener,
-        params.mode, params.level, textSessionId));
+        params.mode, params.level, textSessionId, ruleSelection));
     } finally {
       if (lt != null) {
         pipelinePool.returnPipeline(settings, lt);
@@ -913,6 +989,16 @@ abstract class TextChecker {
       this.inputLogging = inputLogging;
     }
 
+    /**
+     * @return the parameters that are relevant for setting up a {@link Pipeline}, so requests that only differ
+     * in e.g. enabled or disabled rules can share pipelines (the rules are selected per check instead)
+     * @since 5.6
+     */
+    QueryParams forPipeline() {
+      return new QueryParams(altLanguages, Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+        false, false, false, enableHiddenRules, premium, enableTempOffRules, JLanguageTool.Mode.ALL, JLanguageTool.Level.DEFAULT, null, inputLogging);
+    }
+
     @Override
     public int hashCode() {
       return new HashCodeBuilder()
@@ -26,11 +26,16 @@ import org.junit.Test;
 import org.languagetool.CheckResults;
 import org.languagetool.DetectedLanguage;
 import org.languagetool.FakeLanguage;
+import org.languagetool.JLanguageTool;
 import org.languagetool.Language;
+import org.languagetool.language.Demo;
 import org.languagetool.markup.AnnotatedText;
 import org.languagetool.rules.RuleMatch;
+import org.languagetool.rules.RuleProfiler;
 
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.util.*;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -67,6 +72,87 @@ public class ApiV2Test {
     } catch (BadRequestException ignored) {}
   }
   
+  @Test
+  public void testTopRules() throws Exception {
+    HTTPServerConfig config = new HTTPServerConfig();
+    config.setRuleProfilingSampleRate(1);
+    config.setTrustXForwardForHeader(true);
+    ApiV2 apiV2 = new ApiV2(null, null);
+    InetSocketAddress localhost = new InetSocketAddress(InetAddress.getLoopbackAddress(), 12345);
+    InetSocketAddress remote = new InetSocketAddress(InetAddress.getByAddress(new byte[]{10, 1, 2, 3}), 12345);
+    RuleProfiler.setSampleRate(1);
+    try {
+      new JLanguageTool(new Demo()).check("A test. Another test.");
+      FakeHttpExchange httpExchange = new FakeHttpExchange("get", localhost);
+      Map<String, String> params = new HashMap<>();
+      params.put("limit", "3");
+      params.put("sort", "calls");
+      apiV2.handleRequest("admin/rules/top", httpExchange, params, null, "127.0.0.1", config);
+      String json = httpExchange.getOutput();
+      assertTrue(json, json.startsWith("{\"sampleRate\":1,\"rules\":[{\"language\":"));
+      assertTrue(json, json.contains("\"phase\":\"sentence\""));
+      assertTrue(json, json.contains("\"budgetExceeded\":["));
+      try {
+        apiV2.handleRequest("admin/rules/top", new FakeHttpExchange("get", remote), params, null, "10.1.2.3", config);
+        fail();
+      } catch (AuthException ignored) {}
+      FakeHttpExchange spoofed = new FakeHttpExchange("get", remote);
+      spoofed.getRequestHeaders().add("X-Forwarded-For", "127.0.0.1");
+      try {
+        apiV2.handleRequest("admin/rules/top", spoofed, params, null, "127.0.0.1", config);
+        fail();
+      } catch (AuthException ignored) {}
+      for (String limit : new String[] {"abc", "-1"}) {
+        params.put("limit", limit);
+        try {
+          apiV2.handleRequest("admin/rules/top", new FakeHttpExchange("get", localhost), params, null, "127.0.0.1", config);
+          fail();
+        } catch (BadRequestException ignored) {}
+      }
+    } finally {
+      RuleProfiler.setSampleRate(0);
+      RuleProfiler.reset();
+    }
+  }
+
+  @Test
+  public void testSaveCacheAuthorization() throws Exception {
+    HTTPServerConfig config = new HTTPServerConfig();
+    config.setTrustXForwardForHeader(true);
+    ApiV2 apiV2 = new ApiV2(null, null);
+    InetSocketAddress localhost = new InetSocketAddress(InetAddress.getLoopbackAddress(), 12345);
+    InetSocketAddress remote = new InetSocketAddress(InetAddress.getByAddress(new byte[]{10, 1, 2, 3}), 12345);
+    // the cache isn't configured, so authorized requests fail later with BadRequestException:
+    assertSaveCacheRejectedWith(BadRequestException.class, apiV2, new FakeHttpExchange("post", localhost), config);
+    assertSaveCacheRejectedWith(AuthException.class, apiV2, new FakeHttpExchange("post", remote), config);
+    // the header is controlled by the client, it must not matter that it claims a local address:
+    FakeHttpExchange spoofed = new FakeHttpExchange("post", remote);
+    spoofed.getRequestHeaders().add("X-Forwarded-For", "127.0.0.1");
+    assertSaveCacheRejectedWith(AuthException.class, apiV2, spoofed, config);
+    FakeHttpExchange proxied = new FakeHttpExchange("post", localhost);
+    proxied.getRequestHeaders().add("X-Forwarded-For", "127.0.0.1");
+    assertSaveCacheRejectedWith(AuthException.class, apiV2, proxied, config);
+
+    config.setAdminToken("secret");
+    FakeHttpExchange withToken = new FakeHttpExchange("post", remote);
+    withToken.getRequestHeaders().add("X-Forwarded-For", "10.9.8.7");
+    withToken.getRequestHeaders().add("Authorization", "Bearer secret");
+    assertSaveCacheRejectedWith(BadRequestException.class, apiV2, withToken, config);
+    FakeHttpExchange wrongToken = new FakeHttpExchange("post", localhost);
+    wrongToken.getRequestHeaders().add("Authorization", "Bearer guess");
+    assertSaveCacheRejectedWith(AuthException.class, apiV2, wrongToken, config);
+    assertSaveCacheRejectedWith(AuthException.class, apiV2, new FakeHttpExchange("post", localhost), config);
+  }
+
+  private void assertSaveCacheRejectedWith(Class<? extends Exception> expected, ApiV2 apiV2, FakeHttpExchange httpExchange, HTTPServerConfig config) throws Exception {
+    try {
+      apiV2.handleRequest("admin/saveCache", httpExchange, new HashMap<>(), null, "127.0.0.1", config);
+      fail();
+    } catch (AuthException | BadRequestException e) {
+      assertEquals(expected, e.getClass());
+    }
+  }
+
   @Test
   @Ignore("code is currently commented out")
   public void testRuleExamples() throws Exception {
@@ -0,0 +1,145 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DatabaseLoggerTest {
+
+  private SqlSessionFactory factory;
+  private DatabaseLogger logger;
+
+  @Before
+  public void setUp() throws IOException {
+    Properties properties = new Properties();
+    properties.setProperty("driver", "org.hsqldb.jdbcDriver");
+    properties.setProperty("url", "jdbc:hsqldb:mem:dbloggertest");
+    properties.setProperty("username", "");
+    properties.setProperty("password", "");
+    properties.setProperty("premium", "OpenSource");
+    try (InputStream inputStream = Resources.getResourceAsStream("org/languagetool/server/mybatis-config.xml")) {
+      factory = new SqlSessionFactoryBuilder().build(inputStream, properties);
+    }
+    logger = new DatabaseLogger();
+  }
+
+  @After
+  public void tearDown() {
+    logger.disableLogging();
+    logger.dropTestTables();
+  }
+
+  @Test
+  public void testBatchesAreWritten() throws SQLException {
+    logger.configure(factory, 1000, DatabaseLogger.DropPolicy.NEWEST, 10, 50);
+    logger.createTestTables();
+    logger.start(3);
+    for (int i = 0; i < 95; i++) {
+      logger.log(new DatabaseMiscLogEntry(1L, 2L, 3L, "message " + i));
+      if (i % 5 == 0) {
+        logger.log(new DatabasePingLogEntry(2L, 3L));
+      }
+    }
+    logger.flush();
+    assertEquals(95, count("misc_log"));
+    assertEquals(19, count("pings"));
+    assertEquals(0, logger.getDroppedCount());
+  }
+
+  @Test
+  public void testDropNewest() throws SQLException {
+    logger.configure(factory, 3, DatabaseLogger.DropPolicy.NEWEST, 10, 50);
+    logger.createTestTables();
+    for (int i = 0; i < 5; i++) {
+      logger.offer(new DatabaseMiscLogEntry(1L, 2L, 3L, "message " + i));
+    }
+    assertEquals(2, logger.getDroppedCount());
+    assertQueuedMessages("message 0", "message 1", "message 2");
+  }
+
+  @Test
+  public void testDropOldest() throws SQLException {
+    logger.configure(factory, 3, DatabaseLogger.DropPolicy.OLDEST, 10, 50);
+    logger.createTestTables();
+    for (int i = 0; i < 5; i++) {
+      logger.offer(new DatabaseMiscLogEntry(1L, 2L, 3L, "message " + i));
+    }
+    assertEquals(2, logger.getDroppedCount());
+    assertQueuedMessages("message 2", "message 3", "message 4");
+  }
+
+  @Test(timeout = 10_000)
+  public void testFlushAfterDisable() throws SQLException {
+    logger.configure(factory, 100, DatabaseLogger.DropPolicy.NEWEST, 10, 50);
+    logger.createTestTables();
+    for (int i = 0; i < 5; i++) {
+      logger.offer(new DatabaseMiscLogEntry(1L, 2L, 3L, "message " + i));
+    }
+    logger.start(1);
+    logger.disableLogging();
+    logger.flush();  // must not wait for entries that will never be written
+    logger.start(1);
+    logger.log(new DatabaseMiscLogEntry(1L, 2L, 3L, "message after restart"));
+    logger.flush();
+    assertEquals(0, logger.getDroppedCount());
+    assertTrue(count("misc_log") >= 1);
+  }
+
+  private void assertQueuedMessages(String... expected) throws SQLException {
+    logger.start(1);
+    logger.flush();
+    List<String> messages = new ArrayList<>();
+    try (SqlSession session = factory.openSession(true);
+         Statement statement = session.getConnection().createStatement();
+         ResultSet result = statement.executeQuery("SELECT message FROM misc_log ORDER BY id")) {
+      while (result.next()) {
+        messages.add(result.getString(1));
+      }
+    }
+    assertEquals(Arrays.asList(expected), messages);
+  }
+
+  private int count(String table) throws SQLException {
+    try (SqlSession session = factory.openSession(true);
+         Statement statement = session.getConnection().createStatement();
+         ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+      result.next();
+      return result.getInt(1);
+    }
+  }
+}
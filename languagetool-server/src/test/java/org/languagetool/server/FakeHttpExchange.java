@@ -35,16 +35,23 @@ public class FakeHttpExchange extends HttpExchange {
   }
 
   public FakeHttpExchange(String method) {
+    this(method, null);
+  }
+
+  public FakeHttpExchange(String method, InetSocketAddress remoteAddress) {
     this.method = method;
+    this.remoteAddress = remoteAddress;
   }
 
   private final String method;
+  private final InetSocketAddress remoteAddress;
+  private final Headers requestHeaders = new Headers();
   
   private final ByteArrayOutputStream bos = new ByteArrayOutputStream();
 
   @Override
   public Headers getRequestHeaders() {
-    return new Headers();
+    return requestHeaders;
   }
   @Override
   public Headers getResponseHeaders() {
@@ -78,7 +85,7 @@ public class FakeHttpExchange extends HttpExchange {
   }
   @Override
   public InetSocketAddress getRemoteAddress() {
-    return null;
+    return remoteAddress;
   }
   @Override
   public int getResponseCode() {
@@ -31,6 +31,7 @@ import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.file.Files;
@@ -355,6 +356,40 @@ public class HTTPServerTest {
     }
   }
   
+  @Test
+  public void testSaveCacheWithSpoofedForwardedHeader() throws Exception {
+    HTTPServerConfig config = new HTTPServerConfig(HTTPTestTools.getDefaultPort(), false);
+    config.setTrustXForwardForHeader(true);
+    config.setCacheSize(100);
+    File snapshotFile = File.createTempFile("lt-cache-snapshot", ".bin");
+    snapshotFile.deleteOnExit();
+    config.setCacheSnapshotFile(snapshotFile);
+    HTTPServer server = new HTTPServer(config, false);
+    try {
+      server.run();
+      assertThat(postSaveCache("127.0.0.1"), is(403));
+      assertThat(postSaveCache(null), is(200));
+    } finally {
+      server.stop();
+    }
+  }
+
+  private int postSaveCache(String forwardedFor) throws IOException {
+    URL url = new URL("http://localhost:" + HTTPTestTools.getDefaultPort() + "/v2/admin/saveCache");
+    HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+    try {
+      conn.setRequestMethod("POST");
+      conn.setDoOutput(true);
+      if (forwardedFor != null) {
+        conn.setRequestProperty("X-Forwarded-For", forwardedFor);
+      }
+      conn.getOutputStream().close();
+      return conn.getResponseCode();
+    } finally {
+      conn.disconnect();
+    }
+  }
+
   @Test
   public void testEnabledOnlyParameter() throws Exception {
     HTTPServer server = new HTTPServer(new HTTPServerConfig(HTTPTestTools.getDefaultPort()), false);
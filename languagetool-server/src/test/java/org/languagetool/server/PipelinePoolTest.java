@@ -127,17 +127,15 @@ public class PipelinePoolTest {
     verify(pool).getPipeline(settings2);
     verify(pool).returnPipeline(eq(settings2), notNull());
 
-    TextChecker.QueryParams queryParams2 = new TextChecker.QueryParams(new LinkedList<>(), new LinkedList<>(), Collections.singletonList("DE_CASE"),
-      new LinkedList<>(), new LinkedList<>(), false, true, false, false, false, false, JLanguageTool.Mode.ALL, JLanguageTool.Level.DEFAULT, null);
+    // disabled rules are applied per check, so they don't need another pipeline:
     Map<String, String> params3 = new HashMap<>();
     params3.put("language", "de-DE");
     params3.put("text", "not used");
     params3.put("disabledRules", "DE_CASE");
-    PipelineSettings settings3 = new PipelineSettings(lang2, null, queryParams2, gConfig, user1);
     checker.checkText(new AnnotatedTextBuilder().addText("Hallo Welt!").build(), new FakeHttpExchange(), params3, null, null);
 
-    verify(pool).getPipeline(settings3);
-    verify(pool).returnPipeline(eq(settings3), notNull());
+    verify(pool, times(2)).getPipeline(settings2);
+    verify(pool, times(2)).returnPipeline(eq(settings2), notNull());
   }
 
   @Test
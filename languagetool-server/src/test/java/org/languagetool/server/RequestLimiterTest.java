@@ -25,6 +25,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.fail;
 
 public class RequestLimiterTest {
@@ -149,6 +151,20 @@ public class RequestLimiterTest {
     assertOkayWithSkippingLimits(limiter, firstIp, params, firstHeader);
   }
 
+  @Test
+  public void testIdleIpsAreEvicted() throws Exception {
+    RequestLimiter limiter = new RequestLimiter(3, 0, 1, 2);
+    Map<String, List<String>> header = new HashMap<>();
+    Map<String, String> params = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      assertOkay(limiter, "192.168.10." + i, params, header);
+    }
+    assertThat(limiter.getTrackedIpCount(), is(100));
+    Thread.sleep(1050);
+    assertOkay(limiter, "192.168.11.1", params, header);
+    assertThat(limiter.getTrackedIpCount(), is(1));
+  }
+
   private void assertOkay(RequestLimiter limiter, String ip, Map<String, String> params, Map<String, List<String>> header) {
     try {
       limiter.checkAccess(ip, params, header, UserLimits.getDefaultLimits(config));
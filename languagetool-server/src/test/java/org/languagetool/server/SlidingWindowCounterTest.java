@@ -0,0 +1,50 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.server;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SlidingWindowCounterTest {
+
+  @Test
+  public void testExpiry() {
+    long start = 1_000_000;
+    SlidingWindowCounter counter = new SlidingWindowCounter(6400, start);  // 100ms per bucket
+    assertThat(counter.isIdle(start), is(true));
+    counter.add(start, 10);
+    counter.add(start + 50, 5);
+    counter.add(start + 3000, 1);
+    assertThat(counter.getRequests(start + 3000), is(3));
+    assertThat(counter.getSize(start + 3000), is(16L));
+    // the first bucket expires when the period is over:
+    assertThat(counter.getRequests(start + 6399), is(3));
+    assertThat(counter.getRequests(start + 6400), is(1));
+    assertThat(counter.getSize(start + 6400), is(1L));
+    assertThat(counter.isIdle(start + 9400), is(true));
+    // a gap longer than the period:
+    counter.add(start + 20_000, 7);
+    assertThat(counter.getRequests(start + 20_000), is(1));
+    assertThat(counter.getSize(start + 20_000), is(7L));
+    assertThat(counter.getRequests(start + 100_000), is(0));
+  }
+
+}
@@ -0,0 +1,90 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.tools;
+
+import org.languagetool.rules.patterns.RuleBundle;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Creates a {@link RuleBundle} next to each rule XML file (grammar, disambiguation and
+ * false friend rules) found in the given directories. Run it on the compiled resources of
+ * the language modules (e.g. {@code target/classes}) before packaging them, or on an unpacked
+ * distribution. Bundles become outdated when the XML changes or for another LanguageTool
+ * version, LanguageTool then parses the XML again.
+ * @since 5.6
+ */
+public final class RuleBundleCompiler {
+
+  private static final Pattern RULE_FILE = Pattern.compile("(grammar.*|disambiguation.*|false-friends)\\.xml");
+
+  private RuleBundleCompiler() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.out.println("Usage: " + RuleBundleCompiler.class.getSimpleName() + " <directory|file>...");
+      System.out.println("  Creates a binary rule bundle next to each rule XML file for faster loading.");
+      System.exit(1);
+    }
+    int count = 0;
+    for (String arg : args) {
+      for (Path xml : findRuleFiles(Paths.get(arg))) {
+        File bundle = compile(xml.toFile());
+        System.out.println("Wrote " + bundle + " (" + xml.toFile().length() / 1024 + "KB XML -> " + bundle.length() / 1024 + "KB)");
+        count++;
+      }
+    }
+    System.out.println("Done. " + count + " rule bundles have been written.");
+  }
+
+  static List<Path> findRuleFiles(Path path) throws IOException {
+    try (Stream<Path> files = Files.walk(path)) {
+      return files
+        .filter(Files::isRegularFile)
+        .filter(file -> RULE_FILE.matcher(file.getFileName().toString()).matches())
+        .sorted()
+        .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * @return the bundle file that has been written
+   */
+  static File compile(File xml) throws IOException {
+    File bundle = new File(xml.getPath() + RuleBundle.FILE_SUFFIX);
+    // the same setting as DisambiguationRuleLoader resp. PatternRuleLoader and FalseFriendRuleLoader use:
+    boolean loadExternalDtd = xml.getName().startsWith("disambiguation");
+    try (InputStream in = new FileInputStream(xml);
+         OutputStream out = new FileOutputStream(bundle)) {
+      RuleBundle.compile(in, out, loadExternalDtd);
+    } catch (IOException e) {
+      throw new IOException("Could not create rule bundle for " + xml, e);
+    }
+    return bundle;
+  }
+
+}
@@ -29,18 +29,26 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Store rule matches to a database.
+ * Store rule matches to a database. The matches are inserted in batches by a background thread,
+ * so checking doesn't wait for the database.
  * @since 2.4
  */
 class DatabaseHandler extends ResultHandler {
 
   private static final int MAX_CONTEXT_LENGTH = 500;
   private static final int SMALL_CONTEXT_LENGTH = 40;  // do not modify - it would break lookup of errors marked as 'false alarm'
+  private static final int MAX_PENDING_BATCHES = 10;
 
   private final Connection conn;
   private final ContextTools contextTools;
@@ -48,8 +56,16 @@ class DatabaseHandler extends ResultHandler {
 
   private final PreparedStatement insertSt;
   private final int batchSize;
-  
-  private int batchCount = 0;
+  // only the writer uses the connection and statement:
+  private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "corpus-match-writer");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final Semaphore pendingBatches = new Semaphore(MAX_PENDING_BATCHES);
+  private final AtomicReference<Exception> writeError = new AtomicReference<>();
+
+  private List<Row> batch = new ArrayList<>();
 
   DatabaseHandler(File propertiesFile, int maxSentences, int maxErrors) {
     super(maxSentences, maxErrors);
@@ -92,38 +108,18 @@ class DatabaseHandler extends ResultHandler {
   @Override
   protected void handleResult(Sentence sentence, List<RuleMatch> ruleMatches, Language language) {
     try {
+      throwOnWriteError();
       java.sql.Date nowDate = new java.sql.Date(new Date().getTime());
       for (RuleMatch match : ruleMatches) {
-        String smallContext = smallContextTools.getContext(match.getFromPos(), match.getToPos(), sentence.getText());
-        insertSt.setString(1, language.getShortCode());
-        Rule rule = match.getRule();
-        insertSt.setString(2, rule.getId());
-        insertSt.setString(3, rule.getCategory().getName());
-        if (rule instanceof AbstractPatternRule) {
-          AbstractPatternRule patternRule = (AbstractPatternRule) rule;
-          insertSt.setString(4, patternRule.getSubId());
-        } else {
-          insertSt.setNull(4, Types.VARCHAR);
-        }
-        insertSt.setString(5, rule.getDescription());
-        insertSt.setString(6, StringUtils.abbreviate(match.getMessage(), 255));
-
         String context = contextTools.getContext(match.getFromPos(), match.getToPos(), sentence.getText());
         if (context.length() > MAX_CONTEXT_LENGTH) {
           // let's skip these strange cases, as shortening the text might leave us behind with invalid markup etc
           continue;
         }
-        insertSt.setString(7, context);
-        insertSt.setString(8, StringUtils.abbreviate(smallContext, 255));
-        
-        insertSt.setDate(9, nowDate);  // should actually be the dump's date, but isn't really used anyway...
-        insertSt.setDate(10, nowDate);
-        insertSt.setString(11, sentence.getUrl());
-        insertSt.setString(12, sentence.getSource());
-        insertSt.addBatch();
-        if (++batchCount >= batchSize){
-          executeBatch();
-          batchCount = 0;
+        String smallContext = smallContextTools.getContext(match.getFromPos(), match.getToPos(), sentence.getText());
+        batch.add(new Row(language, match, context, smallContext, nowDate, sentence));
+        if (batch.size() >= batchSize) {
+          submitBatch();
         }
 
         checkMaxErrors(++errorCount);
@@ -140,7 +136,38 @@ class DatabaseHandler extends ResultHandler {
     }
   }
 
-  private void executeBatch() throws SQLException {
+  private void throwOnWriteError() throws SQLException {
+    Exception e = writeError.get();
+    if (e != null) {
+      throw new SQLException("Writing matches to the database failed", e);
+    }
+  }
+
+  /**
+   * Hand the collected rows to the writer, waiting if it's too far behind.
+   */
+  private void submitBatch() throws InterruptedException {
+    List<Row> rows = batch;
+    batch = new ArrayList<>();
+    pendingBatches.acquire();
+    writer.execute(() -> {
+      try {
+        if (writeError.get() == null) {
+          executeBatch(rows);
+        }
+      } catch (Exception e) {
+        writeError.compareAndSet(null, e);
+      } finally {
+        pendingBatches.release();
+      }
+    });
+  }
+
+  private void executeBatch(List<Row> rows) throws SQLException {
+    for (Row row : rows) {
+      row.setParameters(insertSt);
+      insertSt.addBatch();
+    }
     boolean autoCommit = conn.getAutoCommit();
     conn.setAutoCommit(false);
     try {
@@ -155,14 +182,70 @@ class DatabaseHandler extends ResultHandler {
 
   @Override
   public void close() throws Exception {
-    if (insertSt != null) {
-      if (batchCount > 0) {
-        executeBatch();
+    try {
+      if (!batch.isEmpty()) {
+        submitBatch();
+      }
+      writer.shutdown();
+      if (!writer.awaitTermination(10, TimeUnit.MINUTES)) {
+        throw new SQLException("Timeout writing the remaining matches to the database");
+      }
+      throwOnWriteError();
+    } finally {
+      if (insertSt != null) {
+        insertSt.close();
+      }
+      if (conn != null) {
+        conn.close();
       }
-      insertSt.close();
     }
-    if (conn != null) {
-      conn.close();
+  }
+
+  private static class Row {
+    private final String languageCode;
+    private final String ruleId;
+    private final String category;
+    private final String subId;
+    private final String description;
+    private final String message;
+    private final String context;
+    private final String smallContext;
+    private final java.sql.Date date;
+    private final String url;
+    private final String source;
+
+    Row(Language language, RuleMatch match, String context, String smallContext, java.sql.Date date, Sentence sentence) {
+      Rule rule = match.getRule();
+      this.languageCode = language.getShortCode();
+      this.ruleId = rule.getId();
+      this.category = rule.getCategory().getName();
+      this.subId = rule instanceof AbstractPatternRule ? ((AbstractPatternRule) rule).getSubId() : null;
+      this.description = rule.getDescription();
+      this.message = StringUtils.abbreviate(match.getMessage(), 255);
+      this.context = context;
+      this.smallContext = StringUtils.abbreviate(smallContext, 255);
+      this.date = date;
+      this.url = sentence.getUrl();
+      this.source = sentence.getSource();
+    }
+
+    void setParameters(PreparedStatement st) throws SQLException {
+      st.setString(1, languageCode);
+      st.setString(2, ruleId);
+      st.setString(3, category);
+      if (subId != null) {
+        st.setString(4, subId);
+      } else {
+        st.setNull(4, Types.VARCHAR);
+      }
+      st.setString(5, description);
+      st.setString(6, message);
+      st.setString(7, context);
+      st.setString(8, smallContext);
+      st.setDate(9, date);  // should actually be the dump's date, but isn't really used anyway...
+      st.setDate(10, date);
+      st.setString(11, url);
+      st.setString(12, source);
     }
   }
 
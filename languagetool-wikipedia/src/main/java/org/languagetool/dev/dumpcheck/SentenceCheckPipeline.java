@@ -0,0 +1,263 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.dev.dumpcheck;
+
+import org.apache.commons.lang3.StringUtils;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.rules.RuleMatch;
+
+import java.io.IOException;
+import java.text.NumberFormat;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks the sentences of a {@link SentenceSource} in parallel: one thread reads the sentences
+ * and groups them into batches, several workers check these batches, each with its own
+ * {@link JLanguageTool}, and the calling thread passes the results to a {@link ResultHandler}
+ * in the order of the sentences in the source.
+ * @since 5.6
+ */
+class SentenceCheckPipeline {
+
+  private static final int PROGRESS_INTERVAL = 5000;
+  private static final int SKIP_PROGRESS_INTERVAL = 5000;
+
+  interface LanguageToolFactory {
+    /**
+     * @param worker the number of the worker that will use the instance, starting at 0
+     */
+    JLanguageTool create(int worker) throws IOException;
+  }
+
+  private final LanguageToolFactory ltFactory;
+  private final int workerCount;
+  private final int batchSize;
+  private final int sentencesToSkip;
+
+  private int sentenceCount;
+  private int ruleMatchCount;
+
+  SentenceCheckPipeline(LanguageToolFactory ltFactory, int workerCount, int batchSize, int sentencesToSkip) {
+    if (workerCount < 1) {
+      throw new IllegalArgumentException("workerCount must be >= 1: " + workerCount);
+    }
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize must be >= 1: " + batchSize);
+    }
+    this.ltFactory = Objects.requireNonNull(ltFactory);
+    this.workerCount = workerCount;
+    this.batchSize = batchSize;
+    this.sentencesToSkip = sentencesToSkip;
+  }
+
+  /**
+   * Check all sentences of {@code source}. Stops early if {@code resultHandler} throws an exception,
+   * e.g. because a sentence or error limit has been reached, or if checking a sentence fails.
+   */
+  void run(SentenceSource source, ResultHandler resultHandler, Language language) throws InterruptedException {
+    // limits the sentences that have been read but not handled yet, including those waiting to be handled in order:
+    Semaphore inFlight = new Semaphore(workerCount * 4);
+    BlockingQueue<Batch> input = new ArrayBlockingQueue<>(workerCount * 2);
+    BlockingQueue<Batch> output = new LinkedBlockingQueue<>();
+    Thread reader = new Thread(() -> read(source, input, output, inFlight), "sentence-reader");
+    reader.setDaemon(true);
+    AtomicInteger threadCount = new AtomicInteger();
+    ExecutorService workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+      Thread thread = new Thread(runnable, "sentence-checker-" + threadCount.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+    long startTime = System.nanoTime();
+    try {
+      for (int i = 0; i < workerCount; i++) {
+        int worker = i;
+        workers.submit(() -> check(worker, input, output));
+      }
+      reader.start();
+      handleInOrder(output, resultHandler, language, inFlight, startTime);
+    } finally {
+      reader.interrupt();
+      // the reader is a daemon thread, so don't wait forever if the source blocks without noticing the interrupt:
+      reader.join(TimeUnit.MINUTES.toMillis(1));
+      // a worker might miss the interrupt if checking a sentence swallows it, so also tell them to stop:
+      input.clear();
+      for (int i = 0; i < workerCount; i++) {
+        input.offer(Batch.END_OF_INPUT);
+      }
+      workers.shutdownNow();
+      workers.awaitTermination(1, TimeUnit.MINUTES);
+    }
+    long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime));
+    System.err.printf(Locale.ENGLISH, "%s sentences checked in %ds (%.1f sentences/s)\n",
+      format(sentenceCount), seconds, (float) sentenceCount / seconds);
+  }
+
+  int getSentenceCount() {
+    return sentenceCount;
+  }
+
+  int getRuleMatchCount() {
+    return ruleMatchCount;
+  }
+
+  private void read(SentenceSource source, BlockingQueue<Batch> input, BlockingQueue<Batch> output, Semaphore inFlight) {
+    int batchCount = 0;
+    Throwable error = null;
+    try {
+      int skipCount = 0;
+      List<Sentence> sentences = new ArrayList<>(batchSize);
+      while (source.hasNext()) {
+        Sentence sentence = source.next();
+        if (skipCount < sentencesToSkip) {
+          if (Thread.interrupted()) {
+            return;  // the result handler has stopped
+          }
+          if (skipCount % SKIP_PROGRESS_INTERVAL == 0) {
+            System.err.printf("%s sentences skipped...\n", format(skipCount));
+          }
+          if (++skipCount == sentencesToSkip) {
+            System.err.println("Done skipping " + sentencesToSkip + " sentences.");
+          }
+          continue;
+        }
+        sentences.add(sentence);
+        if (sentences.size() == batchSize) {
+          inFlight.acquire();
+          input.put(new Batch(batchCount++, sentences));
+          sentences = new ArrayList<>(batchSize);
+        }
+      }
+      if (!sentences.isEmpty()) {
+        inFlight.acquire();
+        input.put(new Batch(batchCount++, sentences));
+      }
+    } catch (InterruptedException e) {
+      return;  // the result handler has stopped
+    } catch (Throwable e) {
+      // also errors like StackOverflowError, the result handler waits for this thread's last batch:
+      error = e;
+    }
+    // the number of batches tells the result handler when it's done:
+    output.add(new Batch(batchCount, null).failed(error, null));
+    try {
+      for (int i = 0; i < workerCount; i++) {
+        input.put(Batch.END_OF_INPUT);
+      }
+    } catch (InterruptedException ignored) {
+      // the result handler has stopped
+    }
+  }
+
+  private void check(int worker, BlockingQueue<Batch> input, BlockingQueue<Batch> output) {
+    JLanguageTool lt;
+    try {
+      lt = ltFactory.create(worker);
+    } catch (Exception e) {
+      output.add(new Batch(-1, Collections.emptyList()).failed(e, null));
+      return;
+    }
+    try {
+      while (true) {
+        Batch batch = input.take();
+        if (batch == Batch.END_OF_INPUT) {
+          return;
+        }
+        for (Sentence sentence : batch.sentences) {
+          try {
+            batch.matches.add(lt.check(sentence.getText()));
+          } catch (Exception | StackOverflowError e) {
+            batch.failed(e, sentence);
+            break;
+          }
+        }
+        output.add(batch);
+      }
+    } catch (InterruptedException ignored) {
+      // the result handler has stopped
+    }
+  }
+
+  private void handleInOrder(BlockingQueue<Batch> output, ResultHandler resultHandler, Language language,
+                             Semaphore inFlight, long startTime) throws InterruptedException {
+    Map<Integer, Batch> waiting = new HashMap<>();
+    int next = 0;
+    int total = Integer.MAX_VALUE;
+    while (next < total) {
+      Batch batch = output.take();
+      if (batch.error != null) {
+        String message = batch.failedSentence != null ?
+          "Check failed on sentence: " + StringUtils.abbreviate(batch.failedSentence.getText(), 250) :
+          "Could not " + (batch.sentences == null ? "read sentences" : "create a checker");
+        throw new RuntimeException(message, batch.error);
+      }
+      if (batch.sentences == null) {
+        total = batch.number;
+        continue;
+      }
+      waiting.put(batch.number, batch);
+      while ((batch = waiting.remove(next)) != null) {
+        for (int i = 0; i < batch.sentences.size(); i++) {
+          List<RuleMatch> matches = batch.matches.get(i);
+          resultHandler.handleResult(batch.sentences.get(i), matches, language);
+          ruleMatchCount += matches.size();
+          if (++sentenceCount % PROGRESS_INTERVAL == 0) {
+            float seconds = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)) / 1000f;
+            System.err.printf(Locale.ENGLISH, "%s sentences checked (%.1f sentences/s)...\n", format(sentenceCount), sentenceCount / seconds);
+          }
+        }
+        inFlight.release();
+        next++;
+      }
+    }
+  }
+
+  private static String format(int number) {
+    return NumberFormat.getNumberInstance(Locale.US).format(number);
+  }
+
+  /**
+   * Consecutive sentences of the source and, once checked, their matches. The last batch sent by the reader
+   * has no sentences, its number is the number of batches.
+   */
+  private static class Batch {
+    static final Batch END_OF_INPUT = new Batch(-1, Collections.emptyList());
+
+    final int number;
+    final List<Sentence> sentences;
+    final List<List<RuleMatch>> matches;
+    Throwable error;
+    Sentence failedSentence;
+
+    Batch(int number, List<Sentence> sentences) {
+      this.number = number;
+      this.sentences = sentences;
+      this.matches = sentences == null ? null : new ArrayList<>(sentences.size());
+    }
+
+    Batch failed(Throwable error, Sentence sentence) {
+      this.error = error;
+      this.failedSentence = sentence;
+      return this;
+    }
+  }
+
+}
@@ -29,7 +29,6 @@ import org.languagetool.rules.patterns.AbstractPatternRule;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.text.NumberFormat;
 import java.util.*;
 import java.util.regex.Pattern;
 
@@ -124,6 +123,10 @@ public class SentenceSourceChecker {
             .desc("Activate only rules from this XML file (e.g. 'grammar.xml')").build());
     options.addOption(Option.builder().longOpt("skip").hasArg()
             .desc("Skip this many sentences from input before actually checking sentences").build());
+    options.addOption(Option.builder().longOpt("threads").argName("number").hasArg()
+            .desc("number of threads that check sentences, each with its own LanguageTool instance (default: number of processors)").build());
+    options.addOption(Option.builder().longOpt("batch-size").argName("number").hasArg()
+            .desc("number of sentences a thread checks at once (default: 100)").build());
     options.addOption(Option.builder().longOpt("print-duration")
             .desc("Print the duration of analysis in milliseconds").build());
     options.addOption(Option.builder().longOpt("nerUrl").argName("url").hasArg()
@@ -146,16 +149,11 @@ public class SentenceSourceChecker {
                    int maxSentences, int maxErrors, int contextSize,
                    CommandLine options) throws IOException {
     long startTime = System.currentTimeMillis();
-    String[] ruleIds = options.hasOption('r') ? options.getOptionValue('r').split(",") : null;
-    String[] additionalCategoryIds = options.hasOption("also-enable-categories") ? options.getOptionValue("also-enable-categories").split(",") : null;
     String[] fileNames = options.getOptionValues('f');
-    File languageModelDir = options.hasOption("languagemodel") ? new File(options.getOptionValue("languagemodel")) : null;
-    File word2vecModelDir = options.hasOption("word2vecmodel") ? new File(options.getOptionValue("word2vecmodel")) : null;
-    File neuralNetworkModelDir = options.hasOption("neuralnetworkmodel") ? new File(options.getOptionValue("neuralnetworkmodel")) : null;
-    File remoteRules = options.hasOption("remoterules") ? new File(options.getOptionValue("remoterules")) : null;
     Pattern filter = options.hasOption("filter") ? Pattern.compile(options.getOptionValue("filter")) : null;
-    String ruleSource = options.hasOption("rulesource") ? options.getOptionValue("rulesource") : null;
     int sentencesToSkip = options.hasOption("skip") ? Integer.parseInt(options.getOptionValue("skip")) : 0;
+    int threads = options.hasOption("threads") ? Integer.parseInt(options.getOptionValue("threads")) : Runtime.getRuntime().availableProcessors();
+    int batchSize = Integer.parseInt(options.getOptionValue("batch-size", "100"));
     Language lang = Languages.getLanguageForShortCode(langCode);
     Language motherTongue = motherTongueCode != null ? Languages.getLanguageForShortCode(motherTongueCode) : null;
     GlobalConfig globalConfig = new GlobalConfig();
@@ -163,7 +161,67 @@ public class SentenceSourceChecker {
       System.out.println("Using NER service: " + options.getOptionValue("nerUrl"));
       globalConfig.setNERUrl(options.getOptionValue("nerUrl"));
     }
-    MultiThreadedJLanguageTool lt = new MultiThreadedJLanguageTool(lang, motherTongue, -1, globalConfig, null);
+    // the first instance shows the configuration, the other workers' instances are configured the same way:
+    JLanguageTool firstLt = createLanguageTool(lang, motherTongue, globalConfig, disabledRules, options, true);
+    SentenceCheckPipeline pipeline = new SentenceCheckPipeline(
+      worker -> worker == 0 ? firstLt : createLanguageTool(lang, motherTongue, globalConfig, disabledRules, options, false),
+      threads, batchSize, sentencesToSkip);
+    if (filter != null) {
+      System.out.println("*** NOTE: only sentences that match regular expression '" + filter + "' will be checked");
+    }
+    System.out.println("Working on: " + StringUtils.join(fileNames, ", "));
+    System.out.println("Sentence limit: " + (maxSentences > 0 ? maxSentences : "no limit"));
+    System.out.println("Context size: " + contextSize);
+    System.out.println("Error limit: " + (maxErrors > 0 ? maxErrors : "no limit"));
+    System.out.println("Skip: " + sentencesToSkip);
+    System.out.println("Threads: " + threads);
+    //System.out.println("Version: " + JLanguageTool.VERSION + " (" + JLanguageTool.BUILD_DATE + ")");
+
+    ResultHandler resultHandler = null;
+    int ignoredCount = 0;
+    try {
+      if (propFile != null) {
+        resultHandler = new DatabaseHandler(propFile, maxSentences, maxErrors);
+      } else {
+        resultHandler = new StdoutHandler(maxSentences, maxErrors, contextSize);
+      }
+      MixingSentenceSource mixingSource = MixingSentenceSource.create(Arrays.asList(fileNames), lang, filter);
+      pipeline.run(mixingSource, resultHandler, lang);
+      ignoredCount = mixingSource.getIgnoredCount();
+    } catch (DocumentLimitReachedException | ErrorLimitReachedException e) {
+      System.out.println(getClass().getSimpleName() + ": " + e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } finally {
+      if (resultHandler != null) {
+        float matchesPerSentence = (float)pipeline.getRuleMatchCount() / pipeline.getSentenceCount();
+        System.out.printf(lang + ": %d total matches\n", pipeline.getRuleMatchCount());
+        System.out.printf(Locale.ENGLISH, lang + ": ø%.2f rule matches per sentence\n", matchesPerSentence);
+        System.out.printf(Locale.ENGLISH, lang + ": %d input lines ignored (e.g. not between %d and %d chars or at least %d tokens)\n", ignoredCount, 
+          SentenceSource.MIN_SENTENCE_LENGTH, SentenceSource.MAX_SENTENCE_LENGTH, SentenceSource.MIN_SENTENCE_TOKEN_COUNT);
+        if (options.hasOption("print-duration")) {
+          System.out.println("The analysis took " + (System.currentTimeMillis() - startTime) + "ms");
+        }
+        try {
+          resultHandler.close();
+        } catch (Exception e) {
+          e.printStackTrace();
+        }
+      }
+    }
+  }
+
+  private static JLanguageTool createLanguageTool(Language lang, Language motherTongue, GlobalConfig globalConfig,
+                                                  Set<String> disabledRules, CommandLine options, boolean verbose) throws IOException {
+    String[] ruleIds = options.hasOption('r') ? options.getOptionValue('r').split(",") : null;
+    String[] additionalCategoryIds = options.hasOption("also-enable-categories") ? options.getOptionValue("also-enable-categories").split(",") : null;
+    File languageModelDir = options.hasOption("languagemodel") ? new File(options.getOptionValue("languagemodel")) : null;
+    File word2vecModelDir = options.hasOption("word2vecmodel") ? new File(options.getOptionValue("word2vecmodel")) : null;
+    File neuralNetworkModelDir = options.hasOption("neuralnetworkmodel") ? new File(options.getOptionValue("neuralnetworkmodel")) : null;
+    File remoteRules = options.hasOption("remoterules") ? new File(options.getOptionValue("remoterules")) : null;
+    String ruleSource = options.hasOption("rulesource") ? options.getOptionValue("rulesource") : null;
+    JLanguageTool lt = new JLanguageTool(lang, Collections.emptyList(), motherTongue, null, globalConfig, null);
     lt.setCleanOverlappingMatches(false);
     if (languageModelDir != null) {
       lt.activateLanguageModelRules(languageModelDir);
@@ -177,7 +235,9 @@ public class SentenceSourceChecker {
     int activatedBySource = 0;
     for (Rule rule : lt.getAllRules()) {
       if (rule.isDefaultTempOff()) {
-        System.out.println("Activating " + rule.getFullId() + ", which is default='temp_off'");
+        if (verbose) {
+          System.out.println("Activating " + rule.getFullId() + ", which is default='temp_off'");
+        }
         lt.enableRule(rule.getId());
       }
       if (ruleSource != null) {
@@ -199,101 +259,38 @@ public class SentenceSourceChecker {
     lt.activateRemoteRules(remoteRules);
     if (ruleSource == null) {
       if (ruleIds != null) {
-        enableOnlySpecifiedRules(ruleIds, lt);
+        enableOnlySpecifiedRules(ruleIds, lt, verbose);
       } else {
-        applyRuleDeactivation(lt, disabledRules);
+        applyRuleDeactivation(lt, disabledRules, verbose);
       }
-    } else {
+    } else if (verbose) {
       System.out.println("Activated " + activatedBySource + " rules from " + ruleSource);
     }
-    if (filter != null) {
-      System.out.println("*** NOTE: only sentences that match regular expression '" + filter + "' will be checked");
-    }
-    activateAdditionalCategories(additionalCategoryIds, lt);
+    activateAdditionalCategories(additionalCategoryIds, lt, verbose);
     if (options.hasOption("spelling")) {
-      System.out.println("Spelling rules active: yes (only if you're using a language code like en-US which comes with spelling)");
+      if (verbose) {
+        System.out.println("Spelling rules active: yes (only if you're using a language code like en-US which comes with spelling)");
+      }
     } else if (ruleIds == null) {
       disableSpellingRules(lt);
-      System.out.println("Spelling rules active: no");
-    }
-    System.out.println("Working on: " + StringUtils.join(fileNames, ", "));
-    System.out.println("Sentence limit: " + (maxSentences > 0 ? maxSentences : "no limit"));
-    System.out.println("Context size: " + contextSize);
-    System.out.println("Error limit: " + (maxErrors > 0 ? maxErrors : "no limit"));
-    System.out.println("Skip: " + sentencesToSkip);
-    //System.out.println("Version: " + JLanguageTool.VERSION + " (" + JLanguageTool.BUILD_DATE + ")");
-
-    ResultHandler resultHandler = null;
-    int ruleMatchCount = 0;
-    int sentenceCount = 0;
-    int skipCount = 0;
-    int ignoredCount = 0;
-    boolean skipMessageShown = false;
-    try {
-      if (propFile != null) {
-        resultHandler = new DatabaseHandler(propFile, maxSentences, maxErrors);
-      } else {
-        resultHandler = new StdoutHandler(maxSentences, maxErrors, contextSize);
-      }
-      MixingSentenceSource mixingSource = MixingSentenceSource.create(Arrays.asList(fileNames), lang, filter);
-      while (mixingSource.hasNext()) {
-        Sentence sentence = mixingSource.next();
-        if (sentencesToSkip > 0 && skipCount < sentencesToSkip) {
-          if (skipCount % 5000 == 0) {
-            System.err.printf("%s sentences skipped...\n", NumberFormat.getNumberInstance(Locale.US).format(skipCount));
-          }
-          skipCount++;
-          continue;
-        } else if (sentencesToSkip > 0 && !skipMessageShown) {
-          System.err.println("Done skipping " + sentencesToSkip + " sentences.");
-          skipMessageShown = true;
-        }
-        try {
-          List<RuleMatch> matches = lt.check(sentence.getText());
-          resultHandler.handleResult(sentence, matches, lang);
-          sentenceCount++;
-          if (sentenceCount % 5000 == 0) {
-            System.err.printf("%s sentences checked...\n", NumberFormat.getNumberInstance(Locale.US).format(sentenceCount));
-          }
-          ruleMatchCount += matches.size();
-        } catch (DocumentLimitReachedException | ErrorLimitReachedException e) {
-          throw e;
-        } catch (Exception e) {
-          throw new RuntimeException("Check failed on sentence: " + StringUtils.abbreviate(sentence.getText(), 250), e);
-        }
-      }
-      ignoredCount = mixingSource.getIgnoredCount();
-    } catch (DocumentLimitReachedException | ErrorLimitReachedException e) {
-      System.out.println(getClass().getSimpleName() + ": " + e);
-    } finally {
-      lt.shutdown();
-      if (resultHandler != null) {
-        float matchesPerSentence = (float)ruleMatchCount / sentenceCount;
-        System.out.printf(lang + ": %d total matches\n", ruleMatchCount);
-        System.out.printf(Locale.ENGLISH, lang + ": ø%.2f rule matches per sentence\n", matchesPerSentence);
-        System.out.printf(Locale.ENGLISH, lang + ": %d input lines ignored (e.g. not between %d and %d chars or at least %d tokens)\n", ignoredCount, 
-          SentenceSource.MIN_SENTENCE_LENGTH, SentenceSource.MAX_SENTENCE_LENGTH, SentenceSource.MIN_SENTENCE_TOKEN_COUNT);
-        if (options.hasOption("print-duration")) {
-          System.out.println("The analysis took " + (System.currentTimeMillis() - startTime) + "ms");
-        }
-        try {
-          resultHandler.close();
-        } catch (Exception e) {
-          e.printStackTrace();
-        }
+      if (verbose) {
+        System.out.println("Spelling rules active: no");
       }
     }
+    return lt;
   }
 
-  private static void enableOnlySpecifiedRules(String[] ruleIds, JLanguageTool lt) {
+  private static void enableOnlySpecifiedRules(String[] ruleIds, JLanguageTool lt, boolean verbose) {
     for (Rule rule : lt.getAllRules()) {
       lt.disableRule(rule.getId());
     }
     for (String ruleId : ruleIds) {
       lt.enableRule(ruleId);
     }
-    warnOnNonExistingRuleIds(ruleIds, lt);
-    System.out.println("Only these rules are enabled: " + Arrays.toString(ruleIds));
+    if (verbose) {
+      warnOnNonExistingRuleIds(ruleIds, lt);
+      System.out.println("Only these rules are enabled: " + Arrays.toString(ruleIds));
+    }
   }
 
   private static void warnOnNonExistingRuleIds(String[] ruleIds, JLanguageTool lt) {
@@ -311,21 +308,25 @@ public class SentenceSourceChecker {
     }
   }
 
-  private static void applyRuleDeactivation(JLanguageTool lt, Set<String> disabledRules) {
+  private static void applyRuleDeactivation(JLanguageTool lt, Set<String> disabledRules, boolean verbose) {
     // disabled via config file, usually to avoid too many false alarms:
     for (String disabledRuleId : disabledRules) {
       lt.disableRule(disabledRuleId);
     }
-    System.out.println("These rules are disabled: " + lt.getDisabledRules());
+    if (verbose) {
+      System.out.println("These rules are disabled: " + lt.getDisabledRules());
+    }
   }
 
-  private static void activateAdditionalCategories(String[] additionalCategoryIds, JLanguageTool lt) {
+  private static void activateAdditionalCategories(String[] additionalCategoryIds, JLanguageTool lt, boolean verbose) {
     if (additionalCategoryIds != null) {
       for (String categoryId : additionalCategoryIds) {
         for (Rule rule : lt.getAllRules()) {
           CategoryId id = rule.getCategory().getId();
           if (id != null && id.toString().equals(categoryId)) {
-            System.out.println("Activating " + rule.getId() + " in category " + categoryId);
+            if (verbose) {
+              System.out.println("Activating " + rule.getId() + " in category " + categoryId);
+            }
             lt.enableRule(rule.getId());
           }
         }
@@ -0,0 +1,162 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.dev.dumpcheck;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.language.GermanyGerman;
+import org.languagetool.rules.RuleMatch;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.*;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class DatabaseHandlerTest {
+
+  private static final Language LANG = new GermanyGerman();
+  private static final String DB_URL = "jdbc:hsqldb:mem:corpusmatchtest";
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private Connection conn;
+  private JLanguageTool lt;
+
+  @Before
+  public void setUp() throws SQLException {
+    // keeps the in-memory database alive between the handler's connections:
+    conn = DriverManager.getConnection(DB_URL, "SA", "");
+    lt = new JLanguageTool(LANG);
+    for (org.languagetool.rules.Rule rule : lt.getAllRules()) {
+      lt.disableRule(rule.getId());
+    }
+    lt.enableRule("WHITESPACE_RULE");
+  }
+
+  @After
+  public void tearDown() throws SQLException {
+    try (Statement st = conn.createStatement()) {
+      st.execute("DROP TABLE IF EXISTS corpus_match");
+    }
+    conn.close();
+  }
+
+  @Test
+  public void testRowsAreWrittenOnClose() throws Exception {
+    createTable(255);
+    DatabaseHandler handler = new DatabaseHandler(propertiesFile(3), 0, 0);
+    for (int i = 0; i < 10; i++) {
+      handleSentence(handler, i);
+    }
+    handler.close();
+    assertEquals(10, countRows());
+    try (Statement st = conn.createStatement();
+         ResultSet rs = st.executeQuery("SELECT ruleid, language_code, small_error_context FROM corpus_match WHERE sourceuri = 'url7'")) {
+      assertTrue(rs.next());
+      assertEquals("WHITESPACE_RULE", rs.getString(1));
+      assertEquals("de", rs.getString(2));
+      assertTrue(rs.getString(3).contains("<err>"));
+    }
+  }
+
+  @Test
+  public void testWriteErrorFailsClose() throws Exception {
+    createTable(5);  // too short for the rule id, so every insert fails
+    DatabaseHandler handler = new DatabaseHandler(propertiesFile(1), 0, 0);
+    handleSentence(handler, 0);
+    try {
+      handler.close();
+      fail();
+    } catch (SQLException e) {
+      assertEquals("Writing matches to the database failed", e.getMessage());
+      assertTrue(e.getCause() instanceof SQLException);
+    }
+    assertEquals(0, countRows());
+  }
+
+  @Test(timeout = 60_000)
+  public void testWriteErrorFailsNextResult() throws Exception {
+    createTable(5);
+    DatabaseHandler handler = new DatabaseHandler(propertiesFile(1), 0, 0);
+    try {
+      // the batch is written in the background, so the error shows up with one of the next sentences:
+      for (int i = 0; ; i++) {
+        handleSentence(handler, i);
+        Thread.sleep(10);
+      }
+    } catch (RuntimeException e) {
+      assertTrue(e.getMessage().startsWith("Error storing matches for "));
+      assertEquals("Writing matches to the database failed", e.getCause().getMessage());
+    }
+    try {
+      handler.close();
+      fail();
+    } catch (SQLException expected) {
+    }
+  }
+
+  private void handleSentence(DatabaseHandler handler, int i) throws IOException {
+    Sentence sentence = new Sentence("Das ist der Satz  Nummer " + i + ".", "test", "title" + i, "url" + i, i);
+    List<RuleMatch> matches = lt.check(sentence.getText());
+    assertEquals(1, matches.size());
+    handler.handleResult(sentence, matches, LANG);
+  }
+
+  private void createTable(int ruleIdLength) throws SQLException {
+    try (Statement st = conn.createStatement()) {
+      st.execute("CREATE TABLE corpus_match (id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, version INT, " +
+        "language_code VARCHAR(5), ruleid VARCHAR(" + ruleIdLength + "), rule_category VARCHAR(255), rule_subid VARCHAR(255), " +
+        "rule_description VARCHAR(255), message VARCHAR(255), error_context VARCHAR(500), small_error_context VARCHAR(255), " +
+        "corpus_date DATE, check_date DATE, sourceuri VARCHAR(255), source_type VARCHAR(255), is_visible INT)");
+    }
+  }
+
+  private int countRows() throws SQLException {
+    try (Statement st = conn.createStatement();
+         ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM corpus_match")) {
+      rs.next();
+      return rs.getInt(1);
+    }
+  }
+
+  private File propertiesFile(int batchSize) throws IOException {
+    Properties props = new Properties();
+    props.setProperty("dbUrl", DB_URL);
+    props.setProperty("dbUser", "SA");
+    props.setProperty("dbPassword", "");
+    props.setProperty("batchSize", String.valueOf(batchSize));
+    File file = tempFolder.newFile("db.properties");
+    try (OutputStream out = new FileOutputStream(file)) {
+      props.store(out, null);
+    }
+    return file;
+  }
+
+}
@@ -0,0 +1,183 @@
+/* LanguageTool, a natural language style checker
+ * Copyright (C) 2021 Daniel Naber (http://www.danielnaber.de)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+package org.languagetool.dev.dumpcheck;
+
+import org.junit.Test;
+import org.languagetool.JLanguageTool;
+import org.languagetool.Language;
+import org.languagetool.language.GermanyGerman;
+import org.languagetool.rules.Rule;
+import org.languagetool.rules.RuleMatch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SentenceCheckPipelineTest {
+
+  private static final Language LANG = new GermanyGerman();
+
+  @Test
+  public void testResultsAreInOrder() throws Exception {
+    CollectingHandler handler = new CollectingHandler(0, 0);
+    SentenceCheckPipeline pipeline = new SentenceCheckPipeline(worker -> languageTool(), 4, 3, 0);
+    pipeline.run(new ListSentenceSource(sentences(100)), handler, LANG);
+    assertEquals(sentences(100), handler.texts);
+    assertEquals(100, pipeline.getSentenceCount());
+    assertEquals(50, pipeline.getRuleMatchCount());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i % 2 == 0 ? 1 : 0, (int) handler.matchCounts.get(i));
+    }
+  }
+
+  @Test
+  public void testSkip() throws Exception {
+    CollectingHandler handler = new CollectingHandler(0, 0);
+    new SentenceCheckPipeline(worker -> languageTool(), 2, 5, 30).run(new ListSentenceSource(sentences(100)), handler, LANG);
+    assertEquals(sentences(100).subList(30, 100), handler.texts);
+  }
+
+  @Test
+  public void testSentenceLimit() throws Exception {
+    CollectingHandler handler = new CollectingHandler(25, 0);
+    try {
+      new SentenceCheckPipeline(worker -> languageTool(), 4, 2, 0).run(new ListSentenceSource(sentences(1000)), handler, LANG);
+      fail();
+    } catch (DocumentLimitReachedException expected) {
+    }
+    assertEquals(sentences(25), handler.texts);
+  }
+
+  @Test
+  public void testErrorLimit() throws Exception {
+    CollectingHandler handler = new CollectingHandler(0, 10);
+    try {
+      new SentenceCheckPipeline(worker -> languageTool(), 4, 2, 0).run(new ListSentenceSource(sentences(1000)), handler, LANG);
+      fail();
+    } catch (ErrorLimitReachedException expected) {
+    }
+    assertEquals(sentences(19), handler.texts);
+  }
+
+  @Test
+  public void testFailingCheck() throws Exception {
+    SentenceCheckPipeline pipeline = new SentenceCheckPipeline(worker -> new JLanguageTool(LANG) {
+      @Override
+      public List<RuleMatch> check(String text) {
+        throw new IllegalStateException("test");
+      }
+    }, 2, 2, 0);
+    try {
+      pipeline.run(new ListSentenceSource(sentences(10)), new CollectingHandler(0, 0), LANG);
+      fail();
+    } catch (RuntimeException e) {
+      assertTrue(e.getMessage().startsWith("Check failed on sentence: "));
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+  }
+
+  @Test(timeout = 60_000)
+  public void testFailingSource() throws Exception {
+    SentenceCheckPipeline pipeline = new SentenceCheckPipeline(worker -> languageTool(), 2, 2, 0);
+    ListSentenceSource source = new ListSentenceSource(sentences(10)) {
+      @Override
+      public Sentence next() {
+        throw new StackOverflowError("test");
+      }
+    };
+    try {
+      pipeline.run(source, new CollectingHandler(0, 0), LANG);
+      fail();
+    } catch (RuntimeException e) {
+      assertEquals("Could not read sentences", e.getMessage());
+      assertTrue(e.getCause() instanceof StackOverflowError);
+    }
+  }
+
+  private static JLanguageTool languageTool() {
+    JLanguageTool lt = new JLanguageTool(LANG);
+    for (Rule rule : lt.getAllRules()) {
+      lt.disableRule(rule.getId());
+    }
+    lt.enableRule("WHITESPACE_RULE");
+    return lt;
+  }
+
+  /**
+   * Every second sentence has an error.
+   */
+  private static List<String> sentences(int count) {
+    List<String> result = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      result.add("Das ist der Satz" + (i % 2 == 0 ? "  " : " ") + "Nummer " + i + ".");
+    }
+    return result;
+  }
+
+  private static class ListSentenceSource extends SentenceSource {
+    private final Iterator<String> sentences;
+
+    ListSentenceSource(List<String> sentences) {
+      super(LANG);
+      this.sentences = sentences.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return sentences.hasNext();
+    }
+
+    @Override
+    public Sentence next() {
+      return new Sentence(sentences.next(), getSource(), "title", "url", 0);
+    }
+
+    @Override
+    public String getSource() {
+      return "test";
+    }
+  }
+
+  private static class CollectingHandler extends ResultHandler {
+    private final List<String> texts = new ArrayList<>();
+    private final List<Integer> matchCounts = new ArrayList<>();
+
+    CollectingHandler(int maxSentences, int maxErrors) {
+      super(maxSentences, maxErrors);
+    }
+
+    @Override
+    protected void handleResult(Sentence sentence, List<RuleMatch> ruleMatches, Language language) {
+      texts.add(sentence.getText());
+      matchCounts.add(ruleMatches.size());
+      for (RuleMatch ignored : ruleMatches) {
+        checkMaxErrors(++errorCount);
+      }
+      checkMaxSentences(++sentenceCount);
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+}